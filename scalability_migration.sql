@@ -0,0 +1,155 @@
+-- VaultX Scalability Migration
+-- Replaces table-scanning ID generation and other per-request aggregates with
+-- allocation structures that stay O(1) as the ledger grows.
+-- Safe to re-run, and runs on both the setup_database.sql schema and the one
+-- AuthService creates: each ALTER is skipped when its column or index exists.
+
+USE vaultx;
+
+-- 1. Hi/lo sequence table for block-allocated IDs
+CREATE TABLE IF NOT EXISTS id_sequences (
+    sequence_name VARCHAR(50) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
+
+-- 2. Time-ordered transaction IDs (T-<epoch millis><sequence>)
+-- Schemas created from setup_database.sql have no transaction_id column yet;
+-- the schema AuthService creates already has it as the primary key.
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'transactions' AND COLUMN_NAME = 'transaction_id') = 0,
+    'ALTER TABLE transactions ADD COLUMN transaction_id VARCHAR(50) NULL AFTER id, ADD UNIQUE INDEX idx_tx_transaction_id (transaction_id)',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- History pages on (timestamp, transaction_id), so the column must identify every
+-- row. Rows written before it existed get a legacy ID built from their primary
+-- key (zero-padded, so legacy IDs sort in insertion order), then it becomes
+-- NOT NULL. Skipped once the column is NOT NULL, which it always is on the
+-- AuthService schema.
+SET @backfill = (SELECT COUNT(*) FROM information_schema.COLUMNS
+     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'transactions' AND COLUMN_NAME = 'transaction_id'
+       AND IS_NULLABLE = 'YES') > 0;
+
+SET @ddl = IF(@backfill,
+    'UPDATE transactions SET transaction_id = CONCAT(''T-LEGACY-'', LPAD(id, 20, ''0'')) WHERE transaction_id IS NULL',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF(@backfill,
+    'ALTER TABLE transactions MODIFY COLUMN transaction_id VARCHAR(50) NOT NULL',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+INSERT IGNORE INTO id_sequences (sequence_name, next_value) VALUES ('transactions', 1);
+
+-- 3. Account number sequence (AC-xxxxx), seeded past every number already issued
+INSERT INTO id_sequences (sequence_name, next_value)
+SELECT 'accounts', GREATEST(COALESCE(MAX(CAST(SUBSTRING(account_number, 4) AS UNSIGNED)), 0) + 1, 10001)
+FROM accounts WHERE account_number LIKE 'AC-%'
+ON DUPLICATE KEY UPDATE next_value = GREATEST(next_value, VALUES(next_value));
+
+-- 4. Customer account_id counter for the keyed 6-digit permutation
+-- Seeded from the existing customer count. IDs issued by the old random
+-- generator stay valid; createCustomer steps over any that the permutation
+-- happens to reproduce, using the UNIQUE index instead of SELECT probes.
+INSERT INTO id_sequences (sequence_name, next_value)
+SELECT 'customer_account_ids', COUNT(*) FROM customers
+ON DUPLICATE KEY UPDATE next_value = GREATEST(next_value, VALUES(next_value));
+
+-- 5. Row version for optimistic-concurrency transfers
+-- Every balance write bumps it; optimistic transfers only apply when it is unchanged.
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'accounts' AND COLUMN_NAME = 'version') = 0,
+    'ALTER TABLE accounts ADD COLUMN version BIGINT NOT NULL DEFAULT 0 AFTER balance',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 6. Striped balances for hot credit targets (merchant / fee collection accounts)
+-- Full balance = accounts.balance + SUM(stripes). Credits go to a random stripe
+-- row; debits and consolidation lock the base row. Flag an account with e.g.
+--   UPDATE accounts SET stripe_count = 8 WHERE account_number = 'AC-10001';
+-- Stripe rows are created on first credit. Aggregate reports that SUM(balance)
+-- over accounts see stripe credits once they are consolidated (every minute).
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'accounts' AND COLUMN_NAME = 'stripe_count') = 0,
+    'ALTER TABLE accounts ADD COLUMN stripe_count INT NOT NULL DEFAULT 0 AFTER version',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+CREATE TABLE IF NOT EXISTS account_balance_stripes (
+    account_number VARCHAR(20) NOT NULL,
+    stripe INT NOT NULL,
+    balance DECIMAL(18, 4) NOT NULL DEFAULT 0.0000,
+    PRIMARY KEY (account_number, stripe),
+    FOREIGN KEY (account_number) REFERENCES accounts(account_number) ON DELETE CASCADE
+);
+
+-- 7. Idempotency keys for retried money movement
+-- Each deposit, withdrawal or transfer writes its request key on one ledger row;
+-- the unique index turns a second posting of the same request into a no-op.
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'transactions' AND COLUMN_NAME = 'idempotency_key') = 0,
+    'ALTER TABLE transactions ADD COLUMN idempotency_key VARCHAR(64) NULL, ADD UNIQUE INDEX idx_tx_idempotency_key (idempotency_key)',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 8. Event-sourced ledger (LEDGER_ENGINE=event-sourced)
+-- ledger_postings is the append-only source of truth: one signed row per account
+-- leg, inserted in posting_id order and never updated. accounts.balance becomes a
+-- projection refreshed in the background. Each account's balance is its latest
+-- snapshot plus the postings after it; posting_id 0 snapshots are the balances
+-- the account had when it first joined the postings ledger.
+CREATE TABLE IF NOT EXISTS ledger_postings (
+    posting_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    account_number VARCHAR(20) NOT NULL,
+    amount DECIMAL(18, 4) NOT NULL,
+    posting_type VARCHAR(20) NOT NULL,
+    transaction_id VARCHAR(50) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_postings_account (account_number, posting_id)
+);
+
+CREATE TABLE IF NOT EXISTS account_balance_snapshots (
+    account_number VARCHAR(20) NOT NULL,
+    posting_id BIGINT NOT NULL,
+    balance DECIMAL(18, 4) NOT NULL,
+    taken_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (account_number, posting_id)
+);
+
+-- 9. Per-account history indexes
+-- History and "today" queries run as a UNION ALL of an outgoing branch
+-- (from_account = ?) and an incoming branch (to_account = ?), each a range scan
+-- already in timestamp order. Rows sharing a timestamp are ordered by
+-- transaction_id, which section 2 makes unique and NOT NULL; the cursors page
+-- on (timestamp, transaction_id).
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'transactions' AND INDEX_NAME = 'idx_tx_from_time') = 0,
+    'ALTER TABLE transactions ADD INDEX idx_tx_from_time (from_account, timestamp)',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'transactions' AND INDEX_NAME = 'idx_tx_to_time') = 0,
+    'ALTER TABLE transactions ADD INDEX idx_tx_to_time (to_account, timestamp)',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Success message
+SELECT 'VaultX Scalability Migration Complete!' AS Status;
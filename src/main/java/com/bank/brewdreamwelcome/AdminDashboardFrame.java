@@ -1,9 +1,12 @@
 package com.bank.brewdreamwelcome;
 
+import com.bank.brewdreamwelcome.config.Workload;
 import com.bank.brewdreamwelcome.core.ThemeManager;
 import com.bank.brewdreamwelcome.core.SessionManager;
 import com.bank.brewdreamwelcome.service.AccountApprovalService;
 import com.bank.brewdreamwelcome.service.AccountApprovalService.PendingAccount;
+import com.bank.brewdreamwelcome.service.AdminMetricsService;
+import com.bank.brewdreamwelcome.service.CustomerBankingService;
 import com.bank.brewdreamwelcome.ui.views.ModernLoginView;
 import net.miginfocom.swing.MigLayout;
 
@@ -12,6 +15,9 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -29,6 +35,7 @@ import java.sql.Timestamp;
 public class AdminDashboardFrame extends JFrame {
 
     private final AccountApprovalService approvalService = AccountApprovalService.getInstance();
+    private final AdminMetricsService metricsService = AdminMetricsService.getInstance();
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd MMM yyyy HH:mm");
     
     private JPanel contentPanel;
@@ -144,25 +151,17 @@ public class AdminDashboardFrame extends JFrame {
         title.setFont(new Font("Inter", Font.BOLD, 28));
         panel.add(title, "span, wrap, gapbottom 30");
         
-        // Stats
-        int pendingCount = approvalService.getPendingAccounts().size();
-        int totalCustomers = 0;
-        double totalReserves = 0.0;
-        
-        try (Connection conn = com.bank.brewdreamwelcome.config.DatabaseConfig.getConnection()) {
-            ResultSet rs = conn.createStatement().executeQuery("SELECT COUNT(*) FROM customers");
-            if (rs.next()) totalCustomers = rs.getInt(1);
-            
-            rs = conn.createStatement().executeQuery("SELECT SUM(balance) FROM accounts");
-            if (rs.next()) totalReserves = rs.getDouble(1);
-        } catch (Exception e) { e.printStackTrace(); }
+        // Stats, from one cached snapshot shared with every other admin screen
+        AdminMetricsService.Overview overview = metricsService.getOverview();
+        long pendingCount = overview.pendingApprovals();
+        long totalCustomers = overview.totalCustomers();
 
         panel.add(createStatCard("Pending Approvals", String.valueOf(pendingCount), 
             pendingCount > 0 ? ThemeManager.DANGER_RED : ThemeManager.SUCCESS_GREEN));
             
         panel.add(createStatCard("Total Customers", String.valueOf(totalCustomers), ThemeManager.ACCENT_BLUE));
         
-        panel.add(createStatCard("Total Reserves", "$" + String.format("%,.2f", totalReserves), new Color(245, 158, 11)));
+        panel.add(createStatCard("Total Reserves", "$" + overview.totalReserves().format(), new Color(245, 158, 11)));
         
         return panel;
     }
@@ -244,7 +243,7 @@ public class AdminDashboardFrame extends JFrame {
         DefaultTableModel model = new DefaultTableModel(cols, 0);
         
         String sql = "SELECT id, name, email, account_id, account_status, created_at FROM customers ORDER BY created_at DESC";
-        try (Connection conn = com.bank.brewdreamwelcome.config.DatabaseConfig.getConnection();
+        try (Connection conn = com.bank.brewdreamwelcome.config.DatabaseConfig.getReadConnection(Workload.REPORTING);
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
             
@@ -271,7 +270,7 @@ public class AdminDashboardFrame extends JFrame {
     // ================== TRANSACTIONS PANEL ==================
     
     private JPanel createTransactionsPanel() {
-        JPanel panel = new JPanel(new MigLayout("fill, insets 30", "[grow, fill]", "[][grow]"));
+        JPanel panel = new JPanel(new MigLayout("fill, insets 30", "[grow, fill]", "[][][grow]"));
         panel.setBackground(ThemeManager.getBackground());
         
         JLabel title = new JLabel("System Transactions");
@@ -281,8 +280,62 @@ public class AdminDashboardFrame extends JFrame {
         String[] cols = {"ID", "Type", "From Account", "To Account", "Amount ($)", "Date", "Description"};
         DefaultTableModel model = new DefaultTableModel(cols, 0);
         
+        // Search bar: words of the description, note or tag; optional account and period
+        JTextField queryField = new JTextField();
+        queryField.putClientProperty("JTextField.placeholderText", "Search description, note or tag");
+        JTextField accountField = new JTextField();
+        accountField.putClientProperty("JTextField.placeholderText", "Account number");
+        JComboBox<String> periodCombo = new JComboBox<>(new String[]{"Any time", "Today", "Last 7 days", "Last 30 days", "Last year"});
+        JButton searchBtn = new JButton("Search");
+        
+        JPanel searchBar = new JPanel(new MigLayout("insets 0", "[grow, fill][180!][140!][]"));
+        searchBar.setOpaque(false);
+        searchBar.add(queryField, "height 36!");
+        searchBar.add(accountField, "height 36!");
+        searchBar.add(periodCombo, "height 36!");
+        searchBar.add(searchBtn, "height 36!");
+        panel.add(searchBar, "wrap, gapbottom 10");
+        
+        Runnable search = () -> {
+            String query = queryField.getText().trim();
+            if (query.isEmpty()) {
+                loadRecentTransactions(model);
+                return;
+            }
+            String account = accountField.getText().trim();
+            List<CustomerBankingService.TransactionRecord> results = CustomerBankingService.getInstance()
+                    .searchTransactions(query, account.isEmpty() ? null : List.of(account),
+                            periodStart((String) periodCombo.getSelectedItem()), null, 100);
+            model.setRowCount(0);
+            for (CustomerBankingService.TransactionRecord tx : results) {
+                model.addRow(new Object[]{
+                    tx.id,
+                    tx.type,
+                    tx.fromAccount,
+                    tx.toAccount,
+                    String.format("%,.2f", tx.amount),
+                    tx.timestamp != null ? dateFormat.format(tx.timestamp) : "",
+                    tx.description
+                });
+            }
+        };
+        searchBtn.addActionListener(e -> search.run());
+        queryField.addActionListener(e -> search.run());
+        
+        loadRecentTransactions(model);
+        
+        JTable table = new JTable(model);
+        table.setRowHeight(30);
+        table.setFont(new Font("Inter", Font.PLAIN, 12));
+        
+        panel.add(new JScrollPane(table), "grow");
+        return panel;
+    }
+    
+    private void loadRecentTransactions(DefaultTableModel model) {
+        model.setRowCount(0);
         String sql = "SELECT * FROM transactions ORDER BY timestamp DESC LIMIT 100";
-        try (Connection conn = com.bank.brewdreamwelcome.config.DatabaseConfig.getConnection();
+        try (Connection conn = com.bank.brewdreamwelcome.config.DatabaseConfig.getReadConnection(Workload.REPORTING);
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
             
@@ -298,13 +351,21 @@ public class AdminDashboardFrame extends JFrame {
                 });
             }
         } catch (Exception e) { e.printStackTrace(); }
-        
-        JTable table = new JTable(model);
-        table.setRowHeight(30);
-        table.setFont(new Font("Inter", Font.PLAIN, 12));
-        
-        panel.add(new JScrollPane(table), "grow");
-        return panel;
+    }
+    
+    /**
+     * Start of a search period picked in the transactions panel, or null for any time.
+     */
+    private static Instant periodStart(String period) {
+        LocalDate today = LocalDate.now();
+        LocalDate start = switch (period) {
+            case "Today" -> today;
+            case "Last 7 days" -> today.minusDays(6);
+            case "Last 30 days" -> today.minusDays(29);
+            case "Last year" -> today.minusYears(1);
+            default -> null;
+        };
+        return start == null ? null : start.atStartOfDay(ZoneId.systemDefault()).toInstant();
     }
     
     // ================== HELPERS ==================
@@ -6,6 +6,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import org.mindrot.jbcrypt.BCrypt;
+import com.bank.brewdreamwelcome.metrics.MetricsRegistry;
+import com.bank.brewdreamwelcome.metrics.Timer;
 
 
 public final class AuthService {
@@ -44,6 +46,8 @@ public final class AuthService {
         initializeDatabase();
     }
 
+    private static final Timer AUTHENTICATE_TIMER = MetricsRegistry.serviceTimer(AuthService.class, "authenticate");
+
     private AuthService() {
     }
 
@@ -54,6 +58,10 @@ public final class AuthService {
      * - For customers: account_id (6-digit), email, username, or id_card_number
      */
     public static AuthResult authenticate(String identifier, String password) {
+        return AUTHENTICATE_TIMER.time(() -> checkCredentials(identifier, password), result -> result.success);
+    }
+
+    private static AuthResult checkCredentials(String identifier, String password) {
         if (identifier == null || identifier.isBlank()) {
             return AuthResult.failure("Username/Account ID is required", "MISSING_ID");
         }
@@ -108,6 +116,9 @@ public final class AuthService {
                     return AuthResult.failure("Account not found. Please check your details.", "ACCOUNT_NOT_FOUND");
                 }
             }
+        } catch (com.bank.brewdreamwelcome.config.DatabaseOverloadedException ex) {
+            LoggerUtil.warn("Login turned away: " + ex.getMessage());
+            return AuthResult.failure(ex.getUserMessage(), "SYSTEM_BUSY");
         } catch (SQLException ex) {
             LoggerUtil.error("Error finding customer: " + ex.getMessage(), ex);
             return AuthResult.failure("A system error occurred. Please try again later.", "SYSTEM_ERROR");
@@ -195,7 +206,9 @@ public final class AuthService {
                     + "account_number VARCHAR(20) UNIQUE NOT NULL, "
                     + "customer_id INT NOT NULL, "
                     + "account_type VARCHAR(20) NOT NULL, " // e.g., SAVINGS, CURRENT
-                    + "balance DECIMAL(15,2) DEFAULT 0.00, "
+                    + "balance DECIMAL(18,4) DEFAULT 0.0000, "
+                    + "version BIGINT NOT NULL DEFAULT 0, " // bumped by every balance write
+                    + "stripe_count INT NOT NULL DEFAULT 0, " // > 0 splits credits across stripe rows
                     + "branch_name VARCHAR(100) DEFAULT 'Main Branch', "
                     + "is_active BOOLEAN DEFAULT TRUE, "
                     + "opened_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
@@ -208,9 +221,43 @@ public final class AuthService {
                     + "transaction_type VARCHAR(20) NOT NULL, "
                     + "from_account VARCHAR(20), "
                     + "to_account VARCHAR(20), "
-                    + "amount DECIMAL(15,2) NOT NULL, "
+                    + "amount DECIMAL(18,4) NOT NULL, "
                     + "timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
-                    + "description TEXT)");
+                    + "description TEXT, "
+                    + "idempotency_key VARCHAR(64) NULL, " // one per client request
+                    + "UNIQUE INDEX idx_tx_idempotency_key (idempotency_key), "
+                    + "INDEX idx_tx_timestamp (timestamp), "
+                    + "INDEX idx_tx_from_time (from_account, timestamp), " // history: outgoing branch
+                    + "INDEX idx_tx_to_time (to_account, timestamp))"); // history: incoming branch
+
+            // Create hi/lo sequence table used for ID block allocation
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS id_sequences ("
+                    + "sequence_name VARCHAR(50) PRIMARY KEY, "
+                    + "next_value BIGINT NOT NULL)");
+
+            // Create stripe rows for hot accounts that take concurrent credits
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS account_balance_stripes ("
+                    + "account_number VARCHAR(20) NOT NULL, "
+                    + "stripe INT NOT NULL, "
+                    + "balance DECIMAL(18,4) NOT NULL DEFAULT 0.0000, "
+                    + "PRIMARY KEY (account_number, stripe))");
+
+            // Create the append-only postings ledger and its balance snapshots
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS ledger_postings ("
+                    + "posting_id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "account_number VARCHAR(20) NOT NULL, "
+                    + "amount DECIMAL(18,4) NOT NULL, " // signed: credits positive, debits negative
+                    + "posting_type VARCHAR(20) NOT NULL, "
+                    + "transaction_id VARCHAR(50) NOT NULL, "
+                    + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+                    + "INDEX idx_postings_account (account_number, posting_id))");
+
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS account_balance_snapshots ("
+                    + "account_number VARCHAR(20) NOT NULL, "
+                    + "posting_id BIGINT NOT NULL, " // last posting included in the balance
+                    + "balance DECIMAL(18,4) NOT NULL, "
+                    + "taken_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+                    + "PRIMARY KEY (account_number, posting_id))");
 
             // Insert default admin accounts if not exist
             createDefaultAdmin(con, "admin", "admin123");  // PRIMARY ADMIN
@@ -1,9 +1,30 @@
 package com.bank.brewdreamwelcome;
 
+import com.bank.brewdreamwelcome.config.Workload;
+import com.bank.brewdreamwelcome.metrics.MetricsRegistry;
+import com.bank.brewdreamwelcome.metrics.Timer;
+import com.bank.brewdreamwelcome.repository.AccountRepository;
+import com.bank.brewdreamwelcome.repository.AccountRepositoryImpl;
+import com.bank.brewdreamwelcome.repository.TransactionRepository;
+import com.bank.brewdreamwelcome.repository.TransactionRepository.HistoryCursor;
+import com.bank.brewdreamwelcome.service.AccountCache;
+import com.bank.brewdreamwelcome.service.AccountNumberAllocator;
+import com.bank.brewdreamwelcome.service.CustomerSnapshotService;
+import com.bank.brewdreamwelcome.service.IntradayMetrics;
+import com.bank.brewdreamwelcome.service.TransactionIdGenerator;
+import com.bank.brewdreamwelcome.service.TransactionRetryExecutor;
+import com.bank.brewdreamwelcome.service.TransactionRetryExecutor.IdempotencyKey;
+
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * Database-backed service for bank accounts and transactions.
@@ -13,6 +34,24 @@ public class BankDatabaseService {
 
     private static final BankDatabaseService INSTANCE = new BankDatabaseService();
 
+    private final AccountCache accountCache = AccountCache.getInstance();
+    private final AccountRepository accountRepository = new AccountRepositoryImpl();
+    private final TransactionRepository transactionRepository = new TransactionRepository();
+    private final TransactionRetryExecutor retryExecutor = TransactionRetryExecutor.getInstance();
+    private final IntradayMetrics metrics = IntradayMetrics.getInstance();
+    private final CustomerSnapshotService snapshots = CustomerSnapshotService.getInstance();
+
+    /** Upper bound on transfers locked and committed together by transferBatch. */
+    private static final int MAX_TRANSFER_BATCH = 500;
+
+    private static final Timer SNAPSHOT_TIMER = timer("getCustomerSnapshot");
+    private static final Timer TRANSACTIONS_PAGE_TIMER = timer("getCustomerTransactionsPage");
+    private static final Timer TRANSFER_BATCH_TIMER = timer("transferBatch");
+
+    private static Timer timer(String method) {
+        return MetricsRegistry.serviceTimer(BankDatabaseService.class, method);
+    }
+
     public static BankDatabaseService getInstance() {
         return INSTANCE;
     }
@@ -25,35 +64,10 @@ public class BankDatabaseService {
      */
     public List<BankAccount> getCustomerAccounts(Integer customerId) {
         List<BankAccount> accounts = new ArrayList<>();
-        String sql = "SELECT a.*, c.name, c.email, c.id_card_number FROM accounts a " +
-                "JOIN customers c ON a.customer_id = c.id " +
-                "WHERE a.customer_id = ? AND a.is_active = TRUE";
-
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(sql)) {
-            ps.setInt(1, customerId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    String accountNumber = rs.getString("account_number");
-                    AccountType type = AccountType.valueOf(rs.getString("account_type"));
-                    double balance = rs.getDouble("balance");
-                    String branchName = rs.getString("branch_name");
-                    boolean isActive = rs.getBoolean("is_active");
-
-                    // Create customer object for the account
-                    Customer customer = new Customer(
-                            customerId,
-                            String.valueOf(customerId), // Account ID not strictly needed here or same as ID
-                            rs.getString("id_card_number"),
-                            rs.getString("name"),
-                            rs.getString("email"),
-                            null, // Phone not fetched
-                            null); // Address not fetched
-
-                    BankAccount account = new BankAccount(accountNumber, customer, type, balance, branchName);
-                    account.setActive(isActive);
-
-                    accounts.add(account);
+        try {
+            for (AccountCache.AccountState state : accountCache.getCustomerAccounts(customerId)) {
+                if (state.active()) {
+                    accounts.add(toBankAccount(state));
                 }
             }
         } catch (SQLException ex) {
@@ -66,17 +80,14 @@ public class BankDatabaseService {
      * Gets the total balance for a customer across all their accounts.
      */
     public double getCustomerTotalBalance(Integer customerId) {
-        String sql = "SELECT COALESCE(SUM(balance), 0) as total FROM accounts " +
-                "WHERE customer_id = ? AND is_active = TRUE";
-
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(sql)) {
-            ps.setInt(1, customerId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble("total");
+        try {
+            double total = 0.0;
+            for (AccountCache.AccountState state : accountCache.getCustomerAccounts(customerId)) {
+                if (state.active()) {
+                    total += state.balance();
                 }
             }
+            return total;
         } catch (SQLException ex) {
             LoggerUtil.error("Error getting customer balance: " + ex.getMessage(), ex);
         }
@@ -91,7 +102,7 @@ public class BankDatabaseService {
         String sql = "SELECT DISTINCT account_type FROM accounts " +
                 "WHERE customer_id = ? AND is_active = TRUE";
 
-        try (Connection con = DatabaseUtil.getConnection();
+        try (Connection con = DatabaseUtil.getReadConnection(customerId);
                 PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setInt(1, customerId);
             try (ResultSet rs = ps.executeQuery()) {
@@ -112,114 +123,99 @@ public class BankDatabaseService {
     }
 
     /**
-     * Gets all transactions for a customer's accounts.
+     * One page of a customer's transaction history, newest first.
+     *
+     * @param next cursor for the following page, or null if this is the last one
      */
-    public List<BankTransaction> getCustomerTransactions(Integer customerId) {
-        List<BankTransaction> transactions = new ArrayList<>();
+    public record TransactionPage(List<BankTransaction> transactions, HistoryCursor next) {
+        public boolean hasMore() {
+            return next != null;
+        }
+    }
 
-        // First get all account numbers for this customer
-        List<String> accountNumbers = new ArrayList<>();
-        String accountSql = "SELECT account_number FROM accounts WHERE customer_id = ?";
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(accountSql)) {
-            ps.setInt(1, customerId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    accountNumbers.add(rs.getString("account_number"));
-                }
-            }
+    /**
+     * Gets one page of the transactions on a customer's accounts, with their
+     * recorded timestamps. Pass null for the first page and the returned
+     * {@code next} cursor for each following one.
+     */
+    public TransactionPage getCustomerTransactionsPage(Integer customerId, HistoryCursor after, int limit) {
+        return TRANSACTIONS_PAGE_TIMER.time(() -> readCustomerTransactionsPage(customerId, after, limit));
+    }
+
+    private TransactionPage readCustomerTransactionsPage(Integer customerId, HistoryCursor after, int limit) {
+        List<BankTransaction> transactions = new ArrayList<>(limit);
+        HistoryCursor next = null;
+        try (Connection con = DatabaseUtil.getReadConnection(customerId)) {
+            next = transactionRepository.streamByCustomer(con, customerId, after, limit,
+                    tx -> transactions.add(toBankTransaction(tx)));
         } catch (SQLException ex) {
-            LoggerUtil.error("Error getting account numbers: " + ex.getMessage(), ex);
-            return transactions;
+            LoggerUtil.error("Error getting customer transactions: " + ex.getMessage(), ex);
         }
+        return new TransactionPage(transactions, next);
+    }
 
-        if (accountNumbers.isEmpty()) {
-            return transactions;
-        }
+    private static BankTransaction toBankTransaction(TransactionRepository.Transaction tx) {
+        return new BankTransaction(tx.id(), TransactionType.fromColumn(tx.type()), tx.fromAccount(),
+                tx.toAccount(), tx.amount().toDouble(), tx.description(), tx.timestamp());
+    }
 
-        // Build query with placeholders for account numbers
-        String placeholders = String.join(",", Collections.nCopies(accountNumbers.size(), "?"));
-        String sql = "SELECT * FROM transactions " +
-                "WHERE from_account IN (" + placeholders + ") OR to_account IN (" + placeholders + ") " +
-                "ORDER BY timestamp DESC";
+    /**
+     * Everything the customer dashboard shows: active accounts, their total
+     * balance and types, today's transaction count and the first page of history.
+     */
+    public record CustomerSnapshot(List<BankAccount> accounts, double totalBalance, String accountTypes,
+                                   long transactionsToday, TransactionPage firstPage) {}
 
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(sql)) {
-            int paramIndex = 1;
-            for (String accNum : accountNumbers) {
-                ps.setString(paramIndex++, accNum);
+    /**
+     * Gets the customer's dashboard in one database round trip, or none if
+     * nothing on their accounts has been committed since it was last read.
+     *
+     * @param pageSize rows in the first page of history
+     */
+    public CustomerSnapshot getCustomerSnapshot(Integer customerId, int pageSize) {
+        return SNAPSHOT_TIMER.time(() -> loadCustomerSnapshot(customerId, pageSize));
+    }
+
+    private CustomerSnapshot loadCustomerSnapshot(Integer customerId, int pageSize) {
+        try {
+            CustomerSnapshotService.Snapshot snapshot = snapshots.get(customerId, pageSize);
+            Customer customer = new Customer(customerId, snapshot.customerAccountId(), snapshot.idCardNumber(),
+                    snapshot.name(), snapshot.email(), null, null);
+
+            List<BankAccount> accounts = new ArrayList<>(snapshot.accounts().size());
+            for (CustomerSnapshotService.AccountSummary summary : snapshot.accounts()) {
+                BankAccount account = new BankAccount(summary.accountNumber(), customer,
+                        AccountType.valueOf(summary.accountType()), summary.balance().toDouble(),
+                        summary.branchName());
+                account.setActive(true);
+                accounts.add(account);
             }
-            for (String accNum : accountNumbers) {
-                ps.setString(paramIndex++, accNum);
+
+            List<String> types = new ArrayList<>(snapshot.accountTypes().size());
+            for (String type : snapshot.accountTypes()) {
+                types.add(AccountType.valueOf(type).getDisplayName());
             }
 
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    String txId = rs.getString("transaction_id");
-                    TransactionType type = TransactionType.valueOf(rs.getString("transaction_type"));
-                    String fromAccount = rs.getString("from_account");
-                    String toAccount = rs.getString("to_account");
-                    double amount = rs.getDouble("amount");
-                    String description = rs.getString("description");
-
-                    // Create transaction object
-                    BankTransaction tx = new BankTransaction(
-                            txId, type, fromAccount, toAccount, amount, description);
-                    // Note: BankTransaction uses LocalDateTime.now() in constructor
-                    // We'll need to handle this differently or modify BankTransaction
-                    transactions.add(tx);
-                }
+            List<BankTransaction> transactions = new ArrayList<>(snapshot.history().size());
+            for (TransactionRepository.Transaction tx : snapshot.history()) {
+                transactions.add(toBankTransaction(tx));
             }
+
+            return new CustomerSnapshot(accounts, snapshot.totalBalance().toDouble(),
+                    types.isEmpty() ? "No accounts" : String.join(", ", types),
+                    snapshot.transactionsToday(), new TransactionPage(transactions, snapshot.next()));
         } catch (SQLException ex) {
-            LoggerUtil.error("Error getting customer transactions: " + ex.getMessage(), ex);
+            LoggerUtil.error("Error getting customer snapshot: " + ex.getMessage(), ex);
         }
-
-        return transactions;
+        return new CustomerSnapshot(List.of(), 0.0, "No accounts", 0, new TransactionPage(List.of(), null));
     }
 
     /**
      * Gets count of transactions made today by the customer.
      */
     public long getCustomerTransactionsTodayCount(Integer customerId) {
-        List<String> accountNumbers = new ArrayList<>();
-        String accountSql = "SELECT account_number FROM accounts WHERE customer_id = ?";
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(accountSql)) {
-            ps.setInt(1, customerId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    accountNumbers.add(rs.getString("account_number"));
-                }
-            }
-        } catch (SQLException ex) {
-            LoggerUtil.error("Error getting account numbers: " + ex.getMessage(), ex);
-            return 0;
-        }
-
-        if (accountNumbers.isEmpty()) {
-            return 0;
-        }
-
-        String placeholders = String.join(",", Collections.nCopies(accountNumbers.size(), "?"));
-        String sql = "SELECT COUNT(*) as count FROM transactions " +
-                "WHERE (from_account IN (" + placeholders + ") OR to_account IN (" + placeholders + ")) " +
-                "AND DATE(timestamp) = CURDATE()";
-
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(sql)) {
-            int paramIndex = 1;
-            for (String accNum : accountNumbers) {
-                ps.setString(paramIndex++, accNum);
-            }
-            for (String accNum : accountNumbers) {
-                ps.setString(paramIndex++, accNum);
-            }
-
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getLong("count");
-                }
-            }
+        try {
+            return metrics.getCustomerTransactionsTodayCount(customerId);
         } catch (SQLException ex) {
             LoggerUtil.error("Error getting today's transaction count: " + ex.getMessage(), ex);
         }
@@ -230,34 +226,10 @@ public class BankDatabaseService {
      * Finds an account by account number.
      */
     public BankAccount findAccount(String accountNumber) {
-        String sql = "SELECT a.*, c.id as customer_id, c.account_id, c.id_card_number, c.name, c.email FROM accounts a "
-                +
-                "JOIN customers c ON a.customer_id = c.id " +
-                "WHERE a.account_number = ? AND a.is_active = TRUE";
-
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(sql)) {
-            ps.setString(1, accountNumber);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    AccountType type = AccountType.valueOf(rs.getString("account_type"));
-                    double balance = rs.getDouble("balance");
-                    String branchName = rs.getString("branch_name");
-                    boolean isActive = rs.getBoolean("is_active");
-
-                    Customer customer = new Customer(
-                            rs.getInt("customer_id"),
-                            rs.getString("account_id"),
-                            rs.getString("id_card_number"),
-                            rs.getString("name"),
-                            rs.getString("email"),
-                            null, // Phone not fetched
-                            null); // Address not fetched
-
-                    BankAccount account = new BankAccount(accountNumber, customer, type, balance, branchName);
-                    account.setActive(isActive);
-                    return account;
-                }
+        try {
+            AccountCache.AccountState state = accountCache.getAccount(accountNumber);
+            if (state != null && state.active()) {
+                return toBankAccount(state);
             }
         } catch (SQLException ex) {
             LoggerUtil.error("Error finding account: " + ex.getMessage(), ex);
@@ -265,18 +237,53 @@ public class BankDatabaseService {
         return null;
     }
 
+    private BankAccount toBankAccount(AccountCache.AccountState state) {
+        Customer customer = new Customer(
+                state.customerId(),
+                state.customerAccountId(),
+                state.idCardNumber(),
+                state.customerName(),
+                state.customerEmail(),
+                null, // Phone not fetched
+                null); // Address not fetched
+
+        BankAccount account = new BankAccount(state.accountNumber(), customer,
+                AccountType.valueOf(state.accountType()), state.balance(), state.branchName());
+        account.setActive(state.active());
+        return account;
+    }
+
     /**
      * Deposits money into an account.
      */
     public boolean deposit(String accountNumber, double amount, String description) {
+        return deposit(accountNumber, amount, description, null);
+    }
+
+    /**
+     * Deposits money into an account, retrying on deadlocks and lock wait timeouts.
+     * Calls repeated with the same idempotency key post at most once.
+     */
+    public boolean deposit(String accountNumber, double amount, String description, String idempotencyKey) {
         if (amount <= 0) {
             return false;
         }
 
-        String updateSql = "UPDATE accounts SET balance = balance + ? WHERE account_number = ? AND is_active = TRUE";
-        String insertSql = "INSERT INTO transactions(transaction_id, transaction_type, to_account, amount, description) "
+        try {
+            return retryExecutor.execute("Deposit", IdempotencyKey.of(idempotencyKey),
+                    key -> depositOnce(accountNumber, Money.of(amount), description, key));
+        } catch (SQLException ex) {
+            LoggerUtil.error("Error depositing money: " + ex.getMessage(), ex);
+            return false;
+        }
+    }
+
+    private boolean depositOnce(String accountNumber, Money amount, String description, String idempotencyKey)
+            throws SQLException {
+        String updateSql = "UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE account_number = ? AND is_active = TRUE";
+        String insertSql = "INSERT INTO transactions(transaction_id, transaction_type, to_account, amount, description, idempotency_key) "
                 +
-                "VALUES (?, 'DEPOSIT', ?, ?, ?)";
+                "VALUES (?, 'DEPOSIT', ?, ?, ?, ?)";
 
         try (Connection con = DatabaseUtil.getConnection()) {
             con.setAutoCommit(false);
@@ -285,7 +292,7 @@ public class BankDatabaseService {
                     PreparedStatement insertPs = con.prepareStatement(insertSql)) {
 
                 // Update balance
-                updatePs.setDouble(1, amount);
+                amount.bind(updatePs, 1);
                 updatePs.setString(2, accountNumber);
                 int rowsUpdated = updatePs.executeUpdate();
 
@@ -295,23 +302,22 @@ public class BankDatabaseService {
                 }
 
                 // Record transaction
-                String txId = generateTransactionId(con);
+                String txId = TransactionIdGenerator.nextId();
                 insertPs.setString(1, txId);
                 insertPs.setString(2, accountNumber);
-                insertPs.setDouble(3, amount);
+                amount.bind(insertPs, 3);
                 insertPs.setString(4, description != null ? description : "Deposit");
+                insertPs.setString(5, idempotencyKey);
                 insertPs.executeUpdate();
 
-                con.commit();
-                LoggerUtil.info("Deposit of PKR " + amount + " to account " + accountNumber);
+                accountCache.commitAndPublish(con, accountCache.captureWrite(con, accountNumber));
+                metrics.recordTransaction("DEPOSIT", null, accountNumber, amount);
+                LoggerUtil.info("Deposit of PKR " + amount.format() + " to account " + accountNumber);
                 return true;
             } catch (SQLException e) {
                 con.rollback();
                 throw e;
             }
-        } catch (SQLException ex) {
-            LoggerUtil.error("Error depositing money: " + ex.getMessage(), ex);
-            return false;
         }
     }
 
@@ -319,29 +325,33 @@ public class BankDatabaseService {
      * Withdraws money from an account.
      */
     public boolean withdraw(String accountNumber, double amount, String description) {
+        return withdraw(accountNumber, amount, description, null);
+    }
+
+    /**
+     * Withdraws money from an account, retrying on deadlocks and lock wait timeouts.
+     * Calls repeated with the same idempotency key post at most once.
+     */
+    public boolean withdraw(String accountNumber, double amount, String description, String idempotencyKey) {
         if (amount <= 0) {
             return false;
         }
 
-        // Check balance first
-        String checkSql = "SELECT balance FROM accounts WHERE account_number = ? AND is_active = TRUE";
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement checkPs = con.prepareStatement(checkSql)) {
-            checkPs.setString(1, accountNumber);
-            try (ResultSet rs = checkPs.executeQuery()) {
-                if (!rs.next() || rs.getDouble("balance") < amount) {
-                    return false; // Insufficient balance or account not found
-                }
-            }
+        try {
+            return retryExecutor.execute("Withdrawal", IdempotencyKey.of(idempotencyKey),
+                    key -> withdrawOnce(accountNumber, Money.of(amount), description, key));
         } catch (SQLException ex) {
-            LoggerUtil.error("Error checking balance: " + ex.getMessage(), ex);
+            LoggerUtil.error("Error withdrawing money: " + ex.getMessage(), ex);
             return false;
         }
+    }
 
-        String updateSql = "UPDATE accounts SET balance = balance - ? WHERE account_number = ? AND is_active = TRUE";
-        String insertSql = "INSERT INTO transactions(transaction_id, transaction_type, from_account, amount, description) "
+    private boolean withdrawOnce(String accountNumber, Money amount, String description, String idempotencyKey)
+            throws SQLException {
+        String updateSql = "UPDATE accounts SET balance = balance - ?, version = version + 1 WHERE account_number = ? AND is_active = TRUE";
+        String insertSql = "INSERT INTO transactions(transaction_id, transaction_type, from_account, amount, description, idempotency_key) "
                 +
-                "VALUES (?, 'WITHDRAW', ?, ?, ?)";
+                "VALUES (?, 'WITHDRAW', ?, ?, ?, ?)";
 
         try (Connection con = DatabaseUtil.getConnection()) {
             con.setAutoCommit(false);
@@ -349,8 +359,15 @@ public class BankDatabaseService {
             try (PreparedStatement updatePs = con.prepareStatement(updateSql);
                     PreparedStatement insertPs = con.prepareStatement(insertSql)) {
 
+                // Check balance (including stripe credits) under the row lock
+                Money balance = lockBalanceForDebit(con, accountNumber);
+                if (balance == null || balance.isLessThan(amount)) {
+                    con.rollback();
+                    return false; // Insufficient balance or account not found
+                }
+
                 // Update balance
-                updatePs.setDouble(1, amount);
+                amount.bind(updatePs, 1);
                 updatePs.setString(2, accountNumber);
                 int rowsUpdated = updatePs.executeUpdate();
 
@@ -360,23 +377,22 @@ public class BankDatabaseService {
                 }
 
                 // Record transaction
-                String txId = generateTransactionId(con);
+                String txId = TransactionIdGenerator.nextId();
                 insertPs.setString(1, txId);
                 insertPs.setString(2, accountNumber);
-                insertPs.setDouble(3, amount);
+                amount.bind(insertPs, 3);
                 insertPs.setString(4, description != null ? description : "Withdrawal");
+                insertPs.setString(5, idempotencyKey);
                 insertPs.executeUpdate();
 
-                con.commit();
-                LoggerUtil.info("Withdrawal of PKR " + amount + " from account " + accountNumber);
+                accountCache.commitAndPublish(con, accountCache.captureWrite(con, accountNumber));
+                metrics.recordTransaction("WITHDRAW", accountNumber, null, amount);
+                LoggerUtil.info("Withdrawal of PKR " + amount.format() + " from account " + accountNumber);
                 return true;
             } catch (SQLException e) {
                 con.rollback();
                 throw e;
             }
-        } catch (SQLException ex) {
-            LoggerUtil.error("Error withdrawing money: " + ex.getMessage(), ex);
-            return false;
         }
     }
 
@@ -384,30 +400,43 @@ public class BankDatabaseService {
      * Transfers money between accounts.
      */
     public boolean transfer(String fromAccountNumber, String toAccountNumber, double amount, String description) {
-        if (amount <= 0 || fromAccountNumber.equals(toAccountNumber)) {
+        return transfer(fromAccountNumber, toAccountNumber, amount, description, null);
+    }
+
+    /**
+     * Transfers money between accounts, retrying on deadlocks and lock wait timeouts.
+     * Calls repeated with the same idempotency key post at most once.
+     */
+    public boolean transfer(String fromAccountNumber, String toAccountNumber, double amount, String description,
+            String idempotencyKey) {
+        try {
+            return transferOrThrow(fromAccountNumber, toAccountNumber, amount, description, idempotencyKey);
+        } catch (SQLException ex) {
+            LoggerUtil.error("Error transferring money: " + ex.getMessage(), ex);
             return false;
         }
+    }
 
-        // Check balance
-        String checkSql = "SELECT balance FROM accounts WHERE account_number = ? AND is_active = TRUE";
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement checkPs = con.prepareStatement(checkSql)) {
-            checkPs.setString(1, fromAccountNumber);
-            try (ResultSet rs = checkPs.executeQuery()) {
-                if (!rs.next() || rs.getDouble("balance") < amount) {
-                    return false; // Insufficient balance
-                }
-            }
-        } catch (SQLException ex) {
-            LoggerUtil.error("Error checking balance: " + ex.getMessage(), ex);
+    /**
+     * Same as {@link #transfer(String, String, double, String, String)}, but a
+     * database error left after the retries is thrown rather than returned as false.
+     */
+    public boolean transferOrThrow(String fromAccountNumber, String toAccountNumber, double amount,
+            String description, String idempotencyKey) throws SQLException {
+        if (amount <= 0 || fromAccountNumber.equals(toAccountNumber)) {
             return false;
         }
+        return retryExecutor.execute("Transfer", IdempotencyKey.of(idempotencyKey),
+                key -> transferOnce(fromAccountNumber, toAccountNumber, Money.of(amount), description, key));
+    }
+
+    private boolean transferOnce(String fromAccountNumber, String toAccountNumber, Money amount, String description,
+            String idempotencyKey) throws SQLException {
 
-        String updateFromSql = "UPDATE accounts SET balance = balance - ? WHERE account_number = ? AND is_active = TRUE";
-        String updateToSql = "UPDATE accounts SET balance = balance + ? WHERE account_number = ? AND is_active = TRUE";
-        String insertOutSql = "INSERT INTO transactions(transaction_id, transaction_type, from_account, to_account, amount, description) "
+        String updateFromSql = "UPDATE accounts SET balance = balance - ?, version = version + 1 WHERE account_number = ? AND is_active = TRUE";
+        String insertOutSql = "INSERT INTO transactions(transaction_id, transaction_type, from_account, to_account, amount, description, idempotency_key) "
                 +
-                "VALUES (?, 'TRANSFER_OUT', ?, ?, ?, ?)";
+                "VALUES (?, 'TRANSFER_OUT', ?, ?, ?, ?, ?)";
         String insertInSql = "INSERT INTO transactions(transaction_id, transaction_type, from_account, to_account, amount, description) "
                 +
                 "VALUES (?, 'TRANSFER_IN', ?, ?, ?, ?)";
@@ -416,19 +445,24 @@ public class BankDatabaseService {
             con.setAutoCommit(false);
 
             try (PreparedStatement updateFromPs = con.prepareStatement(updateFromSql);
-                    PreparedStatement updateToPs = con.prepareStatement(updateToSql);
                     PreparedStatement insertOutPs = con.prepareStatement(insertOutSql);
                     PreparedStatement insertInPs = con.prepareStatement(insertInSql)) {
 
+                // Check balance (including stripe credits) under the row lock; the
+                // credit below reports an inactive destination
+                Money fromBalance = lockBalanceForDebit(con, fromAccountNumber);
+                if (fromBalance == null || fromBalance.isLessThan(amount)) {
+                    con.rollback();
+                    return false; // Inactive account or insufficient balance
+                }
+
                 // Update from account
-                updateFromPs.setDouble(1, amount);
+                amount.bind(updateFromPs, 1);
                 updateFromPs.setString(2, fromAccountNumber);
                 int rowsUpdated1 = updateFromPs.executeUpdate();
 
-                // Update to account
-                updateToPs.setDouble(1, amount);
-                updateToPs.setString(2, toAccountNumber);
-                int rowsUpdated2 = updateToPs.executeUpdate();
+                // Update to account (striped accounts take the credit on a random stripe row)
+                int rowsUpdated2 = accountRepository.credit(con, toAccountNumber, amount) ? 1 : 0;
 
                 if (rowsUpdated1 == 0 || rowsUpdated2 == 0) {
                     con.rollback();
@@ -436,59 +470,267 @@ public class BankDatabaseService {
                 }
 
                 // Record transactions
-                String txIdOut = generateTransactionId(con);
-                String txIdIn = generateTransactionId(con);
+                String txIdOut = TransactionIdGenerator.nextId();
+                String txIdIn = TransactionIdGenerator.nextId();
                 String desc = description != null ? description : "Transfer";
 
                 insertOutPs.setString(1, txIdOut);
                 insertOutPs.setString(2, fromAccountNumber);
                 insertOutPs.setString(3, toAccountNumber);
-                insertOutPs.setDouble(4, amount);
+                amount.bind(insertOutPs, 4);
                 insertOutPs.setString(5, desc + " (debit)");
+                insertOutPs.setString(6, idempotencyKey); // only the debit leg carries the key
                 insertOutPs.executeUpdate();
 
                 insertInPs.setString(1, txIdIn);
                 insertInPs.setString(2, fromAccountNumber);
                 insertInPs.setString(3, toAccountNumber);
-                insertInPs.setDouble(4, amount);
+                amount.bind(insertInPs, 4);
                 insertInPs.setString(5, desc + " (credit)");
                 insertInPs.executeUpdate();
 
-                con.commit();
-                LoggerUtil.info("Transfer of PKR " + amount + " from " + fromAccountNumber + " to " + toAccountNumber);
+                accountCache.commitAndPublish(con,
+                        accountCache.captureWrite(con, fromAccountNumber, toAccountNumber));
+                metrics.recordTransaction("TRANSFER_OUT", fromAccountNumber, toAccountNumber, amount);
+                metrics.recordTransaction("TRANSFER_IN", fromAccountNumber, toAccountNumber, amount);
+                LoggerUtil.info("Transfer of PKR " + amount.format() + " from " + fromAccountNumber + " to " + toAccountNumber);
                 return true;
             } catch (SQLException e) {
                 con.rollback();
                 throw e;
             }
+        }
+    }
+
+    /**
+     * An account's full balance, stripes included, read under its row lock.
+     */
+    private record LockedAccount(Money balance, boolean active) {
+    }
+
+    /**
+     * Locks an account's base row and reads its full balance. Stripe credits take
+     * the base row shared and consolidation takes it exclusively, so the total
+     * cannot change before this transaction ends.
+     *
+     * @return the account, or null if it does not exist
+     */
+    private static LockedAccount lockAccount(Connection con, String accountNumber) throws SQLException {
+        String sql = "SELECT " + AccountRepository.TOTAL_BALANCE_SQL + " AS balance, a.is_active FROM accounts a "
+                + "WHERE a.account_number = ? FOR UPDATE";
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setString(1, accountNumber);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new LockedAccount(Money.read(rs, "balance"), rs.getBoolean("is_active")) : null;
+            }
+        }
+    }
+
+    /**
+     * The full balance of an active account, locked as by {@link #lockAccount}.
+     *
+     * @return the balance, or null if the account is missing or inactive
+     */
+    private static Money lockBalanceForDebit(Connection con, String accountNumber) throws SQLException {
+        LockedAccount account = lockAccount(con, accountNumber);
+        return account != null && account.active() ? account.balance() : null;
+    }
+
+    /**
+     * One transfer inside a {@link #transferBatch(List)} call.
+     */
+    public record TransferRequest(String fromAccount, String toAccount, double amount, String description) {
+    }
+
+    /**
+     * Outcome of one {@link TransferRequest}; {@code message} explains failures.
+     */
+    public record TransferResult(TransferRequest request, boolean success, String message) {
+    }
+
+    /**
+     * Transfers money for many requests on one connection with one commit.
+     *
+     * All involved accounts are locked with a single sorted SELECT ... FOR UPDATE,
+     * which reads their full balances including stripe credits. Each account's net
+     * delta is credited or debited to its base row, striped or not, with one batched
+     * UPDATE per account: the base rows are held exclusively anyway, so stripes would
+     * add no parallelism, and the full balance is the same either way. All ledger
+     * rows are inserted with one executeBatch. Requests that fail validation
+     * (unknown or inactive account, insufficient funds) are reported in their
+     * result without aborting the rest of the batch. Results are returned in
+     * request order.
+     *
+     * This writes {@code accounts.balance} directly, so it is only the batch path
+     * of the {@code database} ledger engine; callers go through
+     * {@link com.bank.brewdreamwelcome.ledger.LedgerEngine#transferBatch}.
+     */
+    public List<TransferResult> transferBatch(List<TransferRequest> requests) {
+        return TRANSFER_BATCH_TIMER.time(() -> transferInChunks(requests));
+    }
+
+    private List<TransferResult> transferInChunks(List<TransferRequest> requests) {
+        List<TransferResult> results = new ArrayList<>(requests.size());
+        for (int start = 0; start < requests.size(); start += MAX_TRANSFER_BATCH) {
+            List<TransferRequest> chunk = requests.subList(start, Math.min(start + MAX_TRANSFER_BATCH, requests.size()));
+            results.addAll(transferChunk(chunk));
+        }
+        return results;
+    }
+
+    private List<TransferResult> transferChunk(List<TransferRequest> requests) {
+        TransferResult[] results = new TransferResult[requests.size()];
+        Set<String> accountNumbers = new TreeSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest req = requests.get(i);
+            if (req.fromAccount() == null || req.toAccount() == null) {
+                results[i] = new TransferResult(req, false, "Account number is required");
+            } else if (req.amount() <= 0) {
+                results[i] = new TransferResult(req, false, "Amount must be positive");
+            } else if (req.fromAccount().equals(req.toAccount())) {
+                results[i] = new TransferResult(req, false, "Cannot transfer to the same account");
+            } else {
+                accountNumbers.add(req.fromAccount());
+                accountNumbers.add(req.toAccount());
+            }
+        }
+        if (accountNumbers.isEmpty()) {
+            return Arrays.asList(results);
+        }
+
+        String placeholders = String.join(",", Collections.nCopies(accountNumbers.size(), "?"));
+        // Full balances, stripes included; deltas go to the base rows (see transferBatch)
+        String lockSql = "SELECT a.account_number, " + AccountRepository.TOTAL_BALANCE_SQL + " AS balance FROM accounts a " +
+                "WHERE a.account_number IN (" + placeholders + ") AND a.is_active = TRUE " +
+                "ORDER BY a.account_number FOR UPDATE";
+        String updateSql = "UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE account_number = ?";
+        String insertSql = "INSERT INTO transactions(transaction_id, transaction_type, from_account, to_account, amount, description) "
+                +
+                "VALUES (?, ?, ?, ?, ?, ?)";
+
+        try (Connection con = DatabaseUtil.getConnection()) {
+            con.setAutoCommit(false);
+
+            try {
+                // 1. Lock every involved account in one sorted round trip
+                Map<String, Money> balances = new HashMap<>();
+                try (PreparedStatement ps = con.prepareStatement(lockSql)) {
+                    int paramIndex = 1;
+                    for (String accNum : accountNumbers) {
+                        ps.setString(paramIndex++, accNum);
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            balances.put(rs.getString("account_number"), Money.read(rs, "balance"));
+                        }
+                    }
+                }
+
+                // 2. Apply transfers in request order against the locked balances
+                Map<String, Money> deltas = new TreeMap<>();
+                for (int i = 0; i < requests.size(); i++) {
+                    if (results[i] != null) {
+                        continue;
+                    }
+                    TransferRequest req = requests.get(i);
+                    Money amount = Money.of(req.amount());
+                    Money fromBalance = balances.get(req.fromAccount());
+                    if (fromBalance == null || !balances.containsKey(req.toAccount())) {
+                        results[i] = new TransferResult(req, false, "Account not found or inactive");
+                    } else if (fromBalance.isLessThan(amount)) {
+                        results[i] = new TransferResult(req, false, "Insufficient balance");
+                    } else {
+                        balances.put(req.fromAccount(), fromBalance.minus(amount));
+                        balances.merge(req.toAccount(), amount, Money::plus);
+                        deltas.merge(req.fromAccount(), amount.negate(), Money::plus);
+                        deltas.merge(req.toAccount(), amount, Money::plus);
+                        results[i] = new TransferResult(req, true, "Transfer completed");
+                    }
+                }
+
+                // 3. One batched UPDATE per touched account, one batched INSERT for the ledger
+                try (PreparedStatement updatePs = con.prepareStatement(updateSql);
+                        PreparedStatement insertPs = con.prepareStatement(insertSql)) {
+                    for (Map.Entry<String, Money> delta : deltas.entrySet()) {
+                        delta.getValue().bind(updatePs, 1);
+                        updatePs.setString(2, delta.getKey());
+                        updatePs.addBatch();
+                    }
+
+                    for (TransferResult result : results) {
+                        if (!result.success()) {
+                            continue;
+                        }
+                        TransferRequest req = result.request();
+                        String desc = req.description() != null ? req.description() : "Transfer";
+                        addLedgerRow(insertPs, "TRANSFER_OUT", req, desc + " (debit)");
+                        addLedgerRow(insertPs, "TRANSFER_IN", req, desc + " (credit)");
+                    }
+
+                    if (!deltas.isEmpty()) {
+                        updatePs.executeBatch();
+                        insertPs.executeBatch();
+                    }
+                }
+
+                accountCache.commitAndPublish(con, accountCache.captureWrite(con, deltas.keySet()));
+                for (TransferResult result : results) {
+                    if (result.success()) {
+                        TransferRequest req = result.request();
+                        metrics.recordTransaction("TRANSFER_OUT", req.fromAccount(), req.toAccount(), Money.of(req.amount()));
+                        metrics.recordTransaction("TRANSFER_IN", req.fromAccount(), req.toAccount(), Money.of(req.amount()));
+                    }
+                }
+                LoggerUtil.info("Transfer batch committed: " + deltas.size() + " accounts, "
+                        + requests.size() + " requests");
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
         } catch (SQLException ex) {
-            LoggerUtil.error("Error transferring money: " + ex.getMessage(), ex);
-            return false;
+            LoggerUtil.error("Error processing transfer batch: " + ex.getMessage(), ex);
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null || results[i].success()) {
+                    results[i] = new TransferResult(requests.get(i), false, "Batch rolled back: " + ex.getMessage());
+                }
+            }
         }
+        return Arrays.asList(results);
+    }
+
+    private void addLedgerRow(PreparedStatement insertPs, String type, TransferRequest req, String description)
+            throws SQLException {
+        insertPs.setString(1, TransactionIdGenerator.nextId());
+        insertPs.setString(2, type);
+        insertPs.setString(3, req.fromAccount());
+        insertPs.setString(4, req.toAccount());
+        Money.of(req.amount()).bind(insertPs, 5);
+        insertPs.setString(6, description);
+        insertPs.addBatch();
     }
 
     /**
      * Opens a new account for a customer.
      */
     public BankAccount openAccount(Integer customerId, AccountType type, double initialDeposit, String branchName) {
-        String accountNumber = generateAccountNumber();
         String sql = "INSERT INTO accounts(account_number, customer_id, account_type, balance, branch_name, opened_at) "
                 +
                 "VALUES (?, ?, ?, ?, ?, CURDATE())";
 
         try (Connection con = DatabaseUtil.getConnection()) {
             con.setAutoCommit(false);
+            String accountNumber = AccountNumberAllocator.getInstance().nextAccountNumber();
 
             try (PreparedStatement ps = con.prepareStatement(sql)) {
                 ps.setString(1, accountNumber);
                 ps.setInt(2, customerId);
                 ps.setString(3, type.name());
-                ps.setDouble(4, initialDeposit);
+                Money.of(initialDeposit).bind(ps, 4);
                 ps.setString(5, branchName != null ? branchName : "Main Branch");
                 ps.executeUpdate();
 
                 // Record open account transaction
-                String txId = generateTransactionId(con);
+                String txId = TransactionIdGenerator.nextId();
                 String insertTxSql = "INSERT INTO transactions(transaction_id, transaction_type, to_account, amount, description) "
                         +
                         "VALUES (?, 'OPEN_ACCOUNT', ?, 0, ?)";
@@ -499,12 +741,30 @@ public class BankDatabaseService {
                     txPs.executeUpdate();
                 }
 
-                // If initial deposit, record it
+                // The INSERT already set the balance, so an initial deposit only needs its
+                // ledger row, written in this transaction: a separate deposit() would wait
+                // on the uncommitted account row and credit it a second time
                 if (initialDeposit > 0) {
-                    deposit(accountNumber, initialDeposit, "Initial deposit");
+                    String depositSql = "INSERT INTO transactions(transaction_id, transaction_type, to_account, amount, description) "
+                            +
+                            "VALUES (?, 'DEPOSIT', ?, ?, ?)";
+                    try (PreparedStatement depositPs = con.prepareStatement(depositSql)) {
+                        depositPs.setString(1, TransactionIdGenerator.nextId());
+                        depositPs.setString(2, accountNumber);
+                        Money.of(initialDeposit).bind(depositPs, 3);
+                        depositPs.setString(4, "Initial deposit");
+                        depositPs.executeUpdate();
+                    }
                 }
 
                 con.commit();
+                accountCache.invalidateCustomer(customerId);
+                // Opened empty, then the deposit, so the balance total counts the money once
+                metrics.recordAccountOpened(customerId, accountNumber, Money.ZERO, true);
+                metrics.recordTransaction("OPEN_ACCOUNT", null, accountNumber, Money.ZERO);
+                if (initialDeposit > 0) {
+                    metrics.recordTransaction("DEPOSIT", null, accountNumber, Money.of(initialDeposit));
+                }
 
                 // Return the created account
                 return findAccount(accountNumber);
@@ -518,39 +778,6 @@ public class BankDatabaseService {
         }
     }
 
-    /**
-     * Generates a unique account number.
-     */
-    private String generateAccountNumber() {
-        String sql = "SELECT COALESCE(MAX(CAST(SUBSTRING(account_number, 4) AS UNSIGNED)), 0) + 1 as next_id FROM accounts";
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(sql);
-                ResultSet rs = ps.executeQuery()) {
-            if (rs.next()) {
-                int nextId = rs.getInt("next_id");
-                return String.format("AC-%05d", nextId);
-            }
-        } catch (SQLException ex) {
-            LoggerUtil.error("Error generating account number: " + ex.getMessage(), ex);
-        }
-        return "AC-10001";
-    }
-
-    /**
-     * Generates a unique transaction ID.
-     */
-    private String generateTransactionId(Connection con) throws SQLException {
-        String sql = "SELECT COALESCE(MAX(CAST(SUBSTRING(transaction_id, 3) AS UNSIGNED)), 0) + 1 as next_id FROM transactions";
-        try (PreparedStatement ps = con.prepareStatement(sql);
-                ResultSet rs = ps.executeQuery()) {
-            if (rs.next()) {
-                int nextId = rs.getInt("next_id");
-                return String.format("T-%05d", nextId);
-            }
-        }
-        return "T-00001";
-    }
-
     // ==================== ADMIN OPERATIONS ====================
 
     /**
@@ -566,7 +793,7 @@ public class BankDatabaseService {
                 "JOIN customers c ON a.customer_id = c.id " +
                 "ORDER BY a.id DESC";
 
-        try (Connection con = DatabaseUtil.getConnection();
+        try (Connection con = DatabaseUtil.getReadConnection(Workload.REPORTING);
                 PreparedStatement ps = con.prepareStatement(sql);
                 ResultSet rs = ps.executeQuery()) {
 
@@ -609,20 +836,21 @@ public class BankDatabaseService {
         List<BankTransaction> transactions = new ArrayList<>();
         String sql = "SELECT * FROM transactions ORDER BY timestamp DESC LIMIT 1000";
 
-        try (Connection con = DatabaseUtil.getConnection();
+        try (Connection con = DatabaseUtil.getReadConnection(Workload.REPORTING);
                 PreparedStatement ps = con.prepareStatement(sql);
                 ResultSet rs = ps.executeQuery()) {
 
             while (rs.next()) {
                 String txId = rs.getString("transaction_id");
-                TransactionType type = TransactionType.valueOf(rs.getString("transaction_type"));
+                TransactionType type = TransactionType.fromColumn(rs.getString("transaction_type"));
                 String fromAccount = rs.getString("from_account");
                 String toAccount = rs.getString("to_account");
                 double amount = rs.getDouble("amount");
                 String description = rs.getString("description");
+                Timestamp timestamp = rs.getTimestamp("timestamp");
 
-                BankTransaction tx = new BankTransaction(
-                        txId, type, fromAccount, toAccount, amount, description);
+                BankTransaction tx = new BankTransaction(txId, type, fromAccount, toAccount, amount, description,
+                        timestamp != null ? timestamp.toLocalDateTime() : null);
                 transactions.add(tx);
             }
 
@@ -636,109 +864,111 @@ public class BankDatabaseService {
 
     /**
      * Closes an account (sets it as inactive).
-     * Account balance must be zero before closing.
+     * Account balance, stripe credits included, must be zero before closing.
      * 
      * @param accountNumber the account number to close
      * @return true if successfully closed, false otherwise
      */
     public boolean closeAccount(String accountNumber) {
-        // Check balance first
-        String checkSql = "SELECT balance FROM accounts WHERE account_number = ?";
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(checkSql)) {
-            ps.setString(1, accountNumber);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) {
+        String sql = "UPDATE accounts SET is_active = FALSE, closed_at = CURDATE() WHERE account_number = ? AND is_active = TRUE";
+        String txSql = "INSERT INTO transactions(transaction_id, transaction_type, from_account, amount, description) "
+                +
+                "VALUES (?, 'CLOSE_ACCOUNT', ?, 0, ?)";
+
+        try (Connection con = DatabaseUtil.getConnection()) {
+            con.setAutoCommit(false);
+
+            try (PreparedStatement ps = con.prepareStatement(sql);
+                    PreparedStatement txPs = con.prepareStatement(txSql)) {
+                // Check the full balance, stripes included, under the row lock
+                LockedAccount account = lockAccount(con, accountNumber);
+                if (account == null) {
                     LoggerUtil.warn("Account not found: " + accountNumber);
+                    con.rollback();
                     return false;
                 }
-                if (rs.getDouble("balance") != 0.0) {
+                if (!account.balance().isZero()) {
                     LoggerUtil.warn("Cannot close account with non-zero balance: " + accountNumber);
+                    con.rollback();
                     return false;
                 }
-            }
-        } catch (SQLException ex) {
-            LoggerUtil.error("Error checking account balance: " + ex.getMessage(), ex);
-            return false;
-        }
 
-        String sql = "UPDATE accounts SET is_active = FALSE, closed_at = CURDATE() WHERE account_number = ?";
-
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(sql)) {
-
-            ps.setString(1, accountNumber);
-            int rowsAffected = ps.executeUpdate();
-
-            if (rowsAffected > 0) {
-                LoggerUtil.info("Account closed: " + accountNumber);
-
-                // Record transaction
-                String txSql = "INSERT INTO transactions(transaction_id, transaction_type, from_account, amount, description) "
-                        +
-                        "VALUES (?, 'CLOSE_ACCOUNT', ?, 0, ?)";
-                try (PreparedStatement txPs = con.prepareStatement(txSql)) {
-                    String txId = generateTransactionId(con);
-                    txPs.setString(1, txId);
-                    txPs.setString(2, accountNumber);
-                    txPs.setString(3, "Account closed");
-                    txPs.executeUpdate();
+                ps.setString(1, accountNumber);
+                if (ps.executeUpdate() == 0) {
+                    con.rollback();
+                    return false;
                 }
 
-                return true;
+                // Record transaction
+                txPs.setString(1, TransactionIdGenerator.nextId());
+                txPs.setString(2, accountNumber);
+                txPs.setString(3, "Account closed");
+                txPs.executeUpdate();
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
             }
         } catch (SQLException ex) {
             LoggerUtil.error("Error closing account: " + ex.getMessage(), ex);
+            return false;
         }
 
-        return false;
+        accountCache.invalidateAccount(accountNumber);
+        metrics.recordAccountClosed();
+        metrics.recordTransaction("CLOSE_ACCOUNT", accountNumber, null, Money.ZERO);
+        LoggerUtil.info("Account closed: " + accountNumber);
+        return true;
     }
 
     /**
      * Deletes an account permanently.
-     * Account must be closed and have zero balance.
+     * Account must have a zero balance, stripe credits included.
      * 
      * @param accountNumber the account number to delete
      * @return true if successfully deleted, false otherwise
      */
     public boolean deleteAccount(String accountNumber) {
-        // Check if account can be deleted
-        String checkSql = "SELECT balance, is_active FROM accounts WHERE account_number = ?";
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(checkSql)) {
-            ps.setString(1, accountNumber);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) {
+        String sql = "DELETE FROM accounts WHERE account_number = ?";
+        boolean wasActive;
+
+        try (Connection con = DatabaseUtil.getConnection()) {
+            con.setAutoCommit(false);
+
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                // Stripe rows are deleted with the account, so they must add up to zero too
+                LockedAccount account = lockAccount(con, accountNumber);
+                if (account == null) {
                     LoggerUtil.warn("Account not found: " + accountNumber);
+                    con.rollback();
                     return false;
                 }
-                if (rs.getDouble("balance") != 0.0) {
+                if (!account.balance().isZero()) {
                     LoggerUtil.warn("Cannot delete account with non-zero balance: " + accountNumber);
+                    con.rollback();
                     return false;
                 }
-            }
-        } catch (SQLException ex) {
-            LoggerUtil.error("Error checking account: " + ex.getMessage(), ex);
-            return false;
-        }
-
-        String sql = "DELETE FROM accounts WHERE account_number = ?";
-
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(sql)) {
+                wasActive = account.active();
 
-            ps.setString(1, accountNumber);
-            int rowsAffected = ps.executeUpdate();
-
-            if (rowsAffected > 0) {
-                LoggerUtil.info("Account deleted: " + accountNumber);
-                return true;
+                ps.setString(1, accountNumber);
+                if (ps.executeUpdate() == 0) {
+                    con.rollback();
+                    return false;
+                }
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
             }
         } catch (SQLException ex) {
             LoggerUtil.error("Error deleting account: " + ex.getMessage(), ex);
+            return false;
         }
 
-        return false;
+        accountCache.invalidateAccount(accountNumber);
+        metrics.recordAccountDeleted(wasActive);
+        LoggerUtil.info("Account deleted: " + accountNumber);
+        return true;
     }
 
     /**
@@ -764,6 +994,7 @@ public class BankDatabaseService {
             int rowsAffected = ps.executeUpdate();
 
             if (rowsAffected > 0) {
+                accountCache.invalidateAccount(accountNumber);
                 LoggerUtil.info("Account branch updated: " + accountNumber + " -> " + branchName);
                 return true;
             }
@@ -774,70 +1005,43 @@ public class BankDatabaseService {
         return false;
     }
 
+    /**
+     * Whether the {@link IntradayMetrics} figures below have been seeded from the
+     * database. Until then they count only commits made since startup, and a
+     * dashboard should show them as still seeding.
+     */
+    public boolean isIntradaySeeded() {
+        return metrics.isSeeded();
+    }
+
     /**
      * Gets the total balance across all active accounts.
+     * Served from {@link IntradayMetrics}, without a query.
      * 
      * @return total balance
      */
     public double getTotalBalance() {
-        String sql = "SELECT COALESCE(SUM(balance), 0) as total FROM accounts WHERE is_active = TRUE";
-
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(sql);
-                ResultSet rs = ps.executeQuery()) {
-
-            if (rs.next()) {
-                return rs.getDouble("total");
-            }
-        } catch (SQLException ex) {
-            LoggerUtil.error("Error getting total balance: " + ex.getMessage(), ex);
-        }
-
-        return 0.0;
+        return metrics.getTotalBalance().toDouble();
     }
 
     /**
      * Gets the total number of accounts.
+     * Served from {@link IntradayMetrics}, without a query.
      * 
      * @return total account count
      */
     public int getTotalAccounts() {
-        String sql = "SELECT COUNT(*) as count FROM accounts";
-
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(sql);
-                ResultSet rs = ps.executeQuery()) {
-
-            if (rs.next()) {
-                return rs.getInt("count");
-            }
-        } catch (SQLException ex) {
-            LoggerUtil.error("Error getting total accounts: " + ex.getMessage(), ex);
-        }
-
-        return 0;
+        return (int) metrics.getTotalAccounts();
     }
 
     /**
      * Gets the number of active accounts.
+     * Served from {@link IntradayMetrics}, without a query.
      * 
      * @return active account count
      */
     public int getTotalActiveAccounts() {
-        String sql = "SELECT COUNT(*) as count FROM accounts WHERE is_active = TRUE";
-
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(sql);
-                ResultSet rs = ps.executeQuery()) {
-
-            if (rs.next()) {
-                return rs.getInt("count");
-            }
-        } catch (SQLException ex) {
-            LoggerUtil.error("Error getting active accounts: " + ex.getMessage(), ex);
-        }
-
-        return 0;
+        return (int) metrics.getTotalActiveAccounts();
     }
 
     /**
@@ -848,7 +1052,7 @@ public class BankDatabaseService {
     public int getTotalCustomers() {
         String sql = "SELECT COUNT(*) as count FROM customers";
 
-        try (Connection con = DatabaseUtil.getConnection();
+        try (Connection con = DatabaseUtil.getReadConnection(Workload.REPORTING);
                 PreparedStatement ps = con.prepareStatement(sql);
                 ResultSet rs = ps.executeQuery()) {
 
@@ -864,49 +1068,21 @@ public class BankDatabaseService {
 
     /**
      * Gets the count of transactions made today.
+     * Served from {@link IntradayMetrics}, without a query.
      * 
      * @return today's transaction count
      */
     public int getTransactionsTodayCount() {
-        String sql = "SELECT COUNT(*) as count FROM transactions WHERE DATE(timestamp) = CURDATE()";
-
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(sql);
-                ResultSet rs = ps.executeQuery()) {
-
-            if (rs.next()) {
-                return rs.getInt("count");
-            }
-        } catch (SQLException ex) {
-            LoggerUtil.error("Error getting today's transactions: " + ex.getMessage(), ex);
-        }
-
-        return 0;
+        return (int) metrics.getTransactionsTodayCount();
     }
 
     /**
      * Gets the net flow (deposits - withdrawals) for today.
+     * Served from {@link IntradayMetrics}; transfers do not count.
      * 
      * @return today's net flow
      */
     public double getTodayNetFlow() {
-        String sql = "SELECT " +
-                "COALESCE(SUM(CASE WHEN transaction_type IN ('DEPOSIT', 'TRANSFER_IN') THEN amount ELSE 0 END), 0) - " +
-                "COALESCE(SUM(CASE WHEN transaction_type IN ('WITHDRAW', 'TRANSFER_OUT') THEN amount ELSE 0 END), 0) as net_flow "
-                +
-                "FROM transactions WHERE DATE(timestamp) = CURDATE()";
-
-        try (Connection con = DatabaseUtil.getConnection();
-                PreparedStatement ps = con.prepareStatement(sql);
-                ResultSet rs = ps.executeQuery()) {
-
-            if (rs.next()) {
-                return rs.getDouble("net_flow");
-            }
-        } catch (SQLException ex) {
-            LoggerUtil.error("Error getting today's net flow: " + ex.getMessage(), ex);
-        }
-
-        return 0.0;
+        return metrics.getTodayNetFlow().toDouble();
     }
 }
@@ -1,5 +1,8 @@
 package com.bank.brewdreamwelcome;
 
+import com.bank.brewdreamwelcome.ledger.LedgerEngine;
+import com.bank.brewdreamwelcome.ledger.LedgerEngines;
+
 import java.util.List;
 
 /**
@@ -14,6 +17,7 @@ public final class BankService {
 
     private final BankDatabaseService bankDb = BankDatabaseService.getInstance();
     private final CustomerDatabaseService customerDb = CustomerDatabaseService.getInstance();
+    private final LedgerEngine ledger = LedgerEngines.get();
 
     public static BankService getInstance() {
         return INSTANCE;
@@ -106,19 +110,28 @@ public final class BankService {
     public synchronized boolean deposit(BankAccount account, double amount, String description) {
         if (account == null)
             return false;
-        return bankDb.deposit(account.getAccountNumber(), amount, description);
+        return ledger.deposit(account.getAccountNumber(), amount, description);
     }
 
     public synchronized boolean withdraw(BankAccount account, double amount, String description) {
         if (account == null)
             return false;
-        return bankDb.withdraw(account.getAccountNumber(), amount, description);
+        return ledger.withdraw(account.getAccountNumber(), amount, description);
     }
 
     public synchronized boolean transfer(BankAccount from, BankAccount to, double amount, String description) {
         if (from == null || to == null)
             return false;
-        return bankDb.transfer(from.getAccountNumber(), to.getAccountNumber(), amount, description);
+        return ledger.transfer(from.getAccountNumber(), to.getAccountNumber(), amount, description);
+    }
+
+    /**
+     * Goes through the configured ledger engine like single transfers, so an
+     * engine that keeps its own postings (event-sourced) records every one.
+     */
+    public synchronized List<BankDatabaseService.TransferResult> transferBatch(
+            List<BankDatabaseService.TransferRequest> requests) {
+        return ledger.transferBatch(requests);
     }
 
     /* ===================== TRANSACTIONS & METRICS ===================== */
@@ -127,6 +140,13 @@ public final class BankService {
         return bankDb.getAllTransactions();
     }
 
+    /**
+     * False while the figures below are still being seeded from the database.
+     */
+    public synchronized boolean isIntradaySeeded() {
+        return bankDb.isIntradaySeeded();
+    }
+
     public synchronized double getTotalBalance() {
         return bankDb.getTotalBalance();
     }
@@ -20,13 +20,26 @@ public class BankTransaction {
                            String toAccount,
                            double amount,
                            String description) {
+        this(id, type, fromAccount, toAccount, amount, description, LocalDateTime.now());
+    }
+
+    /**
+     * Transaction read back from storage, keeping its recorded timestamp.
+     */
+    public BankTransaction(String id,
+                           TransactionType type,
+                           String fromAccount,
+                           String toAccount,
+                           double amount,
+                           String description,
+                           LocalDateTime timestamp) {
         this.id = id;
         this.type = type;
         this.fromAccount = fromAccount;
         this.toAccount = toAccount;
         this.amount = amount;
         this.description = description;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = timestamp;
     }
 
     public String getId() {
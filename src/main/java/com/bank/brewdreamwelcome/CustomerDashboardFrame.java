@@ -1,13 +1,24 @@
 package com.bank.brewdreamwelcome;
 
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.SqlTracer;
+import com.bank.brewdreamwelcome.config.Workload;
+import com.bank.brewdreamwelcome.ledger.LedgerEngine;
+import com.bank.brewdreamwelcome.ledger.LedgerEngines;
+import com.bank.brewdreamwelcome.ledger.TransferJournal;
+import com.bank.brewdreamwelcome.repository.TransactionRepository.HistoryCursor;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.io.IOException;
 import java.text.DecimalFormat;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Customer dashboard for VaultX Bank.
@@ -16,6 +27,7 @@ import java.util.List;
 public class CustomerDashboardFrame extends JFrame {
 
     private final BankDatabaseService bankService = BankDatabaseService.getInstance();
+    private final LedgerEngine ledger = LedgerEngines.get();
     private final Integer customerId;
     private final String customerAccountId;
 
@@ -33,6 +45,10 @@ public class CustomerDashboardFrame extends JFrame {
     private DefaultTableModel txModel;
     private JTable txTable;
 
+    // Transaction history is loaded a page at a time as the table is scrolled
+    private static final int TX_PAGE_SIZE = 100;
+    private HistoryCursor txCursor;
+
     // Animation
     private float fadeIn = 0f;
     private Timer fadeTimer;
@@ -40,6 +56,11 @@ public class CustomerDashboardFrame extends JFrame {
     private final DecimalFormat moneyFormat = new DecimalFormat("#,##0.00");
     private final DateTimeFormatter dateTimeFormat = DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm");
 
+    // Accounts this window has journaled transfers from, so their outcomes can be reported
+    private final Set<String> journaledAccounts = ConcurrentHashMap.newKeySet();
+    private final TransferJournal.OutcomeListener journalListener = this::onJournalOutcome;
+    private TransferJournal journal;
+
     public CustomerDashboardFrame(Integer customerId) {
         super("VaultX Bank – Customer Dashboard");
         this.customerId = customerId;
@@ -82,6 +103,45 @@ public class CustomerDashboardFrame extends JFrame {
         setContentPane(root);
         startFadeIn();
         refreshAllData();
+
+        if (TransferJournal.isEnabled()) {
+            try {
+                journal = TransferJournal.getInstance();
+                journal.addOutcomeListener(journalListener);
+            } catch (IllegalStateException e) {
+                LoggerUtil.error("Transfer journal unavailable: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (journal != null) {
+            journal.removeOutcomeListener(journalListener);
+            journal = null;
+        }
+        super.dispose();
+    }
+
+    /**
+     * Called on the journal's drainer thread once a journaled transfer has been
+     * posted or rejected by the ledger.
+     */
+    private void onJournalOutcome(TransferJournal.Entry entry, String idempotencyKey, boolean posted) {
+        if (!journaledAccounts.contains(entry.fromAccount())) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            if (posted) {
+                refreshAllData();
+                return;
+            }
+            JOptionPane.showMessageDialog(this,
+                    "Your transfer of PKR " + moneyFormat.format(entry.amount().toDouble()) + " to "
+                            + entry.toAccount() + " was rejected by the bank and no money was moved.\n"
+                            + "Check the destination account and your balance, then try again.",
+                    "Transfer Rejected", JOptionPane.WARNING_MESSAGE);
+        });
     }
 
     /* ============================ SIDEBAR ============================ */
@@ -557,6 +617,13 @@ public class CustomerDashboardFrame extends JFrame {
 
         JScrollPane scroll = new JScrollPane(txTable);
         scroll.setBorder(new LineBorder(new Color(226, 232, 240)));
+        scroll.getVerticalScrollBar().addAdjustmentListener(e -> {
+            BoundedRangeModel bar = scroll.getVerticalScrollBar().getModel();
+            if (!e.getValueIsAdjusting() && txCursor != null
+                    && bar.getValue() + bar.getExtent() >= bar.getMaximum() - txTable.getRowHeight() * 5) {
+                loadMoreTransactions();
+            }
+        });
 
         card.add(scroll, BorderLayout.CENTER);
 
@@ -566,35 +633,37 @@ public class CustomerDashboardFrame extends JFrame {
     /* ============================ DATA REFRESH ============================ */
 
     private void refreshAllData() {
-        refreshMetrics();
-        refreshTransactionsTable();
+        SqlTracer.getInstance().runAction("customer dashboard refresh", () -> {
+            // One round trip (or none, if nothing changed) for the metrics and the first page
+            BankDatabaseService.CustomerSnapshot snapshot = bankService.getCustomerSnapshot(customerId, TX_PAGE_SIZE);
+            refreshMetrics(snapshot);
+            refreshTransactionsTable(snapshot.firstPage());
+        });
     }
 
-    private void refreshMetrics() {
-        // Get real-time balance from database
-        double myBalance = bankService.getCustomerTotalBalance(customerId);
-        myBalanceLabel.setText("PKR " + moneyFormat.format(myBalance));
-
-        // Get account types
-        String accountTypes = bankService.getCustomerAccountTypes(customerId);
-        accountTypesLabel.setText(accountTypes);
-
-        // Count today's transactions for this customer
-        long todayCount = bankService.getCustomerTransactionsTodayCount(customerId);
-        todayTxLabel.setText(todayCount + " transactions");
+    private void refreshMetrics(BankDatabaseService.CustomerSnapshot snapshot) {
+        myBalanceLabel.setText("PKR " + moneyFormat.format(snapshot.totalBalance()));
+        accountTypesLabel.setText(snapshot.accountTypes());
+        todayTxLabel.setText(snapshot.transactionsToday() + " transactions");
     }
 
     private List<BankAccount> getMyAccounts() {
         return bankService.getCustomerAccounts(customerId);
     }
 
-    private void refreshTransactionsTable() {
+    private void refreshTransactionsTable(BankDatabaseService.TransactionPage firstPage) {
         txModel.setRowCount(0);
+        appendTransactionsPage(firstPage);
+    }
 
-        // Get all transactions from database
-        List<BankTransaction> myTransactions = bankService.getCustomerTransactions(customerId);
+    private void loadMoreTransactions() {
+        HistoryCursor after = txCursor;
+        txCursor = null; // cleared while loading so scroll events do not fetch the same page twice
+        appendTransactionsPage(bankService.getCustomerTransactionsPage(customerId, after, TX_PAGE_SIZE));
+    }
 
-        for (BankTransaction tx : myTransactions) {
+    private void appendTransactionsPage(BankDatabaseService.TransactionPage page) {
+        for (BankTransaction tx : page.transactions()) {
             txModel.addRow(new Object[] {
                     tx.getId(),
                     tx.getTimestamp().format(dateTimeFormat),
@@ -605,6 +674,7 @@ public class CustomerDashboardFrame extends JFrame {
                     tx.getDescription()
             });
         }
+        txCursor = page.next();
     }
 
     /* ============================ MAKE TRANSACTION ============================ */
@@ -793,16 +863,23 @@ public class CustomerDashboardFrame extends JFrame {
                         : withdrawBtn.isSelected() ? "Withdrawal" : "Transfer";
             }
 
+            boolean journaled = transferBtn.isSelected() && TransferJournal.isEnabled();
+            if (!journaled && DatabaseConfig.isOverloaded(Workload.OLTP)) {
+                // Say so now rather than freeze the window on a database that is not answering
+                showError(errorLabel, "The bank is not responding right now. Please try again shortly.");
+                return;
+            }
+
             boolean success = false;
             if (depositBtn.isSelected()) {
-                success = bankService.deposit(accountNumber, amount, description);
+                success = ledger.deposit(accountNumber, amount, description);
                 if (success) {
                     showSuccess(successLabel, "Deposit of PKR " + moneyFormat.format(amount) + " successful!");
                 } else {
                     showError(errorLabel, "Deposit failed. Please try again.");
                 }
             } else if (withdrawBtn.isSelected()) {
-                success = bankService.withdraw(accountNumber, amount, description);
+                success = ledger.withdraw(accountNumber, amount, description);
                 if (success) {
                     showSuccess(successLabel, "Withdrawal of PKR " + moneyFormat.format(amount) + " successful!");
                 } else {
@@ -815,18 +892,40 @@ public class CustomerDashboardFrame extends JFrame {
                     return;
                 }
 
-                // Check if to account exists
-                BankAccount toAccountObj = bankService.findAccount(toAccount);
-                if (toAccountObj == null) {
-                    showError(errorLabel, "Destination account not found");
-                    return;
-                }
-
-                success = bankService.transfer(accountNumber, toAccount, amount, description);
-                if (success) {
-                    showSuccess(successLabel, "Transfer of PKR " + moneyFormat.format(amount) + " successful!");
+                if (journaled) {
+                    // Checked locally: the ledger verifies the destination when the journal posts
+                    // the transfer, and a rejection is reported through onJournalOutcome
+                    if (!toAccount.matches("AC-\\d+")) {
+                        showError(errorLabel, "Please enter a valid account number, e.g. AC-10001");
+                        return;
+                    }
+                    if (toAccount.equals(accountNumber)) {
+                        showError(errorLabel, "Cannot transfer to the same account");
+                        return;
+                    }
+                    // Durably queued locally; the journal posts it even if the database is slow
+                    try {
+                        journaledAccounts.add(accountNumber);
+                        TransferJournal.getInstance().accept(accountNumber, toAccount, amount, description);
+                        success = true;
+                        showSuccess(successLabel, "Transfer of PKR " + moneyFormat.format(amount) + " accepted!");
+                    } catch (IOException | RuntimeException ex) {
+                        showError(errorLabel, "Transfer could not be accepted. Please try again.");
+                    }
                 } else {
-                    showError(errorLabel, "Transfer failed. Insufficient balance or invalid account.");
+                    // Check if to account exists
+                    BankAccount toAccountObj = bankService.findAccount(toAccount);
+                    if (toAccountObj == null) {
+                        showError(errorLabel, "Destination account not found");
+                        return;
+                    }
+
+                    success = ledger.transfer(accountNumber, toAccount, amount, description);
+                    if (success) {
+                        showSuccess(successLabel, "Transfer of PKR " + moneyFormat.format(amount) + " successful!");
+                    } else {
+                        showError(errorLabel, "Transfer failed. Insufficient balance or invalid account.");
+                    }
                 }
             }
 
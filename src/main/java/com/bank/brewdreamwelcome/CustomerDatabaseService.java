@@ -2,8 +2,20 @@ package com.bank.brewdreamwelcome;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import org.mindrot.jbcrypt.BCrypt;
+import com.bank.brewdreamwelcome.config.Workload;
+import com.bank.brewdreamwelcome.metrics.MetricsRegistry;
+import com.bank.brewdreamwelcome.metrics.Timer;
+import com.bank.brewdreamwelcome.service.AccountCache;
+import com.bank.brewdreamwelcome.service.AccountIdGenerator;
+import com.bank.brewdreamwelcome.service.AccountNumberAllocator;
+import com.bank.brewdreamwelcome.service.CustomerSearchIndex;
+import com.bank.brewdreamwelcome.service.IntradayMetrics;
 
 /**
  * Database service for customer management operations.
@@ -18,10 +30,24 @@ import org.mindrot.jbcrypt.BCrypt;
  */
 public class CustomerDatabaseService {
 
+    private static final int MAX_LEGACY_ID_COLLISIONS = 20;
+    private static final int ER_DUP_ENTRY = 1062;
+
+    private static final Timer CREATE_CUSTOMER_TIMER = MetricsRegistry.serviceTimer(CustomerDatabaseService.class,
+            "createCustomer");
+
+    /** Most results returned by a ranked search. */
+    private static final int SEARCH_LIMIT = 200;
+
+    private static final String CUSTOMER_COLUMNS = "id, account_id, id_card_number, name, email, phone, address";
+
     private static CustomerDatabaseService instance;
 
+    private final CustomerSearchIndex searchIndex;
+
     private CustomerDatabaseService() {
-        // Private constructor for singleton
+        // Private constructor for singleton; starts loading the search index
+        searchIndex = CustomerSearchIndex.getInstance();
     }
 
     public static synchronized CustomerDatabaseService getInstance() {
@@ -35,7 +61,7 @@ public class CustomerDatabaseService {
         List<Customer> customers = new ArrayList<>();
         String sql = "SELECT id, account_id, id_card_number, name, email, phone, address FROM customers ORDER BY id";
 
-        try (Connection con = DatabaseUtil.getConnection();
+        try (Connection con = DatabaseUtil.getReadConnection(Workload.REPORTING);
                 PreparedStatement ps = con.prepareStatement(sql);
                 ResultSet rs = ps.executeQuery()) {
 
@@ -64,6 +90,12 @@ public class CustomerDatabaseService {
     public Customer createCustomer(String username, String name, String email, String phone, String address,
             String password,
             String idCardNumber, String accountType) {
+        return CREATE_CUSTOMER_TIMER.time(() -> registerCustomer(username, name, email, phone, address, password,
+                idCardNumber, accountType), Objects::nonNull);
+    }
+
+    private Customer registerCustomer(String username, String name, String email, String phone, String address,
+            String password, String idCardNumber, String accountType) {
         if (name == null || name.isBlank() || email == null || email.isBlank() || password == null || password.isBlank()
                 || idCardNumber == null || idCardNumber.isBlank()) {
             LoggerUtil.error("Cannot create customer: missing required fields", null);
@@ -75,57 +107,54 @@ public class CustomerDatabaseService {
             return null;
         }
 
+        // Hashed once: BCrypt is deliberately slow and the ID retry loop may run again
+        String passwordHash = BCrypt.hashpw(password, BCrypt.gensalt());
+
         Connection con = null;
         try {
             con = DatabaseUtil.getConnection();
             con.setAutoCommit(false); // Start Transaction
 
-            // 1. Generate unique 6-digit Account ID
-            String accountId = generateAccountId(con);
-
-            // 2. Insert Customer
-            String customerSql = "INSERT INTO customers(account_id, username, id_card_number, name, email, phone, address, password) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+            // 1. Insert Customer under a probe-free 6-digit Account ID
+            String accountId = null;
             int customerId = -1;
-
-            try (PreparedStatement ps = con.prepareStatement(customerSql, Statement.RETURN_GENERATED_KEYS)) {
-                ps.setString(1, accountId); // Customer account_id is their login ID
-                ps.setString(2, username);
-                ps.setString(3, idCardNumber);
-                ps.setString(4, name);
-                ps.setString(5, email);
-                ps.setString(6, phone);
-                ps.setString(7, address);
-                ps.setString(8, BCrypt.hashpw(password, BCrypt.gensalt()));
-                ps.executeUpdate();
-
-                try (ResultSet rs = ps.getGeneratedKeys()) {
-                    if (rs.next()) {
-                        customerId = rs.getInt(1);
-                    } else {
-                        throw new SQLException("Failed to retrieve generated customer ID");
+            for (int attempt = 1; accountId == null; attempt++) {
+                String candidate = AccountIdGenerator.getInstance().nextAccountId();
+                Savepoint savepoint = con.setSavepoint();
+                try {
+                    customerId = insertCustomer(con, candidate, username, idCardNumber, name, email, phone, address,
+                            passwordHash);
+                    accountId = candidate;
+                } catch (SQLIntegrityConstraintViolationException ex) {
+                    // Only IDs handed out by the old random generator can collide; skip past them
+                    con.rollback(savepoint);
+                    if (!isAccountIdConflict(ex) || attempt >= MAX_LEGACY_ID_COLLISIONS) {
+                        throw ex;
                     }
+                    LoggerUtil.warn("Account ID " + candidate + " already issued, taking next one");
                 }
             }
 
-            // 3. Insert Bank Account
-            // For now, the 'account_number' in 'accounts' table will be same as
-            // 'account_id' (6-digit)
-            // Or we could make them different. User said "useraccount as the auto increment
-            // of a 6 digit account".
-            // Let's use the 6-digit accountId as the account_number for simplicity and
-            // consistency.
+            // 2. Insert Bank Account
+            // The 6-digit accountId is the customer's login ID; the primary account
+            // gets its own number from the shared account number sequence.
+            String accountNumber = AccountNumberAllocator.getInstance().nextAccountNumber();
             String accountSql = "INSERT INTO accounts(account_number, customer_id, account_type, balance, branch_name, is_active) VALUES (?, ?, ?, 0.00, 'Main Branch', TRUE)";
 
             try (PreparedStatement ps = con.prepareStatement(accountSql)) {
-                ps.setString(1, accountId);
+                ps.setString(1, accountNumber);
                 ps.setInt(2, customerId);
                 ps.setString(3, accountType != null ? accountType : "SAVINGS");
                 ps.executeUpdate();
             }
 
             con.commit(); // Commit Transaction
+            AccountCache.getInstance().invalidateCustomer(customerId);
+            IntradayMetrics.getInstance().recordAccountOpened(customerId, accountNumber, Money.ZERO, true);
+            searchIndex.upsert(customerId, name, email, accountId, idCardNumber);
 
-            LoggerUtil.info("Customer and Account created successfully: " + customerId + " / " + accountId);
+            LoggerUtil.info("Customer and Account created successfully: " + customerId + " / " + accountId
+                    + " / " + accountNumber);
 
             return new Customer(customerId, accountId, idCardNumber, name, email, phone, address);
 
@@ -161,7 +190,13 @@ public class CustomerDatabaseService {
             ps.setString(3, phone);
             ps.setString(4, address);
             ps.setInt(5, customerId);
-            return ps.executeUpdate() > 0;
+            boolean updated = ps.executeUpdate() > 0;
+            if (updated) {
+                // Cached account rows carry the customer's name and email
+                AccountCache.getInstance().invalidateCustomerAccounts(customerId);
+                searchIndex.updateContact(customerId, name, email);
+            }
+            return updated;
         } catch (SQLException ex) {
             LoggerUtil.error("Error updating customer: " + ex.getMessage(), ex);
             return false;
@@ -173,7 +208,14 @@ public class CustomerDatabaseService {
         try (Connection con = DatabaseUtil.getConnection();
                 PreparedStatement ps = con.prepareStatement(sql)) {
             ps.setInt(1, customerId);
-            return ps.executeUpdate() > 0;
+            boolean deleted = ps.executeUpdate() > 0;
+            if (deleted) {
+                AccountCache.getInstance().invalidateCustomerAccounts(customerId);
+                searchIndex.remove(customerId);
+                // The delete cascades to an unknown number of accounts
+                IntradayMetrics.getInstance().requestReconcile();
+            }
+            return deleted;
         } catch (SQLException ex) {
             LoggerUtil.error("Error deleting customer: " + ex.getMessage(), ex);
             return false;
@@ -203,30 +245,71 @@ public class CustomerDatabaseService {
         return null;
     }
 
+    /**
+     * Searches name, email, account ID and ID card number, best matches first.
+     */
     public List<Customer> searchCustomers(String keyword) {
-        List<Customer> customers = new ArrayList<>();
         if (keyword == null || keyword.isBlank()) {
             return getAllCustomers();
         }
-        String sql = "SELECT id, account_id, id_card_number, name, email, phone, address FROM customers " +
-                "WHERE name LIKE ? OR email LIKE ? OR account_id LIKE ? ORDER BY id";
-        try (Connection con = DatabaseUtil.getConnection();
+        List<CustomerSearchIndex.Hit> hits = searchIndex.search(keyword, SEARCH_LIMIT);
+        if (hits == null) {
+            return searchCustomersByScan(keyword); // index still loading
+        }
+        return getCustomersByIds(hits);
+    }
+
+    /**
+     * Loads the hit customers by primary key, in rank order.
+     */
+    private List<Customer> getCustomersByIds(List<CustomerSearchIndex.Hit> hits) {
+        if (hits.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT " + CUSTOMER_COLUMNS + " FROM customers WHERE id IN (" +
+                String.join(",", Collections.nCopies(hits.size(), "?")) + ")";
+        Map<Integer, Customer> byId = new HashMap<>(hits.size() * 2);
+        // A customer created or edited moments ago is read from the primary (AccountCache records the write)
+        Object[] keys = hits.stream().map(CustomerSearchIndex.Hit::customerId).toArray();
+        try (Connection con = DatabaseUtil.getReadConnection(keys);
+                PreparedStatement ps = con.prepareStatement(sql)) {
+            int index = 1;
+            for (CustomerSearchIndex.Hit hit : hits) {
+                ps.setInt(index++, hit.customerId());
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Customer customer = readCustomer(rs);
+                    byId.put(customer.getId(), customer);
+                }
+            }
+        } catch (SQLException ex) {
+            LoggerUtil.error("Error searching customers: " + ex.getMessage(), ex);
+        }
+        List<Customer> customers = new ArrayList<>(hits.size());
+        for (CustomerSearchIndex.Hit hit : hits) {
+            Customer customer = byId.get(hit.customerId());
+            if (customer != null) {
+                customers.add(customer);
+            }
+        }
+        return customers;
+    }
+
+    private List<Customer> searchCustomersByScan(String keyword) {
+        List<Customer> customers = new ArrayList<>();
+        String sql = "SELECT " + CUSTOMER_COLUMNS + " FROM customers " +
+                "WHERE name LIKE ? OR email LIKE ? OR account_id LIKE ? OR id_card_number LIKE ? ORDER BY id";
+        try (Connection con = DatabaseUtil.getReadConnection(Workload.REPORTING);
                 PreparedStatement ps = con.prepareStatement(sql)) {
             String searchPattern = "%" + keyword + "%";
             ps.setString(1, searchPattern);
             ps.setString(2, searchPattern);
             ps.setString(3, searchPattern);
+            ps.setString(4, searchPattern);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    Customer customer = new Customer(
-                            rs.getInt("id"),
-                            rs.getString("account_id"),
-                            rs.getString("id_card_number"),
-                            rs.getString("name"),
-                            rs.getString("email"),
-                            rs.getString("phone"),
-                            rs.getString("address"));
-                    customers.add(customer);
+                    customers.add(readCustomer(rs));
                 }
             }
         } catch (SQLException ex) {
@@ -235,30 +318,52 @@ public class CustomerDatabaseService {
         return customers;
     }
 
-    private String generateAccountId(Connection con) throws SQLException {
-        java.util.Random random = new java.util.Random();
-        String accountId;
-        int attempts = 0;
-        do {
-            accountId = String.format("%06d", 100000 + random.nextInt(900000));
-            attempts++;
-            if (attempts > 100) {
-                throw new SQLException("Unable to generate unique account ID");
-            }
-        } while (isAccountIdExists(con, accountId));
-        return accountId;
+    private Customer readCustomer(ResultSet rs) throws SQLException {
+        return new Customer(
+                rs.getInt("id"),
+                rs.getString("account_id"),
+                rs.getString("id_card_number"),
+                rs.getString("name"),
+                rs.getString("email"),
+                rs.getString("phone"),
+                rs.getString("address"));
     }
 
-    private boolean isAccountIdExists(Connection con, String accountId) throws SQLException {
-        String sql = "SELECT 1 FROM customers WHERE account_id = ? LIMIT 1";
-        try (PreparedStatement ps = con.prepareStatement(sql)) {
-            ps.setString(1, accountId);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next();
+    private int insertCustomer(Connection con, String accountId, String username, String idCardNumber, String name,
+            String email, String phone, String address, String passwordHash) throws SQLException {
+        String customerSql = "INSERT INTO customers(account_id, username, id_card_number, name, email, phone, address, password) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+        try (PreparedStatement ps = con.prepareStatement(customerSql, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, accountId); // Customer account_id is their login ID
+            ps.setString(2, username);
+            ps.setString(3, idCardNumber);
+            ps.setString(4, name);
+            ps.setString(5, email);
+            ps.setString(6, phone);
+            ps.setString(7, address);
+            ps.setString(8, passwordHash);
+            ps.executeUpdate();
+
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+                throw new SQLException("Failed to retrieve generated customer ID");
             }
         }
     }
 
+    /**
+     * True for a duplicate entry on the unique key of customers.account_id, which
+     * MySQL 8.0.19+ names 'customers.account_id' and older servers 'account_id'.
+     * Other unique keys (username, id_card_number) are real conflicts.
+     */
+    private boolean isAccountIdConflict(SQLIntegrityConstraintViolationException ex) {
+        String message = ex.getMessage();
+        return ex.getErrorCode() == ER_DUP_ENTRY && message != null
+                && (message.contains("for key 'customers.account_id'") || message.contains("for key 'account_id'"));
+    }
+
     /**
      * Promote a customer to admin by copying credentials.
      */
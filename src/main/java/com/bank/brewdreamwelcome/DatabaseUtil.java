@@ -1,5 +1,7 @@
 package com.bank.brewdreamwelcome;
 
+import com.bank.brewdreamwelcome.config.Workload;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
@@ -26,6 +28,27 @@ public final class DatabaseUtil {
     public static Connection getConnection() throws SQLException {
         return com.bank.brewdreamwelcome.config.DatabaseConfig.getConnection();
     }
+
+    /**
+     * A connection from the pool of {@code workload}; see {@code DatabaseConfig.getConnection}.
+     */
+    public static Connection getConnection(Workload workload) throws SQLException {
+        return com.bank.brewdreamwelcome.config.DatabaseConfig.getConnection(workload);
+    }
+
+    /**
+     * A connection for read-only queries; see {@code DatabaseConfig.getReadConnection}.
+     */
+    public static Connection getReadConnection(Object... keys) throws SQLException {
+        return com.bank.brewdreamwelcome.config.DatabaseConfig.getReadConnection(keys);
+    }
+
+    /**
+     * A connection for read-only queries of {@code workload}.
+     */
+    public static Connection getReadConnection(Workload workload, Object... keys) throws SQLException {
+        return com.bank.brewdreamwelcome.config.DatabaseConfig.getReadConnection(workload, keys);
+    }
 }
 
 
@@ -0,0 +1,283 @@
+package com.bank.brewdreamwelcome;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Exact amount of money held as a long count of minor units.
+ *
+ * One unit is 1/10,000 of the currency, matching the {@code DECIMAL(18,4)} money
+ * columns, so every stored value is representable and sums never drift the way
+ * doubles do. Arithmetic is overflow-checked and throws ArithmeticException
+ * instead of wrapping. {@code Long.MIN_VALUE} is excluded so negation is always
+ * safe.
+ *
+ * The static {@link #parseUnits} and {@link #formatUnits} methods work on raw
+ * units and allocate nothing, for table rendering and input validation loops.
+ * JDBC values are read and bound as DECIMAL through {@link #read} and {@link #bind}.
+ */
+public final class Money implements Comparable<Money> {
+
+    /** Decimal places held exactly. */
+    public static final int SCALE = 4;
+
+    public static final long UNITS_PER_MAJOR = 10_000L;
+
+    public static final Money ZERO = new Money(0);
+
+    private static final long[] POW10 = {1L, 10L, 100L, 1_000L, 10_000L};
+
+    private static final double MAX_DOUBLE_UNITS = 9.0e18;
+
+    private static final long MAX_MAJOR = (Long.MAX_VALUE - (UNITS_PER_MAJOR - 1)) / UNITS_PER_MAJOR;
+
+    private final long units;
+
+    private Money(long units) {
+        this.units = units;
+    }
+
+    /**
+     * Amount of {@code units} ten-thousandths.
+     */
+    public static Money ofUnits(long units) {
+        if (units == Long.MIN_VALUE) {
+            throw new ArithmeticException("Money overflow");
+        }
+        return units == 0 ? ZERO : new Money(units);
+    }
+
+    /**
+     * Converts a double, rounding half-even to {@link #SCALE} places. Use at the
+     * edges only (UI input, legacy double APIs); inside the ledger stay in Money.
+     */
+    public static Money of(double amount) {
+        return ofUnits(toUnits(amount));
+    }
+
+    /**
+     * Converts a decimal exactly.
+     *
+     * @throws ArithmeticException if it has more than {@link #SCALE} places or is out of range
+     */
+    public static Money of(BigDecimal amount) {
+        return ofUnits(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Parses amounts such as {@code 1234.5}, {@code -0.25} or {@code 1,234.5678}.
+     *
+     * @throws NumberFormatException if the text is not an amount with at most {@link #SCALE} places
+     */
+    public static Money parse(CharSequence text) {
+        return ofUnits(parseUnits(text, 0, text.length()));
+    }
+
+    /**
+     * Double to units, rounding half-even.
+     *
+     * @throws ArithmeticException if the amount is not finite or out of range
+     */
+    public static long toUnits(double amount) {
+        double scaled = Math.rint(amount * UNITS_PER_MAJOR);
+        if (Double.isNaN(scaled) || Math.abs(scaled) > MAX_DOUBLE_UNITS) {
+            throw new ArithmeticException("Amount out of range: " + amount);
+        }
+        return (long) scaled;
+    }
+
+    /**
+     * Parses {@code text[start, end)} into units without allocating. Leading and
+     * trailing spaces, a leading sign and grouping commas are accepted.
+     *
+     * @throws NumberFormatException if the text is not an amount with at most {@link #SCALE} places
+     */
+    public static long parseUnits(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) == ' ') start++;
+        while (end > start && text.charAt(end - 1) == ' ') end--;
+
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+
+        long major = 0;
+        int majorDigits = 0;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == ',') continue;
+            if (c == '.') break;
+            if (c < '0' || c > '9') throw invalid(text, start, end);
+            if (major > (MAX_MAJOR - (c - '0')) / 10) throw invalid(text, start, end);
+            major = major * 10 + (c - '0');
+            majorDigits++;
+        }
+
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (i < end) {
+            for (i++; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9' || fractionDigits == SCALE) throw invalid(text, start, end);
+                fraction = fraction * 10 + (c - '0');
+                fractionDigits++;
+            }
+        }
+        if (majorDigits == 0 && fractionDigits == 0) {
+            throw invalid(text, start, end);
+        }
+
+        long units = major * UNITS_PER_MAJOR + fraction * POW10[SCALE - fractionDigits];
+        return negative ? -units : units;
+    }
+
+    private static NumberFormatException invalid(CharSequence text, int start, int end) {
+        return new NumberFormatException("Not a valid amount: \"" + text.subSequence(start, end) + "\"");
+    }
+
+    /**
+     * Appends {@code units} to {@code out} with {@code fractionDigits} places
+     * (0 to {@link #SCALE}, rounded half-up), optionally with comma grouping, e.g.
+     * {@code 12,345.68}. Allocates nothing beyond growing {@code out}.
+     */
+    public static StringBuilder formatUnits(long units, int fractionDigits, boolean grouping, StringBuilder out) {
+        if (fractionDigits < 0 || fractionDigits > SCALE) {
+            throw new IllegalArgumentException("fractionDigits must be 0.." + SCALE);
+        }
+        if (units == Long.MIN_VALUE) {
+            throw new ArithmeticException("Money overflow");
+        }
+        long step = POW10[SCALE - fractionDigits];
+        long abs = Math.abs(units);
+        long rounded = abs / step + (abs % step * 2 >= step ? 1 : 0);
+        if (units < 0 && rounded != 0) {
+            out.append('-');
+        }
+
+        long major = rounded / POW10[fractionDigits];
+        long p = 1;
+        int digits = 1;
+        while (p <= major / 10) {
+            p *= 10;
+            digits++;
+        }
+        for (; p > 0; p /= 10, digits--) {
+            out.append((char) ('0' + major / p % 10));
+            if (grouping && digits > 1 && (digits - 1) % 3 == 0) {
+                out.append(',');
+            }
+        }
+
+        if (fractionDigits > 0) {
+            long fraction = rounded % POW10[fractionDigits];
+            out.append('.');
+            for (long q = POW10[fractionDigits - 1]; q > 0; q /= 10) {
+                out.append((char) ('0' + fraction / q % 10));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Reads a DECIMAL column; SQL NULL reads as zero, as {@code getDouble} did.
+     */
+    public static Money read(ResultSet rs, String column) throws SQLException {
+        BigDecimal value = rs.getBigDecimal(column);
+        return value == null ? ZERO : of(value);
+    }
+
+    public static Money read(ResultSet rs, int column) throws SQLException {
+        BigDecimal value = rs.getBigDecimal(column);
+        return value == null ? ZERO : of(value);
+    }
+
+    /**
+     * Binds this amount as an exact DECIMAL parameter.
+     */
+    public void bind(PreparedStatement ps, int index) throws SQLException {
+        ps.setBigDecimal(index, toBigDecimal());
+    }
+
+    public long units() {
+        return units;
+    }
+
+    public Money plus(Money other) {
+        return ofUnits(Math.addExact(units, other.units));
+    }
+
+    public Money minus(Money other) {
+        return ofUnits(Math.subtractExact(units, other.units));
+    }
+
+    public Money times(long factor) {
+        return ofUnits(Math.multiplyExact(units, factor));
+    }
+
+    public Money negate() {
+        return ofUnits(-units);
+    }
+
+    public int signum() {
+        return Long.signum(units);
+    }
+
+    public boolean isPositive() {
+        return units > 0;
+    }
+
+    public boolean isNegative() {
+        return units < 0;
+    }
+
+    public boolean isZero() {
+        return units == 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return units < other.units;
+    }
+
+    public double toDouble() {
+        return (double) units / UNITS_PER_MAJOR;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    /**
+     * Formatted with two places and grouping, as shown in the UI.
+     */
+    public String format() {
+        return formatUnits(units, 2, true, new StringBuilder(24)).toString();
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(units, other.units);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && other.units == units;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(units);
+    }
+
+    /**
+     * Plain form with all {@link #SCALE} places, e.g. {@code -1234.5000}.
+     */
+    @Override
+    public String toString() {
+        return formatUnits(units, SCALE, false, new StringBuilder(24)).toString();
+    }
+}
@@ -9,7 +9,15 @@ public enum TransactionType {
     TRANSFER_IN,
     TRANSFER_OUT,
     OPEN_ACCOUNT,
-    CLOSE_ACCOUNT
-}
-
+    CLOSE_ACCOUNT,
+    TRANSFER,
+    ADJUSTMENT;
 
+    /**
+     * Maps a stored {@code transaction_type} value, which the services write as
+     * DEPOSIT, WITHDRAWAL, TRANSFER or ADJUSTMENT.
+     */
+    public static TransactionType fromColumn(String value) {
+        return "WITHDRAWAL".equals(value) ? WITHDRAW : valueOf(value);
+    }
+}
@@ -1,5 +1,7 @@
 package com.bank.brewdreamwelcome;
 
+import com.bank.brewdreamwelcome.metrics.MetricsServer;
+
 import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
@@ -10,6 +12,9 @@ public class WelcomeApp {
     public static void main(String[] args) {
         // Initialize Core Infrastructure
         com.bank.brewdreamwelcome.core.ThemeManager.initialize();
+        MetricsServer.startIfEnabled();
+        // Refuses to start outside development without a secret ACCOUNT_ID_KEY
+        com.bank.brewdreamwelcome.service.AccountIdGenerator.getInstance();
         // Firebase disabled until serviceAccountKey.json is added to src/main/resources/
         // com.bank.brewdreamwelcome.config.FirebaseConfig.initialize();
 
@@ -0,0 +1,235 @@
+package com.bank.brewdreamwelcome.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control in front of one workload's pool: a circuit breaker and an
+ * adaptive concurrency limit. When the database is slow or down, callers are
+ * turned away at once with a {@link DatabaseOverloadedException} instead of
+ * each waiting out the pool's connection timeout.
+ *
+ * A call is timed from admission until its connection is closed, and is bad
+ * if it got no connection or held one longer than the workload's slow
+ * threshold. Once at least {@value #MIN_CALLS} calls are in the window and
+ * half of the last {@value #WINDOW} were bad, the circuit opens: every call is
+ * rejected for {@code DB_BREAKER_OPEN_MS}. Then {@value #PROBES} probe calls
+ * are let through; if they are all good the circuit closes, otherwise it
+ * opens again.
+ *
+ * While the circuit is closed, calls in flight are capped by a limit between
+ * 1 and the pool size. It grows by one per limit's worth of good calls while
+ * it is in use, and a bad call cuts it by a quarter (at most once per slow
+ * threshold, so one stall is one cut). A caller over the limit waits up to
+ * {@code DB_ADMISSION_WAIT_MS} for a slot, then is rejected.
+ */
+public final class AdmissionController {
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    public record Stats(State state, int limit, int inFlight, long admitted, long rejected, long badCalls,
+                        long trips) {}
+
+    /** An admitted call, handed back to {@link #complete} when its connection is closed. */
+    record Permit(long startNanos, boolean probe) {}
+
+    static final int WINDOW = 20;
+    static final int MIN_CALLS = 10;
+    static final int PROBES = 3;
+    private static final double BACKOFF_RATIO = 0.75;
+
+    private final Workload workload;
+    private final int maxLimit;
+    private final long slowNanos;
+    private final long maxWaitNanos;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    // Everything below is guarded by lock
+    private State state = State.CLOSED;
+    private double limit;
+    private int inFlight;
+    private long openUntil;
+    private long lastDecrease;
+    private int probesInFlight;
+    private int probesPassed;
+    // Outcomes of the last WINDOW calls while closed: true if bad
+    private final boolean[] window = new boolean[WINDOW];
+    private int windowNext;
+    private int windowCalls;
+    private int windowBad;
+    private long admitted;
+    private long rejected;
+    private long badCalls;
+    private long trips;
+
+    AdmissionController(Workload workload, int maxLimit, long slowNanos, long maxWaitNanos, long openNanos,
+                        LongSupplier nanoClock) {
+        this.workload = workload;
+        this.maxLimit = Math.max(1, maxLimit);
+        this.slowNanos = slowNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.openNanos = openNanos;
+        this.nanoClock = nanoClock;
+        this.limit = this.maxLimit;
+        this.lastDecrease = nanoClock.getAsLong() - slowNanos;
+    }
+
+    /**
+     * Admits a call, waiting briefly for a slot if the limit is reached.
+     *
+     * @throws DatabaseOverloadedException if the circuit is open or no slot freed up in time
+     */
+    Permit admit() throws DatabaseOverloadedException {
+        lock.lock();
+        try {
+            long remaining = maxWaitNanos;
+            while (true) {
+                long now = nanoClock.getAsLong();
+                if (state == State.OPEN) {
+                    if (openUntil - now > 0) {
+                        throw reject(DatabaseOverloadedException.Reason.CIRCUIT_OPEN,
+                                TimeUnit.NANOSECONDS.toMillis(openUntil - now));
+                    }
+                    state = State.HALF_OPEN;
+                    probesInFlight = 0;
+                    probesPassed = 0;
+                    logger.info("{} circuit half-open, probing the database", workload);
+                }
+                if (state == State.HALF_OPEN) {
+                    if (probesInFlight + probesPassed >= PROBES) {
+                        throw reject(DatabaseOverloadedException.Reason.CIRCUIT_OPEN, 0);
+                    }
+                    probesInFlight++;
+                    inFlight++;
+                    admitted++;
+                    return new Permit(now, true);
+                }
+                if (inFlight < (int) limit) {
+                    inFlight++;
+                    admitted++;
+                    return new Permit(now, false);
+                }
+                if (remaining <= 0) {
+                    throw reject(DatabaseOverloadedException.Reason.CONCURRENCY_LIMIT, 0);
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject(DatabaseOverloadedException.Reason.CONCURRENCY_LIMIT, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends an admitted call.
+     *
+     * @param failed whether the call could not get a connection
+     */
+    void complete(Permit permit, boolean failed) {
+        lock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            boolean bad = failed || now - permit.startNanos() > slowNanos;
+            inFlight--;
+            if (bad) {
+                badCalls++;
+            }
+            if (permit.probe()) {
+                probesInFlight--;
+                if (state == State.HALF_OPEN) {
+                    if (bad) {
+                        trip(now, "a probe call failed or was slow");
+                    } else if (++probesPassed >= PROBES) {
+                        state = State.CLOSED;
+                        resetWindow();
+                        logger.info("{} circuit closed, the database is responding again", workload);
+                    }
+                }
+            } else if (state == State.CLOSED) {
+                // Calls admitted before the circuit opened say nothing about the database now
+                record(bad);
+                if (bad) {
+                    if (now - lastDecrease >= slowNanos) {
+                        limit = Math.max(1.0, limit * BACKOFF_RATIO);
+                        lastDecrease = now;
+                    }
+                } else if ((inFlight + 1) * 2 >= limit) {
+                    limit = Math.min(maxLimit, limit + 1.0 / limit);
+                }
+                if (windowCalls >= MIN_CALLS && windowBad * 2 >= windowCalls) {
+                    trip(now, windowBad + " of the last " + windowCalls + " calls failed or were slow");
+                }
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether calls are being refused outright, so a caller can tell the user
+     * without trying.
+     */
+    public boolean isOpen() {
+        lock.lock();
+        try {
+            return state == State.OPEN && openUntil - nanoClock.getAsLong() > 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats getStats() {
+        lock.lock();
+        try {
+            return new Stats(state, (int) limit, inFlight, admitted, rejected, badCalls, trips);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean bad) {
+        if (windowCalls == WINDOW) {
+            if (window[windowNext]) {
+                windowBad--;
+            }
+        } else {
+            windowCalls++;
+        }
+        window[windowNext] = bad;
+        if (bad) {
+            windowBad++;
+        }
+        windowNext = (windowNext + 1) % WINDOW;
+    }
+
+    private void resetWindow() {
+        windowNext = 0;
+        windowCalls = 0;
+        windowBad = 0;
+    }
+
+    private void trip(long now, String why) {
+        state = State.OPEN;
+        openUntil = now + openNanos;
+        trips++;
+        resetWindow();
+        logger.warn("{} circuit open for {} ms: {}", workload, TimeUnit.NANOSECONDS.toMillis(openNanos), why);
+    }
+
+    private DatabaseOverloadedException reject(DatabaseOverloadedException.Reason reason, long retryAfterMillis) {
+        rejected++;
+        return new DatabaseOverloadedException(workload, reason, retryAfterMillis);
+    }
+}
@@ -9,51 +9,218 @@ import org.slf4j.LoggerFactory;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Production-grade Connection Pool Manager using HikariCP.
  * Replaces the old DatabaseUtil to prevent connection leaks.
+ *
+ * The primary gets one pool per {@link Workload}, so reports, audit inserts
+ * and background jobs each queue for their own connections and cannot hold
+ * the ones money movement needs. Callers name their workload;
+ * {@link #getConnection()} is OLTP.
+ *
+ * Each pool but {@link Workload#LOOKUP} sits behind an {@link AdmissionController}:
+ * when the database is slow or down, callers get a {@link DatabaseOverloadedException}
+ * straight away rather than blocking for the connection timeout. Work that needs a
+ * second connection while it holds an admitted one takes it from LOOKUP, so it
+ * never waits on its own slot.
+ *
+ * Unless {@code DB_TRACE_ENABLED=false}, every connection is traced by a
+ * {@link TracingDataSource}; see {@link SqlTracer} for what it reports.
+ *
+ * Read-only service methods (history, aggregates, search, statements) use
+ * {@link #getReadConnection}, served by the pools of {@code DB_REPLICA_URLS}
+ * (comma-separated) when any are configured and by the caller's primary pool
+ * otherwise. See {@link ReadRouter}.
  */
 public class DatabaseConfig {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConfig.class);
-    private static HikariDataSource dataSource;
+
+    /**
+     * Saturation of one workload's pool.
+     *
+     * @param waiting  callers blocked waiting for a connection right now
+     * @param timeouts callers that gave up waiting, since startup
+     */
+    public record PoolStats(Workload workload, int maxSize, int active, int idle, int waiting,
+                            long acquisitions, long timeouts, double meanWaitMillis, double maxWaitMillis,
+                            AdmissionController.Stats admission) {
+
+        public double utilization() {
+            return maxSize == 0 ? 0.0 : (double) active / maxSize;
+        }
+    }
+
+    private static final Map<Workload, WorkloadPool> pools = new EnumMap<>(Workload.class);
+    private static final List<HikariDataSource> replicaDataSources = new ArrayList<>();
+    private static final List<DataSource> replicaConnections = new ArrayList<>();
+    private static ReadRouter readRouter;
     private static final Dotenv dotenv = Dotenv.load();
 
     static {
         try {
-            HikariConfig config = new HikariConfig();
-            config.setJdbcUrl(dotenv.get("DB_URL"));
-            config.setUsername(dotenv.get("DB_USER"));
-            config.setPassword(dotenv.get("DB_PASS"));
-
-            // Pool Performance Tuning
-            config.setMaximumPoolSize(10);
-            config.setMinimumIdle(2);
-            config.setIdleTimeout(300000);
-            config.setConnectionTimeout(20000);
-            config.addDataSourceProperty("cachePrepStmts", "true");
-            config.addDataSourceProperty("prepStmtCacheSize", "250");
-            config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-
-            dataSource = new HikariDataSource(config);
-            logger.info("Connection pool initialized successfully.");
+            SqlTracer tracer = Boolean.parseBoolean(dotenv.get("DB_TRACE_ENABLED", "true"))
+                    ? SqlTracer.getInstance() : null;
+            long admissionWaitMillis = Long.parseLong(dotenv.get("DB_ADMISSION_WAIT_MS", "100"));
+            long breakerOpenMillis = Long.parseLong(dotenv.get("DB_BREAKER_OPEN_MS", "5000"));
+            for (Workload workload : Workload.values()) {
+                long slowMillis = Long.parseLong(dotenv.get("DB_POOL_" + workload.name() + "_SLOW_MS",
+                        String.valueOf(workload.defaultSlowMillis)));
+                pools.put(workload, new WorkloadPool(workload, poolConfig(workload), slowMillis,
+                        admissionWaitMillis, breakerOpenMillis, tracer));
+            }
+            logger.info("Connection pools initialized successfully.");
+
+            String replicaUrls = dotenv.get("DB_REPLICA_URLS", "");
+            for (String url : replicaUrls.split(",")) {
+                if (url.isBlank()) {
+                    continue;
+                }
+                HikariConfig replica = baseConfig(url.strip(), dotenv.get("DB_REPLICA_USER", dotenv.get("DB_USER")),
+                        dotenv.get("DB_REPLICA_PASS", dotenv.get("DB_PASS")));
+                replica.setPoolName("vaultx-replica-" + (replicaDataSources.size() + 1));
+                replica.setMaximumPoolSize(Integer.parseInt(dotenv.get("DB_REPLICA_POOL_SIZE", "10")));
+                replica.setReadOnly(true);
+                // A replica that is down must not stall reads or startup: fail fast and fall back
+                replica.setConnectionTimeout(Long.parseLong(dotenv.get("DB_REPLICA_CONNECTION_TIMEOUT_MS", "2000")));
+                replica.setInitializationFailTimeout(-1);
+                HikariDataSource replicaDataSource = new HikariDataSource(replica);
+                replicaDataSources.add(replicaDataSource);
+                replicaConnections.add(tracer != null
+                        ? new TracingDataSource(replicaDataSource, replica.getPoolName(), tracer) : replicaDataSource);
+            }
+            long windowMillis = Long.parseLong(dotenv.get("DB_READ_YOUR_WRITES_MS", "2000"));
+            long cooldownMillis = Long.parseLong(dotenv.get("DB_REPLICA_COOLDOWN_MS", "30000"));
+            readRouter = new ReadRouter(replicaConnections, TimeUnit.MILLISECONDS.toNanos(windowMillis),
+                    TimeUnit.MILLISECONDS.toNanos(cooldownMillis), System::nanoTime);
+            if (!replicaDataSources.isEmpty()) {
+                logger.info("{} read replica pool(s) initialized.", replicaDataSources.size());
+            }
         } catch (Exception e) {
             logger.error("Failed to initialize connection pool", e);
             throw new RuntimeException("Database initialization failed", e);
         }
     }
 
+    private static HikariConfig poolConfig(Workload workload) {
+        String prefix = "DB_POOL_" + workload.name() + "_";
+        HikariConfig config = baseConfig(dotenv.get("DB_URL"), dotenv.get("DB_USER"), dotenv.get("DB_PASS"));
+        config.setPoolName("vaultx-" + workload.name().toLowerCase(Locale.ROOT));
+        config.setMaximumPoolSize(Integer.parseInt(dotenv.get(prefix + "SIZE", String.valueOf(workload.defaultSize))));
+        config.setMinimumIdle(Math.min(2, config.getMaximumPoolSize()));
+        config.setConnectionTimeout(Long.parseLong(
+                dotenv.get(prefix + "TIMEOUT_MS", String.valueOf(workload.defaultTimeoutMillis))));
+        long queryTimeout = Long.parseLong(
+                dotenv.get(prefix + "QUERY_TIMEOUT_MS", String.valueOf(workload.defaultQueryTimeoutMillis)));
+        if (queryTimeout > 0) {
+            // MySQL aborts SELECTs on this session that run longer
+            config.setConnectionInitSql("SET SESSION max_execution_time = " + queryTimeout);
+        }
+        // Let the driver collapse addBatch()/executeBatch() into multi-row statements
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        return config;
+    }
+
+    private static HikariConfig baseConfig(String url, String user, String password) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(user);
+        config.setPassword(password);
+
+        // Pool Performance Tuning
+        config.setMinimumIdle(2);
+        config.setIdleTimeout(300000);
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        return config;
+    }
+
+    /**
+     * A primary connection for OLTP work.
+     */
     public static Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
+        return getConnection(Workload.OLTP);
+    }
+
+    /**
+     * A primary connection from the pool of {@code workload}.
+     *
+     * @throws DatabaseOverloadedException at once, if the database has been
+     *         failing or slow for this workload, or it has too many calls in flight
+     */
+    public static Connection getConnection(Workload workload) throws SQLException {
+        return pools.get(workload).getConnection();
     }
 
+    /**
+     * Whether {@code workload} is refusing calls because the database has been
+     * failing or slow, so the UI can say so without trying.
+     */
+    public static boolean isOverloaded(Workload workload) {
+        return pools.get(workload).isRejecting();
+    }
+
+    /**
+     * A connection for a read-only OLTP query; see {@link #getReadConnection(Workload, Object...)}.
+     */
+    public static Connection getReadConnection(Object... keys) throws SQLException {
+        return getReadConnection(Workload.OLTP, keys);
+    }
+
+    /**
+     * A connection for a read-only query, from a replica unless one of
+     * {@code keys} (account numbers, customer IDs) was written moments ago, in
+     * which case (or without replicas) from the primary pool of {@code workload}.
+     * Do not write through it.
+     */
+    public static Connection getReadConnection(Workload workload, Object... keys) throws SQLException {
+        Connection replica = readRouter.getReplicaConnection(keys);
+        return replica != null ? replica : getConnection(workload);
+    }
+
+    /**
+     * Records a committed write of {@code key}, so the writer's next reads of it
+     * come from the primary until replicas have caught up.
+     */
+    public static void recordWrite(Object key) {
+        readRouter.recordWrite(key);
+    }
+
+    public static ReadRouter.Stats getReadStats() {
+        return readRouter.getStats();
+    }
+
+    /**
+     * Saturation of every workload pool, in {@link Workload} order.
+     */
+    public static List<PoolStats> getPoolStats() {
+        List<PoolStats> stats = new ArrayList<>();
+        for (WorkloadPool pool : pools.values()) {
+            stats.add(pool.stats());
+        }
+        return stats;
+    }
+
+    /**
+     * The OLTP pool.
+     */
     public static DataSource getDataSource() {
-        return dataSource;
+        return pools.get(Workload.OLTP).dataSource();
     }
 
     public static void shutdown() {
-        if (dataSource != null) {
-            dataSource.close();
+        for (HikariDataSource replica : replicaDataSources) {
+            replica.close();
+        }
+        for (WorkloadPool pool : pools.values()) {
+            pool.close();
         }
     }
 }
@@ -0,0 +1,55 @@
+package com.bank.brewdreamwelcome.config;
+
+import java.sql.SQLTransientException;
+
+/**
+ * Thrown instead of a connection when {@link AdmissionController} turns a
+ * caller away, without touching the database. Nothing was started, so the
+ * caller may simply tell the user to try again later.
+ */
+public class DatabaseOverloadedException extends SQLTransientException {
+
+    public enum Reason {
+        /** The database has been failing or slow; all calls are refused for a while. */
+        CIRCUIT_OPEN,
+        /** Too many calls of this workload are already in flight. */
+        CONCURRENCY_LIMIT
+    }
+
+    private final Workload workload;
+    private final Reason reason;
+    private final long retryAfterMillis;
+
+    public DatabaseOverloadedException(Workload workload, Reason reason, long retryAfterMillis) {
+        super(workload + " database calls rejected: " + reason
+                + (retryAfterMillis > 0 ? ", retry in " + retryAfterMillis + " ms" : ""));
+        this.workload = workload;
+        this.reason = reason;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public Workload getWorkload() {
+        return workload;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * How long until the circuit lets calls through again, or 0 if unknown.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * A message fit to show the user.
+     */
+    public String getUserMessage() {
+        long seconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+        return reason == Reason.CIRCUIT_OPEN
+                ? "The bank is not responding right now. Please try again in " + seconds + " seconds."
+                : "The bank is busy right now. Please try again in a moment.";
+    }
+}
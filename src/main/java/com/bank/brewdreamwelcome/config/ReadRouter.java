@@ -0,0 +1,142 @@
+package com.bank.brewdreamwelcome.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Chooses whether a read-only query runs on a replica or on the primary.
+ *
+ * Reads go to the replicas in turn. A replica may lag the primary, so callers
+ * name what they read (an account number, a customer ID) and writers record
+ * what they committed; a read of anything written in the last
+ * {@code DB_READ_YOUR_WRITES_MS} goes to the primary instead, and so the user
+ * who just moved money sees it. A replica that cannot hand out a connection is
+ * skipped and marked down for {@code DB_REPLICA_COOLDOWN_MS}, so only the read
+ * that finds it down pays the connection timeout; the first read after the
+ * cooldown tries it again. With no replica left the primary serves the read
+ * (from the pool of the caller's {@link Workload}).
+ */
+public final class ReadRouter {
+    private static final Logger logger = LoggerFactory.getLogger(ReadRouter.class);
+
+    public record Stats(long replicaReads, long primaryReads, long replicaFailures, int recentWrites,
+                        int replicasDown) {}
+
+    private static final int PURGE_THRESHOLD = 4096;
+
+    private final List<DataSource> replicas;
+    private final long windowNanos;
+    private final long cooldownNanos;
+    private final LongSupplier nanoClock;
+    // Key written -> when reads of it may go back to the replicas
+    private final ConcurrentHashMap<Object, Long> recentWrites = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    // Per replica: when it may be tried again after a failure (0 while it is up)
+    private final AtomicLongArray downUntil;
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder replicaFailures = new LongAdder();
+
+    ReadRouter(List<DataSource> replicas, long windowNanos, long cooldownNanos, LongSupplier nanoClock) {
+        this.replicas = List.copyOf(replicas);
+        this.windowNanos = windowNanos;
+        this.cooldownNanos = cooldownNanos;
+        this.nanoClock = nanoClock;
+        this.downUntil = new AtomicLongArray(replicas.size());
+    }
+
+    /**
+     * Records a commit that changed {@code key}. Call after the commit succeeds.
+     */
+    public void recordWrite(Object key) {
+        if (replicas.isEmpty() || key == null) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        recentWrites.put(key, now + windowNanos);
+        if (recentWrites.size() > PURGE_THRESHOLD) {
+            recentWrites.values().removeIf(until -> until - now <= 0);
+        }
+    }
+
+    /**
+     * A replica connection for a read of {@code keys}, or null if the read must
+     * go to the primary: one of them was written within the window, or no
+     * replica that is up could hand out a connection.
+     */
+    public Connection getReplicaConnection(Object... keys) {
+        if (!replicas.isEmpty() && !recentlyWritten(keys)) {
+            int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                int index = (start + i) % replicas.size();
+                long until = downUntil.get(index);
+                // A replica cooling down is skipped; once the cooldown is over, the read
+                // that claims it first tries it while the others keep skipping it
+                if (until != 0 && (until - nanoClock.getAsLong() > 0
+                        || !downUntil.compareAndSet(index, until, retryAt()))) {
+                    continue;
+                }
+                try {
+                    Connection conn = replicas.get(index).getConnection();
+                    downUntil.set(index, 0);
+                    replicaReads.increment();
+                    return conn;
+                } catch (SQLException e) {
+                    replicaFailures.increment();
+                    downUntil.set(index, retryAt());
+                    logger.warn("Read replica {} unavailable, skipping it for {} ms: {}", index + 1,
+                            TimeUnit.NANOSECONDS.toMillis(cooldownNanos), e.getMessage());
+                }
+            }
+        }
+        primaryReads.increment();
+        return null;
+    }
+
+    /** When a replica that just failed may be tried again; never 0, which means up. */
+    private long retryAt() {
+        long at = nanoClock.getAsLong() + cooldownNanos;
+        return at != 0 ? at : 1;
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    public Stats getStats() {
+        long now = nanoClock.getAsLong();
+        int down = 0;
+        for (int i = 0; i < downUntil.length(); i++) {
+            long until = downUntil.get(i);
+            if (until != 0 && until - now > 0) {
+                down++;
+            }
+        }
+        return new Stats(replicaReads.sum(), primaryReads.sum(), replicaFailures.sum(), recentWrites.size(), down);
+    }
+
+    private boolean recentlyWritten(Object... keys) {
+        long now = nanoClock.getAsLong();
+        for (Object key : keys) {
+            Long until = key != null ? recentWrites.get(key) : null;
+            if (until != null) {
+                if (until - now > 0) {
+                    return true;
+                }
+                recentWrites.remove(key, until);
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,370 @@
+package com.bank.brewdreamwelcome.config;
+
+import com.bank.brewdreamwelcome.util.LatencyHistogram;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Collects what {@link TracingDataSource} sees: latency and rows per SQL
+ * shape, connection hold times per pool, connections held too long, and
+ * queries repeated within one user action.
+ *
+ * A shape is the statement text with literals and IN lists folded to
+ * {@code ?}, so every call of one prepared statement, or of the same query
+ * built by concatenation, lands on the same entry.
+ *
+ * A user action is run with {@link #runAction} or {@link #callAction} around what one click
+ * does. A shape run {@code DB_TRACE_REPEAT_THRESHOLD} times inside one action
+ * (or on one connection, outside any action) is the N+1 pattern and is logged
+ * once. A connection open longer than {@code DB_TRACE_LEAK_MS} is logged with
+ * the stack that acquired it. Statements slower than
+ * {@code DB_TRACE_SLOW_SQL_MS} are logged as they finish, and the busiest
+ * shapes every {@code DB_TRACE_REPORT_SECONDS}.
+ */
+public final class SqlTracer {
+    private static final Logger logger = LoggerFactory.getLogger(SqlTracer.class);
+
+    public record ShapeStats(String sql, long executions, long errors, long rows, double totalMillis,
+                             double meanMillis, double p50Millis, double p99Millis, double maxMillis) {}
+
+    public record HoldStats(String pool, long connections, double meanMillis, double p99Millis, double maxMillis) {}
+
+    public record OpenConnection(String pool, String thread, long heldMillis, StackTraceElement[] acquiredAt) {}
+
+    public record RepeatedQuery(String action, String sql, int count) {}
+
+    public record Stats(long statements, long leaksReported, long unclosedStatements, long repeatedQueries) {}
+
+    static final String OTHER_SHAPE = "(other statements)";
+    private static final int MAX_SHAPES = 2_000;
+    private static final int MAX_REPEATS_KEPT = 100;
+    private static final int REPORT_TOP = 10;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern VALUES_LIST = Pattern.compile("(?i)\\bVALUES\\s*(\\([^()]*\\))(?:\\s*,\\s*\\([^()]*\\))+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static SqlTracer instance;
+
+    /** One checked-out connection. */
+    final class ConnectionTrace {
+        final String pool;
+        final long acquiredNanos;
+        final Thread thread;
+        final Throwable acquiredAt;
+        final AtomicInteger openStatements = new AtomicInteger();
+        // Shape -> executions on this connection, used outside any action; confined to the using thread
+        private Map<String, Integer> executions;
+        volatile boolean reported;
+
+        ConnectionTrace(String pool) {
+            this.pool = pool;
+            this.acquiredNanos = nanoClock.getAsLong();
+            this.thread = Thread.currentThread();
+            this.acquiredAt = new Throwable("Connection acquired from " + pool + " by " + thread.getName());
+        }
+    }
+
+    /**
+     * A user action in progress on the current thread.
+     */
+    private static final class Action {
+        private final String name;
+        private final Map<String, Integer> executions = new HashMap<>();
+
+        private Action(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class Shape {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+    }
+
+    private final long leakNanos;
+    private final long slowNanos;
+    private final int repeatThreshold;
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentHashMap<String, String> shapeOf = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Shape> shapes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram> holds = new ConcurrentHashMap<>();
+    private final Set<ConnectionTrace> open = ConcurrentHashMap.newKeySet();
+    private final Deque<RepeatedQuery> repeats = new ArrayDeque<>();
+    private final ThreadLocal<Action> currentAction = new ThreadLocal<>();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder leaksReported = new LongAdder();
+    private final LongAdder unclosedStatements = new LongAdder();
+    private final LongAdder repeatedQueries = new LongAdder();
+
+    SqlTracer(long leakNanos, long slowNanos, int repeatThreshold, LongSupplier nanoClock) {
+        this.leakNanos = leakNanos;
+        this.slowNanos = slowNanos;
+        this.repeatThreshold = repeatThreshold;
+        this.nanoClock = nanoClock;
+    }
+
+    public static synchronized SqlTracer getInstance() {
+        if (instance == null) {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            instance = new SqlTracer(
+                    TimeUnit.MILLISECONDS.toNanos(Long.parseLong(dotenv.get("DB_TRACE_LEAK_MS", "10000"))),
+                    TimeUnit.MILLISECONDS.toNanos(Long.parseLong(dotenv.get("DB_TRACE_SLOW_SQL_MS", "500"))),
+                    Integer.parseInt(dotenv.get("DB_TRACE_REPEAT_THRESHOLD", "10")),
+                    System::nanoTime);
+            long reportSeconds = Long.parseLong(dotenv.get("DB_TRACE_REPORT_SECONDS", "300"));
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "sql-tracer");
+                t.setDaemon(true);
+                return t;
+            });
+            SqlTracer tracer = instance;
+            executor.scheduleWithFixedDelay(tracer::checkLeaks, 1, 1, TimeUnit.SECONDS);
+            if (reportSeconds > 0) {
+                executor.scheduleWithFixedDelay(tracer::logReport, reportSeconds, reportSeconds, TimeUnit.SECONDS);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Runs {@code work} on this thread as a user action. Actions nest, and
+     * queries count toward the innermost.
+     */
+    public void runAction(String name, Runnable work) {
+        callAction(name, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Like {@link #runAction}, returning what {@code work} returns.
+     */
+    public <T> T callAction(String name, Supplier<T> work) {
+        Action outer = currentAction.get();
+        currentAction.set(new Action(name));
+        try {
+            return work.get();
+        } finally {
+            currentAction.set(outer);
+        }
+    }
+
+    /**
+     * Per-shape statistics, busiest (by total time) first.
+     */
+    public List<ShapeStats> getShapeStats() {
+        List<ShapeStats> stats = new ArrayList<>();
+        shapes.forEach((sql, shape) -> {
+            LatencyHistogram h = shape.latency;
+            stats.add(new ShapeStats(sql, h.count(), shape.errors.sum(), shape.rows.sum(), h.sumNanos() / 1e6,
+                    h.meanNanos() / 1e6, h.percentileNanos(0.5) / 1e6, h.percentileNanos(0.99) / 1e6,
+                    h.maxNanos() / 1e6));
+        });
+        stats.sort(Comparator.comparingDouble(ShapeStats::totalMillis).reversed());
+        return stats;
+    }
+
+    public List<HoldStats> getHoldStats() {
+        List<HoldStats> stats = new ArrayList<>();
+        holds.forEach((pool, h) -> stats.add(new HoldStats(pool, h.count(), h.meanNanos() / 1e6,
+                h.percentileNanos(0.99) / 1e6, h.maxNanos() / 1e6)));
+        stats.sort(Comparator.comparing(HoldStats::pool));
+        return stats;
+    }
+
+    /**
+     * Connections checked out right now, longest held first.
+     */
+    public List<OpenConnection> getOpenConnections() {
+        long now = nanoClock.getAsLong();
+        List<OpenConnection> list = new ArrayList<>();
+        for (ConnectionTrace trace : open) {
+            list.add(new OpenConnection(trace.pool, trace.thread.getName(),
+                    TimeUnit.NANOSECONDS.toMillis(now - trace.acquiredNanos), trace.acquiredAt.getStackTrace()));
+        }
+        list.sort(Comparator.comparingLong(OpenConnection::heldMillis).reversed());
+        return list;
+    }
+
+    /**
+     * The most recent queries repeated within one action, newest first.
+     */
+    public List<RepeatedQuery> getRepeatedQueries() {
+        synchronized (repeats) {
+            return new ArrayList<>(repeats);
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(statements.sum(), leaksReported.sum(), unclosedStatements.sum(), repeatedQueries.sum());
+    }
+
+    ConnectionTrace connectionOpened(String pool) {
+        ConnectionTrace trace = new ConnectionTrace(pool);
+        open.add(trace);
+        return trace;
+    }
+
+    void connectionClosed(ConnectionTrace trace) {
+        if (!open.remove(trace)) {
+            return;
+        }
+        long held = nanoClock.getAsLong() - trace.acquiredNanos;
+        holds.computeIfAbsent(trace.pool, pool -> new LatencyHistogram()).record(held);
+        int leftOpen = trace.openStatements.get();
+        if (leftOpen > 0) {
+            unclosedStatements.add(leftOpen);
+            logger.warn("Connection closed with {} statement(s) still open", leftOpen, trace.acquiredAt);
+        }
+        if (trace.reported) {
+            logger.info("Connection from {} reported as held too long was released after {} ms", trace.pool,
+                    TimeUnit.NANOSECONDS.toMillis(held));
+        }
+    }
+
+    /**
+     * Records one statement execution.
+     *
+     * @param rows rows changed, or 0 for a query (its rows are added as they are read)
+     */
+    void executed(ConnectionTrace trace, String sql, long nanos, long rows, boolean failed) {
+        String shape = shapeKey(sql);
+        Shape stats = shape(shape);
+        stats.latency.record(nanos);
+        if (rows > 0) {
+            stats.rows.add(rows);
+        }
+        if (failed) {
+            stats.errors.increment();
+        }
+        statements.increment();
+        if (nanos > slowNanos) {
+            logger.warn("Slow SQL ({} ms on {}): {}", TimeUnit.NANOSECONDS.toMillis(nanos), trace.pool, shape);
+        }
+        countRepeat(trace, shape);
+    }
+
+    void rowsRead(String sql, long rows) {
+        shape(shapeKey(sql)).rows.add(rows);
+    }
+
+    /**
+     * Logs, once each, connections held longer than the leak threshold.
+     */
+    void checkLeaks() {
+        long now = nanoClock.getAsLong();
+        for (ConnectionTrace trace : open) {
+            if (!trace.reported && now - trace.acquiredNanos > leakNanos) {
+                trace.reported = true;
+                leaksReported.increment();
+                logger.warn("Connection from {} held for {} ms by {}, possibly leaked", trace.pool,
+                        TimeUnit.NANOSECONDS.toMillis(now - trace.acquiredNanos), trace.thread.getName(),
+                        trace.acquiredAt);
+            }
+        }
+    }
+
+    private void logReport() {
+        List<ShapeStats> stats = getShapeStats();
+        if (stats.isEmpty()) {
+            return;
+        }
+        StringBuilder report = new StringBuilder("Busiest SQL by total time:");
+        for (ShapeStats s : stats.subList(0, Math.min(REPORT_TOP, stats.size()))) {
+            report.append(String.format("%n  %8.0f ms  %7d x  p50 %.1f ms  p99 %.1f ms  %d rows  %s",
+                    s.totalMillis(), s.executions(), s.p50Millis(), s.p99Millis(), s.rows(), s.sql()));
+        }
+        for (HoldStats h : getHoldStats()) {
+            report.append(String.format("%n  %s connections held: %d, mean %.1f ms, p99 %.1f ms, max %.1f ms",
+                    h.pool(), h.connections(), h.meanMillis(), h.p99Millis(), h.maxMillis()));
+        }
+        logger.info(report.toString());
+    }
+
+    private void countRepeat(ConnectionTrace trace, String shape) {
+        Action action = currentAction.get();
+        Map<String, Integer> executions;
+        if (action != null) {
+            executions = action.executions;
+        } else {
+            if (trace.executions == null) {
+                trace.executions = new HashMap<>();
+            }
+            executions = trace.executions;
+        }
+        int count = executions.merge(shape, 1, Integer::sum);
+        if (count == repeatThreshold) {
+            String name = action != null ? action.name : "connection from " + trace.pool;
+            repeatedQueries.increment();
+            synchronized (repeats) {
+                repeats.addFirst(new RepeatedQuery(name, shape, count));
+                if (repeats.size() > MAX_REPEATS_KEPT) {
+                    repeats.removeLast();
+                }
+            }
+            logger.warn("Query run {} times in {} (N+1?): {}", count, name, shape);
+        }
+    }
+
+    private Shape shape(String key) {
+        Shape shape = shapes.get(key);
+        if (shape != null) {
+            return shape;
+        }
+        if (shapes.size() >= MAX_SHAPES) {
+            key = OTHER_SHAPE;
+        }
+        return shapes.computeIfAbsent(key, k -> new Shape());
+    }
+
+    private String shapeKey(String sql) {
+        if (sql == null) {
+            return OTHER_SHAPE;
+        }
+        String shape = shapeOf.get(sql);
+        if (shape == null) {
+            shape = normalize(sql);
+            if (shapeOf.size() < MAX_SHAPES * 4) {
+                shapeOf.put(sql, shape);
+            }
+        }
+        return shape;
+    }
+
+    /**
+     * Folds literals, IN lists and multi-row VALUES to placeholders and
+     * collapses whitespace.
+     */
+    static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").strip();
+        shape = IN_LIST.matcher(shape).replaceAll("IN (?)");
+        return VALUES_LIST.matcher(shape).replaceAll("VALUES $1, ...");
+    }
+}
@@ -0,0 +1,200 @@
+package com.bank.brewdreamwelcome.config;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+
+/**
+ * A DataSource that reports to a {@link SqlTracer} what is done through the
+ * connections of the one it wraps: how long each is held, which statements
+ * run and how long they take, and how many rows come back.
+ *
+ * Connections and statements are handed out as proxies over the real ones;
+ * the only extra work per statement is a clock read and a lookup of its shape.
+ * Result sets, whose getters run once per column per row, are wrapped in a
+ * {@link TracedResultSet} instead, which only adds work to next() and close().
+ */
+public final class TracingDataSource implements DataSource {
+
+    private final DataSource delegate;
+    private final String pool;
+    private final SqlTracer tracer;
+
+    public TracingDataSource(DataSource delegate, String pool, SqlTracer tracer) {
+        this.delegate = delegate;
+        this.pool = pool;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return traced(delegate.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return traced(delegate.getConnection(username, password));
+    }
+
+    private Connection traced(Connection conn) {
+        SqlTracer.ConnectionTrace trace = tracer.connectionOpened(pool);
+        return proxy(Connection.class, conn, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.equals("close")) {
+                try {
+                    return invoke(conn, method, args);
+                } finally {
+                    tracer.connectionClosed(trace);
+                }
+            }
+            Object result = invoke(conn, method, args);
+            if (result instanceof CallableStatement cs) {
+                return statement(CallableStatement.class, cs, trace, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement ps) {
+                return statement(PreparedStatement.class, ps, trace, (String) args[0]);
+            }
+            if (result instanceof Statement st) {
+                return statement(Statement.class, st, trace, null);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Wraps a statement; {@code preparedSql} is null for a plain Statement,
+     * whose SQL comes with each execute call.
+     */
+    private <T extends Statement> T statement(Class<T> type, T st, SqlTracer.ConnectionTrace trace,
+                                              String preparedSql) {
+        trace.openStatements.incrementAndGet();
+        boolean[] closed = new boolean[1];
+        String[] lastSql = {preparedSql};
+        return proxy(type, st, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.equals("close")) {
+                if (!closed[0]) {
+                    closed[0] = true;
+                    trace.openStatements.decrementAndGet();
+                }
+                return invoke(st, method, args);
+            }
+            if (name.equals("getResultSet")) {
+                ResultSet rs = (ResultSet) invoke(st, method, args);
+                return rs != null ? new TracedResultSet(rs, tracer, lastSql[0]) : null;
+            }
+            String argSql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+            if (!name.startsWith("execute")) {
+                if (name.equals("addBatch") && argSql != null) {
+                    lastSql[0] = argSql;
+                }
+                return invoke(st, method, args);
+            }
+
+            String sql = argSql != null ? argSql : preparedSql != null ? preparedSql : lastSql[0];
+            lastSql[0] = sql;
+            long begin = System.nanoTime();
+            boolean failed = true;
+            Object result = null;
+            try {
+                result = invoke(st, method, args);
+                failed = false;
+            } finally {
+                tracer.executed(trace, sql, System.nanoTime() - begin, changedRows(result), failed);
+            }
+            return result instanceof ResultSet rs ? new TracedResultSet(rs, tracer, sql) : result;
+        });
+    }
+
+    private static long changedRows(Object result) {
+        if (result instanceof Integer n) {
+            return Math.max(0, n);
+        }
+        if (result instanceof Long n) {
+            return Math.max(0, n);
+        }
+        long rows = 0;
+        if (result instanceof int[] counts) {
+            for (int n : counts) {
+                rows += Math.max(0, n);
+            }
+        } else if (result instanceof long[] counts) {
+            for (long n : counts) {
+                rows += Math.max(0, n);
+            }
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("equals") && args != null && args.length == 1) {
+                        return proxy == args[0];
+                    }
+                    if (name.equals("hashCode") && args == null) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if (name.equals("unwrap") && args[0] instanceof Class<?> c && c.isInstance(target)) {
+                        return target;
+                    }
+                    return handler.invoke(proxy, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(delegate) ? iface.cast(delegate) : delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(delegate) || delegate.isWrapperFor(iface);
+    }
+}
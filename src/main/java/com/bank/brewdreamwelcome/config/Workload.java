@@ -0,0 +1,48 @@
+package com.bank.brewdreamwelcome.config;
+
+/**
+ * The classes of database work that get a connection pool of their own, so a
+ * burst in one cannot use up the connections another needs.
+ *
+ * Each pool is sized and timed by {@code DB_POOL_<NAME>_SIZE},
+ * {@code DB_POOL_<NAME>_TIMEOUT_MS} (how long a caller waits for a connection),
+ * {@code DB_POOL_<NAME>_QUERY_TIMEOUT_MS} (the longest a SELECT may run;
+ * 0 for no limit) and {@code DB_POOL_<NAME>_SLOW_MS} (how long a connection
+ * may be held before {@link AdmissionController} counts the call as slow),
+ * with the defaults below. Every pool but {@link #LOOKUP} is admission controlled.
+ */
+public enum Workload {
+    /** Money movement, logins and what the customer dashboard reads: short and latency-sensitive. */
+    OLTP(10, 5_000, 0, 1_000),
+    /** Admin tables, aggregates and statements: long scans that may queue. */
+    REPORTING(4, 30_000, 120_000, 30_000),
+    /** Audit log inserts. */
+    AUDIT(2, 5_000, 0, 1_000),
+    /** Background jobs: recurring transfers, projections, reconciliation, search index builds and tails. */
+    SCHEDULER(2, 30_000, 0, 10_000),
+    /**
+     * Short lookups made while the caller already holds an admitted connection:
+     * ID block reservation, cache and flag loads. Not admission controlled, since
+     * waiting for a slot the caller itself occupies can only end in rejection.
+     */
+    LOOKUP(4, 5_000, 0, 1_000, false);
+
+    final int defaultSize;
+    final long defaultTimeoutMillis;
+    final long defaultQueryTimeoutMillis;
+    final long defaultSlowMillis;
+    final boolean admissionControlled;
+
+    Workload(int defaultSize, long defaultTimeoutMillis, long defaultQueryTimeoutMillis, long defaultSlowMillis) {
+        this(defaultSize, defaultTimeoutMillis, defaultQueryTimeoutMillis, defaultSlowMillis, true);
+    }
+
+    Workload(int defaultSize, long defaultTimeoutMillis, long defaultQueryTimeoutMillis, long defaultSlowMillis,
+             boolean admissionControlled) {
+        this.defaultSize = defaultSize;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.defaultQueryTimeoutMillis = defaultQueryTimeoutMillis;
+        this.defaultSlowMillis = defaultSlowMillis;
+        this.admissionControlled = admissionControlled;
+    }
+}
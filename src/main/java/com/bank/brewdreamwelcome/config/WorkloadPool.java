@@ -0,0 +1,121 @@
+package com.bank.brewdreamwelcome.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The connection pool of one {@link Workload}, timing how long callers wait
+ * for a connection. Callers pass its {@link AdmissionController} first, and
+ * the connections they get report back to it when closed, unless the workload
+ * is not admission controlled.
+ */
+final class WorkloadPool {
+    private static final Logger logger = LoggerFactory.getLogger(WorkloadPool.class);
+
+    private final Workload workload;
+    private final HikariDataSource dataSource;
+    private final DataSource connections;
+    private final AdmissionController admission;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    WorkloadPool(Workload workload, HikariConfig config, long slowMillis, long admissionWaitMillis,
+                 long breakerOpenMillis, SqlTracer tracer) {
+        this.workload = workload;
+        this.dataSource = new HikariDataSource(config);
+        this.connections = tracer != null ? new TracingDataSource(dataSource, config.getPoolName(), tracer) : dataSource;
+        this.admission = new AdmissionController(workload, config.getMaximumPoolSize(),
+                TimeUnit.MILLISECONDS.toNanos(slowMillis), TimeUnit.MILLISECONDS.toNanos(admissionWaitMillis),
+                TimeUnit.MILLISECONDS.toNanos(breakerOpenMillis), System::nanoTime);
+    }
+
+    /**
+     * @throws DatabaseOverloadedException if admission control turned the caller away
+     */
+    Connection getConnection() throws SQLException {
+        AdmissionController.Permit permit = workload.admissionControlled ? admission.admit() : null;
+        long begin = System.nanoTime();
+        Connection conn;
+        try {
+            conn = connections.getConnection();
+        } catch (SQLException e) {
+            if (permit != null) {
+                admission.complete(permit, true);
+            }
+            if (e instanceof SQLTransientConnectionException) {
+                timeouts.increment();
+                logger.warn("{} pool exhausted: no connection within {} ms", workload,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+            }
+            throw e;
+        }
+        long waited = System.nanoTime() - begin;
+        acquisitions.increment();
+        waitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        return permit != null ? reportingClose(conn, permit) : conn;
+    }
+
+    boolean isRejecting() {
+        return admission.isOpen();
+    }
+
+    /**
+     * Wraps {@code conn} so that closing it (once) completes {@code permit}.
+     */
+    private Connection reportingClose(Connection conn, AdmissionController.Permit permit) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(WorkloadPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("equals") && args != null && args.length == 1) {
+                        return proxy == args[0];
+                    }
+                    boolean closing = method.getName().equals("close") && closed.compareAndSet(false, true);
+                    try {
+                        return method.invoke(conn, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        if (closing) {
+                            admission.complete(permit, false);
+                        }
+                    }
+                });
+    }
+
+    HikariDataSource dataSource() {
+        return dataSource;
+    }
+
+    DatabaseConfig.PoolStats stats() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        long count = acquisitions.sum();
+        return new DatabaseConfig.PoolStats(workload, dataSource.getMaximumPoolSize(),
+                pool != null ? pool.getActiveConnections() : 0,
+                pool != null ? pool.getIdleConnections() : 0,
+                pool != null ? pool.getThreadsAwaitingConnection() : 0,
+                count, timeouts.sum(),
+                count == 0 ? 0.0 : waitNanos.sum() / 1e6 / count,
+                maxWaitNanos.get() / 1e6, admission.getStats());
+    }
+
+    void close() {
+        dataSource.close();
+    }
+}
@@ -0,0 +1,41 @@
+package com.bank.brewdreamwelcome.ledger;
+
+import com.bank.brewdreamwelcome.service.CustomerBankingService;
+
+import java.sql.SQLException;
+
+/**
+ * Ledger engine backed by {@link CustomerBankingService}, the implementation the
+ * functional customer dashboard used before engines were configurable.
+ */
+public class CustomerBankingLedgerEngine implements LedgerEngine {
+
+    private final CustomerBankingService bankingService = CustomerBankingService.getInstance();
+
+    @Override
+    public String name() {
+        return LedgerEngines.CUSTOMER_BANKING;
+    }
+
+    @Override
+    public boolean deposit(String accountNumber, double amount, String description, String idempotencyKey) {
+        return bankingService.deposit(accountNumber, amount, description, idempotencyKey);
+    }
+
+    @Override
+    public boolean withdraw(String accountNumber, double amount, String description, String idempotencyKey) {
+        return bankingService.withdraw(accountNumber, amount, description, idempotencyKey);
+    }
+
+    @Override
+    public boolean transfer(String fromAccount, String toAccount, double amount, String description,
+                            String idempotencyKey) {
+        return bankingService.transfer(fromAccount, toAccount, amount, description, idempotencyKey);
+    }
+
+    @Override
+    public boolean transferOrThrow(String fromAccount, String toAccount, double amount, String description,
+                                   String idempotencyKey) throws SQLException {
+        return bankingService.transferOrThrow(fromAccount, toAccount, amount, description, idempotencyKey);
+    }
+}
@@ -0,0 +1,50 @@
+package com.bank.brewdreamwelcome.ledger;
+
+import com.bank.brewdreamwelcome.BankDatabaseService;
+import com.bank.brewdreamwelcome.BankDatabaseService.TransferRequest;
+import com.bank.brewdreamwelcome.BankDatabaseService.TransferResult;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Ledger engine backed by {@link BankDatabaseService}: sorted row locks on both
+ * accounts, TRANSFER_OUT/TRANSFER_IN ledger rows. Batches are locked and
+ * committed together by {@link BankDatabaseService#transferBatch}.
+ */
+public class DatabaseLedgerEngine implements LedgerEngine {
+
+    private final BankDatabaseService bankDb = BankDatabaseService.getInstance();
+
+    @Override
+    public String name() {
+        return LedgerEngines.DATABASE;
+    }
+
+    @Override
+    public boolean deposit(String accountNumber, double amount, String description, String idempotencyKey) {
+        return bankDb.deposit(accountNumber, amount, description, idempotencyKey);
+    }
+
+    @Override
+    public boolean withdraw(String accountNumber, double amount, String description, String idempotencyKey) {
+        return bankDb.withdraw(accountNumber, amount, description, idempotencyKey);
+    }
+
+    @Override
+    public boolean transfer(String fromAccount, String toAccount, double amount, String description,
+                            String idempotencyKey) {
+        return bankDb.transfer(fromAccount, toAccount, amount, description, idempotencyKey);
+    }
+
+    @Override
+    public boolean transferOrThrow(String fromAccount, String toAccount, double amount, String description,
+                                   String idempotencyKey) throws SQLException {
+        return bankDb.transferOrThrow(fromAccount, toAccount, amount, description, idempotencyKey);
+    }
+
+    @Override
+    public List<TransferResult> transferBatch(List<TransferRequest> requests) {
+        return bankDb.transferBatch(requests);
+    }
+}
@@ -0,0 +1,298 @@
+package com.bank.brewdreamwelcome.ledger;
+
+import com.bank.brewdreamwelcome.Money;
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.Workload;
+import com.bank.brewdreamwelcome.repository.AccountRepository;
+import com.bank.brewdreamwelcome.repository.AccountRepositoryImpl;
+import com.bank.brewdreamwelcome.repository.PostingRepository;
+import com.bank.brewdreamwelcome.repository.PostingRepository.Posting;
+import com.bank.brewdreamwelcome.repository.TransactionRepository;
+import com.bank.brewdreamwelcome.service.AccountCache;
+import com.bank.brewdreamwelcome.service.IntradayMetrics;
+import com.bank.brewdreamwelcome.service.TransactionRetryExecutor;
+import com.bank.brewdreamwelcome.service.TransactionRetryExecutor.IdempotencyKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ledger engine whose source of truth is the append-only {@code ledger_postings} table.
+ *
+ * Every movement inserts one transactions row (history and idempotency key) and
+ * one signed posting per account leg; no balance row is updated on the request
+ * path. Credits hold a shared lock on the account row and debits an exclusive
+ * one, so concurrent credits to a hot account do not queue behind each other.
+ * The balance a debit is checked against is the latest snapshot plus the
+ * postings after it.
+ *
+ * {@code accounts.balance} becomes a projection. A background task rewrites it
+ * for the accounts touched since its last run, and folds their tail into a new
+ * snapshot once it reaches {@code snapshotEvery} postings, which keeps rebuilding
+ * a balance bounded. An account joins the ledger with an opening snapshot of its
+ * mutable balance the first time this engine posts to it. From then on only this
+ * engine may move its money, so this should be the only configured engine.
+ */
+public class EventSourcedLedgerEngine implements LedgerEngine, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(EventSourcedLedgerEngine.class);
+
+    private final PostingRepository postings = new PostingRepository();
+    private final AccountRepository accountRepo = new AccountRepositoryImpl();
+    private final TransactionRepository txRepo = new TransactionRepository();
+    private final AccountCache accountCache = AccountCache.getInstance();
+    private final TransactionRetryExecutor retryExecutor = TransactionRetryExecutor.getInstance();
+    private final IntradayMetrics metrics = IntradayMetrics.getInstance();
+    private final int snapshotEvery;
+
+    /** Accounts known to have an opening snapshot. */
+    private final Set<String> joined = ConcurrentHashMap.newKeySet();
+    /** Accounts whose projection is behind their postings. */
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService projector;
+
+    /**
+     * @param snapshotEvery       tail length (in postings) at which a new snapshot is taken
+     * @param projectionInterval  how often, in milliseconds, projections are refreshed
+     */
+    public EventSourcedLedgerEngine(int snapshotEvery, long projectionInterval) {
+        this.snapshotEvery = snapshotEvery;
+        this.projector = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ledger-projector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        projector.scheduleWithFixedDelay(this::refreshProjections, projectionInterval, projectionInterval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String name() {
+        return LedgerEngines.EVENT_SOURCED;
+    }
+
+    @Override
+    public boolean deposit(String accountNumber, double amount, String description, String idempotencyKey) {
+        return run("Deposit", "DEPOSIT", null, accountNumber, amount, description, idempotencyKey);
+    }
+
+    @Override
+    public boolean withdraw(String accountNumber, double amount, String description, String idempotencyKey) {
+        return run("Withdrawal", "WITHDRAWAL", accountNumber, null, amount, description, idempotencyKey);
+    }
+
+    @Override
+    public boolean transfer(String fromAccount, String toAccount, double amount, String description,
+                            String idempotencyKey) {
+        if (fromAccount.equals(toAccount)) return false;
+        return run("Transfer", "TRANSFER", fromAccount, toAccount, amount, description, idempotencyKey);
+    }
+
+    @Override
+    public boolean transferOrThrow(String fromAccount, String toAccount, double amount, String description,
+                                   String idempotencyKey) throws SQLException {
+        if (fromAccount.equals(toAccount) || amount <= 0) return false;
+        return retryExecutor.execute("Transfer", IdempotencyKey.of(idempotencyKey),
+                key -> post("TRANSFER", fromAccount, toAccount, Money.of(amount), description, key));
+    }
+
+    /**
+     * Sets an account to an absolute balance by posting the difference as an
+     * ADJUSTMENT, so corrections leave a ledger entry instead of overwriting the
+     * balance.
+     */
+    public boolean setBalance(String accountNumber, Money newBalance, String description, String idempotencyKey) {
+        try {
+            return retryExecutor.execute("Adjustment", IdempotencyKey.of(idempotencyKey),
+                    key -> adjust(accountNumber, newBalance, description, key));
+        } catch (SQLException e) {
+            logger.error("DB Error during balance adjustment", e);
+            return false;
+        }
+    }
+
+    /**
+     * Balance from the postings ledger, or from the mutable row for accounts that
+     * have not joined it yet.
+     */
+    public Optional<Money> balanceOf(String accountNumber) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            Optional<Money> balance = postings.currentBalance(conn, accountNumber);
+            if (balance.isPresent()) {
+                return balance;
+            }
+            return accountRepo.findWithVersion(conn, accountNumber).map(AccountRepository.VersionedAccountRecord::balance);
+        }
+    }
+
+    private boolean run(String operation, String type, String debitAcc, String creditAcc, double amount,
+                        String description, String idempotencyKey) {
+        if (amount <= 0) return false;
+        Money value = Money.of(amount);
+
+        try {
+            return retryExecutor.execute(operation, IdempotencyKey.of(idempotencyKey),
+                    key -> post(type, debitAcc, creditAcc, value, description, key));
+        } catch (SQLException e) {
+            logger.error("DB Error during {}", operation.toLowerCase(), e);
+            return false;
+        }
+    }
+
+    private boolean post(String type, String debitAcc, String creditAcc, Money amount, String description,
+                         String idempotencyKey) throws SQLException {
+        Set<String> accounts = new TreeSet<>(); // locked in account number order
+        if (debitAcc != null) accounts.add(debitAcc);
+        if (creditAcc != null) accounts.add(creditAcc);
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+
+            try {
+                for (String accNo : accounts) {
+                    Optional<String> status = postings.lockAccount(conn, accNo, accNo.equals(debitAcc));
+                    if (status.isEmpty() || !"ACTIVE".equals(status.get())) {
+                        conn.rollback();
+                        return false;
+                    }
+                }
+                List<String> newlyJoined = join(conn, accounts);
+
+                if (debitAcc != null
+                        && postings.currentBalance(conn, debitAcc).orElse(Money.ZERO).isLessThan(amount)) {
+                    conn.rollback();
+                    return false;
+                }
+
+                String txId = txRepo.logTransaction(conn, type, debitAcc, creditAcc, amount, description,
+                        idempotencyKey);
+                List<Posting> legs = new ArrayList<>(2);
+                if (debitAcc != null) legs.add(new Posting(debitAcc, amount.negate(), type, txId));
+                if (creditAcc != null) legs.add(new Posting(creditAcc, amount, type, txId));
+                postings.append(conn, legs);
+
+                conn.commit();
+                joined.addAll(newlyJoined);
+                dirty.addAll(accounts);
+                accountCache.historyAppended(accounts);
+                metrics.recordTransaction(type, debitAcc, creditAcc, amount);
+                logger.info("{} posted: {} (Amount: {})", type, txId, amount);
+                return true;
+            } catch (Exception e) {
+                conn.rollback(); // the retry executor decides whether to try again
+                throw e;
+            }
+        }
+    }
+
+    private boolean adjust(String accNo, Money newBalance, String description, String idempotencyKey)
+            throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+
+            try {
+                if (postings.lockAccount(conn, accNo, true).isEmpty()) {
+                    conn.rollback();
+                    return false;
+                }
+                List<String> newlyJoined = join(conn, Set.of(accNo));
+                Money delta = newBalance.minus(postings.currentBalance(conn, accNo).orElse(Money.ZERO));
+                if (!delta.isZero()) {
+                    String txId = txRepo.logTransaction(conn, "ADJUSTMENT",
+                            delta.isNegative() ? accNo : null, delta.isNegative() ? null : accNo,
+                            delta.isNegative() ? delta.negate() : delta, description, idempotencyKey);
+                    postings.append(conn, List.of(new Posting(accNo, delta, "ADJUSTMENT", txId)));
+                }
+                conn.commit();
+                joined.addAll(newlyJoined);
+                dirty.add(accNo);
+                if (!delta.isZero()) {
+                    accountCache.historyAppended(List.of(accNo));
+                    metrics.recordTransaction("ADJUSTMENT", delta.isNegative() ? accNo : null,
+                            delta.isNegative() ? null : accNo, delta.isNegative() ? delta.negate() : delta);
+                }
+                return true;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private List<String> join(Connection conn, Set<String> accounts) throws SQLException {
+        List<String> newlyJoined = new ArrayList<>(0);
+        for (String accNo : accounts) {
+            if (!joined.contains(accNo)) {
+                postings.ensureOpeningSnapshot(conn, accNo);
+                newlyJoined.add(accNo);
+            }
+        }
+        return newlyJoined;
+    }
+
+    /**
+     * Rewrites the projected balance of every account posted to since the last
+     * run, snapshotting those whose tail has grown past {@code snapshotEvery}.
+     * One short transaction per account; failures are retried on the next run.
+     *
+     * @return the number of projections refreshed
+     */
+    public int refreshProjections() {
+        int refreshed = 0;
+        for (String accNo : List.copyOf(dirty)) {
+            dirty.remove(accNo);
+            try (Connection conn = DatabaseConfig.getConnection(Workload.SCHEDULER)) {
+                conn.setAutoCommit(false);
+                try {
+                    postings.lockAccount(conn, accNo, true);
+                    Optional<PostingRepository.Snapshot> latest = postings.findLatestSnapshot(conn, accNo);
+                    if (latest.isEmpty()) {
+                        conn.rollback();
+                        continue;
+                    }
+                    PostingRepository.Tail tail = postings.sumTail(conn, accNo, latest.get().postingId());
+                    if (tail.count() >= snapshotEvery) {
+                        postings.takeSnapshot(conn, accNo);
+                    }
+                    accountRepo.updateBalance(conn, accNo, latest.get().balance().plus(tail.sum()));
+                    conn.commit();
+                    accountCache.invalidateAccount(accNo);
+                    refreshed++;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                dirty.add(accNo);
+                logger.warn("Projection refresh failed for {}: {}", accNo, e.getMessage());
+            }
+        }
+        return refreshed;
+    }
+
+    /**
+     * Stops the background projector after a final refresh.
+     */
+    @Override
+    public void close() {
+        projector.shutdown();
+        try {
+            projector.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        refreshProjections();
+    }
+}
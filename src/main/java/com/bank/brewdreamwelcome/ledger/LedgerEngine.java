@@ -0,0 +1,86 @@
+package com.bank.brewdreamwelcome.ledger;
+
+import com.bank.brewdreamwelcome.BankDatabaseService.TransferRequest;
+import com.bank.brewdreamwelcome.BankDatabaseService.TransferResult;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Posts money movements against accounts.
+ *
+ * Every implementation must honour the same contract, which
+ * {@code LedgerEngineContractTest} checks:
+ * <ul>
+ *   <li>amounts must be positive, and both accounts of a transfer must exist, be
+ *       ACTIVE and differ;</li>
+ *   <li>a debit never takes an account below zero;</li>
+ *   <li>a transfer moves exactly {@code amount} and never creates or destroys money,
+ *       even under concurrent calls;</li>
+ *   <li>a repeated call with the same non-blank idempotency key posts at most once
+ *       and reports success again.</li>
+ * </ul>
+ * Engines may differ in locking, batching and in the transaction types they write
+ * to the ledger, so callers must not depend on either. A {@code false} result means
+ * nothing was posted.
+ */
+public interface LedgerEngine {
+
+    /**
+     * Short configuration name, as accepted by {@link LedgerEngines#create(String)}.
+     */
+    String name();
+
+    boolean deposit(String accountNumber, double amount, String description, String idempotencyKey);
+
+    boolean withdraw(String accountNumber, double amount, String description, String idempotencyKey);
+
+    boolean transfer(String fromAccount, String toAccount, double amount, String description,
+                     String idempotencyKey);
+
+    /**
+     * Like {@link #transfer(String, String, double, String, String)}, but a database
+     * error that outlasts the engine's own retries is thrown instead of being
+     * reported as {@code false}. Callers that retry later, such as the transfer
+     * journal, use it to tell an outage from a rejected transfer: {@code false}
+     * here always means the ledger refused the transfer.
+     */
+    default boolean transferOrThrow(String fromAccount, String toAccount, double amount, String description,
+                                    String idempotencyKey) throws SQLException {
+        return transfer(fromAccount, toAccount, amount, description, idempotencyKey);
+    }
+
+    /**
+     * Transfers for many requests, each one under the same contract as
+     * {@link #transfer(String, String, double, String, String)}. A rejected request
+     * does not stop the others, and results come back in request order. By default
+     * each request is posted on its own; engines that can lock and commit a batch
+     * together override this.
+     */
+    default List<TransferResult> transferBatch(List<TransferRequest> requests) {
+        List<TransferResult> results = new ArrayList<>(requests.size());
+        for (TransferRequest req : requests) {
+            if (req.fromAccount() == null || req.toAccount() == null) {
+                results.add(new TransferResult(req, false, "Account number is required"));
+                continue;
+            }
+            boolean posted = transfer(req.fromAccount(), req.toAccount(), req.amount(),
+                    req.description() != null ? req.description() : "Transfer");
+            results.add(new TransferResult(req, posted, posted ? "Transfer completed" : "Transfer rejected"));
+        }
+        return results;
+    }
+
+    default boolean deposit(String accountNumber, double amount, String description) {
+        return deposit(accountNumber, amount, description, null);
+    }
+
+    default boolean withdraw(String accountNumber, double amount, String description) {
+        return withdraw(accountNumber, amount, description, null);
+    }
+
+    default boolean transfer(String fromAccount, String toAccount, double amount, String description) {
+        return transfer(fromAccount, toAccount, amount, description, null);
+    }
+}
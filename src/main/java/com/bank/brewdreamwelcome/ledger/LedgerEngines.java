@@ -0,0 +1,85 @@
+package com.bank.brewdreamwelcome.ledger;
+
+import com.bank.brewdreamwelcome.repository.AccountRepositoryImpl;
+import com.bank.brewdreamwelcome.service.ModernBankService;
+import com.bank.brewdreamwelcome.service.ModernBankService.ConcurrencyMode;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Creates ledger engines by name and holds the one the application is configured
+ * to use ({@code LEDGER_ENGINE} in .env, default {@value #DATABASE}).
+ */
+public final class LedgerEngines {
+    private static final Logger logger = LoggerFactory.getLogger(LedgerEngines.class);
+
+    public static final String DATABASE = "database";
+    public static final String CUSTOMER_BANKING = "customer-banking";
+    public static final String MODERN = "modern";
+    public static final String MODERN_OPTIMISTIC = "modern-optimistic";
+    public static final String MODERN_GROUP_COMMIT = "modern-group-commit";
+    public static final String EVENT_SOURCED = "event-sourced";
+
+    private static final int GROUP_COMMIT_QUEUE_CAPACITY = 10_000;
+    private static final int GROUP_COMMIT_MAX_BATCH = 64;
+    private static final long GROUP_COMMIT_MAX_WAIT_MICROS = 500;
+
+    private static LedgerEngine instance;
+
+    private LedgerEngines() {
+    }
+
+    /**
+     * The configured engine, created on first use and timed by a {@link TimedLedgerEngine}.
+     */
+    public static synchronized LedgerEngine get() {
+        if (instance == null) {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            instance = new TimedLedgerEngine(create(dotenv.get("LEDGER_ENGINE", DATABASE)));
+            logger.info("Using ledger engine '{}'", instance.name());
+        }
+        return instance;
+    }
+
+    /**
+     * Creates a new engine. Each call to a {@code modern*} name gets its own
+     * service, so a group-commit engine owns its own writer thread.
+     *
+     * @throws IllegalArgumentException if the name is not one of {@link #names()}
+     */
+    public static LedgerEngine create(String name) {
+        String key = name == null ? DATABASE : name.trim().toLowerCase(Locale.ROOT);
+        switch (key) {
+            case DATABASE:
+                return new DatabaseLedgerEngine();
+            case CUSTOMER_BANKING:
+                return new CustomerBankingLedgerEngine();
+            case MODERN:
+                return new ModernLedgerEngine(key,
+                        new ModernBankService(new AccountRepositoryImpl(), ConcurrencyMode.PESSIMISTIC));
+            case MODERN_OPTIMISTIC:
+                return new ModernLedgerEngine(key,
+                        new ModernBankService(new AccountRepositoryImpl(), ConcurrencyMode.OPTIMISTIC));
+            case MODERN_GROUP_COMMIT:
+                ModernBankService service = new ModernBankService(new AccountRepositoryImpl());
+                service.enableGroupCommit(GROUP_COMMIT_QUEUE_CAPACITY, GROUP_COMMIT_MAX_BATCH,
+                        GROUP_COMMIT_MAX_WAIT_MICROS);
+                return new ModernLedgerEngine(key, service);
+            case EVENT_SOURCED:
+                Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+                return new EventSourcedLedgerEngine(
+                        Integer.parseInt(dotenv.get("LEDGER_SNAPSHOT_EVERY", "500")),
+                        Long.parseLong(dotenv.get("LEDGER_PROJECTION_INTERVAL_MS", "2000")));
+            default:
+                throw new IllegalArgumentException("Unknown ledger engine '" + name + "', expected one of " + names());
+        }
+    }
+
+    public static List<String> names() {
+        return List.of(DATABASE, CUSTOMER_BANKING, MODERN, MODERN_OPTIMISTIC, MODERN_GROUP_COMMIT, EVENT_SOURCED);
+    }
+}
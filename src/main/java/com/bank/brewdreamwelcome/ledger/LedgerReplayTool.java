@@ -0,0 +1,128 @@
+package com.bank.brewdreamwelcome.ledger;
+
+import com.bank.brewdreamwelcome.Money;
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.Workload;
+import com.bank.brewdreamwelcome.repository.AccountRepository;
+import com.bank.brewdreamwelcome.repository.AccountRepositoryImpl;
+import com.bank.brewdreamwelcome.repository.PostingRepository;
+import com.bank.brewdreamwelcome.repository.PostingRepository.Snapshot;
+import com.bank.brewdreamwelcome.repository.PostingRepository.Tail;
+import com.bank.brewdreamwelcome.service.AccountCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Rebuilds every projected balance from the postings ledger.
+ *
+ * For each account on the ledger the balance is replayed from its opening
+ * snapshot over all of its postings, checked against the latest snapshot plus
+ * tail, and written back to {@code accounts.balance}. Accounts are independent,
+ * so they are rebuilt in parallel, one short transaction each. Run it with
+ * {@code LedgerReplayTool [threads]}; the exit status is 1 if any replayed
+ * balance disagreed with its snapshots.
+ */
+public final class LedgerReplayTool {
+    private static final Logger logger = LoggerFactory.getLogger(LedgerReplayTool.class);
+
+    public record Report(int accounts, int mismatches, int failures, long elapsedMillis) {}
+
+    private enum Outcome { MATCHED, MISMATCHED, FAILED }
+
+    private LedgerReplayTool() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        Report report = rebuildAll(threads);
+        System.out.printf("Rebuilt %d accounts in %d ms: %d mismatches, %d failures%n",
+                report.accounts(), report.elapsedMillis(), report.mismatches(), report.failures());
+        System.exit(report.mismatches() > 0 || report.failures() > 0 ? 1 : 0);
+    }
+
+    public static Report rebuildAll(int threads) throws InterruptedException {
+        long begin = System.nanoTime();
+        PostingRepository postings = new PostingRepository();
+        List<String> accounts;
+        try (Connection conn = DatabaseConfig.getConnection(Workload.SCHEDULER)) {
+            accounts = postings.findLedgerAccounts(conn);
+        } catch (SQLException e) {
+            logger.error("Could not list ledger accounts", e);
+            return new Report(0, 0, 1, 0);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Outcome>> results = new ArrayList<>(accounts.size());
+        try {
+            AccountRepository accountRepo = new AccountRepositoryImpl();
+            for (String accNo : accounts) {
+                results.add(pool.submit(() -> rebuild(postings, accountRepo, accNo)));
+            }
+            int mismatches = 0;
+            int failures = 0;
+            for (Future<Outcome> result : results) {
+                Outcome outcome;
+                try {
+                    outcome = result.get();
+                } catch (ExecutionException e) {
+                    outcome = Outcome.FAILED;
+                }
+                if (outcome == Outcome.MISMATCHED) mismatches++;
+                if (outcome == Outcome.FAILED) failures++;
+            }
+            long elapsed = (System.nanoTime() - begin) / 1_000_000;
+            logger.info("Ledger replay: {} accounts, {} mismatches, {} failures, {} ms",
+                    accounts.size(), mismatches, failures, elapsed);
+            return new Report(accounts.size(), mismatches, failures, elapsed);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Outcome rebuild(PostingRepository postings, AccountRepository accountRepo, String accNo) {
+        try (Connection conn = DatabaseConfig.getConnection(Workload.SCHEDULER)) {
+            conn.setAutoCommit(false);
+            try {
+                if (postings.lockAccount(conn, accNo, true).isEmpty()) {
+                    conn.rollback();
+                    return Outcome.MATCHED; // account deleted; its postings are history only
+                }
+                Optional<Snapshot> opening = postings.findOpeningSnapshot(conn, accNo);
+                if (opening.isEmpty()) {
+                    conn.rollback();
+                    return Outcome.MATCHED;
+                }
+                Tail all = postings.sumTail(conn, accNo, opening.get().postingId());
+                Money replayed = opening.get().balance().plus(all.sum());
+                Money current = postings.currentBalance(conn, accNo).orElse(replayed);
+
+                accountRepo.updateBalance(conn, accNo, replayed);
+                conn.commit();
+                AccountCache.getInstance().invalidateAccount(accNo);
+
+                if (!replayed.equals(current)) {
+                    logger.error("Ledger mismatch on {}: replayed {} but snapshot + tail is {}",
+                            accNo, replayed, current);
+                    return Outcome.MISMATCHED;
+                }
+                return Outcome.MATCHED;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            logger.error("Ledger replay failed for {}", accNo, e);
+            return Outcome.FAILED;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.bank.brewdreamwelcome.ledger;
+
+import com.bank.brewdreamwelcome.service.ModernBankService;
+
+import java.sql.SQLException;
+
+/**
+ * Ledger engine backed by {@link ModernBankService}. The same service serves
+ * three configurations: pessimistic locking, optimistic version checks, and
+ * group commit (transfers only; deposits and withdrawals run directly).
+ */
+public class ModernLedgerEngine implements LedgerEngine {
+
+    private final String name;
+    private final ModernBankService bankService;
+
+    public ModernLedgerEngine(String name, ModernBankService bankService) {
+        this.name = name;
+        this.bankService = bankService;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    public ModernBankService getBankService() {
+        return bankService;
+    }
+
+    @Override
+    public boolean deposit(String accountNumber, double amount, String description, String idempotencyKey) {
+        return bankService.depositFunds(accountNumber, amount, description, idempotencyKey);
+    }
+
+    @Override
+    public boolean withdraw(String accountNumber, double amount, String description, String idempotencyKey) {
+        return bankService.withdrawFunds(accountNumber, amount, description, idempotencyKey);
+    }
+
+    /**
+     * Goes through the group-commit writer when the service has one enabled,
+     * otherwise runs directly in the service's default concurrency mode.
+     */
+    @Override
+    public boolean transfer(String fromAccount, String toAccount, double amount, String description,
+                            String idempotencyKey) {
+        return bankService.transferFunds(fromAccount, toAccount, amount, description, idempotencyKey);
+    }
+
+    @Override
+    public boolean transferOrThrow(String fromAccount, String toAccount, double amount, String description,
+                                   String idempotencyKey) throws SQLException {
+        return bankService.transferFundsOrThrow(fromAccount, toAccount, amount, description, idempotencyKey);
+    }
+}
@@ -0,0 +1,88 @@
+package com.bank.brewdreamwelcome.ledger;
+
+import com.bank.brewdreamwelcome.metrics.MetricsRegistry;
+import com.bank.brewdreamwelcome.metrics.Timer;
+
+import com.bank.brewdreamwelcome.BankDatabaseService.TransferRequest;
+import com.bank.brewdreamwelcome.BankDatabaseService.TransferResult;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Records the latency and failures of every posting made through another
+ * engine, as {@code vaultx_ledger_call_seconds{engine, operation}}. All money
+ * movement in the application goes through {@link LedgerEngines#get()}, so
+ * this one wrapper covers deposits, withdrawals and transfers whichever
+ * service backs the configured engine.
+ */
+public class TimedLedgerEngine implements LedgerEngine {
+
+    private final LedgerEngine delegate;
+    private final Timer deposits;
+    private final Timer withdrawals;
+    private final Timer transfers;
+    private final Timer transferBatches;
+
+    public TimedLedgerEngine(LedgerEngine delegate) {
+        this.delegate = delegate;
+        this.deposits = timer(delegate, "deposit");
+        this.withdrawals = timer(delegate, "withdraw");
+        this.transfers = timer(delegate, "transfer");
+        this.transferBatches = timer(delegate, "transfer_batch");
+    }
+
+    private static Timer timer(LedgerEngine engine, String operation) {
+        return MetricsRegistry.getInstance().timer("vaultx_ledger_call_seconds", "Latency of ledger postings",
+                "engine", engine.name(), "operation", operation);
+    }
+
+    /**
+     * The wrapped engine.
+     */
+    public LedgerEngine getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+    @Override
+    public boolean deposit(String accountNumber, double amount, String description, String idempotencyKey) {
+        return deposits.time(() -> delegate.deposit(accountNumber, amount, description, idempotencyKey),
+                Boolean::booleanValue);
+    }
+
+    @Override
+    public boolean withdraw(String accountNumber, double amount, String description, String idempotencyKey) {
+        return withdrawals.time(() -> delegate.withdraw(accountNumber, amount, description, idempotencyKey),
+                Boolean::booleanValue);
+    }
+
+    @Override
+    public boolean transfer(String fromAccount, String toAccount, double amount, String description,
+                            String idempotencyKey) {
+        return transfers.time(() -> delegate.transfer(fromAccount, toAccount, amount, description, idempotencyKey),
+                Boolean::booleanValue);
+    }
+
+    @Override
+    public boolean transferOrThrow(String fromAccount, String toAccount, double amount, String description,
+                                   String idempotencyKey) throws SQLException {
+        long started = System.nanoTime();
+        boolean ok = false;
+        try {
+            ok = delegate.transferOrThrow(fromAccount, toAccount, amount, description, idempotencyKey);
+            return ok;
+        } finally {
+            transfers.record(started, ok);
+        }
+    }
+
+    @Override
+    public List<TransferResult> transferBatch(List<TransferRequest> requests) {
+        return transferBatches.time(() -> delegate.transferBatch(requests));
+    }
+}
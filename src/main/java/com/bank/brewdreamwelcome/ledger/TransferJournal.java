@@ -0,0 +1,610 @@
+package com.bank.brewdreamwelcome.ledger;
+
+import com.bank.brewdreamwelcome.Money;
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.service.TransactionRetryExecutor;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Durable local write-ahead journal for transfer intents.
+ *
+ * {@link #accept} appends the intent to a memory-mapped segment file and returns
+ * once it is on disk, without touching the database. Concurrent appends share one
+ * msync: a flusher thread forces everything appended so far, waiting up to
+ * {@code maxFsyncWaitMicros} for more appends to join. A drainer thread then posts
+ * the intents through a {@link LedgerEngine} in journal order. Each posting carries
+ * the idempotency key {@code JRNL-<journal id>-<sequence>}, and the ledger row with
+ * that key is the exactly-once marker. After a crash the journal is replayed from
+ * the drained checkpoint, and intents that were already posted are recognised by
+ * their key and not posted again.
+ *
+ * Segments are fixed-size files named after their first sequence and are deleted
+ * once fully drained. A record is {@code [int length][int crc][long sequence][payload]},
+ * with the length written last; a torn or corrupt record ends the journal on replay.
+ * While the database is unreachable, or a posting fails with a transient error
+ * (deadlock, lost connection, overload), the drainer holds its position and
+ * retries, so these only delay postings. Only an intent the ledger itself rejects
+ * (for example insufficient funds at posting time) is dropped, and it is reported
+ * to the outcome listeners.
+ */
+public final class TransferJournal implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(TransferJournal.class);
+
+    private static final int HEADER_BYTES = 16;
+    private static final int MAX_PAYLOAD_BYTES = 4096;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "drained.checkpoint";
+    private static final String ID_FILE = "journal.id";
+    private static final int CHECKPOINT_EVERY = 64;
+    private static final long OUTAGE_BACKOFF_MILLIS = 1000;
+
+    /**
+     * Proof that a transfer was durably accepted; the key identifies its ledger row.
+     */
+    public record Receipt(long sequence, String idempotencyKey) {}
+
+    public record Entry(long sequence, String fromAccount, String toAccount, Money amount, String description) {}
+
+    @FunctionalInterface
+    public interface OutcomeListener {
+        void onDrained(Entry entry, String idempotencyKey, boolean posted);
+    }
+
+    public record Stats(long accepted, long posted, long rejected, int backlog, int segments, long fsyncs) {}
+
+    private static final boolean ENABLED = Boolean.parseBoolean(
+            Dotenv.configure().ignoreIfMissing().load().get("JOURNAL_ENABLED", "false"));
+
+    private static TransferJournal instance;
+
+    private final Path dir;
+    private final LedgerEngine ledger;
+    private final int segmentBytes;
+    private final long maxFsyncWaitNanos;
+    private final BooleanSupplier databaseAvailable;
+    private final String journalId;
+
+    private final Object appendLock = new Object();
+    /** First sequence of each segment on disk, in order; the last one is active. */
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private MappedByteBuffer activeBuffer;
+    private int writePosition;
+    private long nextSequence;
+    private long appendedSequence;
+    private long durableSequence;
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_PAYLOAD_BYTES);
+    private final CRC32 crc = new CRC32();
+
+    /** Appended but not yet forced; moved to {@code pending} in order once durable. */
+    private final ArrayDeque<Entry> unsynced = new ArrayDeque<>();
+    private final LinkedBlockingDeque<Entry> pending = new LinkedBlockingDeque<>();
+    private final List<OutcomeListener> listeners = new CopyOnWriteArrayList<>();
+    private final FileChannel checkpointChannel;
+    private volatile long drainedSequence;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong posted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong fsyncs = new AtomicLong();
+
+    private final Thread flusher;
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    /**
+     * Opens (or creates) the journal in {@code dir}, replays what was not yet
+     * drained and starts the flusher and drainer threads.
+     */
+    public TransferJournal(Path dir, LedgerEngine ledger, int segmentBytes, long maxFsyncWaitMicros,
+                           BooleanSupplier databaseAvailable) throws IOException {
+        if (segmentBytes < HEADER_BYTES + MAX_PAYLOAD_BYTES + 4) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentBytes);
+        }
+        this.dir = dir;
+        this.ledger = ledger;
+        this.segmentBytes = segmentBytes;
+        this.maxFsyncWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxFsyncWaitMicros);
+        this.databaseAvailable = databaseAvailable;
+
+        Files.createDirectories(dir);
+        this.journalId = readOrCreateId();
+        this.checkpointChannel = FileChannel.open(dir.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.drainedSequence = readCheckpoint();
+        recover();
+
+        this.flusher = new Thread(this::runFlusher, "journal-fsync");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        this.drainer = new Thread(this::runDrainer, "journal-drainer");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * Whether the journal is switched on ({@code JOURNAL_ENABLED=true} in .env).
+     * Read once at startup, like the rest of the journal configuration.
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * The application journal, draining into {@link LedgerEngines#get()}.
+     *
+     * @throws IllegalStateException if the journal is disabled or cannot be opened
+     */
+    public static synchronized TransferJournal getInstance() {
+        if (instance == null) {
+            if (!ENABLED) {
+                throw new IllegalStateException("Transfer journal is disabled");
+            }
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            try {
+                instance = new TransferJournal(
+                        Paths.get(dotenv.get("JOURNAL_DIR", "journal")),
+                        LedgerEngines.get(),
+                        Integer.parseInt(dotenv.get("JOURNAL_SEGMENT_MB", "16")) * 1024 * 1024,
+                        Long.parseLong(dotenv.get("JOURNAL_FSYNC_WAIT_MICROS", "200")),
+                        TransferJournal::isDatabaseReachable);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot open transfer journal", e);
+            }
+        }
+        return instance;
+    }
+
+    private static boolean isDatabaseReachable() {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return conn.isValid(2);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    public void addOutcomeListener(OutcomeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeOutcomeListener(OutcomeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Durably records a transfer for posting. Returns once the intent is on disk;
+     * the transfer itself is posted later and may still be rejected by the ledger.
+     *
+     * @throws IllegalArgumentException if the intent is malformed or too large
+     * @throws IOException if the journal cannot be written
+     */
+    public Receipt accept(String fromAccount, String toAccount, double amount, String description)
+            throws IOException {
+        if (amount <= 0 || fromAccount == null || toAccount == null || fromAccount.equals(toAccount)) {
+            throw new IllegalArgumentException("Invalid transfer intent");
+        }
+        if (!running) {
+            throw new IOException("Transfer journal is closed");
+        }
+        Entry entry;
+        synchronized (appendLock) {
+            entry = new Entry(nextSequence, fromAccount, toAccount, Money.of(amount),
+                    description == null ? "" : description);
+            append(entry);
+            nextSequence++;
+            appendedSequence = entry.sequence();
+            unsynced.addLast(entry);
+            appendLock.notifyAll(); // wake the flusher
+            while (durableSequence < entry.sequence()) {
+                if (!flusher.isAlive()) {
+                    throw new IOException("Transfer journal stopped before the intent was synced");
+                }
+                try {
+                    appendLock.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the journal sync", e);
+                }
+            }
+        }
+        accepted.incrementAndGet();
+        return new Receipt(entry.sequence(), keyFor(entry.sequence()));
+    }
+
+    public Stats getStats() {
+        synchronized (appendLock) {
+            return new Stats(accepted.get(), posted.get(), rejected.get(), pending.size(), segments.size(),
+                    fsyncs.get());
+        }
+    }
+
+    private String keyFor(long sequence) {
+        return "JRNL-" + journalId + "-" + sequence;
+    }
+
+    // ---------------------------------------------------------------- writing
+
+    private void append(Entry entry) throws IOException {
+        scratch.clear();
+        try {
+            putString(entry.fromAccount());
+            putString(entry.toAccount());
+            scratch.putLong(entry.amount().units());
+            putString(entry.description());
+        } catch (java.nio.BufferOverflowException e) {
+            throw new IllegalArgumentException("Transfer intent exceeds " + MAX_PAYLOAD_BYTES + " bytes");
+        }
+        int length = scratch.position();
+
+        if (writePosition + HEADER_BYTES + length + 4 > segmentBytes) {
+            rotate(entry.sequence());
+        }
+        crc.reset();
+        crc.update(scratch.array(), 0, length);
+        crc.update((int) (entry.sequence() >>> 32));
+        crc.update((int) entry.sequence());
+
+        int at = writePosition;
+        activeBuffer.put(at + HEADER_BYTES, scratch.array(), 0, length);
+        activeBuffer.putLong(at + 8, entry.sequence());
+        activeBuffer.putInt(at + 4, (int) crc.getValue());
+        activeBuffer.putInt(at, length); // written last: a non-zero length marks a complete record
+        writePosition = at + HEADER_BYTES + length;
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        scratch.putShort((short) bytes.length);
+        scratch.put(bytes);
+    }
+
+    /**
+     * Seals the active segment (forcing it, so nothing unsynced is left behind)
+     * and starts a new one. Called with the append lock held.
+     */
+    private void rotate(long firstSequence) throws IOException {
+        if (activeBuffer != null) {
+            activeBuffer.force();
+            fsyncs.incrementAndGet();
+            markDurable(appendedSequence);
+        }
+        Path path = dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        activeBuffer = map(path);
+        writePosition = 0;
+        segments.put(firstSequence, path);
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private void runFlusher() {
+        while (true) {
+            MappedByteBuffer buffer;
+            long target;
+            synchronized (appendLock) {
+                try {
+                    while (running && appendedSequence <= durableSequence) {
+                        appendLock.wait();
+                    }
+                    if (!running && appendedSequence <= durableSequence) {
+                        return;
+                    }
+                    // Give concurrent appenders a moment to join this sync
+                    long deadline = System.nanoTime() + maxFsyncWaitNanos;
+                    long remaining;
+                    while (running && (remaining = deadline - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(appendLock, remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                buffer = activeBuffer;
+                target = appendedSequence;
+            }
+
+            buffer.force();
+            fsyncs.incrementAndGet();
+
+            synchronized (appendLock) {
+                markDurable(target);
+                appendLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Hands everything up to {@code sequence} to the drainer, in journal order.
+     * Called with the append lock held.
+     */
+    private void markDurable(long sequence) {
+        durableSequence = Math.max(durableSequence, sequence);
+        while (!unsynced.isEmpty() && unsynced.peekFirst().sequence() <= durableSequence) {
+            pending.addLast(unsynced.pollFirst());
+        }
+    }
+
+    // ---------------------------------------------------------------- draining
+
+    private void runDrainer() {
+        int sinceCheckpoint = 0;
+        while (running || !pending.isEmpty()) {
+            Entry entry;
+            try {
+                entry = pending.pollFirst(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (entry == null) {
+                if (sinceCheckpoint > 0) {
+                    checkpoint();
+                    sinceCheckpoint = 0;
+                }
+                continue;
+            }
+
+            String key = keyFor(entry.sequence());
+            boolean ok;
+            boolean retry;
+            try {
+                ok = ledger.transferOrThrow(entry.fromAccount(), entry.toAccount(), entry.amount().toDouble(),
+                        entry.description(), key);
+                retry = !ok && !databaseAvailable.getAsBoolean();
+            } catch (SQLException e) {
+                ok = false;
+                retry = isTransient(e) || !databaseAvailable.getAsBoolean();
+                if (retry) {
+                    logger.warn("Journal entry {} not posted yet, will retry: {}", entry.sequence(), e.getMessage());
+                } else {
+                    logger.error("Journal entry {} failed to post", entry.sequence(), e);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Journal entry {} failed to post", entry.sequence(), e);
+                ok = false;
+                retry = false;
+            }
+            if (retry) {
+                // Outage or transient error, not a rejection: keep the entry at the head and try again
+                pending.addFirst(entry);
+                if (!running || !sleep(OUTAGE_BACKOFF_MILLIS)) break;
+                continue;
+            }
+
+            (ok ? posted : rejected).incrementAndGet();
+            if (!ok) {
+                logger.warn("Journal entry {} rejected by the ledger: {} -> {} (Amount: {})",
+                        entry.sequence(), entry.fromAccount(), entry.toAccount(), entry.amount());
+            }
+            drainedSequence = entry.sequence();
+            for (OutcomeListener listener : listeners) {
+                try {
+                    listener.onDrained(entry, key, ok);
+                } catch (RuntimeException e) {
+                    logger.warn("Journal outcome listener failed", e);
+                }
+            }
+            if (++sinceCheckpoint >= CHECKPOINT_EVERY) {
+                checkpoint();
+                sinceCheckpoint = 0;
+            }
+        }
+        checkpoint();
+    }
+
+    /**
+     * Persists the drained position and deletes segments that are fully drained.
+     * Entries after the checkpoint are posted again on restart; their keys make
+     * that a no-op for the ones that already went through.
+     */
+    private void checkpoint() {
+        long drained = drainedSequence;
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, drained);
+            checkpointChannel.write(buffer, 0);
+            checkpointChannel.force(false);
+        } catch (IOException e) {
+            logger.error("Could not write journal checkpoint", e);
+            return;
+        }
+
+        List<Path> obsolete = new ArrayList<>();
+        synchronized (appendLock) {
+            // A segment is obsolete when the next one starts at or before the first undrained sequence
+            while (segments.size() > 1 && segments.higherKey(segments.firstKey()) <= drained + 1) {
+                obsolete.add(segments.pollFirstEntry().getValue());
+            }
+        }
+        for (Path path : obsolete) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.warn("Could not delete drained journal segment {}", path, e);
+            }
+        }
+    }
+
+    /**
+     * Whether a database error may clear up on its own (a deadlock, a lost
+     * connection, an overloaded pool), as opposed to one that will fail the
+     * same intent every time.
+     */
+    static boolean isTransient(SQLException e) {
+        return e instanceof SQLTransientException || e instanceof SQLRecoverableException
+                || TransactionRetryExecutor.classify(e) != TransactionRetryExecutor.Classification.NON_RETRYABLE;
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // ---------------------------------------------------------------- recovery
+
+    private String readOrCreateId() throws IOException {
+        Path idFile = dir.resolve(ID_FILE);
+        if (Files.exists(idFile)) {
+            return Files.readString(idFile, StandardCharsets.UTF_8).trim();
+        }
+        String id = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        Files.writeString(idFile, id, StandardCharsets.UTF_8);
+        return id;
+    }
+
+    private long readCheckpoint() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        if (checkpointChannel.read(buffer, 0) < Long.BYTES) {
+            return 0;
+        }
+        return buffer.getLong(0);
+    }
+
+    /**
+     * Scans the segments in order, queues every intent after the checkpoint and
+     * positions the writer after the last complete record.
+     */
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .forEach(p -> {
+                        String name = p.getFileName().toString();
+                        segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                                name.length() - SEGMENT_SUFFIX.length())), p);
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        long expected = segments.isEmpty() ? drainedSequence + 1 : segments.firstKey();
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            MappedByteBuffer buffer = map(segment.getValue());
+            int position = 0;
+            while (position + HEADER_BYTES <= segmentBytes) {
+                Entry entry = readRecord(buffer, position, expected);
+                if (entry == null) {
+                    break;
+                }
+                if (entry.sequence() > drainedSequence) {
+                    pending.addLast(entry);
+                }
+                position += HEADER_BYTES + buffer.getInt(position);
+                expected++;
+            }
+            activeBuffer = buffer;
+            writePosition = position;
+        }
+
+        if (activeBuffer != null) {
+            // Clear a torn tail so it cannot be mistaken for a record later
+            for (int i = writePosition; i < Math.min(segmentBytes, writePosition + HEADER_BYTES + MAX_PAYLOAD_BYTES); i++) {
+                activeBuffer.put(i, (byte) 0);
+            }
+            activeBuffer.force();
+        }
+        nextSequence = Math.max(expected, drainedSequence + 1);
+        appendedSequence = nextSequence - 1;
+        durableSequence = appendedSequence;
+        if (activeBuffer == null) {
+            rotate(nextSequence);
+        }
+        if (!pending.isEmpty()) {
+            logger.info("Transfer journal {}: replaying {} undrained intents", journalId, pending.size());
+        }
+    }
+
+    private Entry readRecord(MappedByteBuffer buffer, int position, long expectedSequence) {
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > MAX_PAYLOAD_BYTES || position + HEADER_BYTES + length > segmentBytes) {
+            return null;
+        }
+        long sequence = buffer.getLong(position + 8);
+        byte[] payload = new byte[length];
+        buffer.get(position + HEADER_BYTES, payload);
+        crc.reset();
+        crc.update(payload);
+        crc.update((int) (sequence >>> 32));
+        crc.update((int) sequence);
+        if ((int) crc.getValue() != buffer.getInt(position + 4) || sequence != expectedSequence) {
+            return null;
+        }
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        String from = getString(in);
+        String to = getString(in);
+        Money amount = Money.ofUnits(in.getLong());
+        String description = getString(in);
+        return new Entry(sequence, from, to, amount, description);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Stops accepting intents and waits for the drainer to post what is queued.
+     * During a database outage, or after 30 seconds, it stops early; the rest is
+     * replayed on the next start.
+     */
+    @Override
+    public void close() {
+        synchronized (appendLock) {
+            running = false;
+            appendLock.notifyAll();
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+            drainer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (drainer.isAlive()) {
+            drainer.interrupt();
+        }
+        try {
+            checkpointChannel.close();
+        } catch (IOException e) {
+            logger.warn("Could not close journal checkpoint", e);
+        }
+    }
+}
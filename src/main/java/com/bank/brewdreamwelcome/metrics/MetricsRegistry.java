@@ -0,0 +1,156 @@
+package com.bank.brewdreamwelcome.metrics;
+
+import com.bank.brewdreamwelcome.util.LatencyHistogram;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide registry of counters, timers and gauges, rendered in the
+ * Prometheus text format by {@link #scrape()}.
+ *
+ * Metrics are looked up once, typically into static fields, and then
+ * recorded without any locking or allocation: a counter is a
+ * {@link java.util.concurrent.atomic.LongAdder}, a timer a
+ * {@link LatencyHistogram}. Registering the same name and labels twice
+ * returns the same metric. Labels are given as name, value pairs.
+ *
+ * Timers are exported as summaries with p50, p99 and p999 quantiles, plus a
+ * {@code _failures_total} counter named after the timer without its
+ * {@code _seconds} suffix.
+ *
+ * Totals that are already kept elsewhere are exported with a supplier-backed
+ * counter or gauge, read at each scrape.
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private enum Type { COUNTER, GAUGE, SUMMARY }
+
+    private record Family(String name, String help, Type type, Map<String, Object> series) {}
+
+    private final ConcurrentSkipListMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+    MetricsRegistry() {
+    }
+
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * The timer of one public service method, exported as
+     * {@code vaultx_service_call_seconds{service, method}}.
+     */
+    public static Timer serviceTimer(Class<?> service, String method) {
+        return instance.timer("vaultx_service_call_seconds", "Latency of service method calls",
+                "service", service.getSimpleName(), "method", method);
+    }
+
+    public Counter counter(String name, String help, String... labels) {
+        Object metric = family(name, help, Type.COUNTER).series()
+                .computeIfAbsent(labelString(labels), l -> new Counter());
+        if (!(metric instanceof Counter counter)) {
+            throw new IllegalArgumentException(name + " is already registered with a supplier");
+        }
+        return counter;
+    }
+
+    /**
+     * Registers a counter read from {@code value} at each scrape, replacing any
+     * earlier one with the same name and labels. The supplier must never decrease.
+     */
+    public void counter(String name, String help, LongSupplier value, String... labels) {
+        family(name, help, Type.COUNTER).series().put(labelString(labels), value);
+    }
+
+    public Timer timer(String name, String help, String... labels) {
+        Counter failures = counter(name.replaceFirst("_seconds$", "") + "_failures_total",
+                "Calls counted by " + name + " that failed", labels);
+        return (Timer) family(name, help, Type.SUMMARY).series()
+                .computeIfAbsent(labelString(labels), l -> new Timer(failures));
+    }
+
+    /**
+     * Registers a gauge read from {@code value} at each scrape, replacing any
+     * earlier one with the same name and labels.
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).series().put(labelString(labels), value);
+    }
+
+    /**
+     * All metrics in the Prometheus text exposition format (version 0.0.4).
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name()).append(' ').append(family.help()).append('\n');
+            out.append("# TYPE ").append(family.name()).append(' ')
+                    .append(family.type().name().toLowerCase(Locale.ROOT)).append('\n');
+            new ConcurrentSkipListMap<>(family.series()).forEach((labels, metric) -> {
+                switch (family.type()) {
+                    case COUNTER -> sample(out, family.name(), labels, metric instanceof Counter counter
+                            ? counter.get() : ((LongSupplier) metric).getAsLong());
+                    case GAUGE -> sample(out, family.name(), labels, ((DoubleSupplier) metric).getAsDouble());
+                    case SUMMARY -> summary(out, family.name(), labels, ((Timer) metric).latency());
+                }
+            });
+        }
+        return out.toString();
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name,
+                n -> new Family(n, help, type, new ConcurrentHashMap<>()));
+        if (family.type() != type) {
+            throw new IllegalArgumentException(name + " is already registered as a " + family.type());
+        }
+        return family;
+    }
+
+    private static void summary(StringBuilder out, String name, String labels, LatencyHistogram latency) {
+        for (double quantile : QUANTILES) {
+            String withQuantile = (labels.isEmpty() ? "" : labels + ",") + "quantile=\"" + quantile + "\"";
+            sample(out, name, withQuantile, latency.percentileNanos(quantile) / 1e9);
+        }
+        sample(out, name + "_sum", labels, latency.sumNanos() / 1e9);
+        sample(out, name + "_count", labels, latency.count());
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    static String labelString(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name, value pairs");
+        }
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(labels[i]).append("=\"").append(labels[i + 1]
+                    .replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+        }
+        return out.toString();
+    }
+}
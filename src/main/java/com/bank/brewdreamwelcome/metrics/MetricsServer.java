@@ -0,0 +1,115 @@
+package com.bank.brewdreamwelcome.metrics;
+
+import com.bank.brewdreamwelcome.config.AdmissionController;
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.Workload;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Serves {@link MetricsRegistry#scrape()} at {@code /metrics} on the loopback
+ * interface, port {@code METRICS_PORT}, unless {@code METRICS_ENABLED=false}.
+ * Also registers gauges for the state of each workload's connection pool.
+ */
+public final class MetricsServer {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsServer.class);
+
+    private static HttpServer server;
+
+    private MetricsServer() {
+    }
+
+    public static synchronized void startIfEnabled() {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        if (server != null || !Boolean.parseBoolean(dotenv.get("METRICS_ENABLED", "true"))) {
+            return;
+        }
+        int port = Integer.parseInt(dotenv.get("METRICS_PORT", "9464"));
+        try {
+            HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            http.createContext("/metrics", MetricsServer::handle);
+            http.setExecutor(Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "metrics-http");
+                t.setDaemon(true);
+                return t;
+            }));
+            registerPoolGauges(MetricsRegistry.getInstance());
+            http.start();
+            server = http;
+            logger.info("Metrics served at http://localhost:{}/metrics", port);
+        } catch (IOException e) {
+            logger.warn("Could not start the metrics endpoint on port {}: {}", port, e.getMessage());
+        }
+    }
+
+    public static synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = MetricsRegistry.getInstance().scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    static void registerPoolGauges(MetricsRegistry registry) {
+        for (Workload workload : Workload.values()) {
+            String pool = workload.name().toLowerCase(Locale.ROOT);
+            poolGauge(registry, "vaultx_db_pool_max_connections", "Maximum size of the pool", pool, workload,
+                    DatabaseConfig.PoolStats::maxSize);
+            poolGauge(registry, "vaultx_db_pool_active_connections", "Connections in use", pool, workload,
+                    DatabaseConfig.PoolStats::active);
+            poolGauge(registry, "vaultx_db_pool_idle_connections", "Connections idle in the pool", pool, workload,
+                    DatabaseConfig.PoolStats::idle);
+            poolGauge(registry, "vaultx_db_pool_waiting_threads", "Threads waiting for a connection", pool, workload,
+                    DatabaseConfig.PoolStats::waiting);
+            poolCounter(registry, "vaultx_db_pool_acquire_timeouts_total", "Callers that gave up waiting",
+                    pool, workload, DatabaseConfig.PoolStats::timeouts);
+            poolGauge(registry, "vaultx_db_pool_acquire_wait_max_seconds", "Longest wait for a connection", pool,
+                    workload, stats -> stats.maxWaitMillis() / 1000);
+            poolGauge(registry, "vaultx_db_admission_limit", "Current adaptive concurrency limit", pool, workload,
+                    stats -> stats.admission().limit());
+            poolCounter(registry, "vaultx_db_admission_rejected_total", "Calls turned away", pool, workload,
+                    stats -> stats.admission().rejected());
+            poolGauge(registry, "vaultx_db_circuit_open", "1 while the circuit breaker refuses calls", pool,
+                    workload, stats -> stats.admission().state() == AdmissionController.State.CLOSED ? 0 : 1);
+        }
+    }
+
+    private static void poolGauge(MetricsRegistry registry, String name, String help, String pool,
+                                  Workload workload, ToDoubleFunction<DatabaseConfig.PoolStats> value) {
+        registry.gauge(name, help, () -> value.applyAsDouble(DatabaseConfig.getPoolStats().get(workload.ordinal())),
+                "pool", pool);
+    }
+
+    private static void poolCounter(MetricsRegistry registry, String name, String help, String pool,
+                                    Workload workload, ToLongFunction<DatabaseConfig.PoolStats> value) {
+        registry.counter(name, help, () -> value.applyAsLong(DatabaseConfig.getPoolStats().get(workload.ordinal())),
+                "pool", pool);
+    }
+}
@@ -0,0 +1,79 @@
+package com.bank.brewdreamwelcome.metrics;
+
+import com.bank.brewdreamwelcome.util.LatencyHistogram;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Latency of one operation, with a count of the calls that failed.
+ *
+ * Service methods hand their work to {@link #time}, which counts a call as
+ * failed when it throws or when its result does not pass {@code succeeded}:
+ * <pre>
+ * return TIMER.time(() -> postTransfer(from, to, amount), Boolean::booleanValue);
+ * </pre>
+ * Hot paths that cannot afford the lambda read {@link System#nanoTime()} on
+ * entry and call {@link #record(long, boolean)} on the way out.
+ */
+public final class Timer {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Counter failures;
+
+    Timer(Counter failures) {
+        this.failures = failures;
+    }
+
+    public void record(long startedNanos) {
+        latency.record(System.nanoTime() - startedNanos);
+    }
+
+    public void record(long startedNanos, boolean ok) {
+        latency.record(System.nanoTime() - startedNanos);
+        if (!ok) {
+            failures.increment();
+        }
+    }
+
+    /**
+     * Runs {@code call} and records its latency; a call that throws counts as failed.
+     */
+    public <T> T time(Supplier<T> call) {
+        return time(call, result -> true);
+    }
+
+    /**
+     * Runs {@code call} and records its latency, counting it as failed when it
+     * throws or its result does not pass {@code succeeded}.
+     */
+    public <T> T time(Supplier<T> call, Predicate<? super T> succeeded) {
+        long started = System.nanoTime();
+        boolean ok = false;
+        try {
+            T result = call.get();
+            ok = succeeded.test(result);
+            return result;
+        } finally {
+            record(started, ok);
+        }
+    }
+
+    public void time(Runnable call) {
+        long started = System.nanoTime();
+        boolean ok = false;
+        try {
+            call.run();
+            ok = true;
+        } finally {
+            record(started, ok);
+        }
+    }
+
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+    public long failures() {
+        return failures.get();
+    }
+}
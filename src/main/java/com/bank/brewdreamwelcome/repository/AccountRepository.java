@@ -1,8 +1,16 @@
 package com.bank.brewdreamwelcome.repository;
 
+import com.bank.brewdreamwelcome.Money;
 import com.bank.brewdreamwelcome.config.DatabaseConfig;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeSet;
 
 /**
  * Enterprise Repository with Row-Level Locking capabilities.
@@ -21,7 +29,7 @@ public interface AccountRepository {
                 if (rs.next()) {
                     return Optional.of(new AccountRecord(
                         rs.getString("account_number"),
-                        rs.getDouble("balance"),
+                        Money.read(rs, "balance"),
                         rs.getString("status")
                     ));
                 }
@@ -30,7 +38,142 @@ public interface AccountRepository {
         return Optional.empty();
     }
 
-    void updateBalance(Connection conn, String accNo, double newBalance) throws SQLException;
+    /**
+     * Finds and LOCKS several accounts in one round trip.
+     * Rows are locked in account number order so concurrent callers cannot deadlock.
+     */
+    default Map<String, AccountRecord> findAndLockAll(Connection conn, Collection<String> accNos) throws SQLException {
+        Map<String, AccountRecord> records = new HashMap<>();
+        if (accNos.isEmpty()) {
+            return records;
+        }
+        List<String> sorted = new ArrayList<>(new TreeSet<>(accNos));
+        String placeholders = String.join(",", Collections.nCopies(sorted.size(), "?"));
+        String sql = "SELECT * FROM accounts WHERE account_number IN (" + placeholders + ") " +
+                     "ORDER BY account_number FOR UPDATE";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < sorted.size(); i++) {
+                ps.setString(i + 1, sorted.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    records.put(rs.getString("account_number"), new AccountRecord(
+                        rs.getString("account_number"),
+                        Money.read(rs, "balance"),
+                        rs.getString("status")
+                    ));
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * SQL expression for an account's full balance: the base row plus any
+     * stripe credits not yet consolidated. Requires {@code accounts} aliased as {@code a}.
+     */
+    String TOTAL_BALANCE_SQL = "(a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_stripes s "
+            + "WHERE s.account_number = a.account_number), 0))";
+
+    /**
+     * Reads an account and its row version WITHOUT locking it.
+     * Used by optimistic transfers, which validate the version at write time instead.
+     */
+    default Optional<VersionedAccountRecord> findWithVersion(Connection conn, String accNo) throws SQLException {
+        String sql = "SELECT a.account_number, " + TOTAL_BALANCE_SQL + " AS balance, a.status, a.version " +
+                     "FROM accounts a WHERE a.account_number = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, accNo);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(new VersionedAccountRecord(
+                        rs.getString("account_number"),
+                        Money.read(rs, "balance"),
+                        rs.getString("status"),
+                        rs.getLong("version")
+                    ));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Debits the account only if its row is still at {@code expectedVersion}.
+     * Returns false when another writer got there first.
+     */
+    default boolean compareAndDebit(Connection conn, String accNo, Money amount, long expectedVersion)
+            throws SQLException {
+        String sql = "UPDATE accounts SET balance = balance - ?, version = version + 1 " +
+                     "WHERE account_number = ? AND version = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            amount.bind(ps, 1);
+            ps.setString(2, accNo);
+            ps.setLong(3, expectedVersion);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Locks an account that is only going to be credited in this transaction.
+     * Same as {@link #findAndLockByAccountNumber} unless the implementation can
+     * let concurrent credits proceed side by side.
+     */
+    default Optional<AccountRecord> findForCredit(Connection conn, String accNo) throws SQLException {
+        return findAndLockByAccountNumber(conn, accNo);
+    }
+
+    /**
+     * Adds {@code amount} to the account. Credits commute, so no prior read is needed.
+     * Returns false, changing nothing, when the account is missing or inactive.
+     */
+    default boolean credit(Connection conn, String accNo, Money amount) throws SQLException {
+        String sql = "UPDATE accounts SET balance = balance + ?, version = version + 1 " +
+                     "WHERE account_number = ? AND is_active = TRUE";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            amount.bind(ps, 1);
+            ps.setString(2, accNo);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Subtracts {@code amount} from the account. The caller must hold the row lock
+     * and have checked the balance.
+     */
+    default boolean debit(Connection conn, String accNo, Money amount) throws SQLException {
+        String sql = "UPDATE accounts SET balance = balance - ?, version = version + 1 WHERE account_number = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            amount.bind(ps, 1);
+            ps.setString(2, accNo);
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Accounts whose balance is split across stripe rows.
+     */
+    default List<String> findStripedAccounts(Connection conn) throws SQLException {
+        return List.of();
+    }
+
+    /**
+     * Folds an account's stripe rows back into its base balance.
+     *
+     * @return the amount moved
+     */
+    default Money consolidateStripes(Connection conn, String accNo) throws SQLException {
+        return Money.ZERO;
+    }
+
+    /**
+     * Sets the full balance. The caller must hold the row lock. Writes no ledger
+     * entry: the caller logs the movement, or on the event-sourced ledger posts
+     * an adjustment and leaves this to the projection.
+     */
+    void updateBalance(Connection conn, String accNo, Money newBalance) throws SQLException;
     
-    record AccountRecord(String number, double balance, String status) {}
+    record AccountRecord(String number, Money balance, String status) {}
+
+    record VersionedAccountRecord(String number, Money balance, String status, long version) {}
 }
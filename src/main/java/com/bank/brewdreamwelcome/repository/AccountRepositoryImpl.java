@@ -1,22 +1,219 @@
 package com.bank.brewdreamwelcome.repository;
 
+import com.bank.brewdreamwelcome.Money;
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.Workload;
+
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Concrete implementation of AccountRepository for production use.
+ *
+ * Supports striped accounts for hot credit targets (merchant and fee collection
+ * accounts). An account with {@code stripe_count = K > 0} keeps part of its
+ * balance in K rows of {@code account_balance_stripes}; its full balance is the
+ * base row plus all stripes. Credits take only a shared lock on the base row and
+ * add to a random stripe, so up to K credits proceed in parallel. Debits and
+ * locked reads take the base row exclusively and add the stripes up, and
+ * {@link #consolidateStripes} periodically folds the stripes back into the base.
  */
 public class AccountRepositoryImpl implements AccountRepository {
 
+    private static final long STRIPE_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    /** Striped account number -> stripe count, shared by all instances and refreshed periodically. */
+    private static volatile Map<String, Integer> stripeCounts;
+    private static volatile long stripeCountsLoadedAt;
+
     @Override
-    public void updateBalance(Connection conn, String accNo, double newBalance) throws SQLException {
-        String sql = "UPDATE accounts SET balance = ? WHERE account_number = ?";
+    public void updateBalance(Connection conn, String accNo, Money newBalance) throws SQLException {
+        if (stripeCount(accNo) > 0) {
+            // newBalance is the full balance, so the stripes are folded into it
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE account_balance_stripes SET balance = 0 WHERE account_number = ?")) {
+                ps.setString(1, accNo);
+                ps.executeUpdate();
+            }
+        }
+        String sql = "UPDATE accounts SET balance = ?, version = version + 1 WHERE account_number = ?";
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setDouble(1, newBalance);
+            newBalance.bind(ps, 1);
             ps.setString(2, accNo);
             ps.executeUpdate();
         }
     }
-    
-    // Default methods from Interface are inherited
+
+    @Override
+    public Optional<AccountRecord> findAndLockByAccountNumber(Connection conn, String accNo) throws SQLException {
+        Optional<AccountRecord> record = AccountRepository.super.findAndLockByAccountNumber(conn, accNo);
+        if (record.isPresent() && stripeCount(accNo) > 0) {
+            return Optional.of(withStripes(conn, record.get()));
+        }
+        return record;
+    }
+
+    @Override
+    public Map<String, AccountRecord> findAndLockAll(Connection conn, Collection<String> accNos) throws SQLException {
+        Map<String, AccountRecord> records = AccountRepository.super.findAndLockAll(conn, accNos);
+        for (Map.Entry<String, AccountRecord> entry : records.entrySet()) {
+            if (stripeCount(entry.getKey()) > 0) {
+                entry.setValue(withStripes(conn, entry.getValue()));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Striped accounts get a shared lock on the base row only, which blocks debits
+     * and consolidation but not other credits. The returned balance excludes the
+     * stripes; crediting callers do not need it.
+     */
+    @Override
+    public Optional<AccountRecord> findForCredit(Connection conn, String accNo) throws SQLException {
+        if (stripeCount(accNo) == 0) {
+            return AccountRepository.super.findForCredit(conn, accNo);
+        }
+        String sql = "SELECT account_number, balance, status FROM accounts WHERE account_number = ? FOR SHARE";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, accNo);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(new AccountRecord(
+                        rs.getString("account_number"),
+                        Money.read(rs, "balance"),
+                        rs.getString("status")
+                    ));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean credit(Connection conn, String accNo, Money amount) throws SQLException {
+        int stripes = stripeCount(accNo);
+        if (stripes == 0) {
+            return AccountRepository.super.credit(conn, accNo, amount);
+        }
+        // The shared lock keeps the account from being closed before this transaction
+        // commits while still letting other credits through
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT is_active FROM accounts WHERE account_number = ? FOR SHARE")) {
+            ps.setString(1, accNo);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || !rs.getBoolean("is_active")) {
+                    return false;
+                }
+            }
+        }
+        // Stripe rows are created on first use, so flagging an account needs no backfill
+        String sql = "INSERT INTO account_balance_stripes (account_number, stripe, balance) VALUES (?, ?, ?) " +
+                     "ON DUPLICATE KEY UPDATE balance = balance + VALUES(balance)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, accNo);
+            ps.setInt(2, ThreadLocalRandom.current().nextInt(stripes));
+            amount.bind(ps, 3);
+            ps.executeUpdate();
+            return true;
+        }
+    }
+
+    @Override
+    public List<String> findStripedAccounts(Connection conn) throws SQLException {
+        List<String> accounts = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT account_number FROM accounts WHERE stripe_count > 0");
+                ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                accounts.add(rs.getString("account_number"));
+            }
+        }
+        return accounts;
+    }
+
+    /**
+     * Locks the base row, then the stripes (the same order debits use), and moves
+     * the stripe total into the base balance.
+     */
+    @Override
+    public Money consolidateStripes(Connection conn, String accNo) throws SQLException {
+        if (AccountRepository.super.findAndLockByAccountNumber(conn, accNo).isEmpty()) {
+            return Money.ZERO;
+        }
+        Money total;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT COALESCE(SUM(balance), 0) FROM account_balance_stripes WHERE account_number = ? FOR UPDATE")) {
+            ps.setString(1, accNo);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                total = Money.read(rs, 1);
+            }
+        }
+        if (total.isZero()) {
+            return Money.ZERO;
+        }
+        try (PreparedStatement moveIn = conn.prepareStatement(
+                "UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE account_number = ?");
+                PreparedStatement clear = conn.prepareStatement(
+                "UPDATE account_balance_stripes SET balance = 0 WHERE account_number = ?")) {
+            total.bind(moveIn, 1);
+            moveIn.setString(2, accNo);
+            moveIn.executeUpdate();
+            clear.setString(1, accNo);
+            clear.executeUpdate();
+        }
+        return total;
+    }
+
+    private AccountRecord withStripes(Connection conn, AccountRecord base) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT COALESCE(SUM(balance), 0) FROM account_balance_stripes WHERE account_number = ?")) {
+            ps.setString(1, base.number());
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return new AccountRecord(base.number(), base.balance().plus(Money.read(rs, 1)), base.status());
+            }
+        }
+    }
+
+    /**
+     * Stripe count for an account, 0 if it is not striped. The flag set is read on
+     * its own LOOKUP connection, so the lookup neither waits on the caller's admitted
+     * OLTP slot nor takes locks in the caller's transaction. Accounts flagged in the
+     * database are picked up within a minute. Reads always add the stripes up, so a
+     * stale flag only costs parallelism, never money.
+     */
+    private static int stripeCount(String accNo) throws SQLException {
+        Map<String, Integer> counts = stripeCounts;
+        if (counts == null || System.nanoTime() - stripeCountsLoadedAt > STRIPE_REFRESH_NANOS) {
+            counts = loadStripeCounts();
+        }
+        return counts.getOrDefault(accNo, 0);
+    }
+
+    private static synchronized Map<String, Integer> loadStripeCounts() throws SQLException {
+        if (stripeCounts != null && System.nanoTime() - stripeCountsLoadedAt <= STRIPE_REFRESH_NANOS) {
+            return stripeCounts;
+        }
+        Map<String, Integer> counts = new HashMap<>();
+        try (Connection conn = DatabaseConfig.getConnection(Workload.LOOKUP);
+                PreparedStatement ps = conn.prepareStatement(
+                "SELECT account_number, stripe_count FROM accounts WHERE stripe_count > 0");
+                ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                counts.put(rs.getString("account_number"), rs.getInt("stripe_count"));
+            }
+        }
+        stripeCounts = Map.copyOf(counts);
+        stripeCountsLoadedAt = System.nanoTime();
+        return stripeCounts;
+    }
 }
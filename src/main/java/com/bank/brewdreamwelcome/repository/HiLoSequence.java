@@ -0,0 +1,105 @@
+package com.bank.brewdreamwelcome.repository;
+
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.Workload;
+
+import java.sql.*;
+
+/**
+ * Block-allocating (hi/lo) sequence backed by the {@code id_sequences} table.
+ *
+ * A single row per sequence holds the next unreserved value. Each JVM reserves a
+ * whole block of values in one short auto-commit statement and then hands them
+ * out from memory, so callers never scan the target table or hold a lock on the
+ * sequence row for the length of their own transaction.
+ */
+public class HiLoSequence {
+
+    /**
+     * Reserves {@code blockSize} values and returns the first one.
+     */
+    @FunctionalInterface
+    public interface BlockSource {
+        long reserve(String sequenceName, int blockSize) throws SQLException;
+    }
+
+    private final String sequenceName;
+    private final int blockSize;
+    private final BlockSource source;
+
+    private long next;
+    private long limit;
+
+    public HiLoSequence(String sequenceName, int blockSize, long initialValue) {
+        this(sequenceName, blockSize, (name, size) -> reserveFromDatabase(name, size, initialValue));
+    }
+
+    public HiLoSequence(String sequenceName, int blockSize, BlockSource source) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        this.sequenceName = sequenceName;
+        this.blockSize = blockSize;
+        this.source = source;
+    }
+
+    /**
+     * Returns the next value, reserving a new block when the current one is used up.
+     */
+    public synchronized long next() throws SQLException {
+        if (next >= limit) {
+            long start = source.reserve(sequenceName, blockSize);
+            next = start;
+            limit = start + blockSize;
+        }
+        return next++;
+    }
+
+    /**
+     * Values reserved by this JVM that have not been handed out yet.
+     */
+    public synchronized long remainingInBlock() {
+        return limit - next;
+    }
+
+    public String getSequenceName() {
+        return sequenceName;
+    }
+
+    /**
+     * Atomically advances the sequence row by {@code blockSize} on its own
+     * connection from the LOOKUP pool, since callers usually hold an OLTP one. LAST_INSERT_ID(expr) makes the increment and the read a single
+     * statement, so two JVMs can never receive overlapping blocks.
+     */
+    static long reserveFromDatabase(String sequenceName, int blockSize, long initialValue) throws SQLException {
+        String bumpSql = "UPDATE id_sequences SET next_value = LAST_INSERT_ID(next_value + ?) WHERE sequence_name = ?";
+        String seedSql = "INSERT IGNORE INTO id_sequences(sequence_name, next_value) VALUES (?, ?)";
+
+        try (Connection con = DatabaseConfig.getConnection(Workload.LOOKUP)) {
+            con.setAutoCommit(true);
+            try (PreparedStatement bump = con.prepareStatement(bumpSql)) {
+                bump.setInt(1, blockSize);
+                bump.setString(2, sequenceName);
+                if (bump.executeUpdate() == 0) {
+                    // First use of this sequence: create the row, then retry the bump
+                    try (PreparedStatement seed = con.prepareStatement(seedSql)) {
+                        seed.setString(1, sequenceName);
+                        seed.setLong(2, initialValue);
+                        seed.executeUpdate();
+                    }
+                    if (bump.executeUpdate() == 0) {
+                        throw new SQLException("Unable to reserve block for sequence " + sequenceName);
+                    }
+                }
+            }
+
+            try (Statement st = con.createStatement();
+                    ResultSet rs = st.executeQuery("SELECT LAST_INSERT_ID()")) {
+                if (rs.next()) {
+                    return rs.getLong(1) - blockSize;
+                }
+            }
+        }
+        throw new SQLException("Unable to read reserved block for sequence " + sequenceName);
+    }
+}
@@ -0,0 +1,172 @@
+package com.bank.brewdreamwelcome.repository;
+
+import com.bank.brewdreamwelcome.Money;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Handles the append-only postings ledger and its balance snapshots.
+ *
+ * An account's balance is its latest snapshot plus every posting after it.
+ * Postings are only ever inserted; snapshots are only ever added. Callers keep
+ * the account row locked (shared for credits, exclusive for debits and
+ * snapshots) so a snapshot never misses a posting that commits later with a
+ * lower posting_id.
+ */
+public class PostingRepository {
+
+    public record Posting(String accountNumber, Money amount, String type, String transactionId) {}
+
+    public record Snapshot(String accountNumber, long postingId, Money balance) {}
+
+    /**
+     * Balance of the postings after a snapshot.
+     */
+    public record Tail(long lastPostingId, Money sum, long count) {}
+
+    /**
+     * Locks an account row without writing it and returns its status.
+     *
+     * @param exclusive FOR UPDATE when true (debits, snapshots), FOR SHARE otherwise (credits)
+     */
+    public Optional<String> lockAccount(Connection conn, String accNo, boolean exclusive) throws SQLException {
+        String sql = "SELECT status FROM accounts WHERE account_number = ? " + (exclusive ? "FOR UPDATE" : "FOR SHARE");
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, accNo);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(rs.getString("status")) : Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * Gives an account its opening snapshot (posting_id 0) from the mutable
+     * balance if it has none yet. Safe to call concurrently.
+     */
+    public void ensureOpeningSnapshot(Connection conn, String accNo) throws SQLException {
+        String sql = "INSERT IGNORE INTO account_balance_snapshots (account_number, posting_id, balance) " +
+                     "SELECT a.account_number, 0, " + AccountRepository.TOTAL_BALANCE_SQL + " " +
+                     "FROM accounts a WHERE a.account_number = ? " +
+                     "AND NOT EXISTS (SELECT 1 FROM account_balance_snapshots s WHERE s.account_number = a.account_number)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, accNo);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Appends postings with a single executeBatch on the caller's connection.
+     */
+    public void append(Connection conn, List<Posting> postings) throws SQLException {
+        String sql = "INSERT INTO ledger_postings (account_number, amount, posting_type, transaction_id) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (Posting posting : postings) {
+                ps.setString(1, posting.accountNumber());
+                posting.amount().bind(ps, 2);
+                ps.setString(3, posting.type());
+                ps.setString(4, posting.transactionId());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Latest snapshot plus tail, in one round trip.
+     */
+    public Optional<Money> currentBalance(Connection conn, String accNo) throws SQLException {
+        String sql = "SELECT s.balance + COALESCE((SELECT SUM(p.amount) FROM ledger_postings p " +
+                     "WHERE p.account_number = s.account_number AND p.posting_id > s.posting_id), 0) " +
+                     "FROM account_balance_snapshots s WHERE s.account_number = ? " +
+                     "ORDER BY s.posting_id DESC LIMIT 1";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, accNo);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? Optional.of(Money.read(rs, 1)) : Optional.empty();
+            }
+        }
+    }
+
+    public Optional<Snapshot> findLatestSnapshot(Connection conn, String accNo) throws SQLException {
+        return findSnapshot(conn, accNo, "DESC");
+    }
+
+    public Optional<Snapshot> findOpeningSnapshot(Connection conn, String accNo) throws SQLException {
+        return findSnapshot(conn, accNo, "ASC");
+    }
+
+    private Optional<Snapshot> findSnapshot(Connection conn, String accNo, String order) throws SQLException {
+        String sql = "SELECT posting_id, balance FROM account_balance_snapshots WHERE account_number = ? " +
+                     "ORDER BY posting_id " + order + " LIMIT 1";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, accNo);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(new Snapshot(accNo, rs.getLong("posting_id"), Money.read(rs, "balance")));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Sums the postings of an account after {@code afterPostingId}.
+     */
+    public Tail sumTail(Connection conn, String accNo, long afterPostingId) throws SQLException {
+        String sql = "SELECT COALESCE(MAX(posting_id), ?), COALESCE(SUM(amount), 0), COUNT(*) " +
+                     "FROM ledger_postings WHERE account_number = ? AND posting_id > ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, afterPostingId);
+            ps.setString(2, accNo);
+            ps.setLong(3, afterPostingId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return new Tail(rs.getLong(1), Money.read(rs, 2), rs.getLong(3));
+            }
+        }
+    }
+
+    /**
+     * Folds the tail after the latest snapshot into a new snapshot. The caller
+     * must hold the account row exclusively.
+     *
+     * @return the new snapshot, or empty if there was nothing to fold
+     */
+    public Optional<Snapshot> takeSnapshot(Connection conn, String accNo) throws SQLException {
+        Optional<Snapshot> latest = findLatestSnapshot(conn, accNo);
+        if (latest.isEmpty()) {
+            return Optional.empty();
+        }
+        Tail tail = sumTail(conn, accNo, latest.get().postingId());
+        if (tail.count() == 0) {
+            return Optional.empty();
+        }
+        Snapshot snapshot = new Snapshot(accNo, tail.lastPostingId(), latest.get().balance().plus(tail.sum()));
+        String sql = "INSERT INTO account_balance_snapshots (account_number, posting_id, balance) VALUES (?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, accNo);
+            ps.setLong(2, snapshot.postingId());
+            snapshot.balance().bind(ps, 3);
+            ps.executeUpdate();
+        }
+        return Optional.of(snapshot);
+    }
+
+    /**
+     * Accounts that have joined the postings ledger.
+     */
+    public List<String> findLedgerAccounts(Connection conn) throws SQLException {
+        List<String> accounts = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT DISTINCT account_number FROM account_balance_snapshots");
+                ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                accounts.add(rs.getString("account_number"));
+            }
+        }
+        return accounts;
+    }
+}
@@ -1,9 +1,13 @@
 package com.bank.brewdreamwelcome.repository;
 
+import com.bank.brewdreamwelcome.Money;
+import com.bank.brewdreamwelcome.service.TransactionIdGenerator;
+
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.time.LocalDateTime;
+import java.util.function.Consumer;
 
 /**
  * Handles all database interactions for bank transactions.
@@ -15,18 +19,284 @@ public class TransactionRepository {
             String type,
             String fromAccount,
             String toAccount,
-            double amount,
+            Money amount,
             String description,
-            LocalDateTime timestamp
-    ) {}
-
-    public List<Transaction> findByAccount(String accNo) throws SQLException {
-        List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT * FROM transactions WHERE from_account = ? OR to_account = ? ORDER BY timestamp DESC";
-        
-        // This would use DatabaseConfig.getConnection() in a real call
-        // But for repository methods, we often pass the connection in for transaction support
-        return transactions; 
+            LocalDateTime timestamp,
+            String idempotencyKey
+    ) {
+        public Transaction(String id, String type, String fromAccount, String toAccount, Money amount,
+                           String description, LocalDateTime timestamp) {
+            this(id, type, fromAccount, toAccount, amount, description, timestamp, null);
+        }
+    }
+
+    /**
+     * Position in a history listing: the timestamp and transaction ID of the
+     * last row handed out. The next page starts strictly after it.
+     */
+    public record HistoryCursor(LocalDateTime timestamp, String transactionId) {}
+
+    /**
+     * A history query and its parameters, in bind order.
+     */
+    public record HistoryQuery(String sql, List<Object> params) {
+
+        /**
+         * Prepares the query for streaming: Connector/J hands rows over one at a
+         * time instead of buffering the whole result.
+         */
+        public PreparedStatement prepare(Connection conn) throws SQLException {
+            PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            int index = 1;
+            for (Object param : params) {
+                ps.setObject(index++, param);
+            }
+            return ps;
+        }
+    }
+
+    /**
+     * Sargable "today" filter: a range on the timestamp column, so it can use
+     * an index where {@code DATE(timestamp) = CURDATE()} cannot.
+     */
+    public static final String TODAY = "timestamp >= CURDATE() AND timestamp < CURDATE() + INTERVAL 1 DAY";
+
+    private static final String HISTORY_COLUMNS =
+            "transaction_id, transaction_type, from_account, to_account, amount, description, timestamp";
+
+    private static final String CUSTOMER_ACCOUNTS = "SELECT account_number FROM accounts WHERE customer_id = ?";
+
+    /**
+     * One page of the transactions touching {@code accNo}, newest first, after
+     * ({@code afterTimestamp}, {@code afterId}) when a cursor is given.
+     *
+     * @param columns  select list; must include {@code timestamp} and {@code idColumn}
+     * @param idColumn tiebreaker for rows with the same timestamp; must be unique and
+     *                 NOT NULL, or rows sharing a timestamp are skipped or repeated
+     *                 at page boundaries (scalability_migration.sql backfills
+     *                 {@code transaction_id} for this)
+     * @param limit    rows to return; pass one more than the page size to detect a next page
+     */
+    public static HistoryQuery accountHistory(String columns, String idColumn, String accNo,
+                                              Timestamp afterTimestamp, Object afterId, int limit) {
+        return history(columns, idColumn,
+                "from_account = ?", List.of(accNo),
+                "to_account = ? AND NOT (from_account <=> ?)", List.of(accNo, accNo),
+                afterTimestamp, afterId, limit);
+    }
+
+    /**
+     * One page of the transactions touching any of a customer's accounts,
+     * newest first. The accounts are resolved inside the query.
+     */
+    public static HistoryQuery customerHistory(String columns, String idColumn, int customerId,
+                                               Timestamp afterTimestamp, Object afterId, int limit) {
+        return history(columns, idColumn,
+                "from_account IN (" + CUSTOMER_ACCOUNTS + ")", List.of(customerId),
+                "to_account IN (" + CUSTOMER_ACCOUNTS + ") " +
+                        "AND (from_account IS NULL OR from_account NOT IN (" + CUSTOMER_ACCOUNTS + "))",
+                List.of(customerId, customerId),
+                afterTimestamp, afterId, limit);
+    }
+
+    /**
+     * Counts today's transactions touching any of a customer's accounts.
+     */
+    public static HistoryQuery customerTodayCount(int customerId) {
+        String sql = "SELECT (SELECT COUNT(*) FROM transactions " +
+                     "WHERE from_account IN (" + CUSTOMER_ACCOUNTS + ") AND " + TODAY + ") + " +
+                     "(SELECT COUNT(*) FROM transactions " +
+                     "WHERE to_account IN (" + CUSTOMER_ACCOUNTS + ") " +
+                     "AND (from_account IS NULL OR from_account NOT IN (" + CUSTOMER_ACCOUNTS + ")) AND " + TODAY + ")";
+        return new HistoryQuery(sql, List.of(customerId, customerId, customerId));
+    }
+
+    /**
+     * {@code from_account = ? OR to_account = ?} can only be answered by a scan,
+     * so history is the UNION ALL of an outgoing branch (range on
+     * idx_tx_from_time) and an incoming branch (range on idx_tx_to_time) that
+     * skips rows the outgoing branch already returned. The keyset predicate and
+     * the LIMIT are pushed into both branches, so each reads at most one page
+     * from its index before the two are merged.
+     */
+    private static HistoryQuery history(String columns, String idColumn,
+                                        String outScope, List<Object> outParams,
+                                        String inScope, List<Object> inParams,
+                                        Timestamp afterTimestamp, Object afterId, int limit) {
+        String keyset = afterTimestamp == null ? ""
+                : " AND (timestamp < ? OR (timestamp = ? AND " + idColumn + " < ?))";
+        String order = " ORDER BY timestamp DESC, " + idColumn + " DESC LIMIT ?";
+        String sql = "(SELECT " + columns + " FROM transactions WHERE " + outScope + keyset + order + ")" +
+                     " UNION ALL " +
+                     "(SELECT " + columns + " FROM transactions WHERE " + inScope + keyset + order + ")" +
+                     order;
+
+        List<Object> params = new ArrayList<>();
+        for (List<Object> branch : List.of(outParams, inParams)) {
+            params.addAll(branch);
+            if (afterTimestamp != null) {
+                params.add(afterTimestamp);
+                params.add(afterTimestamp);
+                params.add(afterId);
+            }
+            params.add(limit);
+        }
+        params.add(limit);
+        return new HistoryQuery(sql, params);
+    }
+
+    /**
+     * Streams one page of the transactions touching {@code accNo}, newest first.
+     *
+     * @param after cursor returned by the previous page, or null for the first page
+     * @return the cursor for the next page, or null if this was the last one
+     */
+    public HistoryCursor streamByAccount(Connection conn, String accNo, HistoryCursor after, int limit,
+                                         Consumer<Transaction> sink) throws SQLException {
+        return streamHistory(conn, accountHistory(HISTORY_COLUMNS, "transaction_id", accNo,
+                afterTimestamp(after), afterId(after), limit + 1), limit, sink);
+    }
+
+    /**
+     * Streams one page of the transactions touching any of a customer's
+     * accounts, newest first. The accounts are resolved in the same query.
+     *
+     * @param after cursor returned by the previous page, or null for the first page
+     * @return the cursor for the next page, or null if this was the last one
+     */
+    public HistoryCursor streamByCustomer(Connection conn, int customerId, HistoryCursor after, int limit,
+                                          Consumer<Transaction> sink) throws SQLException {
+        return streamHistory(conn, customerHistory(HISTORY_COLUMNS, "transaction_id", customerId,
+                afterTimestamp(after), afterId(after), limit + 1), limit, sink);
+    }
+
+    public long countTodayByCustomer(Connection conn, int customerId) throws SQLException {
+        try (PreparedStatement ps = customerTodayCount(customerId).prepare(conn);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static Timestamp afterTimestamp(HistoryCursor after) {
+        return after == null ? null : Timestamp.valueOf(after.timestamp());
+    }
+
+    private static String afterId(HistoryCursor after) {
+        return after == null ? null : after.transactionId();
+    }
+
+    /**
+     * Keyset pagination over (timestamp, transaction_id): the page is found by
+     * seeking past the cursor rather than skipping an OFFSET, so every page costs
+     * the same however deep the history goes. The query asks for one row more
+     * than the page, which only tells whether another page exists. Rows are
+     * handed to {@code sink} as they are read, without being collected.
+     */
+    private HistoryCursor streamHistory(Connection conn, HistoryQuery query, int limit,
+                                        Consumer<Transaction> sink) throws SQLException {
+        try (PreparedStatement ps = query.prepare(conn);
+             ResultSet rs = ps.executeQuery()) {
+            Transaction last = null;
+            int emitted = 0;
+            while (rs.next()) {
+                if (emitted == limit) {
+                    return new HistoryCursor(last.timestamp(), last.id());
+                }
+                last = readHistoryRow(rs);
+                sink.accept(last);
+                emitted++;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Reads one row selected with the history columns.
+     */
+    public static Transaction readHistoryRow(ResultSet rs) throws SQLException {
+        Timestamp ts = rs.getTimestamp("timestamp");
+        return new Transaction(
+                rs.getString("transaction_id"),
+                rs.getString("transaction_type"),
+                rs.getString("from_account"),
+                rs.getString("to_account"),
+                Money.read(rs, "amount"),
+                rs.getString("description"),
+                ts != null ? ts.toLocalDateTime() : null);
+    }
+
+    /**
+     * The most recent {@code limit} transactions touching {@code accNo}.
+     */
+    public List<Transaction> findByAccount(Connection conn, String accNo, int limit) throws SQLException {
+        List<Transaction> transactions = new ArrayList<>(limit);
+        streamByAccount(conn, accNo, null, limit, transactions::add);
+        return transactions;
+    }
+
+    /**
+     * Logs a transaction under a freshly allocated, time-ordered transaction ID.
+     *
+     * @return the generated transaction ID
+     */
+    public String logTransaction(Connection conn, String type, String from, String to, double amount, String desc) throws SQLException {
+        String id = TransactionIdGenerator.nextId();
+        logTransaction(conn, id, type, from, to, amount, desc);
+        return id;
+    }
+
+    /**
+     * Logs a transaction carrying the request's idempotency key. The unique index on
+     * idempotency_key makes a second posting of the same request fail.
+     *
+     * @return the generated transaction ID
+     */
+    public String logTransaction(Connection conn, String type, String from, String to, Money amount, String desc,
+                                 String idempotencyKey) throws SQLException {
+        String id = TransactionIdGenerator.nextId();
+        String sql = "INSERT INTO transactions (transaction_id, transaction_type, from_account, to_account, amount, description, idempotency_key) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, id);
+            ps.setString(2, type);
+            ps.setString(3, from);
+            ps.setString(4, to);
+            amount.bind(ps, 5);
+            ps.setString(6, desc);
+            ps.setString(7, idempotencyKey);
+            ps.executeUpdate();
+        }
+        return id;
+    }
+
+    public boolean existsByIdempotencyKey(Connection conn, String idempotencyKey) throws SQLException {
+        String sql = "SELECT 1 FROM transactions WHERE idempotency_key = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, idempotencyKey);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Logs several transactions with a single executeBatch on the caller's connection.
+     */
+    public void logTransactions(Connection conn, List<Transaction> transactions) throws SQLException {
+        String sql = "INSERT INTO transactions (transaction_id, transaction_type, from_account, to_account, amount, description, idempotency_key) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (Transaction tx : transactions) {
+                ps.setString(1, tx.id() != null ? tx.id() : TransactionIdGenerator.nextId());
+                ps.setString(2, tx.type());
+                ps.setString(3, tx.fromAccount());
+                ps.setString(4, tx.toAccount());
+                tx.amount().bind(ps, 5);
+                ps.setString(6, tx.description());
+                ps.setString(7, tx.idempotencyKey());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
     }
 
     public void logTransaction(Connection conn, String id, String type, String from, String to, double amount, String desc) throws SQLException {
@@ -1,6 +1,7 @@
 package com.bank.brewdreamwelcome.service;
 
 import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.Workload;
 import com.bank.brewdreamwelcome.LoggerUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,7 +51,7 @@ public class AccountApprovalService {
         String sql = "SELECT id, name, email, id_card_number, account_id, created_at " +
                     "FROM customers WHERE account_status = 'PENDING' ORDER BY created_at ASC";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getConnection(Workload.REPORTING);
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
             
@@ -86,6 +87,7 @@ public class AccountApprovalService {
             int updated = ps.executeUpdate();
             if (updated > 0) {
                 logger.info("Account approved: customerId={}, adminId={}", customerId, adminId);
+                AdminMetricsService.getInstance().invalidate();
                 AuditService.log("ACCOUNT_APPROVED", 
                     "Admin " + adminId + " approved customer " + customerId);
                 return true;
@@ -115,6 +117,7 @@ public class AccountApprovalService {
             if (updated > 0) {
                 logger.info("Account rejected: customerId={}, adminId={}, reason={}", 
                            customerId, adminId, reason);
+                AdminMetricsService.getInstance().invalidate();
                 AuditService.log("ACCOUNT_REJECTED", 
                     "Admin " + adminId + " rejected customer " + customerId + ": " + reason);
                 return true;
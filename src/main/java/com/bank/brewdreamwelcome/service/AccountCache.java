@@ -0,0 +1,517 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.Workload;
+import com.bank.brewdreamwelcome.repository.AccountRepository;
+import io.github.cdimascio.dotenv.Dotenv;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Write-through, in-memory cache of account state keyed by account number.
+ *
+ * Dashboard reads (customer accounts, totals, single-account lookups) are served
+ * from memory; money-moving services re-read the rows they changed inside their
+ * own transaction ({@link #captureWrite}) and publish them when the commit
+ * succeeds ({@link #commitAndPublish}).
+ *
+ * Versioning: a write takes its version while it still holds the row lock, so
+ * versions follow commit order and an older write can never replace a newer one.
+ * Striped accounts take concurrent credits without an exclusive row lock, so
+ * their writes invalidate the entry instead of publishing it.
+ * A load only fills an empty slot, and is refused if a captured write on that
+ * account is still in flight or if anything was invalidated or evicted after the
+ * load started, so a slow load can never put back state older than a commit.
+ */
+public final class AccountCache {
+
+    /**
+     * Snapshot of one account row plus the owning customer's display fields.
+     */
+    public record AccountState(String accountNumber, int customerId, String customerAccountId,
+                               String idCardNumber, String customerName, String customerEmail,
+                               String accountType, double balance, String branchName,
+                               boolean active, String status, Timestamp openedAt, boolean striped) {}
+
+    /**
+     * Account rows re-read inside a transaction, waiting to be published after commit.
+     */
+    public static final class PendingWrite {
+        private final Set<String> accountNumbers;
+        private final List<AccountState> states;
+        private final long version;
+
+        private PendingWrite(Set<String> accountNumbers, List<AccountState> states, long version) {
+            this.accountNumbers = accountNumbers;
+            this.states = states;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Told about every committed change the cache hears of, after the cache has
+     * applied it. Called on the committing thread, so implementations must be quick.
+     */
+    public interface ChangeListener {
+        void accountsChanged(Collection<String> accountNumbers);
+
+        void customerChanged(int customerId);
+    }
+
+    /**
+     * Reads account rows from the database; replaced in tests.
+     */
+    interface Loader {
+        /** All accounts of a customer, in any order. */
+        List<AccountState> loadCustomer(int customerId) throws SQLException;
+
+        /** A single account, or null if it does not exist. */
+        AccountState loadAccount(String accountNumber) throws SQLException;
+    }
+
+    public record Stats(long hits, long misses, long evictions, long staleLoadsRejected,
+                        int accountEntries, int customerEntries) {
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    private static final String ACCOUNT_SELECT = "SELECT a.*, c.account_id, c.id_card_number, c.name, c.email, "
+            + AccountRepository.TOTAL_BALANCE_SQL + " AS total_balance "
+            + "FROM accounts a JOIN customers c ON a.customer_id = c.id ";
+
+    // Writers re-read without the stripe total: summing stripes inside a transaction
+    // that credits one of them would lock against concurrent credits
+    private static final String CAPTURE_SELECT = "SELECT a.*, c.account_id, c.id_card_number, c.name, c.email "
+            + "FROM accounts a JOIN customers c ON a.customer_id = c.id ";
+
+    private static AccountCache instance;
+
+    private final Loader loader;
+    private final Consumer<Object> writeRecorder;
+    private final VersionedLru<String, AccountState> accounts;
+    private final VersionedLru<Integer, List<String>> customerAccounts;
+    private final Map<String, Integer> pendingWrites = new HashMap<>();
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private long clock;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param writeRecorder told the customer IDs and account numbers of every
+     *                      committed change, for read-your-writes routing
+     */
+    AccountCache(int maxAccounts, int maxCustomers, Loader loader, Consumer<Object> writeRecorder) {
+        this.loader = loader;
+        this.writeRecorder = writeRecorder;
+        this.accounts = new VersionedLru<>(maxAccounts);
+        this.customerAccounts = new VersionedLru<>(maxCustomers);
+    }
+
+    public static synchronized AccountCache getInstance() {
+        if (instance == null) {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            int maxAccounts = Integer.parseInt(dotenv.get("ACCOUNT_CACHE_SIZE", "10000"));
+            instance = new AccountCache(maxAccounts, Math.max(1, maxAccounts / 2), new DatabaseLoader(),
+                    DatabaseConfig::recordWrite);
+        }
+        return instance;
+    }
+
+    // ==================== READS ====================
+
+    /**
+     * All accounts of a customer (active and inactive), newest first.
+     */
+    public List<AccountState> getCustomerAccounts(int customerId) throws SQLException {
+        synchronized (this) {
+            List<String> numbers = customerAccounts.get(customerId);
+            if (numbers != null) {
+                List<AccountState> states = new ArrayList<>(numbers.size());
+                for (String number : numbers) {
+                    AccountState state = accounts.get(number);
+                    if (state == null) {
+                        break;
+                    }
+                    states.add(state);
+                }
+                if (states.size() == numbers.size()) {
+                    hits++;
+                    return states;
+                }
+            }
+            misses++;
+        }
+        return loadCustomer(customerId);
+    }
+
+    /**
+     * A single account, or null if it does not exist.
+     */
+    public AccountState getAccount(String accountNumber) throws SQLException {
+        synchronized (this) {
+            AccountState state = accounts.get(accountNumber);
+            if (state != null) {
+                hits++;
+                return state;
+            }
+            misses++;
+        }
+        return loadAccount(accountNumber);
+    }
+
+    private List<AccountState> loadCustomer(int customerId) throws SQLException {
+        long stamp = currentVersion();
+        List<AccountState> states = new ArrayList<>(loader.loadCustomer(customerId));
+        states.sort(Comparator.comparing(AccountState::openedAt,
+                Comparator.nullsLast(Comparator.<Timestamp>reverseOrder())));
+
+        synchronized (this) {
+            List<String> numbers = new ArrayList<>(states.size());
+            for (AccountState state : states) {
+                putLoadedAccount(state, stamp);
+                numbers.add(state.accountNumber());
+            }
+            customerAccounts.putLoaded(customerId, Collections.unmodifiableList(numbers), stamp);
+        }
+        return states;
+    }
+
+    private AccountState loadAccount(String accountNumber) throws SQLException {
+        long stamp = currentVersion();
+        AccountState state = loader.loadAccount(accountNumber);
+        if (state != null) {
+            synchronized (this) {
+                putLoadedAccount(state, stamp);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Loads on their own LOOKUP connection, since callers may hold an OLTP one.
+     */
+    private static final class DatabaseLoader implements Loader {
+        @Override
+        public List<AccountState> loadCustomer(int customerId) throws SQLException {
+            try (Connection con = DatabaseConfig.getConnection(Workload.LOOKUP);
+                    PreparedStatement ps = con.prepareStatement(ACCOUNT_SELECT + "WHERE a.customer_id = ?")) {
+                ps.setInt(1, customerId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return readStates(rs);
+                }
+            }
+        }
+
+        @Override
+        public AccountState loadAccount(String accountNumber) throws SQLException {
+            try (Connection con = DatabaseConfig.getConnection(Workload.LOOKUP);
+                    PreparedStatement ps = con.prepareStatement(ACCOUNT_SELECT + "WHERE a.account_number = ?")) {
+                ps.setString(1, accountNumber);
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<AccountState> states = readStates(rs);
+                    return states.isEmpty() ? null : states.get(0);
+                }
+            }
+        }
+    }
+
+    // ==================== WRITES ====================
+
+    /**
+     * Re-reads the given accounts on the caller's connection. Must be called inside
+     * the writing transaction after the rows have been updated (so they are locked),
+     * and before commit.
+     */
+    public PendingWrite captureWrite(Connection con, Collection<String> accountNumbers) throws SQLException {
+        Set<String> distinct = new TreeSet<>(accountNumbers);
+        List<AccountState> states = List.of();
+        if (!distinct.isEmpty()) {
+            String placeholders = String.join(",", Collections.nCopies(distinct.size(), "?"));
+            try (PreparedStatement ps = con.prepareStatement(
+                    CAPTURE_SELECT + "WHERE a.account_number IN (" + placeholders + ")")) {
+                int paramIndex = 1;
+                for (String number : distinct) {
+                    ps.setString(paramIndex++, number);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    states = readStates(rs);
+                }
+            }
+        }
+        return stage(distinct, states);
+    }
+
+    /**
+     * Takes the version of a write whose rows were re-read as {@code states}, and
+     * holds off loads of its accounts until it is published or abandoned.
+     */
+    synchronized PendingWrite stage(Set<String> accountNumbers, List<AccountState> states) {
+        for (String number : accountNumbers) {
+            pendingWrites.merge(number, 1, Integer::sum);
+        }
+        return new PendingWrite(accountNumbers, states, ++clock);
+    }
+
+    public PendingWrite captureWrite(Connection con, String... accountNumbers) throws SQLException {
+        return captureWrite(con, Arrays.asList(accountNumbers));
+    }
+
+    /**
+     * Commits the caller's transaction and, if that succeeds, publishes the write.
+     */
+    public void commitAndPublish(Connection con, PendingWrite write) throws SQLException {
+        try {
+            con.commit();
+        } catch (SQLException e) {
+            abandon(write);
+            throw e;
+        }
+        publish(write);
+    }
+
+    /**
+     * Publishes a captured write. Call only after the transaction has committed.
+     */
+    public void publish(PendingWrite write) {
+        synchronized (this) {
+            for (AccountState state : write.states) {
+                if (state.striped()) {
+                    accounts.invalidate(state.accountNumber(), ++clock);
+                } else {
+                    accounts.putWritten(state.accountNumber(), state, write.version);
+                }
+            }
+            release(write);
+        }
+        for (AccountState state : write.states) {
+            writeRecorder.accept(state.customerId());
+        }
+        fireAccountsChanged(write.accountNumbers);
+    }
+
+    /**
+     * Forgets a captured write whose transaction rolled back.
+     */
+    public synchronized void abandon(PendingWrite write) {
+        release(write);
+    }
+
+    private void release(PendingWrite write) {
+        for (String number : write.accountNumbers) {
+            pendingWrites.computeIfPresent(number, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Drops an account after a write that was not captured (e.g. auto-commit updates).
+     */
+    public void invalidateAccount(String accountNumber) {
+        AccountState previous;
+        synchronized (this) {
+            previous = accounts.get(accountNumber);
+            accounts.invalidate(accountNumber, ++clock);
+        }
+        if (previous != null) {
+            writeRecorder.accept(previous.customerId());
+        }
+        fireAccountsChanged(List.of(accountNumber));
+    }
+
+    /**
+     * Drops a customer's account list after accounts are opened, closed or deleted.
+     */
+    public void invalidateCustomer(int customerId) {
+        synchronized (this) {
+            customerAccounts.invalidate(customerId, ++clock);
+        }
+        writeRecorder.accept(customerId);
+        fireCustomerChanged(customerId);
+    }
+
+    /**
+     * Drops a customer's account list and every cached account they own, e.g. after
+     * the customer (and, by cascade, their accounts) is deleted.
+     */
+    public void invalidateCustomerAccounts(int customerId) {
+        synchronized (this) {
+            long version = ++clock;
+            customerAccounts.invalidate(customerId, version);
+            accounts.invalidateIf(state -> state.customerId() == customerId, version);
+        }
+        writeRecorder.accept(customerId);
+        fireCustomerChanged(customerId);
+    }
+
+    /**
+     * Reports a commit that added transactions on these accounts without changing
+     * any cached account state (e.g. ledger postings ahead of their projection).
+     */
+    public void historyAppended(Collection<String> accountNumbers) {
+        List<Integer> owners = new ArrayList<>();
+        synchronized (this) {
+            for (String accountNumber : accountNumbers) {
+                AccountState state = accounts.get(accountNumber);
+                if (state != null) {
+                    owners.add(state.customerId());
+                }
+            }
+        }
+        for (int customerId : owners) {
+            writeRecorder.accept(customerId);
+        }
+        fireAccountsChanged(accountNumbers);
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    private void fireAccountsChanged(Collection<String> accountNumbers) {
+        for (String accountNumber : accountNumbers) {
+            writeRecorder.accept(accountNumber);
+        }
+        for (ChangeListener listener : listeners) {
+            listener.accountsChanged(accountNumbers);
+        }
+    }
+
+    private void fireCustomerChanged(int customerId) {
+        for (ChangeListener listener : listeners) {
+            listener.customerChanged(customerId);
+        }
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, accounts.evictions + customerAccounts.evictions,
+                accounts.staleRejected + customerAccounts.staleRejected,
+                accounts.size(), customerAccounts.size());
+    }
+
+    private synchronized long currentVersion() {
+        return clock;
+    }
+
+    private void putLoadedAccount(AccountState state, long stamp) {
+        if (pendingWrites.containsKey(state.accountNumber())) {
+            accounts.staleRejected++;
+        } else {
+            accounts.putLoaded(state.accountNumber(), state, stamp);
+        }
+    }
+
+    private static List<AccountState> readStates(ResultSet rs) throws SQLException {
+        ResultSetMetaData md = rs.getMetaData();
+        Set<String> columns = new HashSet<>();
+        for (int i = 1; i <= md.getColumnCount(); i++) {
+            columns.add(md.getColumnLabel(i).toLowerCase(Locale.ROOT));
+        }
+
+        List<AccountState> states = new ArrayList<>();
+        while (rs.next()) {
+            boolean active = rs.getBoolean("is_active");
+            // Older schemas have no status column; derive it from is_active
+            String status = columns.contains("status") ? rs.getString("status") : (active ? "ACTIVE" : "CLOSED");
+            Timestamp openedAt = columns.contains("opened_date") ? rs.getTimestamp("opened_date")
+                    : columns.contains("opened_at") ? rs.getTimestamp("opened_at") : null;
+            double balance = columns.contains("total_balance") ? rs.getDouble("total_balance") : rs.getDouble("balance");
+            boolean striped = columns.contains("stripe_count") && rs.getInt("stripe_count") > 0;
+            states.add(new AccountState(
+                    rs.getString("account_number"),
+                    rs.getInt("customer_id"),
+                    rs.getString("account_id"),
+                    rs.getString("id_card_number"),
+                    rs.getString("name"),
+                    rs.getString("email"),
+                    rs.getString("account_type"),
+                    balance,
+                    rs.getString("branch_name"),
+                    active,
+                    status,
+                    openedAt,
+                    striped));
+        }
+        return states;
+    }
+
+    /**
+     * Access-ordered LRU map whose entries carry the version they were written at.
+     * Evictions and invalidations advance the clock and raise a watermark that
+     * writes and loads versioned before it must not cross. Not thread-safe;
+     * guarded by the enclosing cache.
+     */
+    private final class VersionedLru<K, V> {
+        private record Entry<V>(V value, long version) {}
+
+        private final LinkedHashMap<K, Entry<V>> map;
+        private long watermark;
+        private long evictions;
+        private long staleRejected;
+
+        VersionedLru(int maxSize) {
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    if (size() > maxSize) {
+                        watermark = ++clock;
+                        evictions++;
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        V get(K key) {
+            Entry<V> entry = map.get(key);
+            return entry != null ? entry.value() : null;
+        }
+
+        /**
+         * Fills an empty slot with state loaded by a query that started at {@code stamp}.
+         */
+        void putLoaded(K key, V value, long stamp) {
+            if (map.containsKey(key)) {
+                return;
+            }
+            if (stamp < watermark) {
+                staleRejected++;
+                return;
+            }
+            map.put(key, new Entry<>(value, clock));
+        }
+
+        /**
+         * Installs committed state unless a newer version is already known.
+         */
+        void putWritten(K key, V value, long version) {
+            Entry<V> current = map.get(key);
+            long newest = current != null ? current.version() : watermark;
+            if (version >= newest) {
+                map.put(key, new Entry<>(value, version));
+            } else {
+                staleRejected++;
+            }
+        }
+
+        void invalidate(K key, long version) {
+            map.remove(key);
+            watermark = Math.max(watermark, version);
+        }
+
+        void invalidateIf(Predicate<V> condition, long version) {
+            map.values().removeIf(entry -> condition.test(entry.value()));
+            watermark = Math.max(watermark, version);
+        }
+
+        int size() {
+            return map.size();
+        }
+    }
+}
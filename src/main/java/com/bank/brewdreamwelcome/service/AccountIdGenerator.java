@@ -0,0 +1,68 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.repository.HiLoSequence;
+import com.bank.brewdreamwelcome.util.FeistelPermutation;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+
+/**
+ * Generates the 6-digit customer account_id (login ID) without existence probes.
+ *
+ * A monotonically increasing counter from the {@code customer_account_ids}
+ * sequence is mapped through a keyed Feistel permutation of [100000, 999999], so
+ * every counter value yields a distinct ID and consecutive signups do not get
+ * guessable neighbouring IDs. The key comes from {@code ACCOUNT_ID_KEY}; anyone
+ * who knows it can predict the IDs, so it must not be committed. Outside
+ * development ({@code APP_ENV}) a missing or placeholder key is refused.
+ */
+public final class AccountIdGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(AccountIdGenerator.class);
+
+    private static final int MIN_ACCOUNT_ID = 100000;
+    private static final int ACCOUNT_ID_SPACE = 900000;
+    private static final int BLOCK_SIZE = 10;
+    private static final String DEVELOPMENT_KEY = "vaultx-development-account-id-key";
+
+    private static AccountIdGenerator instance;
+
+    private final HiLoSequence counter;
+    private final FeistelPermutation permutation;
+
+    AccountIdGenerator(HiLoSequence counter, FeistelPermutation permutation) {
+        this.counter = counter;
+        this.permutation = permutation;
+    }
+
+    public static synchronized AccountIdGenerator getInstance() {
+        if (instance == null) {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            String key = dotenv.get("ACCOUNT_ID_KEY");
+            if (isPlaceholder(key)) {
+                if (!"development".equalsIgnoreCase(dotenv.get("APP_ENV", "development"))) {
+                    throw new IllegalStateException("ACCOUNT_ID_KEY must be set to a secret value outside development");
+                }
+                logger.warn("ACCOUNT_ID_KEY is not set; account IDs use the built-in development key and are predictable");
+                key = DEVELOPMENT_KEY;
+            }
+            instance = new AccountIdGenerator(
+                    new HiLoSequence("customer_account_ids", BLOCK_SIZE, 0),
+                    new FeistelPermutation(ACCOUNT_ID_SPACE, key));
+        }
+        return instance;
+    }
+
+    private static boolean isPlaceholder(String key) {
+        return key == null || key.isBlank() || key.equals(DEVELOPMENT_KEY) || key.regionMatches(true, 0, "change-me", 0, 9);
+    }
+
+    public String nextAccountId() throws SQLException {
+        long value = counter.next();
+        if (value >= ACCOUNT_ID_SPACE) {
+            throw new SQLException("6-digit account ID space exhausted");
+        }
+        return String.valueOf(MIN_ACCOUNT_ID + permutation.permute(value));
+    }
+}
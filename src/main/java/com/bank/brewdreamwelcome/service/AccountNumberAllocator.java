@@ -0,0 +1,83 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.repository.HiLoSequence;
+import io.github.cdimascio.dotenv.Dotenv;
+
+import java.sql.SQLException;
+
+/**
+ * Allocates bank account numbers ({@code AC-10001}, {@code AC-10002}, ...) from the
+ * {@code accounts} hi/lo sequence instead of scanning the accounts table.
+ *
+ * Each JVM reserves a range of numbers at a time, so concurrent account openings
+ * never collide and the cost of an allocation does not depend on table size.
+ * When {@code ACCOUNT_CHECK_DIGIT=true} a Luhn check digit is appended
+ * ({@code AC-100017}); decide this before the first allocation, because switching
+ * it off again could reproduce a number issued earlier with a check digit.
+ */
+public final class AccountNumberAllocator {
+
+    private static final int BLOCK_SIZE = 20;
+    private static final long FIRST_ACCOUNT_NUMBER = 10001;
+
+    private static AccountNumberAllocator instance;
+
+    private final HiLoSequence sequence;
+    private final boolean checkDigit;
+
+    AccountNumberAllocator(HiLoSequence sequence, boolean checkDigit) {
+        this.sequence = sequence;
+        this.checkDigit = checkDigit;
+    }
+
+    public static synchronized AccountNumberAllocator getInstance() {
+        if (instance == null) {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            boolean checkDigit = Boolean.parseBoolean(dotenv.get("ACCOUNT_CHECK_DIGIT", "false"));
+            instance = new AccountNumberAllocator(
+                    new HiLoSequence("accounts", BLOCK_SIZE, FIRST_ACCOUNT_NUMBER), checkDigit);
+        }
+        return instance;
+    }
+
+    public String nextAccountNumber() throws SQLException {
+        long value = sequence.next();
+        String digits = String.format("%05d", value);
+        if (checkDigit) {
+            digits += luhnDigit(digits);
+        }
+        return "AC-" + digits;
+    }
+
+    /**
+     * Computes the Luhn check digit for a string of decimal digits.
+     */
+    static int luhnDigit(String digits) {
+        int sum = 0;
+        boolean doubleIt = true;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int d = digits.charAt(i) - '0';
+            if (doubleIt) {
+                d *= 2;
+                if (d > 9) {
+                    d -= 9;
+                }
+            }
+            sum += d;
+            doubleIt = !doubleIt;
+        }
+        return (10 - (sum % 10)) % 10;
+    }
+
+    /**
+     * Validates an account number issued with a check digit.
+     */
+    public static boolean isValidCheckDigit(String accountNumber) {
+        if (accountNumber == null || !accountNumber.matches("AC-\\d{2,}")) {
+            return false;
+        }
+        String digits = accountNumber.substring(3);
+        String body = digits.substring(0, digits.length() - 1);
+        return luhnDigit(body) == digits.charAt(digits.length() - 1) - '0';
+    }
+}
@@ -0,0 +1,203 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.Money;
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.Workload;
+import com.bank.brewdreamwelcome.repository.AccountRepository;
+import com.bank.brewdreamwelcome.repository.TransactionRepository;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * System-wide aggregates for the admin overview.
+ *
+ * Every figure is read by one statement inside a read-only transaction, so they
+ * all come from the same InnoDB snapshot and agree with each other. Results are
+ * kept for {@code ADMIN_METRICS_TTL_SECONDS}. When the cached overview has
+ * expired, the first caller runs the query and every caller arriving while it
+ * runs waits for that result instead of issuing its own, so any number of admin
+ * screens refreshing together cost one query.
+ */
+public final class AdminMetricsService {
+    private static final Logger logger = LoggerFactory.getLogger(AdminMetricsService.class);
+
+    /**
+     * @param asOf when the figures were read
+     */
+    public record Overview(long totalCustomers, long pendingApprovals, Money totalReserves, long totalAccounts,
+                           long activeAccounts, long transactionsToday, Instant asOf) {
+
+        static final Overview EMPTY = new Overview(0, 0, Money.ZERO, 0, 0, 0, Instant.EPOCH);
+    }
+
+    public record Stats(long hits, long queries, long coalesced, long failures) {}
+
+    /**
+     * Reads the overview from the database; replaced in tests.
+     */
+    interface Loader {
+        Overview load() throws SQLException;
+    }
+
+    private record Cached(Overview overview, long expiresAtNanos) {}
+
+    private static final String OVERVIEW_SQL = "SELECT "
+            + "(SELECT COUNT(*) FROM customers), "
+            + "(SELECT COUNT(*) FROM customers WHERE account_status = 'PENDING'), "
+            + "(SELECT COALESCE(SUM(" + AccountRepository.TOTAL_BALANCE_SQL + "), 0) FROM accounts a), "
+            + "(SELECT COUNT(*) FROM accounts), "
+            + "(SELECT COUNT(*) FROM accounts WHERE is_active = TRUE), "
+            + "(SELECT COUNT(*) FROM transactions WHERE " + TransactionRepository.TODAY + ")";
+
+    private static AdminMetricsService instance;
+
+    private final Loader loader;
+    private final LongSupplier nanoClock;
+    private final long ttlNanos;
+
+    private volatile Cached cached;
+    private CompletableFuture<Overview> inFlight; // guarded by this
+    private Overview lastGood = Overview.EMPTY; // guarded by this
+    private final LongAdder hits = new LongAdder();
+    private long queries;
+    private long coalesced;
+    private long failures;
+
+    AdminMetricsService(Loader loader, LongSupplier nanoClock, long ttlNanos) {
+        this.loader = loader;
+        this.nanoClock = nanoClock;
+        this.ttlNanos = ttlNanos;
+    }
+
+    public static synchronized AdminMetricsService getInstance() {
+        if (instance == null) {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            long ttlSeconds = Long.parseLong(dotenv.get("ADMIN_METRICS_TTL_SECONDS", "15"));
+            instance = new AdminMetricsService(AdminMetricsService::loadOverview, System::nanoTime,
+                    TimeUnit.SECONDS.toNanos(ttlSeconds));
+        }
+        return instance;
+    }
+
+    /**
+     * The overview, at most one TTL old. If the database cannot be read, the
+     * last overview that could is returned (all zeros if there was none).
+     */
+    public Overview getOverview() {
+        Cached current = cached;
+        if (current != null && nanoClock.getAsLong() < current.expiresAtNanos()) {
+            hits.increment();
+            return current.overview();
+        }
+
+        CompletableFuture<Overview> flight;
+        boolean leader = false;
+        synchronized (this) {
+            current = cached;
+            if (current != null && nanoClock.getAsLong() < current.expiresAtNanos()) {
+                hits.increment();
+                return current.overview();
+            }
+            if (inFlight == null) {
+                inFlight = new CompletableFuture<>();
+                leader = true;
+                queries++;
+            } else {
+                coalesced++;
+            }
+            flight = inFlight;
+        }
+
+        if (leader) {
+            load(flight);
+        }
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            synchronized (this) {
+                return lastGood;
+            }
+        }
+    }
+
+    public long getTotalCustomers() {
+        return getOverview().totalCustomers();
+    }
+
+    public long getPendingApprovalsCount() {
+        return getOverview().pendingApprovals();
+    }
+
+    public Money getTotalReserves() {
+        return getOverview().totalReserves();
+    }
+
+    /**
+     * Drops the cached overview after a change the admin expects to see at once
+     * (e.g. an approval). A query already running is left to finish for its
+     * waiters, but its result is not cached and later callers start a new one.
+     */
+    public synchronized void invalidate() {
+        cached = null;
+        inFlight = null;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits.sum(), queries, coalesced, failures);
+    }
+
+    private void load(CompletableFuture<Overview> flight) {
+        long started = nanoClock.getAsLong();
+        try {
+            Overview overview = loader.load();
+            synchronized (this) {
+                if (inFlight == flight) {
+                    inFlight = null;
+                    cached = new Cached(overview, started + ttlNanos);
+                }
+                lastGood = overview;
+            }
+            flight.complete(overview);
+        } catch (SQLException | RuntimeException e) {
+            synchronized (this) {
+                if (inFlight == flight) {
+                    inFlight = null;
+                }
+                failures++;
+            }
+            logger.error("Error loading admin overview", e);
+            flight.completeExceptionally(e);
+        }
+    }
+
+    private static Overview loadOverview() throws SQLException {
+        try (Connection conn = DatabaseConfig.getReadConnection(Workload.REPORTING)) {
+            conn.setReadOnly(true);
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(OVERVIEW_SQL);
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                Overview overview = new Overview(rs.getLong(1), rs.getLong(2), Money.read(rs, 3),
+                        rs.getLong(4), rs.getLong(5), rs.getLong(6), Instant.now());
+                conn.commit();
+                return overview;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+}
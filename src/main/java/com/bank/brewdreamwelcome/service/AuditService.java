@@ -1,7 +1,10 @@
 package com.bank.brewdreamwelcome.service;
 
 import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.Workload;
 import com.bank.brewdreamwelcome.core.SessionManager;
+import com.bank.brewdreamwelcome.metrics.MetricsRegistry;
+import com.bank.brewdreamwelcome.metrics.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,11 +16,16 @@ import java.sql.PreparedStatement;
  */
 public class AuditService {
     private static final Logger logger = LoggerFactory.getLogger(AuditService.class);
+    private static final Timer LOG_TIMER = MetricsRegistry.serviceTimer(AuditService.class, "log");
 
     public static void log(String action, String details) {
+        LOG_TIMER.time(() -> write(action, details));
+    }
+
+    private static void write(String action, String details) {
         String sql = "INSERT INTO audit_logs (user_id, action, details) VALUES (?, ?, ?)";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getConnection(Workload.AUDIT);
              PreparedStatement ps = conn.prepareStatement(sql)) {
             
             Integer userId = SessionManager.getCurrentCustomerId();
@@ -1,12 +1,16 @@
 package com.bank.brewdreamwelcome.service;
 
 import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.Workload;
+import com.bank.brewdreamwelcome.ledger.LedgerEngine;
+import com.bank.brewdreamwelcome.repository.AccountRepositoryImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.time.LocalDate;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -17,22 +21,28 @@ import java.util.concurrent.TimeUnit;
 public class BankingScheduler {
     private static final Logger logger = LoggerFactory.getLogger(BankingScheduler.class);
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-    private final ModernBankService bankService;
+    private final LedgerEngine ledger;
+    private final ModernBankService bankService = new ModernBankService(new AccountRepositoryImpl());
 
-    public BankingScheduler(ModernBankService bankService) {
-        this.bankService = bankService;
+    /**
+     * @param ledger engine that posts the recurring transfers
+     */
+    public BankingScheduler(LedgerEngine ledger) {
+        this.ledger = ledger;
     }
 
     public void start() {
         // Runs every day
         scheduler.scheduleAtFixedRate(this::processRecurringTransfers, 0, 1, TimeUnit.DAYS);
+        // Fold hot-account stripe credits back into the base balance
+        scheduler.scheduleAtFixedRate(bankService::consolidateStripedAccounts, 1, 1, TimeUnit.MINUTES);
         logger.info("Recurring transaction engine started.");
     }
 
     private void processRecurringTransfers() {
         String query = "SELECT * FROM scheduled_transfers WHERE next_execution_date <= CURDATE() AND is_active = TRUE";
         
-        try (Connection conn = DatabaseConfig.getConnection();
+        try (Connection conn = DatabaseConfig.getConnection(Workload.SCHEDULER);
              PreparedStatement ps = conn.prepareStatement(query);
              ResultSet rs = ps.executeQuery()) {
             
@@ -41,7 +51,9 @@ public class BankingScheduler {
                 String to = rs.getString("receiver_account_no");
                 double amount = rs.getDouble("amount");
                 
-                boolean success = bankService.transferFunds(from, to, amount);
+                // One key per schedule and day, so a rerun of this job cannot post twice
+                String idempotencyKey = "SCHED-" + rs.getInt("id") + "-" + LocalDate.now();
+                boolean success = ledger.transfer(from, to, amount, "Scheduled transfer", idempotencyKey);
                 if (success) {
                     updateNextExecutionDate(rs.getInt("id"), rs.getString("frequency"));
                     AuditService.log("SCHEDULED_TRANSFER", "Transfer of " + amount + " from " + from + " processed.");
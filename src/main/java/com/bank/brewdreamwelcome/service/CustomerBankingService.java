@@ -2,12 +2,23 @@ package com.bank.brewdreamwelcome.service;
 
 import com.bank.brewdreamwelcome.config.DatabaseConfig;
 import com.bank.brewdreamwelcome.LoggerUtil;
+import com.bank.brewdreamwelcome.Money;
+import com.bank.brewdreamwelcome.metrics.MetricsRegistry;
+import com.bank.brewdreamwelcome.metrics.Timer;
+import com.bank.brewdreamwelcome.repository.AccountRepository;
+import com.bank.brewdreamwelcome.repository.TransactionRepository;
+import com.bank.brewdreamwelcome.service.TransactionRetryExecutor.IdempotencyKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service for customer banking operations.
@@ -15,7 +26,16 @@ import java.util.List;
  */
 public class CustomerBankingService {
     private static final Logger logger = LoggerFactory.getLogger(CustomerBankingService.class);
+    private static final Timer ACCOUNTS_TIMER = timer("getCustomerAccounts");
+    private static final Timer TRANSACTIONS_PAGE_TIMER = timer("getAccountTransactionsPage");
     private static CustomerBankingService instance;
+    private final AccountCache accountCache = AccountCache.getInstance();
+    private final TransactionRetryExecutor retryExecutor = TransactionRetryExecutor.getInstance();
+    private final IntradayMetrics metrics = IntradayMetrics.getInstance();
+    private final TransactionSearchIndex searchIndex = TransactionSearchIndex.getInstance();
+
+    private static final String TRANSACTION_COLUMNS =
+            "id, from_account, to_account, amount, transaction_type, description, transaction_tag, timestamp";
     
     private CustomerBankingService() {}
     
@@ -66,25 +86,26 @@ public class CustomerBankingService {
         }
     }
     
+    private static Timer timer(String method) {
+        return MetricsRegistry.serviceTimer(CustomerBankingService.class, method);
+    }
+
     public List<AccountInfo> getCustomerAccounts(int customerId) {
+        return ACCOUNTS_TIMER.time(() -> loadCustomerAccounts(customerId));
+    }
+
+    private List<AccountInfo> loadCustomerAccounts(int customerId) {
         List<AccountInfo> accounts = new ArrayList<>();
-        String sql = "SELECT account_number, account_type, balance, status, branch_name " +
-                    "FROM accounts WHERE customer_id = ? ORDER BY opened_date DESC";
         
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setInt(1, customerId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    accounts.add(new AccountInfo(
-                        rs.getString("account_number"),
-                        rs.getString("account_type"),
-                        rs.getDouble("balance"),
-                        rs.getString("status"),
-                        rs.getString("branch_name")
-                    ));
-                }
+        try {
+            for (AccountCache.AccountState state : accountCache.getCustomerAccounts(customerId)) {
+                accounts.add(new AccountInfo(
+                    state.accountNumber(),
+                    state.accountType(),
+                    state.balance(),
+                    state.status(),
+                    state.branchName()
+                ));
             }
         } catch (SQLException e) {
             logger.error("Error fetching customer accounts", e);
@@ -94,33 +115,65 @@ public class CustomerBankingService {
         return accounts;
     }
     
+    /**
+     * Position after the last row of a history page: its timestamp and id.
+     */
+    public static class TransactionCursor {
+        public final Timestamp timestamp;
+        public final long id;
+
+        public TransactionCursor(Timestamp timestamp, long id) {
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+    }
+
+    public static class TransactionPage {
+        public final List<TransactionRecord> transactions;
+        /** Cursor for the following page, or null if this is the last one. */
+        public final TransactionCursor next;
+
+        public TransactionPage(List<TransactionRecord> transactions, TransactionCursor next) {
+            this.transactions = transactions;
+            this.next = next;
+        }
+    }
+
     public List<TransactionRecord> getAccountTransactions(String accountNumber, int limit) {
-        List<TransactionRecord> transactions = new ArrayList<>();
-        String sql = "SELECT id, from_account, to_account, amount, transaction_type, " +
-                    "description, transaction_tag, timestamp " +
-                    "FROM transactions " +
-                    "WHERE from_account = ? OR to_account = ? " +
-                    "ORDER BY timestamp DESC LIMIT ?";
+        return getAccountTransactionsPage(accountNumber, null, limit).transactions;
+    }
+
+    /**
+     * Gets one page of an account's transactions, newest first. Pages are
+     * found by seeking past the (timestamp, id) cursor of the previous page, so
+     * deep pages cost no more than the first, and rows are streamed from the
+     * server rather than buffered. See {@link TransactionRepository#accountHistory}.
+     *
+     * @param after cursor from the previous page, or null for the first page
+     */
+    public TransactionPage getAccountTransactionsPage(String accountNumber, TransactionCursor after, int limit) {
+        return TRANSACTIONS_PAGE_TIMER.time(() -> readAccountTransactionsPage(accountNumber, after, limit));
+    }
+
+    private TransactionPage readAccountTransactionsPage(String accountNumber, TransactionCursor after, int limit) {
+        List<TransactionRecord> transactions = new ArrayList<>(limit);
+        TransactionCursor next = null;
+        TransactionRepository.HistoryQuery query = TransactionRepository.accountHistory(
+                TRANSACTION_COLUMNS, "id", accountNumber,
+                after != null ? after.timestamp : null, after != null ? after.id : null,
+                limit + 1); // the extra row only signals that another page exists
         
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            
-            ps.setString(1, accountNumber);
-            ps.setString(2, accountNumber);
-            ps.setInt(3, limit);
+        try (Connection conn = DatabaseConfig.getReadConnection(accountNumber);
+             PreparedStatement ps = query.prepare(conn)) {
             
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    transactions.add(new TransactionRecord(
-                        rs.getLong("id"),
-                        rs.getString("from_account"),
-                        rs.getString("to_account"),
-                        rs.getDouble("amount"),
-                        rs.getString("transaction_type"),
-                        rs.getString("description"),
-                        rs.getString("transaction_tag"),
-                        rs.getTimestamp("timestamp")
-                    ));
+                    if (transactions.size() == limit) {
+                        TransactionRecord last = transactions.get(limit - 1);
+                        next = new TransactionCursor(last.timestamp, last.id);
+                        break;
+                    }
+                    transactions.add(readTransactionRecord(rs));
                 }
             }
         } catch (SQLException e) {
@@ -128,15 +181,171 @@ public class CustomerBankingService {
             LoggerUtil.error("Error fetching transactions: " + e.getMessage(), e);
         }
         
+        return new TransactionPage(transactions, next);
+    }
+
+    /**
+     * Searches the transactions of all of a customer's accounts by the words of
+     * their description, note and tag, newest first.
+     *
+     * @param from  earliest timestamp (inclusive), or null
+     * @param until latest timestamp (exclusive), or null
+     */
+    public List<TransactionRecord> searchCustomerTransactions(int customerId, String query, Instant from,
+                                                              Instant until, int limit) {
+        List<String> accounts = new ArrayList<>();
+        for (AccountInfo account : getCustomerAccounts(customerId)) {
+            accounts.add(account.accountNumber);
+        }
+        if (accounts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return searchTransactions(query, accounts, from, until, limit);
+    }
+
+    /**
+     * Transactions whose description, note or tag contains every word of the
+     * query, newest first. Answered from {@link TransactionSearchIndex}; while
+     * it is still being built, by a LIKE scan.
+     *
+     * @param accounts only transactions from or to one of these accounts, or null for all
+     * @param from     earliest timestamp (inclusive), or null
+     * @param until    latest timestamp (exclusive), or null
+     */
+    public List<TransactionRecord> searchTransactions(String query, Collection<String> accounts, Instant from,
+                                                      Instant until, int limit) {
+        try {
+            List<Long> ids = searchIndex.search(query, accounts, from, until, limit);
+            if (ids == null) {
+                return searchTransactionsByScan(query, accounts, from, until, limit);
+            }
+            return getTransactionsByIds(ids, accounts);
+        } catch (SQLException e) {
+            logger.error("Error searching transactions", e);
+            LoggerUtil.error("Error searching transactions: " + e.getMessage(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    private List<TransactionRecord> getTransactionsByIds(List<Long> ids, Collection<String> accounts) throws SQLException {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT " + TRANSACTION_COLUMNS + " FROM transactions WHERE id IN (" + placeholders + ")";
+        Map<Long, TransactionRecord> byId = new HashMap<>();
+        try (Connection conn = DatabaseConfig.getReadConnection(readKeys(accounts));
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++) {
+                ps.setLong(i + 1, ids.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    TransactionRecord record = readTransactionRecord(rs);
+                    byId.put(record.id, record);
+                }
+            }
+        }
+        List<TransactionRecord> transactions = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            TransactionRecord record = byId.get(id);
+            if (record != null) {
+                transactions.add(record);
+            }
+        }
         return transactions;
     }
+
+    private List<TransactionRecord> searchTransactionsByScan(String query, Collection<String> accounts, Instant from,
+                                                             Instant until, int limit) throws SQLException {
+        List<String> words = TransactionSearchIndex.words(query);
+        List<TransactionRecord> transactions = new ArrayList<>();
+        if (words.isEmpty() || (accounts != null && accounts.isEmpty())) {
+            return transactions;
+        }
+        StringBuilder sql = new StringBuilder("SELECT ").append(TRANSACTION_COLUMNS).append(" FROM transactions WHERE TRUE");
+        List<Object> params = new ArrayList<>();
+        for (String word : words) {
+            sql.append(" AND (description LIKE ? OR transaction_note LIKE ? OR transaction_tag LIKE ?)");
+            String pattern = "%" + word + "%";
+            params.add(pattern);
+            params.add(pattern);
+            params.add(pattern);
+        }
+        if (accounts != null) {
+            String placeholders = String.join(",", Collections.nCopies(accounts.size(), "?"));
+            sql.append(" AND (from_account IN (").append(placeholders)
+               .append(") OR to_account IN (").append(placeholders).append("))");
+            params.addAll(accounts);
+            params.addAll(accounts);
+        }
+        if (from != null) {
+            sql.append(" AND timestamp >= ?");
+            params.add(Timestamp.from(from));
+        }
+        if (until != null) {
+            sql.append(" AND timestamp < ?");
+            params.add(Timestamp.from(until));
+        }
+        sql.append(" ORDER BY timestamp DESC, id DESC LIMIT ?");
+        params.add(limit);
+
+        try (Connection conn = DatabaseConfig.getReadConnection(readKeys(accounts));
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    transactions.add(readTransactionRecord(rs));
+                }
+            }
+        }
+        return transactions;
+    }
+
+    private static Object[] readKeys(Collection<String> accounts) {
+        return accounts == null ? new Object[0] : accounts.toArray();
+    }
+
+    private static TransactionRecord readTransactionRecord(ResultSet rs) throws SQLException {
+        return new TransactionRecord(
+            rs.getLong("id"),
+            rs.getString("from_account"),
+            rs.getString("to_account"),
+            rs.getDouble("amount"),
+            rs.getString("transaction_type"),
+            rs.getString("description"),
+            rs.getString("transaction_tag"),
+            rs.getTimestamp("timestamp")
+        );
+    }
     
     public boolean deposit(String accountNumber, double amount, String description) {
+        return deposit(accountNumber, amount, description, null);
+    }
+    
+    /**
+     * Calls repeated with the same idempotency key post at most once. Deadlocks
+     * and lock wait timeouts are retried, here and in the overload without a key.
+     */
+    public boolean deposit(String accountNumber, double amount, String description, String idempotencyKey) {
         if (amount <= 0) {
             logger.warn("Invalid deposit amount: {}", amount);
             return false;
         }
         
+        try {
+            return retryExecutor.execute("Deposit", IdempotencyKey.of(idempotencyKey),
+                    key -> depositOnce(accountNumber, Money.of(amount), description, key));
+        } catch (SQLException e) {
+            logger.error("Error processing deposit", e);
+            LoggerUtil.error("Error processing deposit: " + e.getMessage(), e);
+            return false;
+        }
+    }
+    
+    private boolean depositOnce(String accountNumber, Money amount, String description, String idempotencyKey) throws SQLException {
         Connection conn = null;
         try {
             conn = DatabaseConfig.getConnection();
@@ -162,35 +371,36 @@ public class CustomerBankingService {
             }
             
             // Update balance
-            String updateSql = "UPDATE accounts SET balance = balance + ? WHERE account_number = ?";
+            String updateSql = "UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE account_number = ?";
             try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
-                ps.setDouble(1, amount);
+                amount.bind(ps, 1);
                 ps.setString(2, accountNumber);
                 ps.executeUpdate();
             }
             
             // Record transaction
-            String txSql = "INSERT INTO transactions (to_account, amount, transaction_type, description, status) " +
-                          "VALUES (?, ?, 'DEPOSIT', ?, 'COMPLETED')";
+            String txSql = "INSERT INTO transactions (transaction_id, to_account, amount, transaction_type, description, status, idempotency_key) " +
+                          "VALUES (?, ?, ?, 'DEPOSIT', ?, 'COMPLETED', ?)";
             try (PreparedStatement ps = conn.prepareStatement(txSql)) {
-                ps.setString(1, accountNumber);
-                ps.setDouble(2, amount);
-                ps.setString(3, description);
+                ps.setString(1, TransactionIdGenerator.nextId());
+                ps.setString(2, accountNumber);
+                amount.bind(ps, 3);
+                ps.setString(4, description);
+                ps.setString(5, idempotencyKey);
                 ps.executeUpdate();
             }
             
-            conn.commit();
+            accountCache.commitAndPublish(conn, accountCache.captureWrite(conn, accountNumber));
+            metrics.recordTransaction("DEPOSIT", null, accountNumber, amount);
             logger.info("Deposit successful: account={}, amount={}", accountNumber, amount);
-            AuditService.log("DEPOSIT", "Deposited " + amount + " to account " + accountNumber);
+            AuditService.log("DEPOSIT", "Deposited " + amount.format() + " to account " + accountNumber);
             return true;
             
         } catch (SQLException e) {
-            logger.error("Error processing deposit", e);
-            LoggerUtil.error("Error processing deposit: " + e.getMessage(), e);
             if (conn != null) {
                 try { conn.rollback(); } catch (SQLException ex) {}
             }
-            return false;
+            throw e;
         } finally {
             if (conn != null) {
                 try { 
@@ -202,18 +412,38 @@ public class CustomerBankingService {
     }
     
     public boolean withdraw(String accountNumber, double amount, String description) {
+        return withdraw(accountNumber, amount, description, null);
+    }
+    
+    /**
+     * Calls repeated with the same idempotency key post at most once. Deadlocks
+     * and lock wait timeouts are retried, here and in the overload without a key.
+     */
+    public boolean withdraw(String accountNumber, double amount, String description, String idempotencyKey) {
         if (amount <= 0) {
             logger.warn("Invalid withdrawal amount: {}", amount);
             return false;
         }
         
+        try {
+            return retryExecutor.execute("Withdrawal", IdempotencyKey.of(idempotencyKey),
+                    key -> withdrawOnce(accountNumber, Money.of(amount), description, key));
+        } catch (SQLException e) {
+            logger.error("Error processing withdrawal", e);
+            LoggerUtil.error("Error processing withdrawal: " + e.getMessage(), e);
+            return false;
+        }
+    }
+    
+    private boolean withdrawOnce(String accountNumber, Money amount, String description, String idempotencyKey) throws SQLException {
         Connection conn = null;
         try {
             conn = DatabaseConfig.getConnection();
             conn.setAutoCommit(false);
             
-            // Check account status and balance
-            String checkSql = "SELECT status, balance FROM accounts WHERE account_number = ? FOR UPDATE";
+            // Check account status and balance, stripe credits included
+            String checkSql = "SELECT a.status, " + AccountRepository.TOTAL_BALANCE_SQL + " AS balance "
+                    + "FROM accounts a WHERE a.account_number = ? FOR UPDATE";
             try (PreparedStatement ps = conn.prepareStatement(checkSql)) {
                 ps.setString(1, accountNumber);
                 try (ResultSet rs = ps.executeQuery()) {
@@ -223,14 +453,14 @@ public class CustomerBankingService {
                         return false;
                     }
                     String status = rs.getString("status");
-                    double balance = rs.getDouble("balance");
+                    Money balance = Money.read(rs, "balance");
                     
                     if (!"ACTIVE".equals(status)) {
                         logger.error("Account not active: {}", accountNumber);
                         conn.rollback();
                         return false;
                     }
-                    if (balance < amount) {
+                    if (balance.isLessThan(amount)) {
                         logger.error("Insufficient funds: account={}, balance={}, requested={}", 
                                    accountNumber, balance, amount);
                         conn.rollback();
@@ -240,35 +470,36 @@ public class CustomerBankingService {
             }
             
             // Update balance
-            String updateSql = "UPDATE accounts SET balance = balance - ? WHERE account_number = ?";
+            String updateSql = "UPDATE accounts SET balance = balance - ?, version = version + 1 WHERE account_number = ?";
             try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
-                ps.setDouble(1, amount);
+                amount.bind(ps, 1);
                 ps.setString(2, accountNumber);
                 ps.executeUpdate();
             }
             
             // Record transaction
-            String txSql = "INSERT INTO transactions (from_account, amount, transaction_type, description, status) " +
-                          "VALUES (?, ?, 'WITHDRAWAL', ?, 'COMPLETED')";
+            String txSql = "INSERT INTO transactions (transaction_id, from_account, amount, transaction_type, description, status, idempotency_key) " +
+                          "VALUES (?, ?, ?, 'WITHDRAWAL', ?, 'COMPLETED', ?)";
             try (PreparedStatement ps = conn.prepareStatement(txSql)) {
-                ps.setString(1, accountNumber);
-                ps.setDouble(2, amount);
-                ps.setString(3, description);
+                ps.setString(1, TransactionIdGenerator.nextId());
+                ps.setString(2, accountNumber);
+                amount.bind(ps, 3);
+                ps.setString(4, description);
+                ps.setString(5, idempotencyKey);
                 ps.executeUpdate();
             }
             
-            conn.commit();
+            accountCache.commitAndPublish(conn, accountCache.captureWrite(conn, accountNumber));
+            metrics.recordTransaction("WITHDRAWAL", accountNumber, null, amount);
             logger.info("Withdrawal successful: account={}, amount={}", accountNumber, amount);
-            AuditService.log("WITHDRAWAL", "Withdrew " + amount + " from account " + accountNumber);
+            AuditService.log("WITHDRAWAL", "Withdrew " + amount.format() + " from account " + accountNumber);
             return true;
             
         } catch (SQLException e) {
-            logger.error("Error processing withdrawal", e);
-            LoggerUtil.error("Error processing withdrawal: " + e.getMessage(), e);
             if (conn != null) {
                 try { conn.rollback(); } catch (SQLException ex) {}
             }
-            return false;
+            throw e;
         } finally {
             if (conn != null) {
                 try { 
@@ -280,16 +511,43 @@ public class CustomerBankingService {
     }
     
     public boolean transfer(String fromAccount, String toAccount, double amount, String description) {
+        return transfer(fromAccount, toAccount, amount, description, null);
+    }
+    
+    /**
+     * Calls repeated with the same idempotency key post at most once. Deadlocks
+     * and lock wait timeouts are retried, here and in the overload without a key.
+     */
+    public boolean transfer(String fromAccount, String toAccount, double amount, String description, String idempotencyKey) {
+        try {
+            return transferOrThrow(fromAccount, toAccount, amount, description, idempotencyKey);
+        } catch (SQLException e) {
+            logger.error("Error processing transfer", e);
+            LoggerUtil.error("Error processing transfer: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Same as {@link #transfer(String, String, double, String, String)}, but a
+     * database error left after the retries is thrown rather than returned as false.
+     */
+    public boolean transferOrThrow(String fromAccount, String toAccount, double amount, String description, String idempotencyKey) throws SQLException {
         if (amount <= 0) {
             logger.warn("Invalid transfer amount: {}", amount);
             return false;
         }
-        
+
         if (fromAccount.equals(toAccount)) {
             logger.warn("Cannot transfer to same account");
             return false;
         }
-        
+
+        return retryExecutor.execute("Transfer", IdempotencyKey.of(idempotencyKey),
+                key -> transferOnce(fromAccount, toAccount, Money.of(amount), description, key));
+    }
+    
+    private boolean transferOnce(String fromAccount, String toAccount, Money amount, String description, String idempotencyKey) throws SQLException {
         Connection conn = null;
         try {
             conn = DatabaseConfig.getConnection();
@@ -299,14 +557,14 @@ public class CustomerBankingService {
             String firstAcc = fromAccount.compareTo(toAccount) < 0 ? fromAccount : toAccount;
             String secondAcc = fromAccount.compareTo(toAccount) < 0 ? toAccount : fromAccount;
             
-            // Check both accounts
-            String checkSql = "SELECT account_number, status, balance FROM accounts " +
-                            "WHERE account_number IN (?, ?) FOR UPDATE";
+            // Check both accounts; balances include stripe credits
+            String checkSql = "SELECT a.account_number, a.status, " + AccountRepository.TOTAL_BALANCE_SQL + " AS balance " +
+                            "FROM accounts a WHERE a.account_number IN (?, ?) ORDER BY a.account_number FOR UPDATE";
             try (PreparedStatement ps = conn.prepareStatement(checkSql)) {
                 ps.setString(1, firstAcc);
                 ps.setString(2, secondAcc);
                 
-                double fromBalance = 0;
+                Money fromBalance = Money.ZERO;
                 boolean fromFound = false, toFound = false;
                 
                 try (ResultSet rs = ps.executeQuery()) {
@@ -321,7 +579,7 @@ public class CustomerBankingService {
                         }
                         
                         if (accNo.equals(fromAccount)) {
-                            fromBalance = rs.getDouble("balance");
+                            fromBalance = Money.read(rs, "balance");
                             fromFound = true;
                         } else if (accNo.equals(toAccount)) {
                             toFound = true;
@@ -335,7 +593,7 @@ public class CustomerBankingService {
                     return false;
                 }
                 
-                if (fromBalance < amount) {
+                if (fromBalance.isLessThan(amount)) {
                     logger.error("Insufficient funds: account={}, balance={}, requested={}", 
                                fromAccount, fromBalance, amount);
                     conn.rollback();
@@ -344,44 +602,45 @@ public class CustomerBankingService {
             }
             
             // Debit from source
-            String debitSql = "UPDATE accounts SET balance = balance - ? WHERE account_number = ?";
+            String debitSql = "UPDATE accounts SET balance = balance - ?, version = version + 1 WHERE account_number = ?";
             try (PreparedStatement ps = conn.prepareStatement(debitSql)) {
-                ps.setDouble(1, amount);
+                amount.bind(ps, 1);
                 ps.setString(2, fromAccount);
                 ps.executeUpdate();
             }
             
             // Credit to destination
-            String creditSql = "UPDATE accounts SET balance = balance + ? WHERE account_number = ?";
+            String creditSql = "UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE account_number = ?";
             try (PreparedStatement ps = conn.prepareStatement(creditSql)) {
-                ps.setDouble(1, amount);
+                amount.bind(ps, 1);
                 ps.setString(2, toAccount);
                 ps.executeUpdate();
             }
             
             // Record transaction
-            String txSql = "INSERT INTO transactions (from_account, to_account, amount, transaction_type, description, status) " +
-                          "VALUES (?, ?, ?, 'TRANSFER', ?, 'COMPLETED')";
+            String txSql = "INSERT INTO transactions (transaction_id, from_account, to_account, amount, transaction_type, description, status, idempotency_key) " +
+                          "VALUES (?, ?, ?, ?, 'TRANSFER', ?, 'COMPLETED', ?)";
             try (PreparedStatement ps = conn.prepareStatement(txSql)) {
-                ps.setString(1, fromAccount);
-                ps.setString(2, toAccount);
-                ps.setDouble(3, amount);
-                ps.setString(4, description);
+                ps.setString(1, TransactionIdGenerator.nextId());
+                ps.setString(2, fromAccount);
+                ps.setString(3, toAccount);
+                amount.bind(ps, 4);
+                ps.setString(5, description);
+                ps.setString(6, idempotencyKey);
                 ps.executeUpdate();
             }
             
-            conn.commit();
+            accountCache.commitAndPublish(conn, accountCache.captureWrite(conn, fromAccount, toAccount));
+            metrics.recordTransaction("TRANSFER", fromAccount, toAccount, amount);
             logger.info("Transfer successful: from={}, to={}, amount={}", fromAccount, toAccount, amount);
-            AuditService.log("TRANSFER", "Transferred " + amount + " from " + fromAccount + " to " + toAccount);
+            AuditService.log("TRANSFER", "Transferred " + amount.format() + " from " + fromAccount + " to " + toAccount);
             return true;
             
         } catch (SQLException e) {
-            logger.error("Error processing transfer", e);
-            LoggerUtil.error("Error processing transfer: " + e.getMessage(), e);
             if (conn != null) {
                 try { conn.rollback(); } catch (SQLException ex) {}
             }
-            return false;
+            throw e;
         } finally {
             if (conn != null) {
                 try { 
@@ -0,0 +1,553 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.Workload;
+import com.bank.brewdreamwelcome.util.IntIntMap;
+import com.bank.brewdreamwelcome.util.IntList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over customer name, email, account ID and ID card
+ * number, answering the admin search box without a table scan.
+ *
+ * Every customer is a document with a dense ordinal. Each lower-cased field
+ * posts its trigrams, its first characters (as a field start and at every word
+ * start inside it) and a hash of its whole value. A posting list is an
+ * ascending {@link IntList} of ordinals.
+ *
+ * Hits are ranked by tier: exact field, field prefix, word prefix, then
+ * substring. Each tier walks the shortest posting list that covers it, checks
+ * each document against its stored fields, and stops as soon as the limit is
+ * filled. A broad query therefore touches little more than {@code limit}
+ * documents, and a narrow one only its rarest trigram's list. Within a tier,
+ * hits come in ordinal order, which is customer ID order for everything loaded
+ * at startup or compacted since.
+ *
+ * Updates never rewrite a posting list. The old ordinal is tombstoned and the
+ * customer is appended under a new one. The postings are rebuilt once a quarter
+ * of the documents are dead.
+ *
+ * The index is loaded once at startup by streaming the customers table, on the
+ * scheduler pool so no query timeout cuts the stream short, and a failed load is
+ * retried with backoff. Until it succeeds {@link #search} returns null and
+ * callers fall back to SQL. Changes made while it loads are re-read from the
+ * database before it opens for reads.
+ */
+public final class CustomerSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSearchIndex.class);
+
+    /**
+     * A matching customer and the tier it matched in.
+     */
+    public record Hit(int customerId, int score) {}
+
+    // Match tiers, best first
+    public static final int EXACT = 100;
+    public static final int PREFIX = 60;
+    public static final int WORD_PREFIX = 40;
+    public static final int SUBSTRING = 20;
+
+    // Key layout: up to three chars in bits 0-47, their count in 48-49, the key kind in 50-51
+    private static final long FIELD_START = 1L << 50;
+    private static final long WORD_START = 2L << 50;
+    private static final long WHOLE_FIELD = 3L << 50;
+    private static final long CHARS_MASK = (1L << 48) - 1;
+
+    private static final char SEPARATOR = '\0';
+    private static final int DEAD = -1;
+    private static final int MIN_COMPACTION = 1024;
+    private static final long FIRST_RETRY_MILLIS = 5_000;
+    private static final long MAX_RETRY_MILLIS = 300_000;
+
+    private static final String LOAD_SQL = "SELECT id, name, email, account_id, id_card_number FROM customers";
+
+    private static CustomerSearchIndex instance;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private int[] customerIds = new int[1024];
+    private String[] texts = new String[1024];
+    private int docCount;
+    private int deadCount;
+    private final IntIntMap docsByCustomer = new IntIntMap(1024);
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private boolean ready;
+    private Set<Integer> touchedWhileLoading = new HashSet<>();
+
+    private CustomerSearchIndex() {
+    }
+
+    public static synchronized CustomerSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new CustomerSearchIndex();
+            Thread loader = new Thread(instance::loadUntilReady, "customer-search-loader");
+            loader.setDaemon(true);
+            loader.start();
+        }
+        return instance;
+    }
+
+    // ==================== SEARCH ====================
+
+    /**
+     * Customers whose name, email, account ID or ID card number contains the
+     * query, ignoring case. Queries of one or two characters match whole
+     * fields and field or word prefixes only.
+     *
+     * @return up to {@code limit} hits, best tier first, or null while the index is still loading
+     */
+    public List<Hit> search(String query, int limit) {
+        String q = normalize(query);
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return null;
+            }
+            List<Hit> hits = new ArrayList<>(Math.min(Math.max(limit, 0), 64));
+            if (q.isEmpty() || limit <= 0) {
+                return hits;
+            }
+            // Every trigram must be present; the rarest list covers all substring matches
+            IntList rarest = null;
+            for (int i = 0; i + 3 <= q.length(); i++) {
+                IntList list = postings.get(trigramKey(q, i));
+                if (list == null) {
+                    return hits;
+                }
+                if (rarest == null || list.size() < rarest.size()) {
+                    rarest = list;
+                }
+            }
+            collect(hits, postings.get(wholeFieldKey(q, 0, q.length())), q, EXACT, limit);
+            collect(hits, shorter(postings.get(startKey(FIELD_START, q, 0, q.length())), rarest), q, PREFIX, limit);
+            collect(hits, shorter(postings.get(startKey(WORD_START, q, 0, q.length())), rarest), q, WORD_PREFIX, limit);
+            collect(hits, rarest, q, SUBSTRING, limit);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the documents of {@code list} whose best match is {@code tier}, in
+     * ordinal order, until {@code hits} holds {@code limit}.
+     */
+    private void collect(List<Hit> hits, IntList list, String q, int tier, int limit) {
+        if (list == null) {
+            return;
+        }
+        for (int i = 0; i < list.size() && hits.size() < limit; i++) {
+            int doc = list.get(i);
+            int customerId = customerIds[doc];
+            if (customerId != DEAD && score(texts[doc], q) == tier) {
+                hits.add(new Hit(customerId, tier));
+            }
+        }
+    }
+
+    /**
+     * The shorter list, where {@code tierList} is the one posted for a tier and
+     * {@code rarest} (if any) a superset of every document the tier can match.
+     */
+    private static IntList shorter(IntList tierList, IntList rarest) {
+        if (tierList == null) {
+            return null;
+        }
+        return rarest != null && rarest.size() < tierList.size() ? rarest : tierList;
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount - deadCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Best tier {@code q} matches in any field of a packed document, or 0 if
+     * none (e.g. a document holding every trigram of the query, but apart).
+     */
+    static int score(String text, String q) {
+        int best = 0;
+        int start = 0;
+        while (start <= text.length()) {
+            int end = text.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = text.length();
+            }
+            best = Math.max(best, matchKind(text, start, end, q));
+            start = end + 1;
+        }
+        return best;
+    }
+
+    private static int matchKind(String text, int start, int end, String q) {
+        int length = end - start;
+        if (length < q.length()) {
+            return 0;
+        }
+        if (text.startsWith(q, start)) {
+            return length == q.length() ? EXACT : PREFIX;
+        }
+        int kind = 0;
+        for (int at = text.indexOf(q, start + 1); at >= 0 && at + q.length() <= end; at = text.indexOf(q, at + 1)) {
+            if (isWordBreak(text.charAt(at - 1))) {
+                return WORD_PREFIX;
+            }
+            kind = SUBSTRING;
+        }
+        return kind;
+    }
+
+    private static boolean isWordBreak(char c) {
+        return c == ' ' || c == '.' || c == '-' || c == '_' || c == '@';
+    }
+
+    // ==================== UPDATES ====================
+
+    /**
+     * Adds or replaces a customer. Call after the change has committed.
+     */
+    public void upsert(int customerId, String name, String email, String accountId, String idCardNumber) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                touchedWhileLoading.add(customerId);
+                return;
+            }
+            put(customerId, pack(name, email, accountId, idCardNumber));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces a customer's name and email, keeping the indexed identifiers.
+     */
+    public void updateContact(int customerId, String name, String email) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                touchedWhileLoading.add(customerId);
+                return;
+            }
+            int doc = docsByCustomer.get(customerId, DEAD);
+            if (doc == DEAD) {
+                return;
+            }
+            String[] fields = texts[doc].split(String.valueOf(SEPARATOR), -1);
+            put(customerId, pack(name, email, fields[2], fields[3]));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int customerId) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                touchedWhileLoading.add(customerId);
+                return;
+            }
+            kill(customerId);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(int customerId, String text) {
+        kill(customerId);
+        append(customerId, text);
+        compactIfSparse();
+    }
+
+    private void kill(int customerId) {
+        int doc = docsByCustomer.remove(customerId, DEAD);
+        if (doc != DEAD) {
+            customerIds[doc] = DEAD;
+            texts[doc] = null;
+            deadCount++;
+        }
+    }
+
+    private void append(int customerId, String text) {
+        if (docCount == customerIds.length) {
+            int capacity = docCount + (docCount >> 1);
+            customerIds = Arrays.copyOf(customerIds, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+        }
+        int doc = docCount++;
+        customerIds[doc] = customerId;
+        texts[doc] = text;
+        docsByCustomer.put(customerId, doc);
+        indexDocument(doc, text);
+    }
+
+    private void indexDocument(int doc, String text) {
+        int start = 0;
+        while (start <= text.length()) {
+            int end = text.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = text.length();
+            }
+            if (end > start) {
+                post(wholeFieldKey(text, start, end), doc);
+                postStarts(FIELD_START, text, start, end, doc);
+                for (int i = start + 1; i < end; i++) {
+                    if (isWordBreak(text.charAt(i - 1))) {
+                        postStarts(WORD_START, text, i, end, doc);
+                    }
+                }
+                for (int i = start; i + 3 <= end; i++) {
+                    post(trigramKey(text, i), doc);
+                }
+            }
+            start = end + 1;
+        }
+    }
+
+    private void postStarts(long kind, String text, int start, int end, int doc) {
+        for (int length = 1; length <= 3 && start + length <= end; length++) {
+            post(startKey(kind, text, start, start + length), doc);
+        }
+    }
+
+    private void post(long key, int doc) {
+        IntList list = postings.computeIfAbsent(key, k -> new IntList(2));
+        if (list.last(DEAD) != doc) { // a document is appended whole, so repeats are adjacent
+            list.add(doc);
+        }
+    }
+
+    /**
+     * Rebuilds ordinals and postings once dead documents pass a quarter of the total.
+     */
+    private void compactIfSparse() {
+        if (deadCount < MIN_COMPACTION || deadCount * 4 < docCount) {
+            return;
+        }
+        int[] oldIds = customerIds;
+        String[] oldTexts = texts;
+        int live = docCount - deadCount;
+        // Re-append in customer ID order, which is the order hits are ranked in within a tier
+        long[] order = new long[live];
+        for (int doc = 0, n = 0; doc < docCount; doc++) {
+            if (oldIds[doc] != DEAD) {
+                order[n++] = ((long) oldIds[doc] << 32) | doc;
+            }
+        }
+        Arrays.sort(order);
+        customerIds = new int[Math.max(1024, live + (live >> 2))];
+        texts = new String[customerIds.length];
+        docCount = 0;
+        deadCount = 0;
+        docsByCustomer.clear();
+        postings.clear();
+        for (long entry : order) {
+            int doc = (int) entry;
+            append(oldIds[doc], oldTexts[doc]);
+        }
+        trimPostings();
+        logger.info("Customer search index compacted to {} documents", docCount);
+    }
+
+    private void trimPostings() {
+        for (IntList list : postings.values()) {
+            list.trimToSize();
+        }
+    }
+
+    // ==================== LOADING ====================
+
+    private void loadUntilReady() {
+        long delay = FIRST_RETRY_MILLIS;
+        while (!loadFromDatabase()) {
+            logger.info("Retrying the customer search index load in {} s", delay / 1000);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            delay = Math.min(delay * 2, MAX_RETRY_MILLIS);
+        }
+    }
+
+    /**
+     * Streams the table into the index and opens it. A failed attempt keeps what
+     * it read: the next one skips customers already indexed, and everything
+     * changed in between is still re-read before the index opens.
+     *
+     * @return false if the database failed and the index is still closed
+     */
+    private boolean loadFromDatabase() {
+        long begin = System.nanoTime();
+        // The bulk read may come from a lagging replica; customers changed meanwhile are re-read from the primary
+        try (Connection replica = DatabaseConfig.getReadConnection(Workload.SCHEDULER);
+             PreparedStatement ps = replica.prepareStatement(LOAD_SQL + " ORDER BY id", ResultSet.TYPE_FORWARD_ONLY,
+                     ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE); // stream rows instead of buffering the table
+            try (ResultSet rs = ps.executeQuery()) {
+                load(rs);
+            }
+        } catch (SQLException e) {
+            logger.error("Customer search index could not be loaded; search stays on SQL", e);
+            return false;
+        }
+        try (Connection conn = DatabaseConfig.getConnection(Workload.SCHEDULER)) {
+            catchUp(conn);
+            logger.info("Customer search index loaded {} customers in {} ms", size(),
+                    (System.nanoTime() - begin) / 1_000_000);
+            return true;
+        } catch (SQLException e) {
+            logger.error("Customer search index could not be loaded; search stays on SQL", e);
+            return false;
+        }
+    }
+
+    /**
+     * Adds every row of a result set with the load columns, in batches so the
+     * write lock is released between them.
+     */
+    private void load(ResultSet rs) throws SQLException {
+        boolean more = true;
+        while (more) {
+            lock.writeLock().lock();
+            try {
+                for (int i = 0; i < 1000 && (more = rs.next()); i++) {
+                    int customerId = rs.getInt("id");
+                    if (!docsByCustomer.containsKey(customerId)) {
+                        append(customerId, pack(rs.getString("name"), rs.getString("email"),
+                                rs.getString("account_id"), rs.getString("id_card_number")));
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Re-reads the customers changed while the table was streamed (the stream
+     * may have returned them as they were before), then opens the index.
+     */
+    private void catchUp(Connection conn) throws SQLException {
+        while (true) {
+            Set<Integer> touched;
+            lock.writeLock().lock();
+            try {
+                if (touchedWhileLoading.isEmpty()) {
+                    trimPostings();
+                    ready = true;
+                    touchedWhileLoading = Set.of();
+                    return;
+                }
+                touched = touchedWhileLoading;
+                touchedWhileLoading = new HashSet<>();
+                for (int customerId : touched) {
+                    kill(customerId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            String placeholders = String.join(",", Collections.nCopies(touched.size(), "?"));
+            try (PreparedStatement ps = conn.prepareStatement(LOAD_SQL + " WHERE id IN (" + placeholders + ")")) {
+                int index = 1;
+                for (int customerId : touched) {
+                    ps.setInt(index++, customerId);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    load(rs);
+                }
+            } catch (SQLException e) {
+                // They were dropped above; keep them owed to the next attempt
+                lock.writeLock().lock();
+                try {
+                    touchedWhileLoading.addAll(touched);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * An empty index, open for reads, that is not loaded from the database; for
+     * tests and benchmarks.
+     */
+    public static CustomerSearchIndex detached() {
+        CustomerSearchIndex index = new CustomerSearchIndex();
+        index.ready = true;
+        index.touchedWhileLoading = Set.of();
+        return index;
+    }
+
+    // ==================== ENCODING ====================
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static String pack(String name, String email, String accountId, String idCardNumber) {
+        return normalize(name) + SEPARATOR + normalize(email) + SEPARATOR
+                + normalize(accountId) + SEPARATOR + normalize(idCardNumber);
+    }
+
+    private static long trigramKey(String s, int at) {
+        return ((long) s.charAt(at) << 32) | ((long) s.charAt(at + 1) << 16) | s.charAt(at + 2);
+    }
+
+    /**
+     * Key for the first (up to three) characters of {@code s[start, end)}.
+     */
+    private static long startKey(long kind, String s, int start, int end) {
+        int length = Math.min(3, end - start);
+        long chars = 0;
+        for (int i = 0; i < length; i++) {
+            chars = (chars << 16) | s.charAt(start + i);
+        }
+        return kind | ((long) length << 48) | chars;
+    }
+
+    /**
+     * Key for a whole field value: a 48-bit FNV-1a hash, so collisions are
+     * possible and hits are checked against the stored text.
+     */
+    private static long wholeFieldKey(String s, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        return WHOLE_FIELD | ((hash ^ (hash >>> 48)) & CHARS_MASK);
+    }
+}
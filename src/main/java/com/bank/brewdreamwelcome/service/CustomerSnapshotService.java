@@ -0,0 +1,307 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.Money;
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.repository.AccountRepository;
+import com.bank.brewdreamwelcome.repository.TransactionRepository;
+import com.bank.brewdreamwelcome.repository.TransactionRepository.HistoryCursor;
+import com.bank.brewdreamwelcome.repository.TransactionRepository.HistoryQuery;
+import com.bank.brewdreamwelcome.repository.TransactionRepository.Transaction;
+import io.github.cdimascio.dotenv.Dotenv;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Everything the customer dashboard shows, read in one statement and cached
+ * per customer.
+ *
+ * A snapshot holds the customer's active accounts, their total balance and
+ * types, today's transaction count and the first page of history. It is loaded
+ * with a single UNION ALL query on a primary connection, and stays cached until a
+ * commit touches one of the customer's accounts ({@link AccountCache} reports
+ * every write) or the day rolls over. A load that overlaps such a commit is
+ * returned to its caller but not cached.
+ */
+public final class CustomerSnapshotService {
+
+    public record AccountSummary(String accountNumber, String accountType, String branchName, Money balance) {}
+
+    /**
+     * The customer fields are null when the customer has no active accounts.
+     *
+     * @param accountTypes distinct raw {@code account_type} values
+     * @param next         cursor for the second page of history, or null if there is none
+     */
+    public record Snapshot(int customerId, String customerAccountId, String idCardNumber, String name,
+                           String email, List<AccountSummary> accounts, Money totalBalance,
+                           List<String> accountTypes, long transactionsToday, List<Transaction> history,
+                           HistoryCursor next) {}
+
+    public record Stats(long hits, long misses, long invalidations, long staleLoadsRejected, int entries) {
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    /**
+     * Loads a snapshot from the database; replaced in tests.
+     */
+    interface Loader {
+        Snapshot load(int customerId, int pageSize) throws SQLException;
+    }
+
+    private record Entry(Snapshot snapshot, int pageSize, long expiresAtMillis) {}
+
+    private static CustomerSnapshotService instance;
+
+    private final Loader loader;
+    private final LongSupplier clock;
+    private final ZoneId zone;
+    private final LinkedHashMap<Integer, Entry> entries;
+    private final Map<String, Integer> owners = new HashMap<>();
+    // One token per customer with a load in flight; invalidation removes it
+    private final Map<Integer, Object> loading = new HashMap<>();
+    private long hits;
+    private long misses;
+    private long invalidations;
+    private long staleLoadsRejected;
+
+    CustomerSnapshotService(Loader loader, LongSupplier clock, ZoneId zone, int maxEntries) {
+        this.loader = loader;
+        this.clock = clock;
+        this.zone = zone;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() > maxEntries) {
+                    forgetOwners(eldest.getValue().snapshot());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static synchronized CustomerSnapshotService getInstance() {
+        if (instance == null) {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            int maxEntries = Integer.parseInt(dotenv.get("SNAPSHOT_CACHE_SIZE", "1000"));
+            instance = new CustomerSnapshotService(CustomerSnapshotService::loadSnapshot,
+                    System::currentTimeMillis, ZoneId.systemDefault(), maxEntries);
+            AccountCache.getInstance().addChangeListener(instance.new Invalidator());
+        }
+        return instance;
+    }
+
+    /**
+     * The customer's dashboard snapshot, from the cache if nothing they own has
+     * changed since it was loaded.
+     *
+     * @param pageSize rows in the first page of history
+     */
+    public Snapshot get(int customerId, int pageSize) throws SQLException {
+        Object token = new Object();
+        synchronized (this) {
+            Entry entry = entries.get(customerId);
+            if (entry != null && entry.pageSize() == pageSize && clock.getAsLong() < entry.expiresAtMillis()) {
+                hits++;
+                return entry.snapshot();
+            }
+            misses++;
+            loading.put(customerId, token);
+        }
+        long loadedAt = clock.getAsLong();
+        Snapshot snapshot;
+        try {
+            snapshot = loader.load(customerId, pageSize);
+        } catch (SQLException e) {
+            synchronized (this) {
+                loading.remove(customerId, token);
+            }
+            throw e;
+        }
+        synchronized (this) {
+            if (loading.remove(customerId, token)) {
+                Entry previous = entries.put(customerId, new Entry(snapshot, pageSize, nextMidnight(loadedAt)));
+                if (previous != null) {
+                    forgetOwners(previous.snapshot());
+                }
+                for (AccountSummary account : snapshot.accounts()) {
+                    owners.put(account.accountNumber(), customerId);
+                }
+            } else {
+                staleLoadsRejected++; // a commit touched the customer while we were reading
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Drops a customer's snapshot, and fails any load of it still in flight.
+     */
+    public synchronized void invalidate(int customerId) {
+        Entry entry = entries.remove(customerId);
+        if (entry != null) {
+            forgetOwners(entry.snapshot());
+            invalidations++;
+        }
+        loading.remove(customerId);
+    }
+
+    /**
+     * Drops the snapshots of whoever owns these accounts.
+     */
+    synchronized void invalidateAccounts(Collection<String> accountNumbers) {
+        boolean unknown = false;
+        for (String accountNumber : accountNumbers) {
+            Integer customerId = owners.get(accountNumber);
+            if (customerId != null) {
+                invalidate(customerId);
+            } else {
+                unknown = true;
+            }
+        }
+        if (unknown) {
+            // The owner may be a customer whose first load is in flight
+            loading.clear();
+        }
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, invalidations, staleLoadsRejected, entries.size());
+    }
+
+    private void forgetOwners(Snapshot snapshot) {
+        for (AccountSummary account : snapshot.accounts()) {
+            owners.remove(account.accountNumber(), snapshot.customerId());
+        }
+    }
+
+    private long nextMidnight(long nowMillis) {
+        LocalDate today = Instant.ofEpochMilli(nowMillis).atZone(zone).toLocalDate();
+        return today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private final class Invalidator implements AccountCache.ChangeListener {
+        @Override
+        public void accountsChanged(Collection<String> accountNumbers) {
+            invalidateAccounts(accountNumbers);
+        }
+
+        @Override
+        public void customerChanged(int customerId) {
+            invalidate(customerId);
+        }
+    }
+
+    // ==================== DATABASE ====================
+
+    // Columns only the account rows fill; the history rows fill the next seven
+    private static final int ACCOUNT_COLUMNS = 8;
+    private static final int HISTORY_COLUMNS = 7;
+
+    /**
+     * Accounts ('A'), today's count ('C') and one page of history ('H') in one
+     * statement. The branches share a column layout; each fills its own columns
+     * and leaves the rest NULL. The history branch is the indexed keyset query
+     * from {@link TransactionRepository#customerHistory}, kept as a derived table
+     * so its LIMIT still applies.
+     */
+    static HistoryQuery snapshotQuery(int customerId, int historyRows) {
+        HistoryQuery today = TransactionRepository.customerTodayCount(customerId);
+        HistoryQuery history = TransactionRepository.customerHistory(
+                "transaction_id, transaction_type, from_account, to_account, amount, description, timestamp",
+                "transaction_id", customerId, null, null, historyRows);
+
+        String sql = "(SELECT 'A' AS row_kind, a.account_number AS account_number, a.account_type AS account_type, "
+                + "a.branch_name AS branch_name, " + AccountRepository.TOTAL_BALANCE_SQL + " AS balance, "
+                + "c.account_id AS customer_account_id, c.id_card_number AS id_card_number, c.name AS name, "
+                + "c.email AS email, NULL AS transaction_id, NULL AS transaction_type, NULL AS from_account, "
+                + "NULL AS to_account, NULL AS amount, NULL AS description, NULL AS timestamp, NULL AS today_count "
+                + "FROM accounts a JOIN customers c ON c.id = a.customer_id "
+                + "WHERE a.customer_id = ? AND a.is_active = TRUE)"
+                + " UNION ALL "
+                + "(SELECT 'C', " + nulls(ACCOUNT_COLUMNS + HISTORY_COLUMNS) + ", (" + today.sql() + "))"
+                + " UNION ALL "
+                + "(SELECT 'H', " + nulls(ACCOUNT_COLUMNS) + ", h.transaction_id, h.transaction_type, h.from_account, "
+                + "h.to_account, h.amount, h.description, h.timestamp, NULL FROM (" + history.sql() + ") h)"
+                + " ORDER BY row_kind, timestamp DESC, transaction_id DESC, account_number";
+
+        List<Object> params = new ArrayList<>();
+        params.add(customerId);
+        params.addAll(today.params());
+        params.addAll(history.params());
+        return new HistoryQuery(sql, params);
+    }
+
+    private static String nulls(int count) {
+        return String.join(", ", Collections.nCopies(count, "NULL"));
+    }
+
+    private static Snapshot loadSnapshot(int customerId, int pageSize) throws SQLException {
+        String customerAccountId = null;
+        String idCardNumber = null;
+        String name = null;
+        String email = null;
+        List<AccountSummary> accounts = new ArrayList<>();
+        Set<String> types = new LinkedHashSet<>();
+        Money total = Money.ZERO;
+        long today = 0;
+        List<Transaction> history = new ArrayList<>(pageSize);
+        HistoryCursor next = null;
+
+        // From the primary: a lagging replica's view would stay cached until the next
+        // commit or midnight, since the invalidation that should replace it has already fired
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = snapshotQuery(customerId, pageSize + 1).prepare(conn);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                switch (rs.getString("row_kind")) {
+                    case "A" -> {
+                        AccountSummary account = new AccountSummary(rs.getString("account_number"),
+                                rs.getString("account_type"), rs.getString("branch_name"),
+                                Money.read(rs, "balance"));
+                        accounts.add(account);
+                        types.add(account.accountType());
+                        total = total.plus(account.balance());
+                        customerAccountId = rs.getString("customer_account_id");
+                        idCardNumber = rs.getString("id_card_number");
+                        name = rs.getString("name");
+                        email = rs.getString("email");
+                    }
+                    case "C" -> today = rs.getLong("today_count");
+                    default -> {
+                        // the extra row only tells that a second page exists
+                        if (history.size() == pageSize) {
+                            Transaction last = history.get(pageSize - 1);
+                            next = new HistoryCursor(last.timestamp(), last.id());
+                        } else {
+                            history.add(TransactionRepository.readHistoryRow(rs));
+                        }
+                    }
+                }
+            }
+        }
+        return new Snapshot(customerId, customerAccountId, idCardNumber, name, email,
+                Collections.unmodifiableList(accounts), total, List.copyOf(types), today,
+                Collections.unmodifiableList(history), next);
+    }
+}
@@ -0,0 +1,299 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.Money;
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.repository.AccountRepository;
+import com.bank.brewdreamwelcome.repository.AccountRepository.AccountRecord;
+import com.bank.brewdreamwelcome.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Group-commit writer that coalesces concurrent transfers into shared DB transactions.
+ *
+ * Callers enqueue transfer intents into a bounded queue and get a future. A single
+ * writer thread drains up to {@code maxBatchSize} intents (or whatever arrived within
+ * {@code maxWaitMicros} of the first one), locks all involved accounts once, applies
+ * the intents in arrival order and commits them together. Intents that fail business
+ * rules complete with {@code false} without affecting the rest of the group; if the
+ * shared transaction itself fails, the group is replayed one intent per transaction
+ * so a single bad item cannot sink its neighbours. Every intent carries an
+ * idempotency key, so an intent whose group did commit despite the error (for
+ * example a connection lost during COMMIT) is not posted a second time by the replay.
+ */
+public class GroupCommitLedgerWriter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitLedgerWriter.class);
+
+    record TransferIntent(String fromAcc, String toAcc, Money amount, String description,
+                                  String idempotencyKey, CompletableFuture<Boolean> result) {}
+
+    /**
+     * Point-in-time view of the writer's queue and batching behaviour.
+     */
+    public record Metrics(int queueDepth, int queueCapacity, long groupsCommitted, long intentsProcessed,
+                          int lastBatchSize, int maxBatchSizeSeen, double averageBatchSize) {}
+
+    /**
+     * Applies a group of intents in one transaction; the database in production,
+     * replaced in tests.
+     */
+    interface GroupApplier {
+        /**
+         * Returns whether each intent was accepted, after the transaction committed.
+         *
+         * @throws SQLException if the transaction failed; nothing in the group is applied
+         */
+        Map<TransferIntent, Boolean> apply(List<TransferIntent> group) throws SQLException;
+    }
+
+    private final GroupApplier applier;
+    private final BlockingQueue<TransferIntent> queue;
+    private final int queueCapacity;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final Thread writerThread;
+
+    private final AtomicLong groupsCommitted = new AtomicLong();
+    private final AtomicLong intentsProcessed = new AtomicLong();
+    private volatile int lastBatchSize;
+    private volatile int maxBatchSizeSeen;
+    private volatile boolean running = true;
+
+    public GroupCommitLedgerWriter(AccountRepository accountRepo, TransactionRepository txRepo,
+                                   int queueCapacity, int maxBatchSize, long maxWaitMicros) {
+        this(new DatabaseApplier(accountRepo, txRepo), queueCapacity, maxBatchSize, maxWaitMicros);
+    }
+
+    GroupCommitLedgerWriter(GroupApplier applier, int queueCapacity, int maxBatchSize, long maxWaitMicros) {
+        this.applier = applier;
+        this.queueCapacity = queueCapacity;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        this.writerThread = new Thread(this::runWriter, "ledger-group-commit");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Enqueues a transfer. The future completes with {@code true} once the group
+     * containing it has committed, or {@code false} if the transfer was rejected.
+     * It completes exceptionally if the database failed it even on its own.
+     *
+     * @throws RejectedExecutionException if the queue is full or the writer is closed
+     */
+    public CompletableFuture<Boolean> submit(String fromAcc, String toAcc, double amount) {
+        return submit(fromAcc, toAcc, Money.of(amount), "Transfer", null);
+    }
+
+    /**
+     * Enqueues a transfer whose ledger row carries the given description and
+     * idempotency key, or a generated one when it is null. Two intents with the same key in one group make the group
+     * fail on the unique index; the replay then posts the first and reports the
+     * second as already posted.
+     *
+     * @throws RejectedExecutionException if the queue is full or the writer is closed
+     */
+    public CompletableFuture<Boolean> submit(String fromAcc, String toAcc, Money amount,
+                                             String description, String idempotencyKey) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        if (!running) {
+            throw new RejectedExecutionException("Group commit writer is closed");
+        }
+        String key = TransactionRetryExecutor.IdempotencyKey.of(idempotencyKey).value();
+        if (!queue.offer(new TransferIntent(fromAcc, toAcc, amount, description, key, result))) {
+            throw new RejectedExecutionException("Group commit queue is full (" + queueCapacity + ")");
+        }
+        return result;
+    }
+
+    public Metrics getMetrics() {
+        long groups = groupsCommitted.get();
+        long intents = intentsProcessed.get();
+        return new Metrics(queue.size(), queueCapacity, groups, intents, lastBatchSize, maxBatchSizeSeen,
+                groups == 0 ? 0.0 : (double) intents / groups);
+    }
+
+    private void runWriter() {
+        List<TransferIntent> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                TransferIntent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    TransferIntent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                processGroup(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Group commit writer failed on a batch", e);
+                batch.forEach(intent -> intent.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        // Anything left after an interrupt is failed rather than silently dropped
+        TransferIntent leftover;
+        while ((leftover = queue.poll()) != null) {
+            leftover.result().completeExceptionally(new RejectedExecutionException("Group commit writer stopped"));
+        }
+    }
+
+    private void processGroup(List<TransferIntent> batch) {
+        lastBatchSize = batch.size();
+        maxBatchSizeSeen = Math.max(maxBatchSizeSeen, batch.size());
+        try {
+            Map<TransferIntent, Boolean> outcomes = applier.apply(batch);
+            groupsCommitted.incrementAndGet();
+            intentsProcessed.addAndGet(batch.size());
+            outcomes.forEach((intent, ok) -> intent.result().complete(ok));
+        } catch (SQLException e) {
+            logger.warn("Group of {} transfers failed ({}), replaying individually", batch.size(), e.getMessage());
+            for (TransferIntent intent : batch) {
+                try {
+                    Map<TransferIntent, Boolean> outcome = applier.apply(List.of(intent));
+                    groupsCommitted.incrementAndGet();
+                    intentsProcessed.incrementAndGet();
+                    intent.result().complete(outcome.get(intent));
+                } catch (SQLException single) {
+                    if (TransactionRetryExecutor.classify(single)
+                            == TransactionRetryExecutor.Classification.DUPLICATE_REQUEST) {
+                        intent.result().complete(true);
+                        continue;
+                    }
+                    logger.error("Transfer failed: {} -> {} (Amount: {})",
+                            intent.fromAcc(), intent.toAcc(), intent.amount(), single);
+                    // A database error, not a refusal: false is kept for transfers the ledger rejected
+                    intent.result().completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    /**
+     * Locks every account in the group once, applies the intents in arrival order
+     * and commits their balances and ledger rows together.
+     */
+    private static final class DatabaseApplier implements GroupApplier {
+        private final AccountRepository accountRepo;
+        private final TransactionRepository txRepo;
+        private final AccountCache accountCache = AccountCache.getInstance();
+        private final IntradayMetrics metrics = IntradayMetrics.getInstance();
+
+        DatabaseApplier(AccountRepository accountRepo, TransactionRepository txRepo) {
+            this.accountRepo = accountRepo;
+            this.txRepo = txRepo;
+        }
+
+        @Override
+        public Map<TransferIntent, Boolean> apply(List<TransferIntent> batch) throws SQLException {
+            Set<String> accountNumbers = new HashSet<>();
+            for (TransferIntent intent : batch) {
+                accountNumbers.add(intent.fromAcc());
+                accountNumbers.add(intent.toAcc());
+            }
+
+            try (Connection conn = DatabaseConfig.getConnection()) {
+                conn.setAutoCommit(false);
+                conn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+
+                try {
+                    Map<String, AccountRecord> locked = accountRepo.findAndLockAll(conn, accountNumbers);
+                    Map<String, Money> balances = new HashMap<>();
+                    locked.forEach((accNo, record) -> balances.put(accNo, record.balance()));
+
+                    Map<TransferIntent, Boolean> outcomes = new HashMap<>();
+                    List<TransactionRepository.Transaction> ledger = new ArrayList<>();
+                    Map<String, Money> finalBalances = new TreeMap<>();
+
+                    for (TransferIntent intent : batch) {
+                        AccountRecord from = locked.get(intent.fromAcc());
+                        AccountRecord to = locked.get(intent.toAcc());
+                        boolean valid = intent.amount().isPositive() && from != null && to != null
+                                && !intent.fromAcc().equals(intent.toAcc())
+                                && "ACTIVE".equals(from.status()) && "ACTIVE".equals(to.status())
+                                && !balances.get(intent.fromAcc()).isLessThan(intent.amount());
+                        if (valid) {
+                            Money fromBalance = balances.get(intent.fromAcc()).minus(intent.amount());
+                            Money toBalance = balances.get(intent.toAcc()).plus(intent.amount());
+                            balances.put(intent.fromAcc(), fromBalance);
+                            balances.put(intent.toAcc(), toBalance);
+                            finalBalances.put(intent.fromAcc(), fromBalance);
+                            finalBalances.put(intent.toAcc(), toBalance);
+                            ledger.add(new TransactionRepository.Transaction(null, "TRANSFER",
+                                    intent.fromAcc(), intent.toAcc(), intent.amount(), intent.description(), null,
+                                    intent.idempotencyKey()));
+                        }
+                        outcomes.put(intent, valid);
+                    }
+
+                    for (Map.Entry<String, Money> entry : finalBalances.entrySet()) {
+                        accountRepo.updateBalance(conn, entry.getKey(), entry.getValue());
+                    }
+                    if (!ledger.isEmpty()) {
+                        txRepo.logTransactions(conn, ledger);
+                    }
+
+                    accountCache.commitAndPublish(conn, accountCache.captureWrite(conn, finalBalances.keySet()));
+                    for (TransactionRepository.Transaction tx : ledger) {
+                        metrics.recordTransaction(tx.type(), tx.fromAccount(), tx.toAccount(), tx.amount());
+                    }
+                    logger.debug("Group commit: {} intents, {} accounts", batch.size(), finalBalances.size());
+                    return outcomes;
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting work, lets the writer drain what is already queued and waits for it.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            writerThread.interrupt();
+        }
+    }
+}
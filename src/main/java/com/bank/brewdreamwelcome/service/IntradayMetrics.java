@@ -0,0 +1,418 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.Money;
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.Workload;
+import com.bank.brewdreamwelcome.repository.AccountRepository;
+import com.bank.brewdreamwelcome.repository.TransactionRepository;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process dashboard aggregates kept current by the commits that change them.
+ *
+ * The totals (balance, accounts, active accounts) and today's figures
+ * (transaction count, net flow, per-customer transaction count) are seeded from
+ * the database once, on the reconciler thread so no reader waits for it, then
+ * moved by every committed ledger operation through {@link #recordTransaction}
+ * and the account lifecycle hooks. Each figure is a {@link LongAdder}, so
+ * concurrent commits add to separate cells instead of contending on one word,
+ * and a dashboard read is a sum over a few cells.
+ *
+ * Today's figures are reset at local midnight. Changes made outside these hooks
+ * (cascading deletes, manual SQL, balance projections) are absorbed by a
+ * periodic reconciliation that re-reads the database and corrects any drift. A
+ * correction is only applied when no commit was recorded while the database was
+ * being read; under sustained load it is retried and finally applied anyway. A
+ * commit caught between its COMMIT and its hook can still be counted twice, and
+ * the next reconciliation takes it back out.
+ *
+ * Net flow is money entering minus money leaving the bank: deposits minus
+ * withdrawals. Transfers move money between accounts and do not count.
+ */
+public final class IntradayMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(IntradayMetrics.class);
+
+    /** Database figures a reconciliation compares against; money in {@link Money} units. */
+    public record Totals(long transactionsToday, long netFlowUnitsToday, long balanceUnits,
+                         long accounts, long activeAccounts) {}
+
+    /** A customer's transactions today and the accounts they were counted over. */
+    record CustomerDay(long transactionsToday, Set<String> accounts) {}
+
+    /**
+     * Where seeds and reconciliations read from; the database in production.
+     */
+    interface Source {
+        Totals load() throws SQLException;
+
+        CustomerDay customerToday(int customerId) throws SQLException;
+    }
+
+    private static final int MAX_RECONCILE_DEFERRALS = 5;
+
+    private static IntradayMetrics instance;
+
+    private final Source source;
+    private final LongSupplier clock;
+    private final ZoneId zone;
+
+    private final LongAdder transactionsToday = new LongAdder();
+    private final LongAdder netFlowUnitsToday = new LongAdder();
+    private final LongAdder balanceUnits = new LongAdder();
+    private final LongAdder accounts = new LongAdder();
+    private final LongAdder activeAccounts = new LongAdder();
+    /** Seeded lazily on a customer's first read; cleared at rollover and reconciliation. */
+    private final Map<Integer, LongAdder> customerTransactionsToday = new ConcurrentHashMap<>();
+    /**
+     * Owner of every account of the customers above, read with their seed and
+     * extended as they open accounts, so the commit hooks never query for it.
+     */
+    private final Map<String, Integer> accountOwners = new ConcurrentHashMap<>();
+    /** Bumped by every recorded change, so a reconciliation can tell whether it raced one. */
+    private final LongAdder updates = new LongAdder();
+
+    private volatile long nextMidnightMillis;
+    private volatile boolean seeded;
+    private final AtomicBoolean seedRequested = new AtomicBoolean();
+    private int reconcileDeferrals;
+    private ScheduledExecutorService reconciler;
+
+    IntradayMetrics(Source source, LongSupplier clock, ZoneId zone) {
+        this.source = source;
+        this.clock = clock;
+        this.zone = zone;
+        this.nextMidnightMillis = nextMidnight(clock.getAsLong());
+    }
+
+    public static synchronized IntradayMetrics getInstance() {
+        if (instance == null) {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            long interval = Long.parseLong(dotenv.get("INTRADAY_RECONCILE_SECONDS", "300"));
+            instance = new IntradayMetrics(new DatabaseSource(), System::currentTimeMillis, ZoneId.systemDefault());
+            instance.startReconciler(interval);
+        }
+        return instance;
+    }
+
+    private void startReconciler(long intervalSeconds) {
+        reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "intraday-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.execute(() -> reconcile(true)); // seed at startup, off the caller's thread
+        reconciler.scheduleWithFixedDelay(this::scheduledReconcile, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        // Today's figures also roll over when nothing reads or writes them
+        reconciler.scheduleWithFixedDelay(this::rollIfNewDay, 1, 1, TimeUnit.MINUTES);
+    }
+
+    private void scheduledReconcile() {
+        if (reconcileOnce(false) == Outcome.DEFERRED) {
+            reconciler.schedule(this::scheduledReconcile, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Asks for a reconciliation soon, after changes the hooks cannot size
+     * (e.g. a customer delete cascading to their accounts).
+     */
+    public void requestReconcile() {
+        if (reconciler != null) {
+            reconciler.execute(this::scheduledReconcile);
+        }
+    }
+
+    // ==================== COMMIT HOOKS ====================
+
+    /**
+     * Records one committed transactions row. Call after the commit succeeds,
+     * once per row written.
+     */
+    public void recordTransaction(String type, String fromAccount, String toAccount, Money amount) {
+        rollIfNewDay();
+        transactionsToday.increment();
+        long units = amount.units();
+        switch (type) {
+            case "DEPOSIT" -> {
+                netFlowUnitsToday.add(units);
+                balanceUnits.add(units);
+            }
+            case "WITHDRAW", "WITHDRAWAL" -> {
+                netFlowUnitsToday.add(-units);
+                balanceUnits.add(-units);
+            }
+            case "ADJUSTMENT" -> balanceUnits.add(toAccount != null ? units : -units);
+            default -> {
+                // transfers and account lifecycle rows leave the totals unchanged
+            }
+        }
+        if (!customerTransactionsToday.isEmpty()) {
+            int fromCustomer = ownerOf(fromAccount);
+            int toCustomer = ownerOf(toAccount);
+            incrementCustomer(fromCustomer);
+            if (toCustomer != fromCustomer) {
+                incrementCustomer(toCustomer);
+            }
+        }
+        updates.increment();
+    }
+
+    /**
+     * Owner of an account if its customer has a counter, else -1. Accounts of
+     * customers without one need no owner: there is nothing to increment.
+     */
+    private int ownerOf(String accountNumber) {
+        Integer owner = accountNumber != null ? accountOwners.get(accountNumber) : null;
+        return owner != null ? owner : -1;
+    }
+
+    private void incrementCustomer(int customerId) {
+        if (customerId < 0) {
+            return;
+        }
+        LongAdder counter = customerTransactionsToday.get(customerId);
+        if (counter != null) {
+            counter.increment(); // customers not read yet are seeded from the database instead
+        }
+    }
+
+    /**
+     * A customer opened an account. Call after the commit succeeds, and before
+     * recording any transaction on the new account.
+     */
+    public void recordAccountOpened(int customerId, String accountNumber, Money openingBalance, boolean active) {
+        if (customerTransactionsToday.containsKey(customerId)) {
+            accountOwners.put(accountNumber, customerId);
+        }
+        accounts.increment();
+        if (active) {
+            activeAccounts.increment();
+            balanceUnits.add(openingBalance.units());
+        }
+        updates.increment();
+    }
+
+    /**
+     * An active account was closed. Only zero-balance accounts can be closed.
+     */
+    public void recordAccountClosed() {
+        activeAccounts.decrement();
+        updates.increment();
+    }
+
+    public void recordAccountDeleted(boolean wasActive) {
+        accounts.decrement();
+        if (wasActive) {
+            activeAccounts.decrement();
+        }
+        updates.increment();
+    }
+
+    // ==================== READS ====================
+
+    public long getTransactionsTodayCount() {
+        ensureCurrent();
+        return transactionsToday.sum();
+    }
+
+    public Money getTodayNetFlow() {
+        ensureCurrent();
+        return Money.ofUnits(netFlowUnitsToday.sum());
+    }
+
+    public Money getTotalBalance() {
+        ensureCurrent();
+        return Money.ofUnits(balanceUnits.sum());
+    }
+
+    public long getTotalAccounts() {
+        ensureCurrent();
+        return accounts.sum();
+    }
+
+    public long getTotalActiveAccounts() {
+        ensureCurrent();
+        return activeAccounts.sum();
+    }
+
+    /**
+     * Today's transactions touching any of the customer's accounts. The first
+     * read for a customer each day is answered by the database.
+     */
+    public long getCustomerTransactionsTodayCount(int customerId) throws SQLException {
+        ensureCurrent();
+        LongAdder counter = customerTransactionsToday.get(customerId);
+        if (counter == null) {
+            CustomerDay day = source.customerToday(customerId);
+            for (String account : day.accounts()) {
+                accountOwners.put(account, customerId); // before the counter, so no commit misses it
+            }
+            LongAdder seed = new LongAdder();
+            seed.add(day.transactionsToday());
+            counter = customerTransactionsToday.putIfAbsent(customerId, seed);
+            if (counter == null) {
+                counter = seed;
+            }
+        }
+        return counter.sum();
+    }
+
+    // ==================== ROLLOVER & RECONCILIATION ====================
+
+    /**
+     * Whether the figures have been read from the database at least once. Until
+     * then reads return only what was committed since startup, and dashboards
+     * should say the figures are still being seeded.
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Never blocks: an unseeded read asks the reconciler thread to seed (the
+     * startup seed may have failed) and returns the figures as they are.
+     */
+    private void ensureCurrent() {
+        rollIfNewDay();
+        if (!seeded && reconciler != null && seedRequested.compareAndSet(false, true)) {
+            reconciler.execute(() -> {
+                seedRequested.set(false);
+                reconcile(true);
+            });
+        }
+    }
+
+    private void rollIfNewDay() {
+        if (clock.getAsLong() >= nextMidnightMillis) {
+            rollover();
+        }
+    }
+
+    private synchronized void rollover() {
+        long now = clock.getAsLong();
+        if (now < nextMidnightMillis) {
+            return; // another thread rolled over first
+        }
+        transactionsToday.reset();
+        netFlowUnitsToday.reset();
+        customerTransactionsToday.clear();
+        accountOwners.clear();
+        nextMidnightMillis = nextMidnight(now);
+        logger.info("Intraday metrics rolled over to {}", Instant.ofEpochMilli(now).atZone(zone).toLocalDate());
+    }
+
+    private long nextMidnight(long nowMillis) {
+        LocalDate today = Instant.ofEpochMilli(nowMillis).atZone(zone).toLocalDate();
+        return today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Re-reads every figure from the database and corrects drift.
+     *
+     * @param force apply the correction even if commits were recorded during the read
+     * @return true if the figures were corrected, false if deferred or the read failed
+     */
+    public boolean reconcile(boolean force) {
+        return reconcileOnce(force) == Outcome.APPLIED;
+    }
+
+    private enum Outcome { APPLIED, DEFERRED, FAILED }
+
+    private synchronized Outcome reconcileOnce(boolean force) {
+        rollIfNewDay();
+        long before = updates.sum();
+        Totals db;
+        try {
+            db = source.load();
+        } catch (SQLException e) {
+            logger.warn("Intraday metrics reconciliation failed: {}", e.getMessage());
+            return Outcome.FAILED;
+        }
+        if (updates.sum() != before && !force && ++reconcileDeferrals < MAX_RECONCILE_DEFERRALS) {
+            return Outcome.DEFERRED; // a commit raced the read; its effect may or may not be in db
+        }
+        reconcileDeferrals = 0;
+
+        boolean drifted = correct(transactionsToday, db.transactionsToday());
+        drifted |= correct(netFlowUnitsToday, db.netFlowUnitsToday());
+        drifted |= correct(balanceUnits, db.balanceUnits());
+        drifted |= correct(accounts, db.accounts());
+        drifted |= correct(activeAccounts, db.activeAccounts());
+        customerTransactionsToday.clear();
+        accountOwners.clear();
+        if (drifted && seeded) {
+            logger.info("Intraday metrics reconciled with the database: {}", db);
+        }
+        seeded = true;
+        return Outcome.APPLIED;
+    }
+
+    private static boolean correct(LongAdder counter, long expected) {
+        long delta = expected - counter.sum();
+        counter.add(delta);
+        return delta != 0;
+    }
+
+    // ==================== DATABASE SOURCE ====================
+
+    private static final class DatabaseSource implements Source {
+        private static final String TOTALS_SQL = "SELECT "
+                + "(SELECT COUNT(*) FROM transactions WHERE " + TransactionRepository.TODAY + "), "
+                + "(SELECT COALESCE(SUM(CASE WHEN transaction_type = 'DEPOSIT' THEN amount "
+                + "WHEN transaction_type IN ('WITHDRAW', 'WITHDRAWAL') THEN -amount ELSE 0 END), 0) "
+                + "FROM transactions WHERE " + TransactionRepository.TODAY + "), "
+                + "(SELECT COALESCE(SUM(" + AccountRepository.TOTAL_BALANCE_SQL + "), 0) FROM accounts a WHERE a.is_active = TRUE), "
+                + "(SELECT COUNT(*) FROM accounts), "
+                + "(SELECT COUNT(*) FROM accounts WHERE is_active = TRUE)";
+
+        private final TransactionRepository txRepo = new TransactionRepository();
+
+        @Override
+        public Totals load() throws SQLException {
+            try (Connection conn = DatabaseConfig.getConnection(Workload.SCHEDULER);
+                 PreparedStatement ps = conn.prepareStatement(TOTALS_SQL);
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return new Totals(rs.getLong(1), Money.read(rs, 2).units(), Money.read(rs, 3).units(),
+                        rs.getLong(4), rs.getLong(5));
+            }
+        }
+
+        @Override
+        public CustomerDay customerToday(int customerId) throws SQLException {
+            try (Connection conn = DatabaseConfig.getConnection()) {
+                Set<String> accountNumbers = new HashSet<>();
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "SELECT account_number FROM accounts WHERE customer_id = ?")) {
+                    ps.setInt(1, customerId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            accountNumbers.add(rs.getString(1));
+                        }
+                    }
+                }
+                return new CustomerDay(txRepo.countTodayByCustomer(conn, customerId), accountNumbers);
+            }
+        }
+    }
+}
@@ -1,27 +1,321 @@
 package com.bank.brewdreamwelcome.service;
 
+import com.bank.brewdreamwelcome.Money;
 import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.Workload;
 import com.bank.brewdreamwelcome.repository.AccountRepository;
+import com.bank.brewdreamwelcome.repository.TransactionRepository;
+import io.github.cdimascio.dotenv.Dotenv;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Production-ready Bank Service with ACID transaction guarantees.
  */
 public class ModernBankService {
     private static final Logger logger = LoggerFactory.getLogger(ModernBankService.class);
+
+    /**
+     * How a direct (non group-commit) transfer protects itself from concurrent writers.
+     */
+    public enum ConcurrencyMode {
+        /** SERIALIZABLE transaction holding FOR UPDATE locks on both accounts. */
+        PESSIMISTIC,
+        /** Unlocked reads, version-checked writes, jittered retry on conflict. */
+        OPTIMISTIC
+    }
+
+    /**
+     * Outcome counters for optimistic transfers.
+     */
+    public record OptimisticStats(long commits, long conflicts, long exhausted) {}
+
+    private static final long BASE_BACKOFF_MICROS = 500;
+    private static final long MAX_BACKOFF_MICROS = 50_000;
+
     private final AccountRepository accountRepo;
+    private final TransactionRepository txRepo = new TransactionRepository();
+    private final AccountCache accountCache = AccountCache.getInstance();
+    private final TransactionRetryExecutor retryExecutor = TransactionRetryExecutor.getInstance();
+    private final IntradayMetrics metrics = IntradayMetrics.getInstance();
+    private volatile GroupCommitLedgerWriter groupCommitWriter;
+    private volatile ConcurrencyMode defaultMode;
+    private final int optimisticMaxAttempts;
+
+    private final AtomicLong optimisticCommits = new AtomicLong();
+    private final AtomicLong optimisticConflicts = new AtomicLong();
+    private final AtomicLong optimisticExhausted = new AtomicLong();
 
+    /**
+     * Uses the deployment's TRANSFER_CONCURRENCY_MODE (PESSIMISTIC by default).
+     */
     public ModernBankService(AccountRepository accountRepo) {
+        this(accountRepo, ConcurrencyMode.valueOf(
+                Dotenv.configure().ignoreIfMissing().load()
+                        .get("TRANSFER_CONCURRENCY_MODE", "PESSIMISTIC").trim().toUpperCase(Locale.ROOT)));
+    }
+
+    public ModernBankService(AccountRepository accountRepo, ConcurrencyMode defaultMode) {
         this.accountRepo = accountRepo;
+        this.defaultMode = defaultMode;
+        this.optimisticMaxAttempts = Integer.parseInt(
+                Dotenv.configure().ignoreIfMissing().load().get("OPTIMISTIC_MAX_ATTEMPTS", "8"));
+    }
+
+    public ConcurrencyMode getDefaultConcurrencyMode() {
+        return defaultMode;
+    }
+
+    public void setDefaultConcurrencyMode(ConcurrencyMode mode) {
+        this.defaultMode = mode;
+    }
+
+    public OptimisticStats getOptimisticStats() {
+        return new OptimisticStats(optimisticCommits.get(), optimisticConflicts.get(), optimisticExhausted.get());
+    }
+
+    /**
+     * Switches transfers to group-commit mode: concurrent transfers are queued and
+     * committed together by a single writer thread instead of one commit each.
+     *
+     * @param queueCapacity maximum number of queued transfers before callers are rejected
+     * @param maxBatchSize  maximum number of transfers committed in one transaction
+     * @param maxWaitMicros how long the writer waits for more transfers after the first one
+     */
+    public synchronized void enableGroupCommit(int queueCapacity, int maxBatchSize, long maxWaitMicros) {
+        if (groupCommitWriter == null) {
+            groupCommitWriter = new GroupCommitLedgerWriter(accountRepo, txRepo, queueCapacity, maxBatchSize,
+                    maxWaitMicros);
+            logger.info("Group commit enabled (queue={}, batch={}, wait={}us)", queueCapacity, maxBatchSize,
+                    maxWaitMicros);
+        }
+    }
+
+    /**
+     * Stops group-commit mode after draining the queued transfers.
+     */
+    public synchronized void disableGroupCommit() {
+        if (groupCommitWriter != null) {
+            groupCommitWriter.close();
+            groupCommitWriter = null;
+        }
+    }
+
+    /**
+     * Queue depth and batch size metrics, or null when group commit is off.
+     */
+    public GroupCommitLedgerWriter.Metrics getGroupCommitMetrics() {
+        GroupCommitLedgerWriter writer = groupCommitWriter;
+        return writer != null ? writer.getMetrics() : null;
+    }
+
+    /**
+     * Submits a transfer without waiting for its commit. In direct mode the
+     * transfer runs on the calling thread and the future is already complete.
+     */
+    public CompletableFuture<Boolean> transferFundsAsync(String fromAcc, String toAcc, double amount) {
+        return transferFundsAsync(fromAcc, toAcc, amount, "Transfer", null);
+    }
+
+    /**
+     * Submits a transfer without waiting for its commit, carrying a description and
+     * idempotency key through to the ledger row.
+     */
+    public CompletableFuture<Boolean> transferFundsAsync(String fromAcc, String toAcc, double amount,
+                                                         String description, String idempotencyKey) {
+        GroupCommitLedgerWriter writer = groupCommitWriter;
+        if (writer == null) {
+            return CompletableFuture.completedFuture(
+                    transferFunds(fromAcc, toAcc, amount, description, defaultMode, idempotencyKey));
+        }
+        if (amount <= 0 || fromAcc.equals(toAcc)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        try {
+            TransactionRetryExecutor.IdempotencyKey key = TransactionRetryExecutor.IdempotencyKey.of(idempotencyKey);
+            if (retryExecutor.alreadyPosted(key)) {
+                return CompletableFuture.completedFuture(true);
+            }
+            return writer.submit(fromAcc, toAcc, Money.of(amount), description, key.value());
+        } catch (SQLException e) {
+            logger.error("DB Error checking idempotency key", e);
+            return CompletableFuture.completedFuture(false);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Transfer rejected by group commit writer: {}", e.getMessage());
+            return CompletableFuture.completedFuture(false);
+        }
     }
 
     public boolean transferFunds(String fromAcc, String toAcc, double amount) {
+        return transferFunds(fromAcc, toAcc, amount, "Transfer", null);
+    }
+
+    /**
+     * Transfers through the group-commit writer when it is enabled, otherwise
+     * directly in the default concurrency mode.
+     */
+    public boolean transferFunds(String fromAcc, String toAcc, double amount, String description,
+                                 String idempotencyKey) {
+        if (amount <= 0) return false;
+
+        if (groupCommitWriter != null) {
+            try {
+                return transferFundsAsync(fromAcc, toAcc, amount, description, idempotencyKey).join();
+            } catch (CompletionException e) {
+                logger.error("Group commit transfer failed", e.getCause());
+                return false;
+            }
+        }
+
+        return transferFunds(fromAcc, toAcc, amount, description, defaultMode, idempotencyKey);
+    }
+
+    /**
+     * Runs one transfer directly (bypassing group commit) in the given concurrency mode.
+     */
+    public boolean transferFunds(String fromAcc, String toAcc, double amount, ConcurrencyMode mode) {
+        return transferFunds(fromAcc, toAcc, amount, "Transfer", mode, null);
+    }
+
+    /**
+     * Runs one transfer directly in the given concurrency mode. Deadlocks and lock
+     * wait timeouts are retried; calls repeated with the same idempotency key post
+     * at most once.
+     */
+    public boolean transferFunds(String fromAcc, String toAcc, double amount, String description,
+                                 ConcurrencyMode mode, String idempotencyKey) {
+        if (amount <= 0 || fromAcc.equals(toAcc)) return false;
+
+        try {
+            return transferDirect(fromAcc, toAcc, Money.of(amount), description, mode, idempotencyKey);
+        } catch (SQLException e) {
+            logger.error("DB Error during transfer", e);
+            return false;
+        }
+    }
+
+    /**
+     * Same as {@link #transferFunds(String, String, double, String, String)}, but a
+     * database error, or a group-commit writer that has stopped, is thrown rather
+     * than returned as false.
+     */
+    public boolean transferFundsOrThrow(String fromAcc, String toAcc, double amount, String description,
+                                        String idempotencyKey) throws SQLException {
+        if (amount <= 0 || fromAcc.equals(toAcc)) return false;
+
+        GroupCommitLedgerWriter writer = groupCommitWriter;
+        if (writer == null) {
+            return transferDirect(fromAcc, toAcc, Money.of(amount), description, defaultMode, idempotencyKey);
+        }
+        TransactionRetryExecutor.IdempotencyKey key = TransactionRetryExecutor.IdempotencyKey.of(idempotencyKey);
+        if (retryExecutor.alreadyPosted(key)) {
+            return true;
+        }
+        try {
+            return writer.submit(fromAcc, toAcc, Money.of(amount), description, key.value()).join();
+        } catch (RejectedExecutionException e) {
+            throw new SQLTransientException("Group commit writer is not accepting transfers", e);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (e.getCause() instanceof RejectedExecutionException) {
+                throw new SQLTransientException("Group commit writer stopped", e.getCause());
+            }
+            throw e;
+        }
+    }
+
+    private boolean transferDirect(String fromAcc, String toAcc, Money value, String description,
+                                   ConcurrencyMode mode, String idempotencyKey) throws SQLException {
+        return retryExecutor.execute("Transfer", TransactionRetryExecutor.IdempotencyKey.of(idempotencyKey),
+                key -> mode == ConcurrencyMode.OPTIMISTIC
+                        ? transferOptimistic(fromAcc, toAcc, value, description, key)
+                        : transferPessimistic(fromAcc, toAcc, value, description, key));
+    }
+
+    /**
+     * Credits an active account. Takes the same locks as the credited side of a
+     * pessimistic transfer.
+     */
+    public boolean depositFunds(String accNo, double amount, String description, String idempotencyKey) {
         if (amount <= 0) return false;
 
+        try {
+            return retryExecutor.execute("Deposit", TransactionRetryExecutor.IdempotencyKey.of(idempotencyKey),
+                    key -> postSingle(accNo, Money.of(amount), description, key, true));
+        } catch (SQLException e) {
+            logger.error("DB Error during deposit", e);
+            return false;
+        }
+    }
+
+    /**
+     * Debits an active account if it has enough funds.
+     */
+    public boolean withdrawFunds(String accNo, double amount, String description, String idempotencyKey) {
+        if (amount <= 0) return false;
+
+        try {
+            return retryExecutor.execute("Withdrawal", TransactionRetryExecutor.IdempotencyKey.of(idempotencyKey),
+                    key -> postSingle(accNo, Money.of(amount), description, key, false));
+        } catch (SQLException e) {
+            logger.error("DB Error during withdrawal", e);
+            return false;
+        }
+    }
+
+    private boolean postSingle(String accNo, Money amount, String description, String idempotencyKey,
+                               boolean isCredit) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            conn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+
+            try {
+                var account = isCredit ? accountRepo.findForCredit(conn, accNo)
+                        : accountRepo.findAndLockByAccountNumber(conn, accNo);
+                if (account.isEmpty() || !"ACTIVE".equals(account.get().status())
+                        || (!isCredit && account.get().balance().isLessThan(amount))) {
+                    conn.rollback();
+                    return false;
+                }
+
+                if (isCredit) {
+                    if (!accountRepo.credit(conn, accNo, amount)) {
+                        conn.rollback();
+                        return false;
+                    }
+                    txRepo.logTransaction(conn, "DEPOSIT", null, accNo, amount, description, idempotencyKey);
+                } else {
+                    accountRepo.debit(conn, accNo, amount);
+                    txRepo.logTransaction(conn, "WITHDRAWAL", accNo, null, amount, description, idempotencyKey);
+                }
+
+                accountCache.commitAndPublish(conn, accountCache.captureWrite(conn, accNo));
+                metrics.recordTransaction(isCredit ? "DEPOSIT" : "WITHDRAWAL", isCredit ? null : accNo,
+                        isCredit ? accNo : null, amount);
+                logger.info("{} successful: {} (Amount: {})", isCredit ? "Deposit" : "Withdrawal", accNo, amount);
+                return true;
+            } catch (Exception e) {
+                conn.rollback(); // the retry executor decides whether to try again
+                throw e;
+            }
+        }
+    }
+
+    private boolean transferPessimistic(String fromAcc, String toAcc, Money amount, String description,
+                                        String idempotencyKey) throws SQLException {
         try (Connection conn = DatabaseConfig.getConnection()) {
             conn.setAutoCommit(false); // Begin Transaction
             conn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
@@ -31,8 +325,11 @@ public class ModernBankService {
                 String first = fromAcc.compareTo(toAcc) < 0 ? fromAcc : toAcc;
                 String second = first.equals(fromAcc) ? toAcc : fromAcc;
 
-                var acc1 = accountRepo.findAndLockByAccountNumber(conn, first);
-                var acc2 = accountRepo.findAndLockByAccountNumber(conn, second);
+                //    (the credited side may take a weaker lock on striped accounts)
+                var acc1 = first.equals(fromAcc) ? accountRepo.findAndLockByAccountNumber(conn, first)
+                        : accountRepo.findForCredit(conn, first);
+                var acc2 = second.equals(fromAcc) ? accountRepo.findAndLockByAccountNumber(conn, second)
+                        : accountRepo.findForCredit(conn, second);
 
                 if (acc1.isEmpty() || acc2.isEmpty()) {
                     conn.rollback();
@@ -41,28 +338,144 @@ public class ModernBankService {
 
                 // 2. Validate Business Rules
                 AccountRepository.AccountRecord from = fromAcc.equals(first) ? acc1.get() : acc2.get();
-                AccountRepository.AccountRecord to = toAcc.equals(first) ? acc1.get() : acc2.get();
+                AccountRepository.AccountRecord to = fromAcc.equals(first) ? acc2.get() : acc1.get();
 
-                if (!"ACTIVE".equals(from.status()) || from.balance() < amount) {
+                if (!"ACTIVE".equals(from.status()) || !"ACTIVE".equals(to.status())
+                        || from.balance().isLessThan(amount)) {
                     conn.rollback();
                     return false;
                 }
 
                 // 3. Perform atomic updates
-                accountRepo.updateBalance(conn, fromAcc, from.balance() - amount);
-                accountRepo.updateBalance(conn, toAcc, to.balance() + amount);
+                accountRepo.debit(conn, fromAcc, amount);
+                if (!accountRepo.credit(conn, toAcc, amount)) {
+                    conn.rollback();
+                    return false;
+                }
+                txRepo.logTransaction(conn, "TRANSFER", fromAcc, toAcc, amount, description, idempotencyKey);
 
-                conn.commit(); // Finalize
+                accountCache.commitAndPublish(conn, accountCache.captureWrite(conn, fromAcc, toAcc)); // Finalize
+                metrics.recordTransaction("TRANSFER", fromAcc, toAcc, amount);
                 logger.info("Transfer successful: {} -> {} (Amount: {})", fromAcc, toAcc, amount);
                 return true;
 
             } catch (Exception e) {
-                conn.rollback();
-                logger.error("Transfer failed, rolling back", e);
+                conn.rollback(); // the retry executor decides whether to try again
                 throw e;
             }
+        }
+    }
+
+    private boolean transferOptimistic(String fromAcc, String toAcc, Money amount, String description,
+                                       String idempotencyKey) throws SQLException {
+        for (int attempt = 1; attempt <= optimisticMaxAttempts; attempt++) {
+            try (Connection conn = DatabaseConfig.getConnection()) {
+                conn.setAutoCommit(false);
+                conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+
+                try {
+                    // 1. Read both rows without taking locks
+                    var fromRow = accountRepo.findWithVersion(conn, fromAcc);
+                    var toRow = accountRepo.findWithVersion(conn, toAcc);
+
+                    if (fromRow.isEmpty() || toRow.isEmpty()) {
+                        conn.rollback();
+                        return false;
+                    }
+
+                    AccountRepository.VersionedAccountRecord from = fromRow.get();
+
+                    if (!"ACTIVE".equals(from.status()) || !"ACTIVE".equals(toRow.get().status())
+                            || from.balance().isLessThan(amount)) {
+                        conn.rollback();
+                        return false;
+                    }
+
+                    // 2. Version-checked debit and a plain credit (credits commute), in
+                    //    account number order so two transfers cannot deadlock on each other
+                    boolean applied = fromAcc.compareTo(toAcc) < 0
+                            ? debit(conn, from, amount) && accountRepo.credit(conn, toAcc, amount)
+                            : accountRepo.credit(conn, toAcc, amount) && debit(conn, from, amount);
+
+                    if (applied) {
+                        txRepo.logTransaction(conn, "TRANSFER", fromAcc, toAcc, amount, description, idempotencyKey);
+                        accountCache.commitAndPublish(conn, accountCache.captureWrite(conn, fromAcc, toAcc));
+                        metrics.recordTransaction("TRANSFER", fromAcc, toAcc, amount);
+                        optimisticCommits.incrementAndGet();
+                        logger.info("Transfer successful: {} -> {} (Amount: {}, attempt {})",
+                                fromAcc, toAcc, amount, attempt);
+                        return true;
+                    }
+
+                    // Someone else changed one of the rows since we read it
+                    conn.rollback();
+                    optimisticConflicts.incrementAndGet();
+                } catch (Exception e) {
+                    conn.rollback(); // the retry executor decides whether to try again
+                    throw e;
+                }
+            }
+
+            if (!backOff(attempt)) {
+                return false;
+            }
+        }
+
+        optimisticExhausted.incrementAndGet();
+        logger.warn("Transfer gave up after {} version conflicts: {} -> {} (Amount: {})",
+                optimisticMaxAttempts, fromAcc, toAcc, amount);
+        return false;
+    }
+
+    private boolean debit(Connection conn, AccountRepository.VersionedAccountRecord from, Money amount)
+            throws SQLException {
+        return accountRepo.compareAndDebit(conn, from.number(), amount, from.version());
+    }
+
+    /**
+     * Folds the stripe rows of every striped account back into its base balance,
+     * one short transaction per account.
+     *
+     * @return the number of accounts that had stripe credits to move
+     */
+    public int consolidateStripedAccounts() {
+        int consolidated = 0;
+        try (Connection conn = DatabaseConfig.getConnection(Workload.SCHEDULER)) {
+            for (String accNo : accountRepo.findStripedAccounts(conn)) {
+                conn.setAutoCommit(false);
+                try {
+                    Money moved = accountRepo.consolidateStripes(conn, accNo);
+                    conn.commit();
+                    if (!moved.isZero()) {
+                        accountCache.invalidateAccount(accNo);
+                        consolidated++;
+                    }
+                } catch (SQLException e) {
+                    conn.rollback();
+                    logger.error("Stripe consolidation failed for {}", accNo, e);
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
         } catch (SQLException e) {
-            logger.error("DB Error during transfer", e);
+            logger.error("DB Error during stripe consolidation", e);
+        }
+        return consolidated;
+    }
+
+    /**
+     * Sleeps a random time up to an exponentially growing cap ("full jitter"), so
+     * transfers that collided once do not collide again in lockstep.
+     *
+     * @return false if the thread was interrupted
+     */
+    private static boolean backOff(int attempt) {
+        long capMicros = Math.min(MAX_BACKOFF_MICROS, BASE_BACKOFF_MICROS << Math.min(attempt - 1, 20));
+        try {
+            TimeUnit.MICROSECONDS.sleep(ThreadLocalRandom.current().nextLong(capMicros + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             return false;
         }
     }
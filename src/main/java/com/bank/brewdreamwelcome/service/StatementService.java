@@ -4,14 +4,24 @@ import com.lowagie.text.*;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.Workload;
 import com.bank.brewdreamwelcome.repository.TransactionRepository;
+import com.bank.brewdreamwelcome.repository.TransactionRepository.HistoryCursor;
+import com.bank.brewdreamwelcome.repository.TransactionRepository.Transaction;
 import java.io.FileOutputStream;
-import java.util.List;
+import java.sql.Connection;
+import java.time.format.DateTimeFormatter;
 
 /**
  * Enterprise reporting service for generating Bank Statements.
  */
 public class StatementService {
+
+    private static final int PAGE_SIZE = 500;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm");
+
+    private final TransactionRepository txRepo = new TransactionRepository();
     
     public void generateStatement(int customerId, String accNo, String filePath) throws Exception {
         Document document = new Document(PageSize.A4);
@@ -39,13 +49,28 @@ public class StatementService {
             table.addCell(cell);
         }
 
-        // Dummy Data (In production, this comes from TransactionRepository)
-        // List<Transaction> txs = txRepo.findByAccount(accNo);
-        // Add logic to iterate and add rows...
-
+        // Rows are streamed a page at a time; each page is written out before the
+        // next is read, so a long history never sits in memory as a whole.
+        table.setHeaderRows(1);
+        table.setComplete(false);
+        try (Connection conn = DatabaseConfig.getReadConnection(Workload.REPORTING, accNo)) {
+            HistoryCursor cursor = null;
+            do {
+                cursor = txRepo.streamByAccount(conn, accNo, cursor, PAGE_SIZE, tx -> addRow(table, tx));
+                document.add(table);
+            } while (cursor != null);
+        }
+        table.setComplete(true);
         document.add(table);
         document.close();
         
         AuditService.log("GENERATE_STATEMENT", "PDF Generated for Account: " + accNo);
     }
+
+    private static void addRow(PdfPTable table, Transaction tx) {
+        table.addCell(tx.timestamp() != null ? tx.timestamp().format(DATE_FORMAT) : "");
+        table.addCell(tx.description() != null ? tx.description() : "");
+        table.addCell(tx.type());
+        table.addCell(tx.amount().format());
+    }
 }
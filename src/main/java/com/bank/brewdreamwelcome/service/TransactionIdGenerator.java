@@ -0,0 +1,34 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.repository.HiLoSequence;
+
+import java.sql.SQLException;
+
+/**
+ * Generates transaction IDs of the form {@code T-<epoch millis><sequence>}.
+ *
+ * The millisecond prefix keeps IDs time-ordered so new rows land on the right
+ * edge of the transaction_id index; the hi/lo sequence suffix keeps them unique
+ * across JVMs without reading the transactions table.
+ */
+public final class TransactionIdGenerator {
+
+    private static final int BLOCK_SIZE = 100;
+    private static final HiLoSequence SEQUENCE = new HiLoSequence("transactions", BLOCK_SIZE, 1);
+
+    private static long lastMillis;
+
+    private TransactionIdGenerator() {
+    }
+
+    public static synchronized String nextId() throws SQLException {
+        long sequence = SEQUENCE.next();
+        // Never let the prefix go backwards if the wall clock is adjusted
+        lastMillis = Math.max(lastMillis, System.currentTimeMillis());
+        return format(lastMillis, sequence);
+    }
+
+    static String format(long epochMillis, long sequence) {
+        return String.format("T-%013d%010d", epochMillis, sequence % 10_000_000_000L);
+    }
+}
@@ -0,0 +1,249 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.Workload;
+import com.bank.brewdreamwelcome.repository.TransactionRepository;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs money-moving transactions with retry on transient lock failures.
+ *
+ * Each attempt is a complete transaction (connection, statements, commit) that
+ * writes its idempotency key onto the ledger row it inserts. Deadlocks (1213),
+ * lock wait timeouts (1205) and serialization failures roll the whole attempt
+ * back, so they are retried with bounded, jittered exponential backoff. A lost
+ * connection leaves the commit outcome unknown; the key is looked up first and
+ * the attempt is only repeated if nothing was posted. A unique-index violation on
+ * the key means the request was already posted, which counts as success.
+ */
+public final class TransactionRetryExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionRetryExecutor.class);
+
+    private static final int MAX_KEY_LENGTH = 64;
+
+    /**
+     * Why an attempt failed, as far as retrying is concerned.
+     */
+    public enum Classification {
+        DEADLOCK,
+        LOCK_WAIT_TIMEOUT,
+        SERIALIZATION_FAILURE,
+        CONNECTION_LOST,
+        DUPLICATE_REQUEST,
+        NON_RETRYABLE
+    }
+
+    /**
+     * Idempotency key for one logical request. Keys supplied by the client are
+     * checked before the first attempt, so a repeated click returns the original
+     * outcome; generated keys only protect the retries of this call.
+     */
+    public record IdempotencyKey(String value, boolean clientSupplied) {
+
+        public static IdempotencyKey of(String clientKey) {
+            if (clientKey == null || clientKey.isBlank()) {
+                return new IdempotencyKey(UUID.randomUUID().toString(), false);
+            }
+            if (clientKey.length() > MAX_KEY_LENGTH) {
+                throw new IllegalArgumentException("Idempotency key longer than " + MAX_KEY_LENGTH + " characters");
+            }
+            return new IdempotencyKey(clientKey, true);
+        }
+    }
+
+    /**
+     * One attempt of a money movement. Must roll back and rethrow on SQLException,
+     * and insert {@code idempotencyKey} on exactly one ledger row.
+     */
+    @FunctionalInterface
+    public interface MoneyMovement {
+        boolean run(String idempotencyKey) throws SQLException;
+    }
+
+    /**
+     * Reports whether a ledger row with the given key has been committed.
+     */
+    @FunctionalInterface
+    public interface PostedLookup {
+        boolean isPosted(String idempotencyKey) throws SQLException;
+    }
+
+    public record Stats(long retries, long replays, long exhausted) {}
+
+    private static TransactionRetryExecutor instance;
+
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final PostedLookup postedLookup;
+
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong replays = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    TransactionRetryExecutor(int maxAttempts, long baseBackoffMillis, long maxBackoffMillis,
+                             PostedLookup postedLookup) {
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.postedLookup = postedLookup;
+    }
+
+    public static synchronized TransactionRetryExecutor getInstance() {
+        if (instance == null) {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            TransactionRepository txRepo = new TransactionRepository();
+            instance = new TransactionRetryExecutor(
+                    Integer.parseInt(dotenv.get("DB_RETRY_MAX_ATTEMPTS", "5")),
+                    Long.parseLong(dotenv.get("DB_RETRY_BASE_BACKOFF_MS", "20")),
+                    Long.parseLong(dotenv.get("DB_RETRY_MAX_BACKOFF_MS", "1000")),
+                    key -> {
+                        // Callers may already hold an OLTP connection
+                        try (Connection conn = DatabaseConfig.getConnection(Workload.LOOKUP)) {
+                            return txRepo.existsByIdempotencyKey(conn, key);
+                        }
+                    });
+        }
+        return instance;
+    }
+
+    /**
+     * Runs {@code work} until it completes, fails for a non-retryable reason or
+     * runs out of attempts.
+     *
+     * @return the work's result, or true if the key shows the request was already posted
+     * @throws SQLException the last failure when the request could not be completed
+     */
+    public boolean execute(String operation, IdempotencyKey key, MoneyMovement work) throws SQLException {
+        if (key.clientSupplied() && postedLookup.isPosted(key.value())) {
+            replays.incrementAndGet();
+            logger.info("{} with key {} was already posted", operation, key.value());
+            return true;
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.run(key.value());
+            } catch (SQLException e) {
+                Classification classification = classify(e);
+                if (classification == Classification.DUPLICATE_REQUEST) {
+                    replays.incrementAndGet();
+                    logger.info("{} with key {} was already posted", operation, key.value());
+                    return true;
+                }
+                if (classification == Classification.NON_RETRYABLE) {
+                    throw e;
+                }
+                if (classification == Classification.CONNECTION_LOST && isPostedQuietly(key)) {
+                    // The commit went through before the connection dropped
+                    replays.incrementAndGet();
+                    return true;
+                }
+                if (attempt >= maxAttempts) {
+                    exhausted.incrementAndGet();
+                    logger.error("{} failed after {} attempts ({})", operation, attempt, classification);
+                    throw e;
+                }
+                retries.incrementAndGet();
+                logger.warn("{} hit {} on attempt {}/{}, retrying", operation, classification, attempt, maxAttempts);
+                if (!backOff(attempt)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports whether a client-supplied key has already been posted. Generated keys
+     * are new by construction, so they are never looked up.
+     */
+    public boolean alreadyPosted(IdempotencyKey key) throws SQLException {
+        if (key.clientSupplied() && postedLookup.isPosted(key.value())) {
+            replays.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    public Stats getStats() {
+        return new Stats(retries.get(), replays.get(), exhausted.get());
+    }
+
+    /**
+     * Classifies a failure by MySQL error code and SQLState, looking through
+     * chained and nested exceptions for the root cause.
+     */
+    public static Classification classify(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (!(t instanceof SQLException sql)) {
+                continue;
+            }
+            for (SQLException current = sql; current != null; current = current.getNextException()) {
+                Classification classification = classifyOne(current);
+                if (classification != Classification.NON_RETRYABLE) {
+                    return classification;
+                }
+            }
+        }
+        return Classification.NON_RETRYABLE;
+    }
+
+    private static Classification classifyOne(SQLException e) {
+        String state = e.getSQLState() != null ? e.getSQLState() : "";
+        if (e.getErrorCode() == 1213) {
+            return Classification.DEADLOCK;
+        }
+        if (e.getErrorCode() == 1205) {
+            return Classification.LOCK_WAIT_TIMEOUT;
+        }
+        if (state.startsWith("40")) {
+            return Classification.SERIALIZATION_FAILURE;
+        }
+        if (state.startsWith("08") || e instanceof SQLTransientConnectionException
+                || e instanceof SQLRecoverableException) {
+            return Classification.CONNECTION_LOST;
+        }
+        if ((e instanceof SQLIntegrityConstraintViolationException || state.startsWith("23"))
+                && e.getMessage() != null && e.getMessage().contains("idempotency_key")) {
+            return Classification.DUPLICATE_REQUEST;
+        }
+        return Classification.NON_RETRYABLE;
+    }
+
+    private boolean isPostedQuietly(IdempotencyKey key) {
+        try {
+            return postedLookup.isPosted(key.value());
+        } catch (SQLException e) {
+            logger.warn("Could not check idempotency key {}: {}", key.value(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Sleeps between half and all of min(max, base * 2^(attempt-1)).
+     *
+     * @return false if the thread was interrupted
+     */
+    private boolean backOff(int attempt) {
+        long cap = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        long sleep = cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+        try {
+            Thread.sleep(sleep);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,613 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.config.Workload;
+import com.bank.brewdreamwelcome.util.IntList;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory inverted index over the free text of transactions: description,
+ * note and tag.
+ *
+ * Every transaction is a document with a dense ordinal, appended in ID order,
+ * so ordinals also run in time order. Each word (a run of letters and digits,
+ * lower-cased) posts the ordinal to that word's {@link IntList}; each account
+ * keeps one more list of the documents it appears on. A search intersects the
+ * lists of its words by walking the shortest one backwards from the end of the
+ * date range and probing the others, so it returns the newest matches first
+ * and stops as soon as it has {@code limit} of them.
+ *
+ * The index is built by streaming the transactions table in the background
+ * and kept current by reading the rows added since, after every commit
+ * {@link AccountCache} reports and every {@code TX_SEARCH_POLL_SECONDS}.
+ * Because IDs are taken at insert but become visible at commit, a skipped ID
+ * is re-read for a minute before it is taken as rolled back. {@link #rebuild}
+ * builds a fresh index from the table while searches keep using the old one.
+ * Builds run on the scheduler pool, which has no query timeout, and a failed
+ * first build is retried with backoff. Until one finishes, {@link #search}
+ * returns null and callers fall back to SQL.
+ */
+public final class TransactionSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionSearchIndex.class);
+
+    public record Stats(int documents, int words, long lastId, int pendingGaps) {}
+
+    static final int MIN_WORD_LENGTH = 2;
+    static final int MAX_WORD_LENGTH = 32;
+    static final long GAP_WAIT_MILLIS = 60_000;
+    private static final int MAX_PENDING_GAPS = 10_000;
+    private static final int TAIL_BATCH = 5000;
+    private static final int NO_ACCOUNT = -1;
+    private static final long FIRST_RETRY_SECONDS = 5;
+    private static final long MAX_RETRY_SECONDS = 300;
+
+    private static final String LOAD_SQL = "SELECT id, from_account, to_account, timestamp, description, "
+            + "transaction_note, transaction_tag FROM transactions";
+
+    private static TransactionSearchIndex instance;
+
+    private final LongSupplier clock;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Held by the one thread writing at a time (tail or rebuild); mutations also take the write lock
+    private final Object writer = new Object();
+    private Segment segment = new Segment(); // guarded by lock
+    private boolean ready; // guarded by lock
+
+    private ScheduledExecutorService tailer;
+    private final AtomicBoolean tailRequested = new AtomicBoolean();
+
+    private TransactionSearchIndex(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public static synchronized TransactionSearchIndex getInstance() {
+        if (instance == null) {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            long pollSeconds = Long.parseLong(dotenv.get("TX_SEARCH_POLL_SECONDS", "5"));
+            instance = new TransactionSearchIndex(System::currentTimeMillis);
+            instance.startTailer(pollSeconds);
+            AccountCache.getInstance().addChangeListener(instance.new TailTrigger());
+        }
+        return instance;
+    }
+
+    /**
+     * An empty index, open for reads, that is not loaded from the database; for
+     * tests and benchmarks.
+     */
+    static TransactionSearchIndex detached(LongSupplier clock) {
+        TransactionSearchIndex index = new TransactionSearchIndex(clock);
+        index.ready = true;
+        return index;
+    }
+
+    // ==================== SEARCH ====================
+
+    /**
+     * IDs of the transactions whose description, note or tag contains every
+     * word of the query, newest first.
+     *
+     * @param accounts only transactions from or to one of these accounts, or null for all
+     * @param from     earliest timestamp (inclusive), or null
+     * @param until    latest timestamp (exclusive), or null
+     * @return up to {@code limit} IDs, or null while the index is still loading
+     */
+    public List<Long> search(String query, Collection<String> accounts, Instant from, Instant until, int limit) {
+        List<String> words = words(query);
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return null;
+            }
+            if (words.isEmpty() || limit <= 0) {
+                return List.of();
+            }
+            return segment.search(words, accounts, from, until, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Stats getStats() {
+        lock.readLock().lock();
+        try {
+            return new Stats(segment.size, segment.postings.size(), segment.lastId, segment.gaps.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== UPDATES ====================
+
+    /**
+     * Indexes one transactions row. Rows arrive in ID order; a lower ID is
+     * taken only if it was skipped earlier and is still awaited.
+     *
+     * @return false if the row was already indexed (or given up on)
+     */
+    boolean add(long id, String fromAccount, String toAccount, Instant timestamp,
+                String description, String note, String tag) {
+        synchronized (writer) {
+            lock.writeLock().lock();
+            try {
+                return segment.add(id, fromAccount, toAccount, timestamp.toEpochMilli(), clock.getAsLong(),
+                        description, note, tag);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Asks for the rows committed since the last read to be indexed soon.
+     */
+    public void requestTail() {
+        if (tailer != null && tailRequested.compareAndSet(false, true)) {
+            tailer.execute(() -> {
+                tailRequested.set(false);
+                tailQuietly();
+            });
+        }
+    }
+
+    private void startTailer(long pollSeconds) {
+        tailer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "transaction-search-tail");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tailer.execute(() -> buildUntilReady(FIRST_RETRY_SECONDS));
+        tailer.scheduleWithFixedDelay(this::tailQuietly, pollSeconds, pollSeconds, TimeUnit.SECONDS);
+    }
+
+    private void buildUntilReady(long retrySeconds) {
+        if (isReady()) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (SQLException e) {
+            logger.error("Transaction search index could not be built; search stays on SQL, retrying in {} s",
+                    retrySeconds, e);
+            tailer.schedule(() -> buildUntilReady(Math.min(retrySeconds * 2, MAX_RETRY_SECONDS)),
+                    retrySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private void tailQuietly() {
+        if (!isReady()) {
+            return;
+        }
+        try (Connection conn = DatabaseConfig.getReadConnection(Workload.SCHEDULER)) {
+            tail(conn);
+        } catch (SQLException e) {
+            logger.warn("Could not read new transactions into the search index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Indexes the rows after the last ID seen, then any skipped IDs that have
+     * committed since.
+     */
+    private void tail(Connection conn) throws SQLException {
+        synchronized (writer) {
+            int read;
+            do {
+                try (PreparedStatement ps = conn.prepareStatement(LOAD_SQL + " WHERE id > ? ORDER BY id LIMIT ?")) {
+                    ps.setLong(1, lastId());
+                    ps.setInt(2, TAIL_BATCH);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        read = load(rs);
+                    }
+                }
+            } while (read == TAIL_BATCH);
+
+            List<Long> awaited = awaitedGaps();
+            for (int start = 0; start < awaited.size(); start += 1000) {
+                List<Long> batch = awaited.subList(start, Math.min(awaited.size(), start + 1000));
+                String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+                try (PreparedStatement ps = conn.prepareStatement(
+                        LOAD_SQL + " WHERE id IN (" + placeholders + ") ORDER BY id")) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        ps.setLong(i + 1, batch.get(i));
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        load(rs);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds a fresh index by streaming the whole table, then swaps it in and
+     * reads whatever committed while it was streamed. Searches are answered
+     * from the previous index until the swap.
+     */
+    public void rebuild() throws SQLException {
+        long begin = System.nanoTime();
+        synchronized (writer) {
+            Segment fresh = new Segment();
+            try (Connection conn = DatabaseConfig.getReadConnection(Workload.SCHEDULER)) {
+                try (PreparedStatement ps = conn.prepareStatement(LOAD_SQL + " ORDER BY id",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    ps.setFetchSize(Integer.MIN_VALUE); // stream rows instead of buffering the table
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            addRow(fresh, rs);
+                        }
+                    }
+                }
+                fresh.trim();
+                lock.writeLock().lock();
+                try {
+                    segment = fresh;
+                    ready = true;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                tail(conn);
+            }
+        }
+        Stats stats = getStats();
+        logger.info("Transaction search index built: {} transactions, {} words in {} ms",
+                stats.documents(), stats.words(), (System.nanoTime() - begin) / 1_000_000);
+    }
+
+    /**
+     * Adds every row of a result set with the load columns, in batches so the
+     * write lock is released between them.
+     *
+     * @return rows read
+     */
+    private int load(ResultSet rs) throws SQLException {
+        int read = 0;
+        boolean more = true;
+        while (more) {
+            lock.writeLock().lock();
+            try {
+                for (int i = 0; i < 1000 && (more = rs.next()); i++) {
+                    addRow(segment, rs);
+                    read++;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return read;
+    }
+
+    private void addRow(Segment target, ResultSet rs) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp("timestamp");
+        target.add(rs.getLong("id"), rs.getString("from_account"), rs.getString("to_account"),
+                timestamp != null ? timestamp.getTime() : 0, clock.getAsLong(),
+                rs.getString("description"), rs.getString("transaction_note"), rs.getString("transaction_tag"));
+    }
+
+    private long lastId() {
+        lock.readLock().lock();
+        try {
+            return segment.lastId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Long> awaitedGaps() {
+        lock.writeLock().lock();
+        try {
+            segment.expireGaps(clock.getAsLong());
+            List<Long> awaited = new ArrayList<>(segment.gaps.keySet());
+            Collections.sort(awaited);
+            return awaited;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private final class TailTrigger implements AccountCache.ChangeListener {
+        @Override
+        public void accountsChanged(Collection<String> accountNumbers) {
+            requestTail();
+        }
+
+        @Override
+        public void customerChanged(int customerId) {
+        }
+    }
+
+    // ==================== SEGMENT ====================
+
+    /**
+     * The documents and postings of one build. Not thread-safe.
+     */
+    private static final class Segment {
+        private long[] ids = new long[1024];
+        private long[] times = new long[1024]; // epoch millis, never decreasing
+        private int[] fromAccounts = new int[1024];
+        private int[] toAccounts = new int[1024];
+        private int size;
+        private final Map<String, IntList> postings = new HashMap<>();
+        private final Map<String, Integer> accountCodes = new HashMap<>();
+        private final List<IntList> accountDocs = new ArrayList<>();
+        private long lastId;
+        // IDs skipped on the way to lastId that may still commit, with when they were noticed
+        private final Map<Long, Long> gaps = new HashMap<>();
+
+        boolean add(long id, String fromAccount, String toAccount, long timeMillis, long nowMillis,
+                    String description, String note, String tag) {
+            if (id <= lastId) {
+                if (gaps.remove(id) == null) {
+                    return false;
+                }
+            } else {
+                noteGaps(id, timeMillis, nowMillis);
+                lastId = id;
+            }
+            if (size == ids.length) {
+                int capacity = size + (size >> 1);
+                ids = Arrays.copyOf(ids, capacity);
+                times = Arrays.copyOf(times, capacity);
+                fromAccounts = Arrays.copyOf(fromAccounts, capacity);
+                toAccounts = Arrays.copyOf(toAccounts, capacity);
+            }
+            int doc = size++;
+            ids[doc] = id;
+            // A late commit keeps ordinals in time order by taking the time of the one before
+            times[doc] = doc > 0 ? Math.max(times[doc - 1], timeMillis) : timeMillis;
+            fromAccounts[doc] = account(fromAccount, doc);
+            toAccounts[doc] = account(toAccount, doc);
+            post(description, doc);
+            post(note, doc);
+            post(tag, doc);
+            return true;
+        }
+
+        /**
+         * Remembers the IDs between lastId and {@code id}, when the row after
+         * them is recent enough that they may belong to transactions still open.
+         */
+        private void noteGaps(long id, long timeMillis, long nowMillis) {
+            if (lastId == 0 || timeMillis < nowMillis - GAP_WAIT_MILLIS) {
+                return;
+            }
+            for (long gap = Math.max(lastId + 1, id - MAX_PENDING_GAPS); gap < id; gap++) {
+                gaps.put(gap, nowMillis);
+            }
+        }
+
+        void expireGaps(long nowMillis) {
+            gaps.values().removeIf(noticed -> noticed < nowMillis - GAP_WAIT_MILLIS);
+            if (gaps.size() > MAX_PENDING_GAPS) {
+                List<Long> oldest = new ArrayList<>(gaps.keySet());
+                Collections.sort(oldest);
+                for (int i = 0; gaps.size() > MAX_PENDING_GAPS; i++) {
+                    gaps.remove(oldest.get(i));
+                }
+            }
+        }
+
+        private int account(String accountNumber, int doc) {
+            if (accountNumber == null) {
+                return NO_ACCOUNT;
+            }
+            Integer code = accountCodes.get(accountNumber);
+            if (code == null) {
+                code = accountDocs.size();
+                accountCodes.put(accountNumber, code);
+                accountDocs.add(new IntList(2));
+            }
+            IntList docs = accountDocs.get(code);
+            if (docs.last(-1) != doc) {
+                docs.add(doc);
+            }
+            return code;
+        }
+
+        private void post(String text, int doc) {
+            for (String word : words(text)) {
+                IntList list = postings.computeIfAbsent(word, w -> new IntList(2));
+                if (list.last(-1) != doc) { // the same word in two fields
+                    list.add(doc);
+                }
+            }
+        }
+
+        void trim() {
+            for (IntList list : postings.values()) {
+                list.trimToSize();
+            }
+            for (IntList list : accountDocs) {
+                list.trimToSize();
+            }
+        }
+
+        List<Long> search(List<String> words, Collection<String> accounts, Instant from, Instant until, int limit) {
+            int lo = from == null ? 0 : firstAtOrAfter(from.toEpochMilli());
+            int hi = until == null ? size : firstAtOrAfter(until.toEpochMilli());
+            List<Long> hits = new ArrayList<>(Math.min(limit, 64));
+            if (lo >= hi) {
+                return hits;
+            }
+
+            IntList[] lists = new IntList[words.size()];
+            int shortest = 0;
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = postings.get(words.get(i));
+                if (lists[i] == null) {
+                    return hits;
+                }
+                if (lists[i].size() < lists[shortest].size()) {
+                    shortest = i;
+                }
+            }
+
+            int[] scope = null;
+            long scopeSize = 0;
+            if (accounts != null) {
+                scope = accounts.stream().map(accountCodes::get).filter(code -> code != null)
+                        .mapToInt(Integer::intValue).distinct().toArray();
+                if (scope.length == 0) {
+                    return hits;
+                }
+                for (int code : scope) {
+                    scopeSize += accountDocs.get(code).size();
+                }
+            }
+
+            if (scope != null && scopeSize < lists[shortest].size()) {
+                walkAccounts(scope, lists, lo, hi, limit, hits);
+            } else {
+                walkWord(lists, shortest, scope, lo, hi, limit, hits);
+            }
+            return hits;
+        }
+
+        /**
+         * Drives the intersection from one word's list, newest first.
+         */
+        private void walkWord(IntList[] lists, int driver, int[] scope, int lo, int hi, int limit, List<Long> hits) {
+            IntList list = lists[driver];
+            for (int i = insertionPoint(list, hi) - 1; i >= 0 && hits.size() < limit; i--) {
+                int doc = list.get(i);
+                if (doc < lo) {
+                    break;
+                }
+                if (containsAll(lists, driver, doc) && inScope(scope, doc)) {
+                    hits.add(ids[doc]);
+                }
+            }
+        }
+
+        /**
+         * Drives the intersection from the accounts' lists, merged newest first.
+         */
+        private void walkAccounts(int[] scope, IntList[] lists, int lo, int hi, int limit, List<Long> hits) {
+            int[] cursors = new int[scope.length];
+            for (int a = 0; a < scope.length; a++) {
+                cursors[a] = insertionPoint(accountDocs.get(scope[a]), hi) - 1;
+            }
+            while (hits.size() < limit) {
+                int doc = -1;
+                for (int a = 0; a < scope.length; a++) {
+                    if (cursors[a] >= 0) {
+                        doc = Math.max(doc, accountDocs.get(scope[a]).get(cursors[a]));
+                    }
+                }
+                if (doc < lo) {
+                    return;
+                }
+                // A transfer between two of the accounts is on both lists; step past it on each
+                for (int a = 0; a < scope.length; a++) {
+                    if (cursors[a] >= 0 && accountDocs.get(scope[a]).get(cursors[a]) == doc) {
+                        cursors[a]--;
+                    }
+                }
+                if (containsAll(lists, -1, doc)) {
+                    hits.add(ids[doc]);
+                }
+            }
+        }
+
+        private boolean containsAll(IntList[] lists, int except, int doc) {
+            for (int i = 0; i < lists.length; i++) {
+                if (i != except && lists[i].binarySearch(doc) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean inScope(int[] scope, int doc) {
+            if (scope == null) {
+                return true;
+            }
+            for (int code : scope) {
+                if (fromAccounts[doc] == code || toAccounts[doc] == code) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int firstAtOrAfter(long millis) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (times[mid] < millis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static int insertionPoint(IntList list, int doc) {
+            int found = list.binarySearch(doc);
+            return found >= 0 ? found : -found - 1;
+        }
+    }
+
+    // ==================== WORDS ====================
+
+    /**
+     * The distinct words of a text: runs of letters and digits, lower-cased,
+     * at least {@value #MIN_WORD_LENGTH} characters long and cut to
+     * {@value #MAX_WORD_LENGTH}.
+     */
+    static List<String> words(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        Set<String> words = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= MIN_WORD_LENGTH) {
+                    words.add(text.substring(start, Math.min(i, start + MAX_WORD_LENGTH)).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return new ArrayList<>(words);
+    }
+}
@@ -2,8 +2,12 @@ package com.bank.brewdreamwelcome.ui.views;
 
 import com.bank.brewdreamwelcome.core.ThemeManager;
 import com.bank.brewdreamwelcome.core.SessionManager;
+import com.bank.brewdreamwelcome.ledger.LedgerEngine;
+import com.bank.brewdreamwelcome.ledger.LedgerEngines;
 import com.bank.brewdreamwelcome.service.CustomerBankingService;
 import com.bank.brewdreamwelcome.service.CustomerBankingService.AccountInfo;
+import com.bank.brewdreamwelcome.service.CustomerBankingService.TransactionCursor;
+import com.bank.brewdreamwelcome.service.CustomerBankingService.TransactionPage;
 import com.bank.brewdreamwelcome.service.CustomerBankingService.TransactionRecord;
 import com.bank.brewdreamwelcome.validation.InputValidator;
 import net.miginfocom.swing.MigLayout;
@@ -14,6 +18,7 @@ import java.awt.*;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Functional Customer Dashboard with real data and operations.
@@ -22,8 +27,10 @@ public class FunctionalCustomerDashboard extends JFrame {
     
     private final int customerId;
     private final CustomerBankingService bankingService;
+    private final LedgerEngine ledger;
     private final DecimalFormat moneyFormat = new DecimalFormat("#,##0.00");
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd MMM yyyy HH:mm");
+    private static final int TX_PAGE_SIZE = 50;
     
     private JPanel contentPanel;
     private CardLayout cardLayout;
@@ -33,6 +40,7 @@ public class FunctionalCustomerDashboard extends JFrame {
     public FunctionalCustomerDashboard(int customerId) {
         this.customerId = customerId;
         this.bankingService = CustomerBankingService.getInstance();
+        this.ledger = LedgerEngines.get();
         
         setTitle("VaultX | Customer Dashboard");
         setDefaultCloseOperation(EXIT_ON_CLOSE);
@@ -231,29 +239,44 @@ public class FunctionalCustomerDashboard extends JFrame {
             public boolean isCellEditable(int row, int column) { return false; }
         };
         
-        if (selectedAccount != null) {
-            List<TransactionRecord> transactions = bankingService.getAccountTransactions(
-                selectedAccount.accountNumber, 50
-            );
-            
-            for (TransactionRecord tx : transactions) {
-                model.addRow(new Object[]{
-                    dateFormat.format(tx.timestamp),
-                    tx.type,
-                    tx.fromAccount != null ? tx.fromAccount : "-",
-                    tx.toAccount != null ? tx.toAccount : "-",
-                    "$" + moneyFormat.format(tx.amount),
-                    tx.description != null ? tx.description : ""
-                });
-            }
-        }
-        
         JTable table = new JTable(model);
         table.setRowHeight(30);
         table.setFont(new Font("Inter", Font.PLAIN, 12));
         table.getTableHeader().setFont(new Font("Inter", Font.BOLD, 12));
         
-        return new JScrollPane(table);
+        JScrollPane scroll = new JScrollPane(table);
+        if (selectedAccount != null) {
+            String accountNumber = selectedAccount.accountNumber;
+            AtomicReference<TransactionCursor> cursor = new AtomicReference<>(
+                appendTransactionsPage(model, accountNumber, null));
+            
+            // Older pages are fetched as the table is scrolled to the bottom
+            scroll.getVerticalScrollBar().addAdjustmentListener(e -> {
+                BoundedRangeModel bar = scroll.getVerticalScrollBar().getModel();
+                if (!e.getValueIsAdjusting() && cursor.get() != null
+                        && bar.getValue() + bar.getExtent() >= bar.getMaximum() - table.getRowHeight() * 5) {
+                    cursor.set(appendTransactionsPage(model, accountNumber, cursor.getAndSet(null)));
+                }
+            });
+        }
+        
+        return scroll;
+    }
+    
+    private TransactionCursor appendTransactionsPage(DefaultTableModel model, String accountNumber,
+                                                     TransactionCursor after) {
+        TransactionPage page = bankingService.getAccountTransactionsPage(accountNumber, after, TX_PAGE_SIZE);
+        for (TransactionRecord tx : page.transactions) {
+            model.addRow(new Object[]{
+                dateFormat.format(tx.timestamp),
+                tx.type,
+                tx.fromAccount != null ? tx.fromAccount : "-",
+                tx.toAccount != null ? tx.toAccount : "-",
+                "$" + moneyFormat.format(tx.amount),
+                tx.description != null ? tx.description : ""
+            });
+        }
+        return page.next;
     }
     
     private JPanel createTransferPanel() {
@@ -305,7 +328,7 @@ public class FunctionalCustomerDashboard extends JFrame {
                 
                 double amount = Double.parseDouble(amountStr);
                 
-                if (bankingService.transfer(fromAcc.accountNumber, toAcc, amount, desc)) {
+                if (ledger.transfer(fromAcc.accountNumber, toAcc, amount, desc)) {
                     JOptionPane.showMessageDialog(this, "Transfer successful!", "Success", JOptionPane.INFORMATION_MESSAGE);
                     toAccountField.setText("");
                     amountField.setText("");
@@ -378,7 +401,7 @@ public class FunctionalCustomerDashboard extends JFrame {
             }
             
             double amount = Double.parseDouble(amountStr);
-            if (bankingService.deposit(account.accountNumber, amount, descField.getText().trim())) {
+            if (ledger.deposit(account.accountNumber, amount, descField.getText().trim())) {
                 JOptionPane.showMessageDialog(this, "Deposit successful!", "Success", JOptionPane.INFORMATION_MESSAGE);
                 loadAccounts();
                 refreshContent();
@@ -413,7 +436,7 @@ public class FunctionalCustomerDashboard extends JFrame {
             }
             
             double amount = Double.parseDouble(amountStr);
-            if (bankingService.withdraw(account.accountNumber, amount, descField.getText().trim())) {
+            if (ledger.withdraw(account.accountNumber, amount, descField.getText().trim())) {
                 JOptionPane.showMessageDialog(this, "Withdrawal successful!", "Success", JOptionPane.INFORMATION_MESSAGE);
                 loadAccounts();
                 refreshContent();
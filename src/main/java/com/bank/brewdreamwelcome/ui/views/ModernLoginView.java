@@ -1,5 +1,6 @@
 package com.bank.brewdreamwelcome.ui.views;
 
+import com.bank.brewdreamwelcome.config.SqlTracer;
 import com.bank.brewdreamwelcome.core.ThemeManager;
 import com.bank.brewdreamwelcome.core.SessionManager;
 import com.bank.brewdreamwelcome.service.AuditService;
@@ -208,7 +209,8 @@ public class ModernLoginView extends JFrame {
             return;
         }
 
-        AuthService.AuthResult result = AuthService.authenticate(id, pass);
+        AuthService.AuthResult result = SqlTracer.getInstance().callAction("login",
+                () -> AuthService.authenticate(id, pass));
         
         if (result.success) {
             // Check account status for customers
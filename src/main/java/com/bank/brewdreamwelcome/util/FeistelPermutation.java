@@ -0,0 +1,76 @@
+package com.bank.brewdreamwelcome.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * Keyed format-preserving permutation over the integer domain [0, size).
+ *
+ * A balanced Feistel network runs over the smallest square radix x radix domain
+ * that covers {@code size}, with HMAC-SHA256 as the round function. Outputs that
+ * land outside [0, size) are fed through the network again (cycle walking),
+ * which keeps the mapping a bijection on the original domain.
+ */
+public class FeistelPermutation {
+
+    private static final int ROUNDS = 8;
+
+    private final long size;
+    private final long radix;
+    private final Mac mac;
+
+    public FeistelPermutation(long size, String key) {
+        if (size < 2) {
+            throw new IllegalArgumentException("Domain size must be at least 2");
+        }
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("Permutation key is required");
+        }
+        this.size = size;
+        this.radix = (long) Math.ceil(Math.sqrt((double) size));
+        try {
+            this.mac = Mac.getInstance("HmacSHA256");
+            this.mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Maps {@code value} to its unique image in [0, size).
+     */
+    public synchronized long permute(long value) {
+        if (value < 0 || value >= size) {
+            throw new IllegalArgumentException("Value out of domain: " + value);
+        }
+        long result = value;
+        do {
+            result = encryptOnce(result);
+        } while (result >= size);
+        return result;
+    }
+
+    private long encryptOnce(long value) {
+        long left = value / radix;
+        long right = value % radix;
+        for (int round = 0; round < ROUNDS; round++) {
+            long next = Math.floorMod(left + roundFunction(round, right), radix);
+            left = right;
+            right = next;
+        }
+        return left * radix + right;
+    }
+
+    private long roundFunction(int round, long half) {
+        byte[] input = ByteBuffer.allocate(12).putInt(round).putLong(half).array();
+        byte[] digest = mac.doFinal(input);
+        return ByteBuffer.wrap(digest, 0, Long.BYTES).getLong() & Long.MAX_VALUE;
+    }
+}
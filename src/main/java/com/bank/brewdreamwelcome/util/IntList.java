@@ -0,0 +1,105 @@
+package com.bank.brewdreamwelcome.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used for index posting lists.
+ *
+ * Posting lists are appended in ascending order, so {@link #retainAll} can
+ * intersect two of them with a linear merge. Not thread-safe.
+ */
+public final class IntList {
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this(4);
+    }
+
+    public IntList(int capacity) {
+        values = new int[Math.max(1, capacity)];
+    }
+
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * The last value, or {@code missing} if the list is empty.
+     */
+    public int last(int missing) {
+        return size == 0 ? missing : values[size - 1];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drops the spare capacity left by growth.
+     */
+    public void trimToSize() {
+        if (values.length > size) {
+            values = Arrays.copyOf(values, Math.max(1, size));
+        }
+    }
+
+    public IntList copy() {
+        IntList copy = new IntList(size);
+        System.arraycopy(values, 0, copy.values, 0, size);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Keeps only the values also in {@code other}. Both lists must be ascending.
+     */
+    public void retainAll(IntList other) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < size && j < other.size; ) {
+            int a = values[i];
+            int b = other.values[j];
+            if (a == b) {
+                values[kept++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Index of {@code value} in an ascending list, or {@code -(insertion point) - 1}
+     * if it is absent, as {@link Arrays#binarySearch(int[], int)}.
+     */
+    public int binarySearch(int value) {
+        return Arrays.binarySearch(values, 0, size, value);
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,80 @@
+package com.bank.brewdreamwelcome;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Money.
+ * Covers exactness, overflow checks and the allocation-free parse/format helpers.
+ */
+public class MoneyTest {
+
+    @Test
+    public void testSumsAreExact() {
+        Money total = Money.ZERO;
+        for (int i = 0; i < 10; i++) {
+            total = total.plus(Money.of(0.1));
+        }
+        assertEquals(Money.of(1.0), total);
+        assertEquals(10_000L, total.units());
+    }
+
+    @Test
+    public void testDoubleConversionRoundsHalfEven() {
+        assertEquals(12_346L, Money.of(1.23456).units());
+        assertEquals(2L, Money.of(0.00025).units());
+        assertThrows(ArithmeticException.class, () -> Money.of(Double.NaN));
+        assertThrows(ArithmeticException.class, () -> Money.of(1e300));
+    }
+
+    @Test
+    public void testArithmeticOverflowThrows() {
+        Money max = Money.ofUnits(Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofUnits(1)));
+        assertThrows(ArithmeticException.class, () -> max.negate().minus(Money.ofUnits(1)));
+        assertThrows(ArithmeticException.class, () -> max.times(2));
+    }
+
+    @Test
+    public void testBigDecimalRoundTrip() {
+        Money amount = Money.of(new BigDecimal("-1234.5678"));
+        assertEquals(new BigDecimal("-1234.5678"), amount.toBigDecimal());
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("0.00001")));
+    }
+
+    @Test
+    public void testParse() {
+        assertEquals(12_345_000L, Money.parseUnits("1,234.5", 0, 7));
+        assertEquals(-2_500L, Money.parse(" -0.25 ").units());
+        assertEquals(5_000L, Money.parse(".5").units());
+        assertEquals(70_000L, Money.parse("+7").units());
+        assertThrows(NumberFormatException.class, () -> Money.parse(""));
+        assertThrows(NumberFormatException.class, () -> Money.parse("-"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1.23456"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("12a"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("99999999999999999"));
+    }
+
+    @Test
+    public void testFormat() {
+        assertEquals("1,234,567.89", Money.parse("1234567.885").format());
+        assertEquals("0.00", Money.ZERO.format());
+        assertEquals("-0.50", Money.parse("-0.4999").format());
+        assertEquals("0.00", Money.parse("-0.0001").format());
+        assertEquals("-1234.5000", Money.parse("-1234.5").toString());
+        assertEquals("1,000", Money.formatUnits(9_999_999L, 0, true, new StringBuilder()).toString());
+    }
+
+    @Test
+    public void testParseFormatRoundTrip() {
+        StringBuilder out = new StringBuilder();
+        for (long units = -100_000L; units <= 100_000L; units += 37) {
+            out.setLength(0);
+            Money.formatUnits(units, Money.SCALE, true, out);
+            assertEquals(units, Money.parseUnits(out, 0, out.length()));
+        }
+    }
+}
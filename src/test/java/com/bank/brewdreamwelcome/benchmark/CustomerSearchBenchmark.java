@@ -0,0 +1,62 @@
+package com.bank.brewdreamwelcome.benchmark;
+
+import com.bank.brewdreamwelcome.service.CustomerSearchIndex;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures CustomerSearchIndex build time, heap use and query latency on
+ * synthetic customers, independent of the database.
+ *
+ * Not a unit test: run manually, e.g. {@code CustomerSearchBenchmark 1000000}
+ * with a heap large enough for the index ({@code -Xmx2g} at a million).
+ */
+public class CustomerSearchBenchmark {
+
+    private static final String[] FIRST = {"Ayesha", "Bilal", "Fatima", "Hamza", "Zainab", "Usman", "Maryam",
+            "Ali", "Sana", "Imran", "Hira", "Omar", "Noor", "Saad", "Amna", "Fahad"};
+    private static final String[] LAST = {"Khan", "Ahmed", "Malik", "Qureshi", "Shah", "Butt", "Chaudhry",
+            "Siddiqui", "Raza", "Iqbal", "Sheikh", "Mirza", "Hussain", "Javed", "Anwar", "Aslam"};
+    private static final String[] QUERIES = {"a", "kh", "khan", "ayesha khan", "qureshi", "gmail",
+            "1234", "35202-12", "zainab.mirza", "nomatch"};
+
+    public static void main(String[] args) {
+        int customers = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        Random random = new Random(1);
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long begin = System.nanoTime();
+        CustomerSearchIndex index = CustomerSearchIndex.detached();
+        for (int id = 1; id <= customers; id++) {
+            String first = FIRST[random.nextInt(FIRST.length)];
+            String last = LAST[random.nextInt(LAST.length)];
+            String email = (first + "." + last + id).toLowerCase()
+                    + (random.nextBoolean() ? "@gmail.com" : "@vaultx.pk");
+            String idCard = String.format("%05d-%07d-%d", 35000 + random.nextInt(500),
+                    random.nextInt(10_000_000), random.nextInt(10));
+            index.upsert(id, first + " " + last, email, String.valueOf(100000 + id), idCard);
+        }
+        long buildMillis = (System.nanoTime() - begin) / 1_000_000;
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+        System.out.printf("%,d customers indexed in %,d ms, ~%,d MB heap%n", index.size(), buildMillis,
+                (heapAfter - heapBefore) >> 20);
+
+        for (String query : QUERIES) {
+            long[] latencies = new long[rounds];
+            int hits = 0;
+            for (int i = 0; i < rounds; i++) {
+                long start = System.nanoTime();
+                hits = index.search(query, 20).size();
+                latencies[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(latencies);
+            System.out.printf("%-14s %2d hits  p50 %8.3f ms  p99 %8.3f ms%n", '"' + query + '"', hits,
+                    latencies[rounds / 2] / 1e6, latencies[(int) (rounds * 0.99)] / 1e6);
+        }
+    }
+}
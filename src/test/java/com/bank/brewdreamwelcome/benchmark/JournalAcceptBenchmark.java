@@ -0,0 +1,82 @@
+package com.bank.brewdreamwelcome.benchmark;
+
+import com.bank.brewdreamwelcome.ledger.LedgerEngine;
+import com.bank.brewdreamwelcome.ledger.TransferJournal;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures TransferJournal accept latency, independent of the database.
+ *
+ * Not a unit test: run manually, e.g. {@code JournalAcceptBenchmark 8 2000}. The
+ * journal drains into a ledger that accepts everything instantly, so the numbers
+ * are the append + batched msync cost only. Point {@code java.io.tmpdir} at the
+ * disk the journal will live on; tmpfs will look unrealistically fast.
+ */
+public class JournalAcceptBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int acceptsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        LedgerEngine instant = new LedgerEngine() {
+            @Override
+            public String name() {
+                return "instant";
+            }
+
+            @Override
+            public boolean deposit(String accountNumber, double amount, String description, String key) {
+                return true;
+            }
+
+            @Override
+            public boolean withdraw(String accountNumber, double amount, String description, String key) {
+                return true;
+            }
+
+            @Override
+            public boolean transfer(String from, String to, double amount, String description, String key) {
+                return true;
+            }
+        };
+
+        Path dir = Files.createTempDirectory("journal-bench");
+        long[][] latencies = new long[threads][acceptsPerThread];
+        try (TransferJournal journal = new TransferJournal(dir, instant, 64 * 1024 * 1024, 200, () -> true)) {
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                long[] mine = latencies[t];
+                new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < acceptsPerThread; i++) {
+                            long begin = System.nanoTime();
+                            journal.accept("AC-10001", "AC-10002", 1.0, "Benchmark");
+                            mine[i] = System.nanoTime() - begin;
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    } finally {
+                        done.countDown();
+                    }
+                }).start();
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            done.await();
+            long nanos = System.nanoTime() - begin;
+
+            long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+            TransferJournal.Stats stats = journal.getStats();
+            System.out.printf("%d threads: %.0f accepts/s, %d fsyncs (%.1f accepts per fsync)%n", threads,
+                    all.length / (nanos / 1_000_000_000.0), stats.fsyncs(), (double) all.length / stats.fsyncs());
+            System.out.printf("accept latency p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                    all[all.length / 2] / 1e6, all[(int) (all.length * 0.99)] / 1e6, all[all.length - 1] / 1e6);
+        }
+    }
+}
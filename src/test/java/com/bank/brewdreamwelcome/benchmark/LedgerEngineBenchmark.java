@@ -0,0 +1,76 @@
+package com.bank.brewdreamwelcome.benchmark;
+
+import com.bank.brewdreamwelcome.ledger.LedgerEngine;
+import com.bank.brewdreamwelcome.ledger.LedgerEngines;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the same transfer workload against every ledger engine.
+ *
+ * Not a unit test: run manually against a live database with at least two
+ * existing, funded account numbers, e.g.
+ * {@code LedgerEngineBenchmark 16 200 AC-10001 AC-10002 AC-10003}. Each thread
+ * moves 1.00 between random pairs of the given accounts, so the totals across the
+ * accounts are unchanged at the end and the runs can be repeated.
+ */
+public class LedgerEngineBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 4) {
+            System.out.println("Usage: LedgerEngineBenchmark <threads> <transfersPerThread> <account> <account> [account...]");
+            return;
+        }
+        int threads = Integer.parseInt(args[0]);
+        int transfersPerThread = Integer.parseInt(args[1]);
+        List<String> accounts = List.of(args).subList(2, args.length);
+
+        System.out.printf("%d threads, %d transfers per thread, %d accounts%n", threads, transfersPerThread,
+                accounts.size());
+        System.out.printf("%-22s %10s %8s%n", "engine", "xfers/s", "ok");
+        for (String name : LedgerEngines.names()) {
+            LedgerEngine engine = LedgerEngines.create(name);
+            // Warm up the pool, the statement cache and the ID sequences
+            engine.transfer(accounts.get(0), accounts.get(1), 1.0, "Benchmark");
+            engine.transfer(accounts.get(1), accounts.get(0), 1.0, "Benchmark");
+
+            AtomicInteger succeeded = new AtomicInteger();
+            long nanos = run(engine, accounts, threads, transfersPerThread, succeeded);
+            System.out.printf("%-22s %10.1f %8d%n", name, succeeded.get() / (nanos / 1_000_000_000.0),
+                    succeeded.get());
+        }
+        System.exit(0);
+    }
+
+    private static long run(LedgerEngine engine, List<String> accounts, int threads, int transfersPerThread,
+                            AtomicInteger succeeded) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < transfersPerThread; i++) {
+                        int from = random.nextInt(accounts.size());
+                        int to = (from + 1 + random.nextInt(accounts.size() - 1)) % accounts.size();
+                        if (engine.transfer(accounts.get(from), accounts.get(to), 1.0, "Benchmark")) {
+                            succeeded.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+}
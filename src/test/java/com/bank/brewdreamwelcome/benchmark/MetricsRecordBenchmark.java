@@ -0,0 +1,71 @@
+package com.bank.brewdreamwelcome.benchmark;
+
+import com.bank.brewdreamwelcome.metrics.MetricsRegistry;
+import com.bank.brewdreamwelcome.metrics.Timer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the cost of recording one service call on a shared Timer.
+ *
+ * Not a unit test: run manually, e.g. {@code MetricsRecordBenchmark 20000000 8}.
+ * Each thread times and records {@code iterations} calls on the same timer,
+ * first alone and then all at once, so the contended case shows whether the
+ * histogram counters become a bottleneck. The figures include both
+ * {@link System#nanoTime()} reads a real call makes, so the cost of those two
+ * reads alone is printed first; the difference is the cost of recording.
+ */
+public class MetricsRecordBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Timer timer = MetricsRegistry.serviceTimer(MetricsRecordBenchmark.class, "record");
+
+        for (int round = 0; round < 2; round++) {
+            boolean print = round == 1; // round 0 is the warm-up
+            clock(iterations, print);
+            run("1 thread", 1, iterations, timer, print);
+            run(threads + " threads", threads, iterations, timer, print);
+        }
+        System.out.printf("recorded %d calls, p99 %d ns%n", timer.latency().count(),
+                timer.latency().percentileNanos(0.99));
+    }
+
+    private static void clock(int iterations, boolean print) {
+        long checksum = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long started = System.nanoTime();
+            checksum += System.nanoTime() - started;
+        }
+        long nanos = System.nanoTime() - begin;
+        if (print) {
+            System.out.printf("%-12s %6.1f ns per pair  (checksum %d)%n", "clock only", (double) nanos / iterations,
+                    checksum);
+        }
+    }
+
+    private static void run(String name, int threads, int iterations, Timer timer, boolean print)
+            throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    long started = System.nanoTime();
+                    timer.record(started, (i & 1023) != 0);
+                }
+            }));
+        }
+        long begin = System.nanoTime();
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long nanos = System.nanoTime() - begin;
+        if (print) {
+            System.out.printf("%-12s %6.1f ns per record%n", name, (double) nanos / iterations);
+        }
+    }
+}
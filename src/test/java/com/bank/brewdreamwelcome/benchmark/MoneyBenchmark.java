@@ -0,0 +1,143 @@
+package com.bank.brewdreamwelcome.benchmark;
+
+import com.bank.brewdreamwelcome.Money;
+
+import java.math.BigDecimal;
+
+/**
+ * Compares double, BigDecimal and Money on the transfer and validation paths.
+ *
+ * Not a unit test: run manually, e.g. {@code MoneyBenchmark 20000000}. The
+ * transfer path checks the balance and moves an amount between two balances;
+ * the validation path parses user-entered amount text and checks it is
+ * positive. Each variant is warmed up before it is timed, and a checksum is
+ * printed so the JIT cannot drop the work. Run with {@code -verbose:gc} (or
+ * {@code -Xlog:gc}) to see that the Money parse path does not allocate.
+ */
+public class MoneyBenchmark {
+
+    private static final String[] INPUTS = {"125.50", "1,000", "0.25", "99999.9999", "42", "3.14", "7,500.75", "0.01"};
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+
+        for (int round = 0; round < 2; round++) {
+            boolean print = round == 1; // round 0 is the warm-up
+            time("transfer/double", print, () -> transferDouble(iterations));
+            time("transfer/BigDecimal", print, () -> transferBigDecimal(iterations));
+            time("transfer/Money", print, () -> transferMoney(iterations));
+            time("transfer/Money units", print, () -> transferUnits(iterations));
+            time("validate/double", print, () -> validateDouble(iterations));
+            time("validate/BigDecimal", print, () -> validateBigDecimal(iterations));
+            time("validate/Money units", print, () -> validateUnits(iterations));
+        }
+    }
+
+    private interface Work {
+        long run();
+    }
+
+    private static void time(String name, boolean print, Work work) {
+        long begin = System.nanoTime();
+        long checksum = work.run();
+        long nanos = System.nanoTime() - begin;
+        if (print) {
+            System.out.printf("%-22s %10d ms  (checksum %d)%n", name, nanos / 1_000_000, checksum);
+        }
+    }
+
+    private static long transferDouble(int n) {
+        double from = 1_000_000.0;
+        double to = 0.0;
+        double amount = 0.01;
+        for (int i = 0; i < n; i++) {
+            if (from >= amount) {
+                from -= amount;
+                to += amount;
+            } else {
+                double t = from;
+                from = to;
+                to = t;
+            }
+        }
+        return (long) (from + to);
+    }
+
+    private static long transferBigDecimal(int n) {
+        BigDecimal from = new BigDecimal("1000000.0000");
+        BigDecimal to = new BigDecimal("0.0000");
+        BigDecimal amount = new BigDecimal("0.0100");
+        for (int i = 0; i < n; i++) {
+            if (from.compareTo(amount) >= 0) {
+                from = from.subtract(amount);
+                to = to.add(amount);
+            } else {
+                BigDecimal t = from;
+                from = to;
+                to = t;
+            }
+        }
+        return from.add(to).longValue();
+    }
+
+    private static long transferMoney(int n) {
+        Money from = Money.parse("1000000");
+        Money to = Money.ZERO;
+        Money amount = Money.parse("0.01");
+        for (int i = 0; i < n; i++) {
+            if (!from.isLessThan(amount)) {
+                from = from.minus(amount);
+                to = to.plus(amount);
+            } else {
+                Money t = from;
+                from = to;
+                to = t;
+            }
+        }
+        return from.plus(to).units() / Money.UNITS_PER_MAJOR;
+    }
+
+    private static long transferUnits(int n) {
+        long from = 1_000_000L * Money.UNITS_PER_MAJOR;
+        long to = 0L;
+        long amount = 100L;
+        for (int i = 0; i < n; i++) {
+            if (from >= amount) {
+                from = Math.subtractExact(from, amount);
+                to = Math.addExact(to, amount);
+            } else {
+                long t = from;
+                from = to;
+                to = t;
+            }
+        }
+        return (from + to) / Money.UNITS_PER_MAJOR;
+    }
+
+    private static long validateDouble(int n) {
+        long valid = 0;
+        for (int i = 0; i < n; i++) {
+            double amount = Double.parseDouble(INPUTS[i & 7].replace(",", ""));
+            if (amount > 0) valid++;
+        }
+        return valid;
+    }
+
+    private static long validateBigDecimal(int n) {
+        long valid = 0;
+        for (int i = 0; i < n; i++) {
+            BigDecimal amount = new BigDecimal(INPUTS[i & 7].replace(",", ""));
+            if (amount.signum() > 0 && amount.scale() <= Money.SCALE) valid++;
+        }
+        return valid;
+    }
+
+    private static long validateUnits(int n) {
+        long valid = 0;
+        for (int i = 0; i < n; i++) {
+            String input = INPUTS[i & 7];
+            if (Money.parseUnits(input, 0, input.length()) > 0) valid++;
+        }
+        return valid;
+    }
+}
@@ -0,0 +1,87 @@
+package com.bank.brewdreamwelcome.benchmark;
+
+import com.bank.brewdreamwelcome.Money;
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.repository.AccountRepository;
+import com.bank.brewdreamwelcome.repository.AccountRepositoryImpl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures concurrent credit throughput into a single hot account.
+ *
+ * Not a unit test: run manually against a live database, once per stripe count,
+ * e.g. set {@code stripe_count} to 0, 2, 4, 8 and 16 on the account and run
+ * {@code StripedCreditBenchmark AC-10001 32 200} after each change. Every credit
+ * is its own transaction (shared lock on the account, write to one stripe,
+ * commit), so throughput should grow roughly with the stripe count until the
+ * thread count or the connection pool becomes the limit. The account is left
+ * richer by threads x credits x 0.01; the stripes are consolidated by the
+ * scheduler or on the next locked read.
+ */
+public class StripedCreditBenchmark {
+
+    private static final Money CREDIT = Money.of(0.01);
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: StripedCreditBenchmark <hotAccount> [threads] [creditsPerThread]");
+            return;
+        }
+        String hotAccount = args[0];
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int creditsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        AccountRepository repo = new AccountRepositoryImpl();
+        AtomicInteger succeeded = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < creditsPerThread; i++) {
+                        if (credit(repo, hotAccount)) {
+                            succeeded.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long nanos = System.nanoTime() - begin;
+
+        System.out.printf("%s: %d threads, %d/%d credits ok, %.1f credits/s%n", hotAccount, threads,
+                succeeded.get(), threads * creditsPerThread, succeeded.get() / (nanos / 1_000_000_000.0));
+    }
+
+    private static boolean credit(AccountRepository repo, String account) {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                if (repo.findForCredit(conn, account).isEmpty() || !repo.credit(conn, account, CREDIT)) {
+                    conn.rollback();
+                    return false;
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                return false;
+            }
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+}
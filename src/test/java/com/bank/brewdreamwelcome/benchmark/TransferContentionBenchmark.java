@@ -0,0 +1,87 @@
+package com.bank.brewdreamwelcome.benchmark;
+
+import com.bank.brewdreamwelcome.repository.AccountRepositoryImpl;
+import com.bank.brewdreamwelcome.service.ModernBankService;
+import com.bank.brewdreamwelcome.service.ModernBankService.ConcurrencyMode;
+import com.bank.brewdreamwelcome.service.ModernBankService.OptimisticStats;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares pessimistic (FOR UPDATE) and optimistic (version column) transfers
+ * under increasing thread counts against a live database.
+ *
+ * Not a unit test: run manually with at least two existing, funded account
+ * numbers, e.g. {@code TransferContentionBenchmark 200 AC-10001 AC-10002 AC-10003}.
+ * Each thread moves 1.00 between randomly chosen pairs from the given accounts,
+ * so the number of accounts sets the contention level: with two or three hot
+ * accounts most optimistic attempts conflict and retry, while with a few dozen
+ * accounts conflicts are rare and the optimistic mode avoids lock waits.
+ */
+public class TransferContentionBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 3) {
+            System.out.println("Usage: TransferContentionBenchmark <transfersPerThread> <account> <account> [account...]");
+            return;
+        }
+        int transfersPerThread = Integer.parseInt(args[0]);
+        List<String> accounts = List.of(args).subList(1, args.length);
+
+        ModernBankService service = new ModernBankService(new AccountRepositoryImpl());
+
+        // Warm up the pool, the statement cache and the ID sequences
+        service.transferFunds(accounts.get(0), accounts.get(1), 1.0, ConcurrencyMode.PESSIMISTIC);
+        service.transferFunds(accounts.get(1), accounts.get(0), 1.0, ConcurrencyMode.OPTIMISTIC);
+
+        System.out.printf("%d accounts, %d transfers per thread%n", accounts.size(), transfersPerThread);
+        System.out.printf("%-8s %-12s %10s %8s %10s %10s%n", "threads", "mode", "xfers/s", "ok", "conflicts", "gave up");
+        for (int threads : THREAD_COUNTS) {
+            for (ConcurrencyMode mode : ConcurrencyMode.values()) {
+                OptimisticStats before = service.getOptimisticStats();
+                AtomicInteger succeeded = new AtomicInteger();
+                long nanos = run(service, mode, accounts, threads, transfersPerThread, succeeded);
+                OptimisticStats after = service.getOptimisticStats();
+
+                System.out.printf("%-8d %-12s %10.1f %8d %10d %10d%n", threads, mode,
+                        succeeded.get() / (nanos / 1_000_000_000.0), succeeded.get(),
+                        after.conflicts() - before.conflicts(), after.exhausted() - before.exhausted());
+            }
+        }
+    }
+
+    private static long run(ModernBankService service, ConcurrencyMode mode, List<String> accounts,
+                            int threads, int transfersPerThread, AtomicInteger succeeded) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < transfersPerThread; i++) {
+                        int from = random.nextInt(accounts.size());
+                        int to = (from + 1 + random.nextInt(accounts.size() - 1)) % accounts.size();
+                        if (service.transferFunds(accounts.get(from), accounts.get(to), 1.0, mode)) {
+                            succeeded.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+}
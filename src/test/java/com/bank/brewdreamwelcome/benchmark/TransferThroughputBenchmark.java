@@ -0,0 +1,72 @@
+package com.bank.brewdreamwelcome.benchmark;
+
+import com.bank.brewdreamwelcome.BankDatabaseService;
+import com.bank.brewdreamwelcome.BankDatabaseService.TransferRequest;
+import com.bank.brewdreamwelcome.BankDatabaseService.TransferResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares single-transfer and batched-transfer throughput against a live database.
+ *
+ * Not a unit test: run manually with two existing, funded account numbers, e.g.
+ * {@code TransferThroughputBenchmark AC-10001 AC-10002 2000 200}. Transfers
+ * alternate direction so the account balances end where they started.
+ */
+public class TransferThroughputBenchmark {
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: TransferThroughputBenchmark <accountA> <accountB> [transfers] [batchSize]");
+            return;
+        }
+        String accountA = args[0];
+        String accountB = args[1];
+        int transfers = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+
+        BankDatabaseService service = BankDatabaseService.getInstance();
+
+        // Warm up the pool, the statement cache and the ID sequences
+        service.transfer(accountA, accountB, 1.0, "benchmark warmup");
+        service.transfer(accountB, accountA, 1.0, "benchmark warmup");
+
+        long start = System.nanoTime();
+        int singleOk = 0;
+        for (int i = 0; i < transfers; i++) {
+            boolean even = i % 2 == 0;
+            if (service.transfer(even ? accountA : accountB, even ? accountB : accountA, 1.0, "benchmark single")) {
+                singleOk++;
+            }
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int batchOk = 0;
+        for (int offset = 0; offset < transfers; offset += batchSize) {
+            List<TransferRequest> batch = new ArrayList<>();
+            for (int i = offset; i < Math.min(offset + batchSize, transfers); i++) {
+                boolean even = i % 2 == 0;
+                batch.add(new TransferRequest(even ? accountA : accountB, even ? accountB : accountA, 1.0,
+                        "benchmark batch"));
+            }
+            for (TransferResult result : service.transferBatch(batch)) {
+                if (result.success()) {
+                    batchOk++;
+                }
+            }
+        }
+        long batchNanos = System.nanoTime() - start;
+
+        report("single", singleOk, transfers, singleNanos);
+        report("batch(" + batchSize + ")", batchOk, transfers, batchNanos);
+        System.out.printf("speedup: %.1fx%n", (double) singleNanos / batchNanos);
+    }
+
+    private static void report(String mode, int succeeded, int attempted, long nanos) {
+        double seconds = nanos / 1_000_000_000.0;
+        System.out.printf("%-12s %6d/%d ok  %8.1f ms  %10.1f transfers/s%n",
+                mode, succeeded, attempted, nanos / 1_000_000.0, succeeded / seconds);
+    }
+}
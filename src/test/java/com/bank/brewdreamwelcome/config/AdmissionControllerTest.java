@@ -0,0 +1,117 @@
+package com.bank.brewdreamwelcome.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AdmissionController on a fake clock, with no waiting for slots.
+ */
+public class AdmissionControllerTest {
+
+    private static final long SLOW = 100;
+    private static final long OPEN = 1_000;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private AdmissionController controller(int maxLimit) {
+        return new AdmissionController(Workload.OLTP, maxLimit, SLOW, 0, OPEN, now::get);
+    }
+
+    /** Runs one call that holds its connection for {@code nanos}. */
+    private void call(AdmissionController controller, long nanos) throws DatabaseOverloadedException {
+        AdmissionController.Permit permit = controller.admit();
+        now.addAndGet(nanos);
+        controller.complete(permit, false);
+    }
+
+    @Test
+    public void testRejectsOverTheLimit() throws Exception {
+        AdmissionController controller = controller(2);
+        AdmissionController.Permit first = controller.admit();
+        controller.admit();
+
+        DatabaseOverloadedException e = assertThrows(DatabaseOverloadedException.class, controller::admit);
+        assertEquals(DatabaseOverloadedException.Reason.CONCURRENCY_LIMIT, e.getReason());
+
+        controller.complete(first, false);
+        assertNotNull(controller.admit(), "A released slot is free again");
+        assertEquals(1, controller.getStats().rejected());
+    }
+
+    @Test
+    public void testSlowCallsShrinkTheLimitAndFastCallsGrowIt() throws Exception {
+        AdmissionController controller = controller(8);
+        AdmissionController.Permit first = controller.admit();
+        AdmissionController.Permit second = controller.admit();
+        now.addAndGet(SLOW + 1);
+        controller.complete(first, false);
+        assertEquals(6, controller.getStats().limit());
+        controller.complete(second, false);
+        assertEquals(6, controller.getStats().limit(), "At most one cut per slow threshold");
+
+        // Growth needs the limit in use: keep limit/2 calls in flight
+        List<AdmissionController.Permit> busy = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            busy.add(controller.admit());
+        }
+        for (int i = 0; i < 40; i++) {
+            call(controller, 1);
+        }
+        assertEquals(8, controller.getStats().limit());
+        busy.forEach(permit -> controller.complete(permit, false));
+    }
+
+    @Test
+    public void testCircuitOpensRejectsAndRecoversThroughProbes() throws Exception {
+        AdmissionController controller = controller(10);
+        for (int i = 0; i < AdmissionController.MIN_CALLS; i++) {
+            AdmissionController.Permit permit = controller.admit();
+            controller.complete(permit, true);
+        }
+        assertTrue(controller.isOpen());
+
+        DatabaseOverloadedException e = assertThrows(DatabaseOverloadedException.class, controller::admit);
+        assertEquals(DatabaseOverloadedException.Reason.CIRCUIT_OPEN, e.getReason());
+        assertTrue(e.getRetryAfterMillis() >= 0);
+
+        now.addAndGet(OPEN);
+        List<AdmissionController.Permit> probes = new ArrayList<>();
+        for (int i = 0; i < AdmissionController.PROBES; i++) {
+            probes.add(controller.admit());
+        }
+        assertThrows(DatabaseOverloadedException.class, controller::admit, "Only probes while half-open");
+        assertEquals(AdmissionController.State.HALF_OPEN, controller.getStats().state());
+
+        probes.forEach(permit -> controller.complete(permit, false));
+        assertEquals(AdmissionController.State.CLOSED, controller.getStats().state());
+        assertNotNull(controller.admit());
+    }
+
+    @Test
+    public void testFailedProbeReopens() throws Exception {
+        AdmissionController controller = controller(10);
+        for (int i = 0; i < AdmissionController.MIN_CALLS; i++) {
+            call(controller, SLOW + 1);
+        }
+        assertEquals(1, controller.getStats().trips());
+
+        now.addAndGet(OPEN);
+        call(controller, SLOW + 1);
+        assertEquals(AdmissionController.State.OPEN, controller.getStats().state());
+        assertEquals(2, controller.getStats().trips());
+    }
+
+    @Test
+    public void testHealthyTrafficKeepsTheCircuitClosed() throws Exception {
+        AdmissionController controller = controller(10);
+        for (int i = 0; i < 100; i++) {
+            call(controller, i % 3 == 0 ? SLOW + 1 : 1);
+        }
+        assertEquals(AdmissionController.State.CLOSED, controller.getStats().state());
+    }
+}
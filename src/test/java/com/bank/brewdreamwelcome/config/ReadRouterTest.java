@@ -0,0 +1,120 @@
+package com.bank.brewdreamwelcome.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReadRouter, over data sources that hand out named stub
+ * connections.
+ */
+public class ReadRouterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    /** A data source whose connections report its name from toString(). */
+    private static DataSource source(String name, boolean up) {
+        return source(name, new AtomicBoolean(up), new AtomicInteger());
+    }
+
+    /** As above, switched up and down by {@code up} and counting connection attempts. */
+    private static DataSource source(String name, AtomicBoolean up, AtomicInteger attempts) {
+        Connection conn = (Connection) Proxy.newProxyInstance(ReadRouterTest.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) ->
+                        method.getName().equals("toString") ? name : null);
+        return (DataSource) Proxy.newProxyInstance(ReadRouterTest.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getConnection")) {
+                        attempts.incrementAndGet();
+                        if (!up.get()) {
+                            throw new SQLException(name + " is down");
+                        }
+                        return conn;
+                    }
+                    return method.getName().equals("toString") ? name : null;
+                });
+    }
+
+    private ReadRouter router(DataSource... replicas) {
+        return new ReadRouter(List.of(replicas), 100, 1_000, now::get);
+    }
+
+    /** Where a read of {@code keys} went: a replica's name, or "primary". */
+    private static String route(ReadRouter router, Object... keys) {
+        Connection conn = router.getReplicaConnection(keys);
+        return conn == null ? "primary" : conn.toString();
+    }
+
+    @Test
+    public void testReadsRotateOverReplicas() {
+        ReadRouter router = router(source("r1", true), source("r2", true));
+
+        assertEquals("r1", route(router));
+        assertEquals("r2", route(router, "ACC1"));
+        assertEquals("r1", route(router));
+        assertEquals(3, router.getStats().replicaReads());
+    }
+
+    @Test
+    public void testRecentWriteReadsFromPrimaryUntilWindowEnds() {
+        ReadRouter router = router(source("r1", true));
+        router.recordWrite("ACC1");
+        router.recordWrite(7);
+
+        assertEquals("primary", route(router, "ACC1"));
+        assertEquals("primary", route(router, "ACC2", 7), "Any written key is enough");
+        assertEquals("r1", route(router, "ACC2"));
+
+        now.addAndGet(100);
+        assertEquals("r1", route(router, "ACC1"));
+        assertEquals(1, router.getStats().recentWrites(), "Expired entries are dropped when seen");
+    }
+
+    @Test
+    public void testUnavailableReplicaFallsBack() {
+        ReadRouter router = router(source("r1", false), source("r2", true));
+        assertEquals("r2", route(router));
+        assertEquals("r2", route(router));
+
+        ReadRouter allDown = router(source("r1", false));
+        assertEquals("primary", route(allDown));
+        assertEquals(2, router.getStats().replicaFailures() + allDown.getStats().replicaFailures());
+    }
+
+    @Test
+    public void testFailedReplicaIsSkippedUntilCooldownEnds() {
+        AtomicBoolean up = new AtomicBoolean(false);
+        AtomicInteger attempts = new AtomicInteger();
+        ReadRouter router = router(source("r1", up, attempts), source("r2", true));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("r2", route(router));
+        }
+        assertEquals(1, attempts.get(), "Only the first read waits on the failed replica");
+        assertEquals(1, router.getStats().replicasDown());
+
+        up.set(true);
+        now.addAndGet(1_000);
+        assertEquals("r1", route(router));
+        assertEquals(2, attempts.get(), "Tried again once the cooldown is over");
+        assertEquals(0, router.getStats().replicasDown());
+    }
+
+    @Test
+    public void testWithoutReplicasEverythingReadsFromPrimary() {
+        ReadRouter router = router();
+        router.recordWrite("ACC1");
+
+        assertEquals("primary", route(router));
+        assertEquals(0, router.getStats().recentWrites(), "Nothing to track without replicas");
+    }
+}
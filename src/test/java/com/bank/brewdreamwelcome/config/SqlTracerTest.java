@@ -0,0 +1,135 @@
+package com.bank.brewdreamwelcome.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SqlTracer, through a TracingDataSource over stub JDBC objects
+ * whose queries return three rows and whose updates change one.
+ */
+public class SqlTracerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final SqlTracer tracer = new SqlTracer(1_000, Long.MAX_VALUE, 3, now::get);
+    private final DataSource dataSource = new TracingDataSource(stubDataSource(), "test", tracer);
+
+    private static <T> T stub(Class<T> type, java.lang.reflect.InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(SqlTracerTest.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static DataSource stubDataSource() {
+        return stub(DataSource.class, (p, m, a) -> m.getName().equals("getConnection") ? stubConnection() : null);
+    }
+
+    private static Connection stubConnection() {
+        return stub(Connection.class, (p, m, a) -> switch (m.getName()) {
+            case "prepareStatement" -> stubStatement(PreparedStatement.class);
+            case "createStatement" -> stubStatement(Statement.class);
+            default -> null;
+        });
+    }
+
+    private static <T extends Statement> T stubStatement(Class<T> type) {
+        return stub(type, (p, m, a) -> switch (m.getName()) {
+            case "executeQuery" -> stubResultSet();
+            case "executeUpdate" -> 1;
+            default -> null;
+        });
+    }
+
+    private static ResultSet stubResultSet() {
+        int[] left = {3};
+        return stub(ResultSet.class, (p, m, a) -> m.getName().equals("next") ? left[0]-- > 0 : null);
+    }
+
+    private static void drain(ResultSet rs) throws Exception {
+        while (rs.next()) {
+            // count the rows
+        }
+    }
+
+    @Test
+    public void testNormalizeFoldsLiteralsAndLists() {
+        assertEquals("SELECT * FROM t WHERE a = ? AND b IN (?) AND c = ? LIMIT ?",
+                SqlTracer.normalize("SELECT *\n  FROM t WHERE a = 'x''y' AND b IN (1, 2,3) AND c = ? LIMIT 50"));
+        assertEquals("INSERT INTO t2 (a, b) VALUES (?, ?), ...",
+                SqlTracer.normalize("INSERT INTO t2 (a, b) VALUES (1, 'a'), (2, 'b'), (3, 'c')"));
+    }
+
+    @Test
+    public void testShapesCollectExecutionsAndRows() throws Exception {
+        try (Connection conn = dataSource.getConnection()) {
+            for (int id = 1; id <= 2; id++) {
+                try (Statement st = conn.createStatement()) {
+                    drain(st.executeQuery("SELECT name FROM customers WHERE id = " + id));
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement("UPDATE accounts SET balance = ? WHERE id = ?")) {
+                ps.executeUpdate();
+            }
+        }
+
+        SqlTracer.ShapeStats select = tracer.getShapeStats().stream()
+                .filter(s -> s.sql().startsWith("SELECT")).findFirst().orElseThrow();
+        assertEquals("SELECT name FROM customers WHERE id = ?", select.sql());
+        assertEquals(2, select.executions());
+        assertEquals(6, select.rows());
+        assertEquals(2, tracer.getShapeStats().size());
+        assertEquals(1, tracer.getHoldStats().get(0).connections());
+        assertEquals(3, tracer.getStats().statements());
+    }
+
+    @Test
+    public void testRepeatedQueryWithinActionIsReportedOnce() throws Exception {
+        tracer.runAction("refresh", () -> {
+            for (int i = 0; i < 5; i++) {
+                // A fresh connection each time: the action still ties them together
+                try (Connection conn = dataSource.getConnection();
+                     PreparedStatement ps = conn.prepareStatement("SELECT * FROM accounts WHERE customer_id = ?")) {
+                    drain(ps.executeQuery());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        assertEquals(1, tracer.getRepeatedQueries().size());
+        SqlTracer.RepeatedQuery repeat = tracer.getRepeatedQueries().get(0);
+        assertEquals("refresh", repeat.action());
+        assertEquals(3, repeat.count());
+    }
+
+    @Test
+    public void testLongHeldConnectionIsReportedWithItsStack() throws Exception {
+        Connection conn = dataSource.getConnection();
+        conn.createStatement();
+
+        now.addAndGet(500);
+        tracer.checkLeaks();
+        assertEquals(0, tracer.getStats().leaksReported());
+
+        now.addAndGet(1_000);
+        tracer.checkLeaks();
+        tracer.checkLeaks();
+        assertEquals(1, tracer.getStats().leaksReported(), "Reported once");
+        SqlTracer.OpenConnection held = tracer.getOpenConnections().get(0);
+        assertEquals(Thread.currentThread().getName(), held.thread());
+        assertTrue(Arrays.stream(held.acquiredAt())
+                .anyMatch(frame -> frame.getMethodName().equals("testLongHeldConnectionIsReportedWithItsStack")),
+                "The stack shows who acquired it");
+
+        conn.close();
+        assertTrue(tracer.getOpenConnections().isEmpty());
+        assertEquals(1, tracer.getStats().unclosedStatements(), "The statement was never closed");
+    }
+}
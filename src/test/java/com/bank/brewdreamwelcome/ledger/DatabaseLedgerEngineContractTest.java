@@ -0,0 +1,138 @@
+package com.bank.brewdreamwelcome.ledger;
+
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.repository.AccountRepository;
+import com.bank.brewdreamwelcome.service.AccountCache;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs the ledger contract against a configured engine on the live database.
+ *
+ * Skipped when the database is unreachable. The engine is picked with
+ * {@code -Dledger.engine=<name>} (default {@code database}), so each engine from
+ * {@link LedgerEngines#names()} can be checked with the same tests. Accounts are
+ * opened under a throwaway customer that is deleted afterwards.
+ */
+public class DatabaseLedgerEngineContractTest extends LedgerEngineContractTest {
+
+    private static LedgerEngine engine;
+    private static int customerId;
+    private static final List<String> openedAccounts = new ArrayList<>();
+
+    @BeforeAll
+    public static void connect() throws SQLException {
+        boolean available;
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            available = conn.isValid(2);
+        } catch (Throwable e) {
+            available = false;
+        }
+        assumeTrue(available, "Database not reachable, skipping ledger contract");
+
+        engine = LedgerEngines.create(System.getProperty("ledger.engine", LedgerEngines.DATABASE));
+        String suffix = String.valueOf(ThreadLocalRandom.current().nextLong(100_000_000L, 1_000_000_000L));
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "INSERT INTO customers (account_id, id_card_number, name, email, password) VALUES (?, ?, ?, ?, ?)",
+                     Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, "LC" + suffix);
+            ps.setString(2, "LC" + suffix);
+            ps.setString(3, "Ledger Contract");
+            ps.setString(4, "ledger-contract-" + suffix + "@example.invalid");
+            ps.setString(5, "-");
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                keys.next();
+                customerId = keys.getInt(1);
+            }
+        }
+    }
+
+    @AfterAll
+    public static void cleanUp() throws SQLException {
+        if (engine == null) {
+            return;
+        }
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement tx = conn.prepareStatement(
+                     "DELETE FROM transactions WHERE from_account = ? OR to_account = ?");
+             PreparedStatement customer = conn.prepareStatement("DELETE FROM customers WHERE id = ?")) {
+            for (String acc : openedAccounts) {
+                tx.setString(1, acc);
+                tx.setString(2, acc);
+                tx.addBatch();
+            }
+            tx.executeBatch();
+            customer.setInt(1, customerId);
+            customer.executeUpdate();
+        }
+    }
+
+    @Override
+    protected LedgerEngine engine() {
+        return engine;
+    }
+
+    @Override
+    protected String openAccount(double balance) throws SQLException {
+        String accountNumber = "LC-" + ThreadLocalRandom.current().nextLong(1_000_000_000L, 10_000_000_000L);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "INSERT INTO accounts (account_number, customer_id, account_type, balance) VALUES (?, ?, 'SAVINGS', ?)")) {
+            ps.setString(1, accountNumber);
+            ps.setInt(2, customerId);
+            ps.setDouble(3, balance);
+            ps.executeUpdate();
+        }
+        openedAccounts.add(accountNumber);
+        return accountNumber;
+    }
+
+    @Override
+    protected void closeAccount(String accountNumber) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE accounts SET is_active = FALSE WHERE account_number = ?")) {
+                ps.setString(1, accountNumber);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE accounts SET status = 'CLOSED' WHERE account_number = ?")) {
+                ps.setString(1, accountNumber);
+                ps.executeUpdate();
+            } catch (SQLException e) {
+                // Schemas created by AuthService track only is_active
+            }
+        }
+        AccountCache.getInstance().invalidateAccount(accountNumber);
+    }
+
+    @Override
+    protected double balanceOf(String accountNumber) throws SQLException {
+        if (engine instanceof EventSourcedLedgerEngine eventSourced) {
+            // accounts.balance is only a projection there
+            return eventSourced.balanceOf(accountNumber).orElseThrow().toDouble();
+        }
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT " + AccountRepository.TOTAL_BALANCE_SQL + " FROM accounts a WHERE account_number = ?")) {
+            ps.setString(1, accountNumber);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getDouble(1);
+            }
+        }
+    }
+}
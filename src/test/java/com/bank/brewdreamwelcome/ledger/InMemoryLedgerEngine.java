@@ -0,0 +1,84 @@
+package com.bank.brewdreamwelcome.ledger;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reference ledger engine held in memory. It defines the expected behaviour of
+ * the contract without a database, and is the baseline the contract tests
+ * themselves are checked against.
+ */
+class InMemoryLedgerEngine implements LedgerEngine {
+
+    private final Map<String, Double> balances = new HashMap<>();
+    private final Set<String> postedKeys = new HashSet<>();
+    private final Set<String> closedAccounts = new HashSet<>();
+    private int nextAccount = 1;
+
+    synchronized String open(double balance) {
+        String accountNumber = "MEM-" + nextAccount++;
+        balances.put(accountNumber, balance);
+        return accountNumber;
+    }
+
+    synchronized void close(String accountNumber) {
+        closedAccounts.add(accountNumber);
+    }
+
+    synchronized double balanceOf(String accountNumber) {
+        return balances.get(accountNumber);
+    }
+
+    @Override
+    public String name() {
+        return "in-memory";
+    }
+
+    @Override
+    public synchronized boolean deposit(String accountNumber, double amount, String description,
+                                        String idempotencyKey) {
+        return post(null, accountNumber, amount, idempotencyKey);
+    }
+
+    @Override
+    public synchronized boolean withdraw(String accountNumber, double amount, String description,
+                                         String idempotencyKey) {
+        return post(accountNumber, null, amount, idempotencyKey);
+    }
+
+    @Override
+    public synchronized boolean transfer(String fromAccount, String toAccount, double amount, String description,
+                                         String idempotencyKey) {
+        if (fromAccount.equals(toAccount)) {
+            return false;
+        }
+        return post(fromAccount, toAccount, amount, idempotencyKey);
+    }
+
+    private boolean post(String from, String to, double amount, String idempotencyKey) {
+        boolean keyed = idempotencyKey != null && !idempotencyKey.isBlank();
+        if (keyed && postedKeys.contains(idempotencyKey)) {
+            return true;
+        }
+        if (amount <= 0 || (from != null && !isActive(from)) || (to != null && !isActive(to))
+                || (from != null && balances.get(from) < amount)) {
+            return false;
+        }
+        if (from != null) {
+            balances.merge(from, -amount, Double::sum);
+        }
+        if (to != null) {
+            balances.merge(to, amount, Double::sum);
+        }
+        if (keyed) {
+            postedKeys.add(idempotencyKey);
+        }
+        return true;
+    }
+
+    private boolean isActive(String accountNumber) {
+        return balances.containsKey(accountNumber) && !closedAccounts.contains(accountNumber);
+    }
+}
@@ -0,0 +1,29 @@
+package com.bank.brewdreamwelcome.ledger;
+
+/**
+ * Runs the ledger contract against the in-memory reference engine.
+ */
+public class InMemoryLedgerEngineContractTest extends LedgerEngineContractTest {
+
+    private final InMemoryLedgerEngine engine = new InMemoryLedgerEngine();
+
+    @Override
+    protected LedgerEngine engine() {
+        return engine;
+    }
+
+    @Override
+    protected String openAccount(double balance) {
+        return engine.open(balance);
+    }
+
+    @Override
+    protected double balanceOf(String accountNumber) {
+        return engine.balanceOf(accountNumber);
+    }
+
+    @Override
+    protected void closeAccount(String accountNumber) {
+        engine.close(accountNumber);
+    }
+}
@@ -0,0 +1,179 @@
+package com.bank.brewdreamwelcome.ledger;
+
+import com.bank.brewdreamwelcome.BankDatabaseService.TransferRequest;
+import com.bank.brewdreamwelcome.BankDatabaseService.TransferResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contract every {@link LedgerEngine} must satisfy. Subclasses supply the engine
+ * and a fixture that opens funded accounts and reads balances back; the same
+ * tests then run against every implementation.
+ */
+public abstract class LedgerEngineContractTest {
+
+    private static final double DELTA = 0.001;
+
+    protected abstract LedgerEngine engine();
+
+    /**
+     * Opens a new ACTIVE account holding {@code balance} and returns its number.
+     */
+    protected abstract String openAccount(double balance) throws Exception;
+
+    protected abstract double balanceOf(String accountNumber) throws Exception;
+
+    /**
+     * Closes the account so that it is no longer ACTIVE.
+     */
+    protected abstract void closeAccount(String accountNumber) throws Exception;
+
+    private static String newKey() {
+        return "contract-" + UUID.randomUUID();
+    }
+
+    @Test
+    public void testDepositCreditsAccount() throws Exception {
+        String acc = openAccount(100.00);
+        assertTrue(engine().deposit(acc, 25.50, "Contract deposit"));
+        assertEquals(125.50, balanceOf(acc), DELTA);
+    }
+
+    @Test
+    public void testWithdrawDebitsAccount() throws Exception {
+        String acc = openAccount(100.00);
+        assertTrue(engine().withdraw(acc, 40.25, "Contract withdrawal"));
+        assertEquals(59.75, balanceOf(acc), DELTA);
+    }
+
+    @Test
+    public void testOverdraftIsRejected() throws Exception {
+        String acc = openAccount(10.00);
+        assertFalse(engine().withdraw(acc, 10.01, "Contract overdraft"));
+        assertFalse(engine().transfer(acc, openAccount(0.00), 10.01, "Contract overdraft"));
+        assertEquals(10.00, balanceOf(acc), DELTA);
+    }
+
+    @Test
+    public void testTransferMovesExactAmount() throws Exception {
+        String from = openAccount(200.00);
+        String to = openAccount(50.00);
+        assertTrue(engine().transfer(from, to, 75.00, "Contract transfer"));
+        assertEquals(125.00, balanceOf(from), DELTA);
+        assertEquals(125.00, balanceOf(to), DELTA);
+    }
+
+    @Test
+    public void testInvalidRequestsAreRejected() throws Exception {
+        String acc = openAccount(100.00);
+        String other = openAccount(100.00);
+        assertFalse(engine().deposit(acc, 0, "Zero"));
+        assertFalse(engine().withdraw(acc, -5, "Negative"));
+        assertFalse(engine().transfer(acc, acc, 10, "Self"));
+        assertFalse(engine().transfer(acc, other, 0, "Zero"));
+        assertFalse(engine().transfer(acc, "NO-SUCH-ACCOUNT", 10, "Unknown"));
+        assertFalse(engine().deposit("NO-SUCH-ACCOUNT", 10, "Unknown"));
+        assertEquals(100.00, balanceOf(acc), DELTA);
+        assertEquals(100.00, balanceOf(other), DELTA);
+    }
+
+    @Test
+    public void testInactiveAccountsAreRejected() throws Exception {
+        String active = openAccount(100.00);
+        String closed = openAccount(100.00);
+        closeAccount(closed);
+        assertFalse(engine().transfer(active, closed, 10.00, "To closed"));
+        assertFalse(engine().transfer(closed, active, 10.00, "From closed"));
+        assertFalse(engine().deposit(closed, 10.00, "Closed deposit"));
+        assertEquals(100.00, balanceOf(active), DELTA);
+        assertEquals(100.00, balanceOf(closed), DELTA);
+    }
+
+    @Test
+    public void testTransferBatchReportsEachRequestInOrder() throws Exception {
+        String from = openAccount(100.00);
+        String to = openAccount(0.00);
+        List<TransferResult> results = engine().transferBatch(List.of(
+                new TransferRequest(from, to, 30.00, "Contract batch"),
+                new TransferRequest(from, to, 80.00, "Contract batch overdraft"),
+                new TransferRequest(from, from, 5.00, "Contract batch self"),
+                new TransferRequest(from, to, 20.00, "Contract batch")));
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).success());
+        assertFalse(results.get(1).success(), "Only 70 left after the first transfer");
+        assertFalse(results.get(2).success());
+        assertTrue(results.get(3).success());
+        assertEquals("Contract batch overdraft", results.get(1).request().description());
+        assertEquals(50.00, balanceOf(from), DELTA);
+        assertEquals(50.00, balanceOf(to), DELTA);
+    }
+
+    @Test
+    public void testRepeatedKeyPostsOnce() throws Exception {
+        String from = openAccount(100.00);
+        String to = openAccount(0.00);
+        String transferKey = newKey();
+        String depositKey = newKey();
+
+        assertTrue(engine().transfer(from, to, 30.00, "Contract transfer", transferKey));
+        assertTrue(engine().transfer(from, to, 30.00, "Contract transfer", transferKey), "A replay reports success");
+        assertTrue(engine().deposit(to, 5.00, "Contract deposit", depositKey));
+        assertTrue(engine().deposit(to, 5.00, "Contract deposit", depositKey));
+
+        assertEquals(70.00, balanceOf(from), DELTA);
+        assertEquals(35.00, balanceOf(to), DELTA);
+    }
+
+    @Test
+    public void testConcurrentTransfersConserveMoney() throws Exception {
+        List<String> accounts = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            accounts.add(openAccount(50.00));
+        }
+        int threads = 8;
+        int transfersPerThread = 25;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Throwable> failures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < transfersPerThread; i++) {
+                        int from = random.nextInt(accounts.size());
+                        int to = (from + 1 + random.nextInt(accounts.size() - 1)) % accounts.size();
+                        // Some of these overdraw and must be rejected without side effects
+                        engine().transfer(accounts.get(from), accounts.get(to), 7.00, "Contract load");
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+
+        assertTrue(failures.isEmpty(), () -> "Worker failed: " + failures);
+        double total = 0;
+        for (String acc : accounts) {
+            double balance = balanceOf(acc);
+            assertTrue(balance >= 0, acc + " went negative: " + balance);
+            total += balance;
+        }
+        assertEquals(200.00, total, DELTA);
+    }
+}
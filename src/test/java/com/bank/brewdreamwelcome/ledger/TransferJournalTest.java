@@ -0,0 +1,236 @@
+package com.bank.brewdreamwelcome.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TransferJournal.
+ * Drains into the in-memory reference engine; an outage is simulated by a
+ * ledger that fails while the database is reported unreachable.
+ */
+public class TransferJournalTest {
+
+    private static final int SEGMENT_BYTES = 8192;
+
+    @TempDir
+    Path dir;
+
+    private final InMemoryLedgerEngine memory = new InMemoryLedgerEngine();
+    private final AtomicBoolean databaseUp = new AtomicBoolean(true);
+    private final List<String> postedKeys = new ArrayList<>();
+    /** Number of upcoming transfers that fail with a deadlock although the database is up. */
+    private final AtomicInteger deadlocks = new AtomicInteger();
+
+    /**
+     * Fails every call while the database is down, throws while {@code deadlocks}
+     * lasts; records the keys it is asked to post.
+     */
+    private final LedgerEngine ledger = new LedgerEngine() {
+        @Override
+        public String name() {
+            return "test";
+        }
+
+        @Override
+        public boolean deposit(String accountNumber, double amount, String description, String idempotencyKey) {
+            return databaseUp.get() && memory.deposit(accountNumber, amount, description, idempotencyKey);
+        }
+
+        @Override
+        public boolean withdraw(String accountNumber, double amount, String description, String idempotencyKey) {
+            return databaseUp.get() && memory.withdraw(accountNumber, amount, description, idempotencyKey);
+        }
+
+        @Override
+        public boolean transfer(String fromAccount, String toAccount, double amount, String description,
+                                String idempotencyKey) {
+            if (!databaseUp.get()) {
+                return false;
+            }
+            synchronized (postedKeys) {
+                postedKeys.add(idempotencyKey);
+            }
+            return memory.transfer(fromAccount, toAccount, amount, description, idempotencyKey);
+        }
+
+        @Override
+        public boolean transferOrThrow(String fromAccount, String toAccount, double amount, String description,
+                                       String idempotencyKey) throws SQLException {
+            if (deadlocks.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new SQLTransactionRollbackException("Deadlock found", "40001", 1213);
+            }
+            return transfer(fromAccount, toAccount, amount, description, idempotencyKey);
+        }
+    };
+
+    private TransferJournal open() throws Exception {
+        BooleanSupplier available = databaseUp::get;
+        return new TransferJournal(dir, ledger, SEGMENT_BYTES, 100, available);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the journal");
+            Thread.sleep(10);
+        }
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".seg")).count();
+        }
+    }
+
+    @Test
+    public void testAcceptedTransfersArePostedInOrder() throws Exception {
+        String from = memory.open(1000.00);
+        String to = memory.open(0.00);
+        try (TransferJournal journal = open()) {
+            List<String> receipts = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                receipts.add(journal.accept(from, to, 1.25, "Journal " + i).idempotencyKey());
+            }
+            await(() -> journal.getStats().posted() == 200);
+            synchronized (postedKeys) {
+                assertEquals(receipts, postedKeys, "Intents must post in journal order");
+            }
+        }
+        assertEquals(750.00, memory.balanceOf(from), 0.001);
+        assertEquals(250.00, memory.balanceOf(to), 0.001);
+    }
+
+    @Test
+    public void testDrainedSegmentsAreDeleted() throws Exception {
+        String from = memory.open(1000.00);
+        String to = memory.open(0.00);
+        databaseUp.set(false); // hold the drainer back until the journal has rotated
+        try (TransferJournal journal = open()) {
+            for (int i = 0; i < 300; i++) {
+                journal.accept(from, to, 1.00, "Rotate " + i);
+            }
+            assertTrue(segmentCount() > 1, "The journal should have rotated");
+            databaseUp.set(true);
+            await(() -> journal.getStats().posted() == 300);
+            await(() -> {
+                try {
+                    return segmentCount() == 1;
+                } catch (Exception e) {
+                    return false;
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testOutageIsReplayedAfterRestart() throws Exception {
+        String from = memory.open(100.00);
+        String to = memory.open(0.00);
+        databaseUp.set(false);
+        try (TransferJournal journal = open()) {
+            journal.accept(from, to, 10.00, "During outage");
+            journal.accept(from, to, 20.00, "During outage");
+        }
+        assertEquals(100.00, memory.balanceOf(from), 0.001, "Nothing may post while the database is down");
+
+        databaseUp.set(true);
+        try (TransferJournal journal = open()) {
+            await(() -> journal.getStats().posted() == 2);
+            assertEquals(3, journal.accept(from, to, 5.00, "After restart").sequence());
+            await(() -> journal.getStats().posted() == 3);
+        }
+        assertEquals(65.00, memory.balanceOf(from), 0.001);
+    }
+
+    @Test
+    public void testReplayWithoutCheckpointPostsOnce() throws Exception {
+        String from = memory.open(100.00);
+        String to = memory.open(0.00);
+        try (TransferJournal journal = open()) {
+            journal.accept(from, to, 40.00, "Once");
+            await(() -> journal.getStats().posted() == 1);
+        }
+        // Crash before the checkpoint reached the disk
+        Files.delete(dir.resolve("drained.checkpoint"));
+
+        try (TransferJournal journal = open()) {
+            await(() -> journal.getStats().posted() == 1);
+        }
+        synchronized (postedKeys) {
+            assertEquals(2, postedKeys.size(), "The intent is offered again");
+            assertEquals(postedKeys.get(0), postedKeys.get(1), "with the same idempotency key");
+        }
+        assertEquals(60.00, memory.balanceOf(from), 0.001, "but posted only once");
+    }
+
+    @Test
+    public void testTransientErrorIsRetriedNotRejected() throws Exception {
+        String from = memory.open(100.00);
+        String to = memory.open(0.00);
+        deadlocks.set(2);
+        try (TransferJournal journal = open()) {
+            journal.accept(from, to, 30.00, "Deadlocked twice");
+            await(() -> journal.getStats().posted() == 1);
+            assertEquals(0, journal.getStats().rejected());
+        }
+        assertEquals(70.00, memory.balanceOf(from), 0.001);
+    }
+
+    @Test
+    public void testRejectionIsReportedToListeners() throws Exception {
+        String from = memory.open(10.00);
+        String to = memory.open(0.00);
+        List<Boolean> outcomes = new CopyOnWriteArrayList<>();
+        try (TransferJournal journal = open()) {
+            journal.addOutcomeListener((entry, key, posted) -> outcomes.add(posted));
+            journal.accept(from, to, 50.00, "Insufficient funds");
+            journal.accept(from, to, 5.00, "Fits");
+            await(() -> outcomes.size() == 2);
+            assertEquals(List.of(false, true), outcomes);
+            assertEquals(1, journal.getStats().rejected());
+        }
+        assertEquals(5.00, memory.balanceOf(from), 0.001);
+    }
+
+    @Test
+    public void testCorruptRecordEndsReplay() throws Exception {
+        String from = memory.open(100.00);
+        String to = memory.open(0.00);
+        databaseUp.set(false);
+        try (TransferJournal journal = open()) {
+            journal.accept(from, to, 1.00, "First");
+            journal.accept(from, to, 2.00, "Second");
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(p -> p.getFileName().toString().endsWith(".seg")).findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] = 0; // keep the size, then damage the second record's payload
+        int second = 16 + java.nio.ByteBuffer.wrap(bytes).getInt(0);
+        bytes[second + 20] ^= 0x5A;
+        Files.write(segment, bytes);
+
+        databaseUp.set(true);
+        try (TransferJournal journal = open()) {
+            await(() -> journal.getStats().posted() == 1);
+            Thread.sleep(200);
+            assertEquals(1, journal.getStats().posted());
+        }
+        assertEquals(99.00, memory.balanceOf(from), 0.001);
+    }
+}
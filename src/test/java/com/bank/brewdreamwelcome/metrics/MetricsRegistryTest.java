@@ -0,0 +1,77 @@
+package com.bank.brewdreamwelcome.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MetricsRegistry.
+ */
+public class MetricsRegistryTest {
+
+    @Test
+    public void testSameNameAndLabelsReturnSameMetric() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter a = registry.counter("vaultx_test_total", "Test", "kind", "a");
+        assertSame(a, registry.counter("vaultx_test_total", "Test", "kind", "a"));
+        assertNotSame(a, registry.counter("vaultx_test_total", "Test", "kind", "b"));
+        assertThrows(IllegalArgumentException.class, () -> registry.timer("vaultx_test_total", "Test"));
+    }
+
+    @Test
+    public void testScrapeRendersTimerAsSummaryWithFailures() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Timer timer = registry.timer("vaultx_call_seconds", "Calls", "method", "transfer");
+        long started = System.nanoTime();
+        timer.record(started, true);
+        timer.record(started, false);
+        timer.record(started);
+
+        String text = registry.scrape();
+        assertTrue(text.contains("# TYPE vaultx_call_seconds summary\n"), text);
+        assertTrue(text.contains("vaultx_call_seconds{method=\"transfer\",quantile=\"0.5\"} "), text);
+        assertTrue(text.contains("vaultx_call_seconds{method=\"transfer\",quantile=\"0.999\"} "), text);
+        assertTrue(text.contains("vaultx_call_seconds_count{method=\"transfer\"} 3\n"), text);
+        assertTrue(text.contains("# TYPE vaultx_call_failures_total counter\n"), text);
+        assertTrue(text.contains("vaultx_call_failures_total{method=\"transfer\"} 1\n"), text);
+        assertEquals(1, timer.failures());
+    }
+
+    @Test
+    public void testTimeCountsRejectedResultsAndExceptionsAsFailures() {
+        Timer timer = new MetricsRegistry().timer("vaultx_call_seconds", "Calls");
+        assertTrue(timer.time(() -> true, Boolean::booleanValue));
+        assertFalse(timer.time(() -> false, Boolean::booleanValue));
+        assertEquals("x", timer.time(() -> "x"));
+        assertThrows(IllegalStateException.class, () -> timer.time(() -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(4, timer.latency().count());
+        assertEquals(2, timer.failures());
+    }
+
+    @Test
+    public void testGaugeIsReadAtScrapeAndLabelsAreEscaped() {
+        MetricsRegistry registry = new MetricsRegistry();
+        double[] value = {2};
+        registry.gauge("vaultx_test_gauge", "Test", () -> value[0], "pool", "a\"b\\c");
+        value[0] = 0.5;
+
+        assertTrue(registry.scrape().contains("vaultx_test_gauge{pool=\"a\\\"b\\\\c\"} 0.5\n"));
+        assertThrows(IllegalArgumentException.class, () -> MetricsRegistry.labelString("odd"));
+    }
+
+    @Test
+    public void testSupplierCounterIsReadAtScrapeAsCounter() {
+        MetricsRegistry registry = new MetricsRegistry();
+        long[] value = {3};
+        registry.counter("vaultx_test_rejected_total", "Test", () -> value[0], "pool", "oltp");
+        value[0] = 7;
+
+        String text = registry.scrape();
+        assertTrue(text.contains("# TYPE vaultx_test_rejected_total counter\n"), text);
+        assertTrue(text.contains("vaultx_test_rejected_total{pool=\"oltp\"} 7\n"), text);
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.counter("vaultx_test_rejected_total", "Test", "pool", "oltp"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.bank.brewdreamwelcome.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HiLoSequence.
+ * Uses an in-memory block source in place of the id_sequences table.
+ */
+public class HiLoSequenceTest {
+
+    @Test
+    public void testValuesComeFromReservedBlock() throws Exception {
+        AtomicInteger reservations = new AtomicInteger();
+        HiLoSequence sequence = new HiLoSequence("test", 10, (name, size) -> {
+            reservations.incrementAndGet();
+            return 500;
+        });
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(500 + i, sequence.next());
+        }
+        assertEquals(1, reservations.get(), "One block should serve ten values");
+        assertEquals(0, sequence.remainingInBlock());
+    }
+
+    @Test
+    public void testReservesNewBlockWhenExhausted() throws Exception {
+        AtomicLong shared = new AtomicLong(1);
+        HiLoSequence sequence = new HiLoSequence("test", 3, (name, size) -> shared.getAndAdd(size));
+
+        long[] values = new long[7];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = sequence.next();
+        }
+        assertArrayEquals(new long[] {1, 2, 3, 4, 5, 6, 7}, values);
+    }
+
+    @Test
+    public void testTwoAllocatorsNeverOverlap() throws Exception {
+        AtomicLong shared = new AtomicLong(1);
+        HiLoSequence.BlockSource source = (name, size) -> shared.getAndAdd(size);
+        HiLoSequence first = new HiLoSequence("test", 5, source);
+        HiLoSequence second = new HiLoSequence("test", 5, source);
+
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            assertTrue(seen.add(first.next()), "Duplicate value from first allocator");
+            assertTrue(seen.add(second.next()), "Duplicate value from second allocator");
+        }
+    }
+
+    @Test
+    public void testInvalidBlockSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new HiLoSequence("test", 0, (name, size) -> 1));
+    }
+}
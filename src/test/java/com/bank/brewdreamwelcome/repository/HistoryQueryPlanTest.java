@@ -0,0 +1,174 @@
+package com.bank.brewdreamwelcome.repository;
+
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.repository.TransactionRepository.HistoryQuery;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks with EXPLAIN that the history and "today" queries reach the
+ * transactions table through an index range, never a full table or index scan.
+ *
+ * Skipped when the database is unreachable. Seeds {@code -Dhistory.plan.rows}
+ * transactions (default 20,000) spread over two years and 40 accounts, two of
+ * which belong to the customer under test, then deletes them afterwards.
+ */
+public class HistoryQueryPlanTest {
+
+    private static final int ACCOUNTS = 40;
+
+    private static boolean available;
+    private static String marker;
+    private static final List<Integer> customers = new ArrayList<>();
+    private static final List<String> accounts = new ArrayList<>();
+
+    @BeforeAll
+    public static void seed() throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            available = conn.isValid(2);
+        } catch (Throwable e) {
+            available = false;
+        }
+        assumeTrue(available, "Database not reachable, skipping query plan checks");
+
+        String suffix = String.valueOf(ThreadLocalRandom.current().nextLong(100_000_000L, 1_000_000_000L));
+        marker = "history-plan-" + suffix;
+        int rows = Integer.getInteger("history.plan.rows", 20_000);
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            customers.add(insertCustomer(conn, "HA" + suffix));
+            customers.add(insertCustomer(conn, "HB" + suffix));
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO accounts (account_number, customer_id, account_type, balance) VALUES (?, ?, 'SAVINGS', 0)")) {
+                for (int i = 0; i < ACCOUNTS; i++) {
+                    String accountNumber = "HP-" + suffix.substring(0, 6) + String.format("%03d", i);
+                    ps.setString(1, accountNumber);
+                    ps.setInt(2, customers.get(i < 2 ? 0 : 1));
+                    ps.addBatch();
+                    accounts.add(accountNumber);
+                }
+                ps.executeBatch();
+            }
+
+            Random random = new Random(42);
+            long now = System.currentTimeMillis();
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO transactions (transaction_id, transaction_type, from_account, to_account, amount, description, timestamp) " +
+                    "VALUES (?, 'TRANSFER', ?, ?, 1.0000, ?, ?)")) {
+                for (int i = 0; i < rows; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    ps.setString(1, "HP-" + suffix + "-" + i);
+                    ps.setString(2, accounts.get(from));
+                    ps.setString(3, accounts.get(to));
+                    ps.setString(4, marker);
+                    ps.setTimestamp(5, new Timestamp(now - (long) (random.nextDouble() * 730L * 86_400_000L)));
+                    ps.addBatch();
+                    if (i % 1000 == 999) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ANALYZE TABLE transactions");
+            }
+        }
+    }
+
+    private static int insertCustomer(Connection conn, String id) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO customers (account_id, id_card_number, name, email, password) VALUES (?, ?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, id);
+            ps.setString(2, id);
+            ps.setString(3, "History Plan");
+            ps.setString(4, "history-plan-" + id + "@example.invalid");
+            ps.setString(5, "-");
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                keys.next();
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    @AfterAll
+    public static void cleanUp() throws SQLException {
+        if (!available) {
+            return;
+        }
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement tx = conn.prepareStatement("DELETE FROM transactions WHERE description = ?");
+             PreparedStatement customer = conn.prepareStatement("DELETE FROM customers WHERE id = ?")) {
+            tx.setString(1, marker);
+            tx.executeUpdate();
+            for (int id : customers) {
+                customer.setInt(1, id);
+                customer.executeUpdate();
+            }
+        }
+    }
+
+    @Test
+    public void testAccountHistoryUsesIndexRanges() throws SQLException {
+        String accNo = accounts.get(0);
+        assertIndexed(TransactionRepository.accountHistory("*", "transaction_id", accNo, null, null, 101));
+        assertIndexed(TransactionRepository.accountHistory("*", "transaction_id", accNo,
+                new Timestamp(System.currentTimeMillis() - 86_400_000L * 365), "HP-", 101));
+    }
+
+    @Test
+    public void testCustomerHistoryUsesIndexRanges() throws SQLException {
+        int customerId = customers.get(0);
+        assertIndexed(TransactionRepository.customerHistory("*", "transaction_id", customerId, null, null, 101));
+        assertIndexed(TransactionRepository.customerHistory("*", "transaction_id", customerId,
+                new Timestamp(System.currentTimeMillis() - 86_400_000L * 365), "HP-", 101));
+    }
+
+    @Test
+    public void testTodayFiltersUseIndexRanges() throws SQLException {
+        assertIndexed(TransactionRepository.customerTodayCount(customers.get(0)));
+        assertIndexed(new HistoryQuery(
+                "SELECT COUNT(*) FROM transactions WHERE " + TransactionRepository.TODAY, List.of()));
+    }
+
+    private static void assertIndexed(HistoryQuery query) throws SQLException {
+        int checked = 0;
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement ps = conn.prepareStatement("EXPLAIN " + query.sql())) {
+            int index = 1;
+            for (Object param : query.params()) {
+                ps.setObject(index++, param);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (!"transactions".equals(rs.getString("table"))) {
+                        continue; // derived, union and materialized subquery rows
+                    }
+                    String access = rs.getString("type");
+                    assertNotEquals("ALL", access, "Full table scan in: " + query.sql());
+                    assertNotEquals("index", access, "Full index scan in: " + query.sql());
+                    assertNotNull(rs.getString("key"), "No index used in: " + query.sql());
+                    checked++;
+                }
+            }
+        }
+        assertTrue(checked > 0, "Plan never reached the transactions table: " + query.sql());
+    }
+}
@@ -0,0 +1,183 @@
+package com.bank.brewdreamwelcome.repository;
+
+import com.bank.brewdreamwelcome.config.DatabaseConfig;
+import com.bank.brewdreamwelcome.repository.TransactionRepository.HistoryCursor;
+import com.bank.brewdreamwelcome.repository.TransactionRepository.Transaction;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Pages through account and customer history with the keyset cursor and checks
+ * that every row comes back exactly once, in order, including runs of rows that
+ * share a timestamp and straddle a page boundary.
+ *
+ * Skipped when the database is unreachable. Seeds two accounts of one customer
+ * and deletes them afterwards.
+ */
+public class TransactionHistoryPagingTest {
+
+    private static final int SAME_SECOND = 7;
+    private static final int ROWS = 20;
+
+    private static boolean available;
+    private static String marker;
+    private static int customerId;
+    private static final List<String> accounts = new ArrayList<>();
+
+    private final TransactionRepository repository = new TransactionRepository();
+
+    @BeforeAll
+    public static void seed() throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            available = conn.isValid(2);
+        } catch (Throwable e) {
+            available = false;
+        }
+        assumeTrue(available, "Database not reachable, skipping history paging checks");
+
+        String suffix = String.valueOf(ThreadLocalRandom.current().nextLong(100_000_000L, 1_000_000_000L));
+        marker = "history-paging-" + suffix;
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO customers (account_id, id_card_number, name, email, password) VALUES (?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                ps.setString(1, "HG" + suffix);
+                ps.setString(2, "HG" + suffix);
+                ps.setString(3, "History Paging");
+                ps.setString(4, marker + "@example.invalid");
+                ps.setString(5, "-");
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                    customerId = keys.getInt(1);
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO accounts (account_number, customer_id, account_type, balance) VALUES (?, ?, 'SAVINGS', 0)")) {
+                for (int i = 0; i < 2; i++) {
+                    String accountNumber = "HG-" + suffix.substring(0, 6) + i;
+                    ps.setString(1, accountNumber);
+                    ps.setInt(2, customerId);
+                    ps.addBatch();
+                    accounts.add(accountNumber);
+                }
+                ps.executeBatch();
+            }
+
+            // The first SAME_SECOND rows share one timestamp; the rest are a second apart
+            long base = (System.currentTimeMillis() / 1000 - 3600) * 1000;
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO transactions (transaction_id, transaction_type, from_account, to_account, amount, description, timestamp) " +
+                    "VALUES (?, 'TRANSFER', ?, ?, 1.0000, ?, ?)")) {
+                for (int i = 0; i < ROWS; i++) {
+                    ps.setString(1, "HG-" + suffix + "-" + String.format("%02d", i));
+                    ps.setString(2, accounts.get(i % 2));
+                    ps.setString(3, accounts.get((i + 1) % 2));
+                    ps.setString(4, marker);
+                    ps.setTimestamp(5, new Timestamp(base - (i < SAME_SECOND ? 0 : (i - SAME_SECOND + 1) * 1000L)));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+    }
+
+    @AfterAll
+    public static void cleanUp() throws SQLException {
+        if (!available) {
+            return;
+        }
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement tx = conn.prepareStatement("DELETE FROM transactions WHERE description = ?");
+             PreparedStatement account = conn.prepareStatement("DELETE FROM accounts WHERE customer_id = ?");
+             PreparedStatement customer = conn.prepareStatement("DELETE FROM customers WHERE id = ?")) {
+            tx.setString(1, marker);
+            tx.executeUpdate();
+            account.setInt(1, customerId);
+            account.executeUpdate();
+            customer.setInt(1, customerId);
+            customer.executeUpdate();
+        }
+    }
+
+    @Test
+    public void testAccountCursorContinuesAcrossEqualTimestamps() throws SQLException {
+        // Every seeded row touches both accounts, so either one sees all of them
+        assertPagesCoverEverything(3, (conn, after, sink) ->
+                repository.streamByAccount(conn, accounts.get(0), after, 3, sink));
+    }
+
+    @Test
+    public void testCustomerCursorContinuesAcrossEqualTimestamps() throws SQLException {
+        assertPagesCoverEverything(4, (conn, after, sink) ->
+                repository.streamByCustomer(conn, customerId, after, 4, sink));
+    }
+
+    @Test
+    public void testEqualTimestampsAreOrderedByTransactionId() throws SQLException {
+        List<Transaction> firstPage = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            repository.streamByAccount(conn, accounts.get(0), null, SAME_SECOND, firstPage::add);
+        }
+        assertEquals(SAME_SECOND, firstPage.size());
+        for (int i = 1; i < firstPage.size(); i++) {
+            assertEquals(firstPage.get(0).timestamp(), firstPage.get(i).timestamp());
+            assertTrue(firstPage.get(i - 1).id().compareTo(firstPage.get(i).id()) > 0,
+                    "Rows with one timestamp must come newest transaction ID first");
+        }
+    }
+
+    @FunctionalInterface
+    private interface PageReader {
+        HistoryCursor read(Connection conn, HistoryCursor after,
+                           Consumer<Transaction> sink) throws SQLException;
+    }
+
+    private static void assertPagesCoverEverything(int pageSize, PageReader reader) throws SQLException {
+        List<Transaction> seen = new ArrayList<>();
+        HistoryCursor cursor = null;
+        int pages = 0;
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            do {
+                List<Transaction> page = new ArrayList<>();
+                cursor = reader.read(conn, cursor, page::add);
+                assertTrue(page.size() <= pageSize);
+                seen.addAll(page);
+                assertTrue(++pages <= ROWS, "Cursor does not advance");
+            } while (cursor != null);
+        }
+
+        List<String> ids = new ArrayList<>();
+        for (Transaction tx : seen) {
+            if (marker.equals(tx.description())) {
+                ids.add(tx.id());
+            }
+        }
+        assertEquals(ROWS, ids.size(), "Every row exactly once: " + ids);
+        assertEquals(ROWS, new HashSet<>(ids).size(), "No row twice: " + ids);
+        for (int i = 1; i < seen.size(); i++) {
+            Transaction prev = seen.get(i - 1);
+            Transaction next = seen.get(i);
+            int byTime = prev.timestamp().compareTo(next.timestamp());
+            assertTrue(byTime > 0 || (byTime == 0 && prev.id().compareTo(next.id()) > 0),
+                    "History must be newest first: " + prev.id() + " before " + next.id());
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.service.AccountCache.AccountState;
+import com.bank.brewdreamwelcome.service.AccountCache.PendingWrite;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AccountCache's versioning, load rejection, eviction and listeners.
+ * The database loader is replaced by an in-memory table that counts its reads,
+ * and writes are staged with the rows a transaction would have re-read.
+ */
+public class AccountCacheTest {
+
+    private final Map<String, AccountState> rows = new LinkedHashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<Object> recordedWrites = new ArrayList<>();
+    private Runnable duringLoad = () -> { };
+    private AccountCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new AccountCache(3, 2, new AccountCache.Loader() {
+            @Override
+            public List<AccountState> loadCustomer(int customerId) {
+                loads.incrementAndGet();
+                duringLoad.run();
+                return rows.values().stream().filter(state -> state.customerId() == customerId).toList();
+            }
+
+            @Override
+            public AccountState loadAccount(String accountNumber) {
+                loads.incrementAndGet();
+                duringLoad.run();
+                return rows.get(accountNumber);
+            }
+        }, recordedWrites::add);
+        rows.put("AC-1", state("AC-1", 1, 100, false));
+        rows.put("AC-2", state("AC-2", 1, 200, false));
+        rows.put("AC-3", state("AC-3", 2, 300, false));
+        rows.put("AC-4", state("AC-4", 3, 400, false));
+    }
+
+    private static AccountState state(String accountNumber, int customerId, double balance, boolean striped) {
+        return new AccountState(accountNumber, customerId, "C" + customerId, "ID" + customerId, "Name",
+                null, "SAVINGS", balance, "Main", true, "ACTIVE",
+                new Timestamp(1_700_000_000_000L + accountNumber.hashCode()), striped);
+    }
+
+    private PendingWrite stage(AccountState... states) {
+        Set<String> numbers = new TreeSet<>();
+        for (AccountState state : states) {
+            numbers.add(state.accountNumber());
+        }
+        return cache.stage(numbers, List.of(states));
+    }
+
+    @Test
+    public void testRepeatedReadsAreServedFromCache() throws SQLException {
+        AccountState first = cache.getAccount("AC-1");
+        AccountState second = cache.getAccount("AC-1");
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getStats().hits());
+        assertEquals(1, cache.getStats().misses());
+    }
+
+    @Test
+    public void testCustomerListReusesCachedAccounts() throws SQLException {
+        List<AccountState> accounts = cache.getCustomerAccounts(1);
+        cache.getAccount("AC-1");
+        cache.getCustomerAccounts(1);
+
+        assertEquals(2, accounts.size());
+        assertEquals(1, loads.get());
+        assertEquals(2, cache.getStats().hits());
+    }
+
+    @Test
+    public void testPublishedWriteReplacesCachedState() throws SQLException {
+        cache.getAccount("AC-1");
+
+        cache.publish(stage(state("AC-1", 1, 150, false)));
+
+        assertEquals(150, cache.getAccount("AC-1").balance());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testOlderWriteCannotReplaceNewer() throws SQLException {
+        PendingWrite older = stage(state("AC-1", 1, 150, false));
+        PendingWrite newer = stage(state("AC-1", 1, 175, false));
+
+        cache.publish(newer);
+        cache.publish(older);
+
+        assertEquals(175, cache.getAccount("AC-1").balance());
+        assertEquals(0, loads.get());
+        assertEquals(1, cache.getStats().staleLoadsRejected());
+    }
+
+    @Test
+    public void testWriteAfterInvalidationIsStale() throws SQLException {
+        PendingWrite write = stage(state("AC-1", 1, 150, false));
+        cache.invalidateAccount("AC-1");
+
+        cache.publish(write);
+        AccountState reloaded = cache.getAccount("AC-1");
+
+        assertEquals(100, reloaded.balance(), "The write predates the invalidation, so it is not cached");
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getStats().staleLoadsRejected());
+    }
+
+    @Test
+    public void testLoadDuringPendingWriteIsNotCached() throws SQLException {
+        PendingWrite write = stage(state("AC-1", 1, 150, false));
+        cache.getAccount("AC-1");
+        cache.getAccount("AC-1");
+
+        assertEquals(2, loads.get());
+        assertEquals(2, cache.getStats().staleLoadsRejected());
+
+        cache.publish(write);
+        assertEquals(150, cache.getAccount("AC-1").balance());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testAbandonedWriteStopsHoldingOffLoads() throws SQLException {
+        cache.abandon(stage(state("AC-1", 1, 150, false)));
+
+        assertEquals(100, cache.getAccount("AC-1").balance());
+        cache.getAccount("AC-1");
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testFailedCommitAbandonsWrite() throws SQLException {
+        Connection failing = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("commit")) {
+                        throw new SQLException("Deadlock found", "40001", 1213);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        PendingWrite write = stage(state("AC-1", 1, 150, false));
+
+        assertThrows(SQLException.class, () -> cache.commitAndPublish(failing, write));
+
+        assertEquals(100, cache.getAccount("AC-1").balance());
+        cache.getAccount("AC-1");
+        assertEquals(1, loads.get(), "The abandoned write no longer blocks caching the load");
+    }
+
+    @Test
+    public void testLoadStartedBeforeInvalidationIsNotCached() throws SQLException {
+        duringLoad = () -> cache.invalidateAccount("AC-1");
+        cache.getAccount("AC-1");
+        duringLoad = () -> { };
+        cache.getAccount("AC-1");
+        cache.getAccount("AC-1");
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getStats().staleLoadsRejected());
+    }
+
+    @Test
+    public void testStripedWriteInvalidatesInsteadOfPublishing() throws SQLException {
+        cache.getAccount("AC-1");
+
+        cache.publish(stage(state("AC-1", 1, 150, true)));
+        AccountState reloaded = cache.getAccount("AC-1");
+
+        assertEquals(100, reloaded.balance(), "Striped totals are re-read rather than taken from the writer");
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedAccountIsEvicted() throws SQLException {
+        cache.getAccount("AC-1");
+        cache.getAccount("AC-2");
+        cache.getAccount("AC-3");
+        cache.getAccount("AC-1");
+        cache.getAccount("AC-4");
+
+        AccountCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.evictions());
+        assertEquals(3, stats.accountEntries());
+
+        cache.getAccount("AC-1");
+        cache.getAccount("AC-2");
+        assertEquals(5, loads.get(), "Only the evicted AC-2 is reloaded");
+    }
+
+    @Test
+    public void testLoadStartedBeforeEvictionIsNotCached() throws SQLException {
+        rows.put("AC-5", state("AC-5", 3, 500, false));
+        cache.getAccount("AC-1");
+        cache.getAccount("AC-2");
+        cache.getAccount("AC-3");
+        duringLoad = () -> {
+            duringLoad = () -> { };
+            try {
+                cache.getAccount("AC-5");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        cache.getAccount("AC-4");
+        assertEquals(1, cache.getStats().evictions());
+        assertEquals(1, cache.getStats().staleLoadsRejected());
+
+        cache.getAccount("AC-4");
+        cache.getAccount("AC-4");
+        assertEquals(6, loads.get(), "The second load of AC-4 is cached");
+    }
+
+    @Test
+    public void testListenersHearPublishesAndInvalidations() throws SQLException {
+        List<Collection<String>> accountChanges = new ArrayList<>();
+        List<Integer> customerChanges = new ArrayList<>();
+        cache.addChangeListener(new AccountCache.ChangeListener() {
+            @Override
+            public void accountsChanged(Collection<String> accountNumbers) {
+                accountChanges.add(List.copyOf(accountNumbers));
+            }
+
+            @Override
+            public void customerChanged(int customerId) {
+                customerChanges.add(customerId);
+            }
+        });
+        cache.getAccount("AC-3");
+
+        cache.publish(stage(state("AC-2", 1, 50, false), state("AC-1", 1, 250, false)));
+        cache.invalidateAccount("AC-3");
+        cache.invalidateCustomer(3);
+        cache.historyAppended(List.of("AC-4"));
+
+        assertEquals(List.of(List.of("AC-1", "AC-2"), List.of("AC-3"), List.of("AC-4")), accountChanges);
+        assertEquals(List.of(3), customerChanges);
+        assertTrue(recordedWrites.containsAll(List.of(1, 2, 3, "AC-1", "AC-2", "AC-3", "AC-4")),
+                "Writes are recorded for read-your-writes routing: " + recordedWrites);
+    }
+
+    @Test
+    public void testInvalidateCustomerAccountsDropsOwnedAccounts() throws SQLException {
+        cache.getCustomerAccounts(1);
+        cache.getAccount("AC-3");
+
+        cache.invalidateCustomerAccounts(1);
+        cache.getAccount("AC-1");
+        cache.getAccount("AC-3");
+        cache.getCustomerAccounts(1);
+
+        assertEquals(4, loads.get(), "AC-1 and customer 1 are reloaded, AC-3 is not");
+    }
+}
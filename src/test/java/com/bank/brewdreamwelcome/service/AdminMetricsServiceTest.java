@@ -0,0 +1,108 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.Money;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AdminMetricsService's TTL cache and query coalescing.
+ * The database loader is replaced by one that counts its calls.
+ */
+public class AdminMetricsServiceTest {
+
+    private static final long TTL = TimeUnit.SECONDS.toNanos(15);
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private AdminMetricsService.Overview overview(long pending) {
+        return new AdminMetricsService.Overview(10, pending, Money.parse("100"), 12, 11, 3, Instant.now());
+    }
+
+    @Test
+    public void testOverviewIsCachedForTheTtl() {
+        AdminMetricsService service = new AdminMetricsService(
+                () -> overview(loads.incrementAndGet()), now::get, TTL);
+
+        assertEquals(1, service.getPendingApprovalsCount());
+        now.addAndGet(TTL - 1);
+        assertEquals(1, service.getPendingApprovalsCount());
+        now.addAndGet(1);
+        assertEquals(2, service.getPendingApprovalsCount());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testInvalidateForcesAReload() {
+        AdminMetricsService service = new AdminMetricsService(
+                () -> overview(loads.incrementAndGet()), now::get, TTL);
+
+        service.getOverview();
+        service.invalidate();
+        assertEquals(2, service.getPendingApprovalsCount());
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneQuery() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AdminMetricsService service = new AdminMetricsService(() -> {
+            loads.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return overview(7);
+        }, now::get, TTL);
+
+        int callers = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<AdminMetricsService.Overview>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(service::getOverview));
+            }
+            while (service.getStats().queries() + service.getStats().coalesced() < callers) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            for (Future<AdminMetricsService.Overview> result : results) {
+                assertEquals(7, result.get(5, TimeUnit.SECONDS).pendingApprovals());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(callers - 1, service.getStats().coalesced());
+    }
+
+    @Test
+    public void testFailureFallsBackToLastGoodOverview() {
+        AtomicInteger call = new AtomicInteger();
+        AdminMetricsService service = new AdminMetricsService(() -> {
+            if (call.incrementAndGet() > 1) {
+                throw new SQLException("down");
+            }
+            return overview(4);
+        }, now::get, TTL);
+
+        assertEquals(4, service.getPendingApprovalsCount());
+        now.addAndGet(TTL);
+        assertEquals(4, service.getPendingApprovalsCount());
+        assertEquals(1, service.getStats().failures());
+    }
+}
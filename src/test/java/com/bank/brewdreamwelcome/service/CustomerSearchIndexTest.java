@@ -0,0 +1,95 @@
+package com.bank.brewdreamwelcome.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CustomerSearchIndex, on a detached index filled through the
+ * update hooks.
+ */
+public class CustomerSearchIndexTest {
+
+    private CustomerSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = CustomerSearchIndex.detached();
+        index.upsert(1, "Ayesha Khan", "ayesha.khan@example.com", "100001", "35202-1111111-1");
+        index.upsert(2, "Bilal Ahmed", "bilal@example.com", "100002", "35202-2222222-2");
+        index.upsert(3, "Khalid Shah", "k.shah@example.com", "100003", "35202-3333333-3");
+        index.upsert(4, "Sana Khanum", "sana@khanum.pk", "200004", "61101-4444444-4");
+    }
+
+    private static List<Integer> ids(List<CustomerSearchIndex.Hit> hits) {
+        return hits.stream().map(CustomerSearchIndex.Hit::customerId).toList();
+    }
+
+    @Test
+    public void testSubstringSearchIsCaseInsensitiveAndRanked() {
+        List<CustomerSearchIndex.Hit> hits = index.search("KHAN", 10);
+
+        // "khan" starts a name word and an email word for both 1 and 4
+        assertEquals(List.of(1, 4), ids(hits));
+        assertEquals(hits.get(0).score(), hits.get(1).score(), "Equal scores fall back to ID order");
+    }
+
+    @Test
+    public void testExactIdentifierRanksFirst() {
+        index.upsert(5, "Someone 100003", "x@example.com", "300005", "1");
+
+        assertEquals(3, index.search("100003", 10).get(0).customerId());
+    }
+
+    @Test
+    public void testShortQueriesMatchPrefixes() {
+        assertEquals(List.of(2), ids(index.search("bi", 10)));
+        assertEquals(List.of(1, 2), ids(index.search("a", 10)), "Ayesha, then the word Ahmed");
+        assertTrue(ids(index.search("s", 10)).containsAll(List.of(3, 4)), "Second name word and first name");
+    }
+
+    @Test
+    public void testTrigramFalsePositivesAreFiltered() {
+        index.upsert(6, "abcxbcd", "none", "0", "0");
+
+        assertTrue(index.search("abcd", 10).isEmpty(), "Has every trigram of abcd but not the string");
+    }
+
+    @Test
+    public void testUpdatesAndDeletesAreVisible() {
+        index.updateContact(2, "Bilal Qureshi", "bq@example.com");
+        assertTrue(index.search("ahmed", 10).isEmpty());
+        assertEquals(List.of(2), ids(index.search("qureshi", 10)));
+        assertEquals(List.of(2), ids(index.search("100002", 10)), "Identifiers survive a contact update");
+
+        index.remove(1);
+        assertEquals(List.of(4), ids(index.search("khan", 10)));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testLimitKeepsTheBestHits() {
+        for (int id = 10; id < 3000; id++) {
+            index.upsert(id, "Customer " + id, "c" + id + "@example.com", String.valueOf(400000 + id), "x");
+        }
+        List<CustomerSearchIndex.Hit> hits = index.search("customer", 5);
+
+        assertEquals(List.of(10, 11, 12, 13, 14), ids(hits));
+    }
+
+    @Test
+    public void testCompactionKeepsResults() {
+        for (int round = 0; round < 3; round++) {
+            for (int id = 10; id < 2000; id++) {
+                index.upsert(id, "Round " + round + " Person", "p" + id + "@example.com", "5" + id, "x");
+            }
+        }
+        assertEquals(1994, index.size());
+        assertEquals(1990, index.search("round 2", 5000).size());
+        assertTrue(index.search("round 1", 10).isEmpty());
+        assertEquals(List.of(1), ids(index.search("ayesha", 10)));
+    }
+}
@@ -0,0 +1,117 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.Money;
+import com.bank.brewdreamwelcome.repository.TransactionRepository.HistoryQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CustomerSnapshotService's caching and invalidation.
+ * The database loader is replaced by one that counts its calls.
+ */
+public class CustomerSnapshotServiceTest {
+
+    private final AtomicLong now = new AtomicLong(
+            LocalDateTime.of(2024, 3, 1, 12, 0).toInstant(ZoneOffset.UTC).toEpochMilli());
+    private final AtomicInteger loads = new AtomicInteger();
+    private Runnable duringLoad = () -> { };
+    private CustomerSnapshotService service;
+
+    @BeforeEach
+    public void setUp() {
+        service = new CustomerSnapshotService(this::load, now::get, ZoneOffset.UTC, 2);
+    }
+
+    private CustomerSnapshotService.Snapshot load(int customerId, int pageSize) {
+        loads.incrementAndGet();
+        duringLoad.run();
+        List<CustomerSnapshotService.AccountSummary> accounts = List.of(
+                new CustomerSnapshotService.AccountSummary("AC-" + customerId, "SAVINGS", "Main", Money.parse("10")));
+        return new CustomerSnapshotService.Snapshot(customerId, "C" + customerId, null, "Name", null,
+                accounts, Money.parse("10"), List.of("SAVINGS"), loads.get(), List.of(), null);
+    }
+
+    @Test
+    public void testRepeatedReadsAreServedFromCache() throws SQLException {
+        CustomerSnapshotService.Snapshot first = service.get(1, 100);
+        CustomerSnapshotService.Snapshot second = service.get(1, 100);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, service.getStats().hits());
+    }
+
+    @Test
+    public void testCommitOnOwnAccountInvalidates() throws SQLException {
+        service.get(1, 100);
+        service.get(2, 100);
+
+        service.invalidateAccounts(List.of("AC-1"));
+        service.get(1, 100);
+        service.get(2, 100);
+
+        assertEquals(3, loads.get(), "Only customer 1 is reloaded");
+    }
+
+    @Test
+    public void testCommitDuringLoadIsNotCached() throws SQLException {
+        duringLoad = () -> service.invalidateAccounts(List.of("AC-1"));
+        service.get(1, 100);
+        duringLoad = () -> { };
+        service.get(1, 100);
+        service.get(1, 100);
+
+        assertEquals(2, loads.get());
+        assertEquals(1, service.getStats().staleLoadsRejected());
+    }
+
+    @Test
+    public void testCustomerChangeAndPageSizeReload() throws SQLException {
+        service.get(1, 100);
+        service.invalidate(1);
+        service.get(1, 100);
+        service.get(1, 50);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testSnapshotExpiresAtMidnight() throws SQLException {
+        service.get(1, 100);
+        now.addAndGet(12 * 3_600_000L);
+        service.get(1, 100);
+
+        assertEquals(2, loads.get(), "Today's count must not survive the rollover");
+    }
+
+    @Test
+    public void testLeastRecentlyUsedCustomerIsEvicted() throws SQLException {
+        service.get(1, 100);
+        service.get(2, 100);
+        service.get(1, 100);
+        service.get(3, 100);
+        service.get(1, 100);
+        service.get(2, 100);
+
+        assertEquals(4, loads.get());
+        assertEquals(2, service.getStats().entries());
+    }
+
+    @Test
+    public void testQueryBindsEveryPlaceholder() {
+        HistoryQuery query = CustomerSnapshotService.snapshotQuery(7, 101);
+        long placeholders = query.sql().chars().filter(c -> c == '?').count();
+
+        assertEquals(placeholders, query.params().size());
+        assertEquals(7, query.params().get(0));
+    }
+}
@@ -0,0 +1,176 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.Money;
+import com.bank.brewdreamwelcome.service.GroupCommitLedgerWriter.TransferIntent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GroupCommitLedgerWriter's batching and per-intent replay.
+ * The database transaction is replaced by an applier that records each group
+ * and can be told to fail whole groups or single intents.
+ */
+public class GroupCommitLedgerWriterTest {
+
+    private final List<List<String>> groups = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstGroupStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstGroup = new CountDownLatch(1);
+    private volatile boolean holdFirstGroup;
+    private volatile boolean failGroups;
+    private final Map<String, SQLException> singleFailures = new HashMap<>();
+    private GroupCommitLedgerWriter writer;
+
+    private Map<TransferIntent, Boolean> apply(List<TransferIntent> group) throws SQLException {
+        List<String> sources = new ArrayList<>();
+        group.forEach(intent -> sources.add(intent.fromAcc()));
+        groups.add(sources);
+        if (holdFirstGroup && groups.size() == 1) {
+            firstGroupStarted.countDown();
+            try {
+                releaseFirstGroup.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failGroups && group.size() > 1) {
+            throw new SQLException("Deadlock found when trying to get lock", "40001", 1213);
+        }
+        if (group.size() == 1 && singleFailures.containsKey(group.get(0).fromAcc())) {
+            throw singleFailures.get(group.get(0).fromAcc());
+        }
+        Map<TransferIntent, Boolean> outcomes = new HashMap<>();
+        // Transfers from REJECT-* break a business rule, everything else is accepted
+        group.forEach(intent -> outcomes.put(intent, !intent.fromAcc().startsWith("REJECT")));
+        return outcomes;
+    }
+
+    private CompletableFuture<Boolean> submit(String fromAcc) {
+        return writer.submit(fromAcc, "AC-TO", Money.parse("10"), "Transfer", null);
+    }
+
+    private static boolean await(CompletableFuture<Boolean> result) throws Exception {
+        return result.get(5, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        releaseFirstGroup.countDown();
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testQueuedIntentsShareOneGroup() throws Exception {
+        holdFirstGroup = true;
+        writer = new GroupCommitLedgerWriter(this::apply, 16, 3, 1_000);
+
+        CompletableFuture<Boolean> first = submit("AC-1");
+        assertTrue(firstGroupStarted.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<Boolean>> queued = new ArrayList<>();
+        for (int i = 2; i <= 5; i++) {
+            queued.add(submit("AC-" + i));
+        }
+        releaseFirstGroup.countDown();
+
+        assertTrue(await(first));
+        for (CompletableFuture<Boolean> result : queued) {
+            assertTrue(await(result));
+        }
+        assertEquals(List.of(List.of("AC-1"), List.of("AC-2", "AC-3", "AC-4"), List.of("AC-5")), groups,
+                "Groups keep arrival order and stop at the maximum batch size");
+
+        GroupCommitLedgerWriter.Metrics metrics = writer.getMetrics();
+        assertEquals(3, metrics.groupsCommitted());
+        assertEquals(5, metrics.intentsProcessed());
+        assertEquals(3, metrics.maxBatchSizeSeen());
+    }
+
+    @Test
+    public void testRejectedIntentDoesNotFailItsGroup() throws Exception {
+        holdFirstGroup = true;
+        writer = new GroupCommitLedgerWriter(this::apply, 16, 8, 1_000);
+
+        CompletableFuture<Boolean> first = submit("AC-1");
+        assertTrue(firstGroupStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> rejected = submit("REJECT-1");
+        CompletableFuture<Boolean> accepted = submit("AC-2");
+        releaseFirstGroup.countDown();
+
+        assertTrue(await(first));
+        assertFalse(await(rejected));
+        assertTrue(await(accepted));
+        assertEquals(List.of("REJECT-1", "AC-2"), groups.get(1));
+    }
+
+    @Test
+    public void testFailedGroupIsReplayedOneIntentAtATime() throws Exception {
+        holdFirstGroup = true;
+        failGroups = true;
+        SQLException broken = new SQLException("Data truncation", "22001", 1406);
+        singleFailures.put("AC-BROKEN", broken);
+        writer = new GroupCommitLedgerWriter(this::apply, 16, 8, 1_000);
+
+        CompletableFuture<Boolean> first = submit("AC-1");
+        assertTrue(firstGroupStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> ok = submit("AC-2");
+        CompletableFuture<Boolean> failing = submit("AC-BROKEN");
+        CompletableFuture<Boolean> rejected = submit("REJECT-1");
+        releaseFirstGroup.countDown();
+
+        assertTrue(await(first));
+        assertTrue(await(ok), "Neighbours of a bad intent still commit");
+        assertFalse(await(rejected));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> await(failing));
+        assertSame(broken, error.getCause(), "A database error is not reported as a refusal");
+
+        assertEquals(List.of(List.of("AC-1"), List.of("AC-2", "AC-BROKEN", "REJECT-1"),
+                List.of("AC-2"), List.of("AC-BROKEN"), List.of("REJECT-1")), groups);
+        assertEquals(3, writer.getMetrics().groupsCommitted(), "Only the successful replays count as groups");
+    }
+
+    @Test
+    public void testDuplicateKeyOnReplayCountsAsPosted() throws Exception {
+        holdFirstGroup = true;
+        failGroups = true;
+        singleFailures.put("AC-POSTED", new SQLIntegrityConstraintViolationException(
+                "Duplicate entry 'abc' for key 'transactions.idempotency_key'", "23000", 1062));
+        writer = new GroupCommitLedgerWriter(this::apply, 16, 8, 1_000);
+
+        CompletableFuture<Boolean> first = submit("AC-1");
+        assertTrue(firstGroupStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> posted = submit("AC-POSTED");
+        CompletableFuture<Boolean> other = submit("AC-2");
+        releaseFirstGroup.countDown();
+
+        assertTrue(await(first));
+        assertTrue(await(posted), "An intent whose group already committed is not failed by the replay");
+        assertTrue(await(other));
+    }
+
+    @Test
+    public void testCloseDrainsQueueAndRejectsNewWork() throws Exception {
+        writer = new GroupCommitLedgerWriter(this::apply, 16, 8, 1_000);
+        CompletableFuture<Boolean> queued = submit("AC-1");
+
+        writer.close();
+
+        assertTrue(await(queued));
+        assertThrows(RejectedExecutionException.class, () -> submit("AC-2"));
+    }
+}
@@ -0,0 +1,178 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IntradayMetrics.
+ * Uses a fixed in-memory source and a manual clock in place of the database.
+ */
+public class IntradayMetricsTest {
+
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+
+    private final AtomicLong now = new AtomicLong(
+            LocalDateTime.of(2024, 3, 1, 12, 0).toInstant(ZoneOffset.UTC).toEpochMilli());
+    private FakeSource source;
+    private IntradayMetrics metrics;
+
+    private static final class FakeSource implements IntradayMetrics.Source {
+        IntradayMetrics.Totals totals = new IntradayMetrics.Totals(0, 0, 0, 0, 0);
+        final Map<String, Integer> owners = Map.of("AC-1", 1, "AC-2", 1, "AC-3", 2);
+        long customerCount;
+        Runnable duringLoad = () -> { };
+
+        @Override
+        public IntradayMetrics.Totals load() {
+            duringLoad.run();
+            return totals;
+        }
+
+        @Override
+        public IntradayMetrics.CustomerDay customerToday(int customerId) {
+            Set<String> accounts = new HashSet<>();
+            owners.forEach((account, owner) -> {
+                if (owner == customerId) {
+                    accounts.add(account);
+                }
+            });
+            return new IntradayMetrics.CustomerDay(customerCount, accounts);
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        source = new FakeSource();
+        metrics = new IntradayMetrics(source, now::get, ZONE);
+    }
+
+    @Test
+    public void testSeedsFromSource() {
+        source.totals = new IntradayMetrics.Totals(7, 5_000_000, 90_000_000, 12, 10);
+        source.duringLoad = () -> fail("A read must not load from the database");
+
+        assertFalse(metrics.isSeeded());
+        assertEquals(0, metrics.getTransactionsTodayCount(), "Unseeded reads return what was recorded so far");
+
+        source.duringLoad = () -> { };
+        assertTrue(metrics.reconcile(true));
+        assertTrue(metrics.isSeeded());
+        assertEquals(7, metrics.getTransactionsTodayCount());
+        assertEquals(Money.parse("500"), metrics.getTodayNetFlow());
+        assertEquals(Money.parse("9000"), metrics.getTotalBalance());
+        assertEquals(12, metrics.getTotalAccounts());
+        assertEquals(10, metrics.getTotalActiveAccounts());
+    }
+
+    @Test
+    public void testCommittedOperationsMoveTheFigures() {
+        metrics.reconcile(true);
+        metrics.recordTransaction("DEPOSIT", null, "AC-1", Money.parse("100"));
+        metrics.recordTransaction("WITHDRAWAL", "AC-1", null, Money.parse("30"));
+        metrics.recordTransaction("TRANSFER", "AC-1", "AC-3", Money.parse("20"));
+        metrics.recordTransaction("ADJUSTMENT", "AC-3", null, Money.parse("5"));
+        metrics.recordAccountOpened(1, "AC-4", Money.parse("50"), true);
+        metrics.recordAccountClosed();
+
+        assertEquals(4, metrics.getTransactionsTodayCount());
+        assertEquals(Money.parse("70"), metrics.getTodayNetFlow(), "Transfers and adjustments are not flow");
+        assertEquals(Money.parse("115"), metrics.getTotalBalance());
+        assertEquals(1, metrics.getTotalAccounts());
+        assertEquals(0, metrics.getTotalActiveAccounts());
+    }
+
+    @Test
+    public void testDailyFiguresResetAtMidnight() {
+        metrics.reconcile(true);
+        metrics.recordTransaction("DEPOSIT", null, "AC-1", Money.parse("100"));
+        metrics.recordAccountOpened(1, "AC-4", Money.ZERO, true);
+
+        now.addAndGet(12 * 3_600_000L); // 00:00 the next day
+
+        assertEquals(0, metrics.getTransactionsTodayCount());
+        assertEquals(Money.ZERO, metrics.getTodayNetFlow());
+        assertEquals(Money.parse("100"), metrics.getTotalBalance(), "Totals survive the rollover");
+        assertEquals(1, metrics.getTotalAccounts());
+    }
+
+    @Test
+    public void testCustomerCountIsSeededThenIncremented() throws SQLException {
+        metrics.reconcile(true);
+        source.customerCount = 3;
+
+        assertEquals(3, metrics.getCustomerTransactionsTodayCount(1));
+        metrics.recordTransaction("TRANSFER", "AC-1", "AC-2", Money.parse("1"));
+        metrics.recordTransaction("TRANSFER", "AC-3", "AC-1", Money.parse("1"));
+        metrics.recordTransaction("DEPOSIT", null, "AC-3", Money.parse("1"));
+
+        assertEquals(5, metrics.getCustomerTransactionsTodayCount(1),
+                "A transfer between two of the customer's accounts counts once");
+
+        metrics.recordAccountOpened(1, "AC-9", Money.ZERO, true);
+        metrics.recordTransaction("DEPOSIT", null, "AC-9", Money.parse("1"));
+        assertEquals(6, metrics.getCustomerTransactionsTodayCount(1), "Accounts opened after the seed count too");
+    }
+
+    @Test
+    public void testReconcileDefersWhenACommitRacesTheRead() {
+        metrics.reconcile(true);
+        metrics.recordTransaction("DEPOSIT", null, "AC-1", Money.parse("100"));
+        source.totals = new IntradayMetrics.Totals(1, 1_000_000, 1_000_000, 0, 0);
+        source.duringLoad = () -> metrics.recordTransaction("DEPOSIT", null, "AC-1", Money.parse("1"));
+
+        assertFalse(metrics.reconcile(false), "A commit landed while the database was read");
+        assertEquals(Money.parse("101"), metrics.getTotalBalance());
+
+        assertTrue(metrics.reconcile(true));
+        assertEquals(Money.parse("100"), metrics.getTotalBalance());
+    }
+
+    @Test
+    public void testReconcileCorrectsDrift() {
+        metrics.reconcile(true);
+        metrics.recordTransaction("DEPOSIT", null, "AC-1", Money.parse("100"));
+        metrics.recordAccountOpened(1, "AC-4", Money.ZERO, true);
+        source.totals = new IntradayMetrics.Totals(1, 1_000_000, 400_000, 0, 0); // e.g. a cascaded delete
+
+        assertTrue(metrics.reconcile(false));
+        assertEquals(Money.parse("40"), metrics.getTotalBalance());
+        assertEquals(0, metrics.getTotalAccounts());
+    }
+
+    @Test
+    public void testConcurrentCommitsAreAllCounted() throws InterruptedException {
+        metrics.reconcile(true);
+        int threads = 8;
+        int perThread = 10_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    metrics.recordTransaction("DEPOSIT", null, "AC-1", Money.parse("0.01"));
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(threads * perThread, metrics.getTransactionsTodayCount());
+        assertEquals(Money.parse("800"), metrics.getTotalBalance());
+    }
+}
@@ -0,0 +1,120 @@
+package com.bank.brewdreamwelcome.service;
+
+import com.bank.brewdreamwelcome.service.TransactionRetryExecutor.Classification;
+import com.bank.brewdreamwelcome.service.TransactionRetryExecutor.IdempotencyKey;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TransactionRetryExecutor.
+ * Uses an in-memory posted-key lookup in place of the transactions table.
+ */
+public class TransactionRetryExecutorTest {
+
+    private static SQLException deadlock() {
+        return new SQLTransactionRollbackException("Deadlock found when trying to get lock", "40001", 1213);
+    }
+
+    @Test
+    public void testClassifiesMySqlLockErrors() {
+        assertEquals(Classification.DEADLOCK, TransactionRetryExecutor.classify(deadlock()));
+        assertEquals(Classification.LOCK_WAIT_TIMEOUT, TransactionRetryExecutor.classify(
+                new SQLException("Lock wait timeout exceeded", "HY000", 1205)));
+        assertEquals(Classification.CONNECTION_LOST, TransactionRetryExecutor.classify(
+                new SQLException("Communications link failure", "08S01", 0)));
+        assertEquals(Classification.DUPLICATE_REQUEST, TransactionRetryExecutor.classify(
+                new SQLIntegrityConstraintViolationException(
+                        "Duplicate entry 'k1' for key 'transactions.idx_tx_idempotency_key'", "23000", 1062)));
+        assertEquals(Classification.NON_RETRYABLE, TransactionRetryExecutor.classify(
+                new SQLException("Unknown column 'foo'", "42S22", 1054)));
+    }
+
+    @Test
+    public void testClassifiesWrappedCause() {
+        SQLException wrapper = new SQLException("Transfer failed", "HY000", 0, deadlock());
+        assertEquals(Classification.DEADLOCK, TransactionRetryExecutor.classify(wrapper));
+    }
+
+    @Test
+    public void testRetriesDeadlockUntilSuccess() throws Exception {
+        TransactionRetryExecutor executor = new TransactionRetryExecutor(5, 1, 2, key -> false);
+        AtomicInteger attempts = new AtomicInteger();
+
+        boolean result = executor.execute("test", IdempotencyKey.of(null), key -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw deadlock();
+            }
+            return true;
+        });
+
+        assertTrue(result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, executor.getStats().retries());
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() {
+        TransactionRetryExecutor executor = new TransactionRetryExecutor(3, 1, 2, key -> false);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(SQLException.class, () -> executor.execute("test", IdempotencyKey.of(null), key -> {
+            attempts.incrementAndGet();
+            throw deadlock();
+        }));
+        assertEquals(3, attempts.get());
+        assertEquals(1, executor.getStats().exhausted());
+    }
+
+    @Test
+    public void testNonRetryableFailsImmediately() {
+        TransactionRetryExecutor executor = new TransactionRetryExecutor(5, 1, 2, key -> false);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(SQLException.class, () -> executor.execute("test", IdempotencyKey.of(null), key -> {
+            attempts.incrementAndGet();
+            throw new SQLException("Unknown column 'foo'", "42S22", 1054);
+        }));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void testClientKeyAlreadyPostedSkipsWork() throws Exception {
+        TransactionRetryExecutor executor = new TransactionRetryExecutor(5, 1, 2, key -> key.equals("req-1"));
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertTrue(executor.execute("test", IdempotencyKey.of("req-1"), key -> {
+            attempts.incrementAndGet();
+            return false;
+        }));
+        assertEquals(0, attempts.get(), "An already posted request must not run again");
+        assertEquals(1, executor.getStats().replays());
+    }
+
+    @Test
+    public void testLostConnectionAfterCommitIsNotRepeated() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        // The first attempt commits, then the connection drops before the reply arrives
+        TransactionRetryExecutor executor = new TransactionRetryExecutor(5, 1, 2, key -> attempts.get() > 0);
+
+        assertTrue(executor.execute("test", IdempotencyKey.of(null), key -> {
+            attempts.incrementAndGet();
+            throw new SQLException("Communications link failure", "08S01", 0);
+        }));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void testGeneratedKeysAreUnique() {
+        IdempotencyKey a = IdempotencyKey.of(null);
+        IdempotencyKey b = IdempotencyKey.of("  ");
+        assertNotEquals(a.value(), b.value());
+        assertFalse(a.clientSupplied());
+        assertThrows(IllegalArgumentException.class, () -> IdempotencyKey.of("x".repeat(65)));
+    }
+}
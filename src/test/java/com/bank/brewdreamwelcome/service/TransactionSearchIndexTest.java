@@ -0,0 +1,83 @@
+package com.bank.brewdreamwelcome.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TransactionSearchIndex, on a detached index filled row by row
+ * as the tail would.
+ */
+public class TransactionSearchIndexTest {
+
+    private static final Instant DAY = Instant.parse("2026-03-01T00:00:00Z");
+
+    private final AtomicLong now = new AtomicLong(DAY.toEpochMilli());
+    private TransactionSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = TransactionSearchIndex.detached(now::get);
+        index.add(1, "ACC1", "ACC2", DAY, "March rent", null, "Rent");
+        index.add(2, null, "ACC1", DAY.plusSeconds(3600), "Salary from Acme Corp", "bonus included", "Salary");
+        index.add(3, "ACC1", null, DAY.plusSeconds(7200), "Groceries at Imtiaz", null, "Groceries");
+        index.add(4, "ACC3", "ACC4", DAY.plusSeconds(10800), "Rent share, flat 4", "April", "Rent");
+    }
+
+    @Test
+    public void testWordsAreDistinctLowerCasedAndBounded() {
+        assertEquals(List.of("rent", "share", "flat"), TransactionSearchIndex.words("Rent share, FLAT 4 rent"));
+        assertEquals(TransactionSearchIndex.MAX_WORD_LENGTH,
+                TransactionSearchIndex.words("x".repeat(100)).get(0).length());
+    }
+
+    @Test
+    public void testAllWordsMustMatchNewestFirst() {
+        assertEquals(List.of(4L, 1L), index.search("RENT", null, null, null, 10));
+        assertEquals(List.of(2L), index.search("acme bonus", null, null, null, 10), "Words may come from different fields");
+        assertTrue(index.search("rent acme", null, null, null, 10).isEmpty());
+        assertEquals(List.of(4L), index.search("rent", null, null, null, 1));
+    }
+
+    @Test
+    public void testAccountScope() {
+        assertEquals(List.of(1L), index.search("rent", List.of("ACC1"), null, null, 10));
+        assertEquals(List.of(4L, 1L), index.search("rent", List.of("ACC2", "ACC3"), null, null, 10));
+        assertTrue(index.search("rent", List.of("UNKNOWN"), null, null, 10).isEmpty());
+
+        // Enough transactions on a word that the account's own list drives the walk
+        for (int id = 5; id < 50; id++) {
+            index.add(id, "ACC9", null, DAY.plusSeconds(20_000 + id), "rent", null, null);
+        }
+        assertEquals(List.of(1L), index.search("rent", List.of("ACC1"), null, null, 10));
+    }
+
+    @Test
+    public void testDateRange() {
+        Instant from = DAY.plusSeconds(3600);
+        Instant until = DAY.plusSeconds(10800);
+
+        assertEquals(List.of(2L), index.search("salary", null, from, until, 10));
+        assertEquals(List.of(3L), index.search("groceries", null, from, until, 10));
+        assertTrue(index.search("rent", null, from, until, 10).isEmpty(), "Rent rows fall on either side");
+        assertEquals(List.of(4L), index.search("rent", null, until, null, 10), "From is inclusive");
+    }
+
+    @Test
+    public void testSkippedIdIsTakenWhenItCommitsLate() {
+        index.add(7, "ACC1", null, DAY.plusSeconds(20_000), "Electricity bill", null, null);
+        assertEquals(2, index.getStats().pendingGaps(), "IDs 5 and 6 may still commit");
+
+        assertTrue(index.add(5, "ACC1", null, DAY.plusSeconds(19_000), "Water bill", null, null));
+        assertFalse(index.add(5, "ACC1", null, DAY.plusSeconds(19_000), "Water bill", null, null));
+        assertFalse(index.add(7, "ACC1", null, DAY.plusSeconds(20_000), "Electricity bill", null, null));
+
+        // The late row ranks as the newest, which is when it became visible
+        assertEquals(List.of(5L, 7L), index.search("bill", null, null, null, 10));
+    }
+}
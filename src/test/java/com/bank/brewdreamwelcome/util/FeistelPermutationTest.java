@@ -0,0 +1,71 @@
+package com.bank.brewdreamwelcome.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FeistelPermutation.
+ * Checks the bijection and key properties the account ID generator relies on.
+ */
+public class FeistelPermutationTest {
+
+    @Test
+    public void testIsBijectionOnNonSquareDomain() {
+        FeistelPermutation permutation = new FeistelPermutation(10007, "test-key");
+        BitSet seen = new BitSet(10007);
+        for (long i = 0; i < 10007; i++) {
+            long image = permutation.permute(i);
+            assertTrue(image >= 0 && image < 10007, "Image out of domain: " + image);
+            assertFalse(seen.get((int) image), "Duplicate image: " + image);
+            seen.set((int) image);
+        }
+        assertEquals(10007, seen.cardinality());
+    }
+
+    @Test
+    public void testSixDigitDomainStaysInRange() {
+        FeistelPermutation permutation = new FeistelPermutation(900000, "test-key");
+        for (long i = 0; i < 2000; i++) {
+            long accountId = 100000 + permutation.permute(i);
+            assertEquals(6, String.valueOf(accountId).length());
+        }
+    }
+
+    @Test
+    public void testIsDeterministicPerKey() {
+        FeistelPermutation first = new FeistelPermutation(900000, "key-a");
+        FeistelPermutation same = new FeistelPermutation(900000, "key-a");
+        FeistelPermutation other = new FeistelPermutation(900000, "key-b");
+
+        int differences = 0;
+        for (long i = 0; i < 100; i++) {
+            assertEquals(first.permute(i), same.permute(i));
+            if (first.permute(i) != other.permute(i)) {
+                differences++;
+            }
+        }
+        assertTrue(differences > 90, "Different keys should give different mappings");
+    }
+
+    @Test
+    public void testConsecutiveInputsAreNotAdjacent() {
+        FeistelPermutation permutation = new FeistelPermutation(900000, "test-key");
+        int adjacent = 0;
+        for (long i = 0; i < 100; i++) {
+            if (Math.abs(permutation.permute(i + 1) - permutation.permute(i)) == 1) {
+                adjacent++;
+            }
+        }
+        assertTrue(adjacent < 5, "Consecutive counters should not map to neighbouring IDs");
+    }
+
+    @Test
+    public void testRejectsOutOfDomainValues() {
+        FeistelPermutation permutation = new FeistelPermutation(100, "test-key");
+        assertThrows(IllegalArgumentException.class, () -> permutation.permute(100));
+        assertThrows(IllegalArgumentException.class, () -> permutation.permute(-1));
+    }
+}
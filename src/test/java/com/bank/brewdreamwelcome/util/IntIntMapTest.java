@@ -0,0 +1,58 @@
+package com.bank.brewdreamwelcome.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IntIntMap and IntList.
+ * Checks the map against HashMap under random puts and removes.
+ */
+public class IntIntMapTest {
+
+    @Test
+    public void testMatchesHashMapUnderRandomOperations() {
+        IntIntMap map = new IntIntMap(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(5000) - 2500;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.getOrDefault(key, -1).intValue(), map.remove(key, -1));
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = -2500; key < 2500; key++) {
+            assertEquals(expected.getOrDefault(key, -1).intValue(), map.get(key, -1), "key " + key);
+        }
+    }
+
+    @Test
+    public void testRejectsReservedKey() {
+        assertThrows(IllegalArgumentException.class, () -> new IntIntMap().put(Integer.MIN_VALUE, 1));
+    }
+
+    @Test
+    public void testRetainAllIntersectsAscendingLists() {
+        IntList a = new IntList();
+        IntList b = new IntList();
+        for (int i = 0; i < 100; i++) {
+            a.add(i * 2);
+            b.add(i * 3);
+        }
+        a.retainAll(b);
+
+        assertEquals(34, a.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(i * 6, a.get(i));
+        }
+    }
+}